@@ -0,0 +1,98 @@
+package com.dmacheese.pccheck.bench;
+
+import com.dmacheese.pccheck.CheckExecutor;
+import com.dmacheese.pccheck.CheckPlan;
+import com.dmacheese.pccheck.CheckResult;
+import com.dmacheese.pccheck.DeviceDriverCheck;
+import com.dmacheese.pccheck.InMemoryRegistryReader;
+import com.dmacheese.pccheck.RegistryRuleChecks;
+import com.dmacheese.pccheck.ResultCache;
+import com.dmacheese.pccheck.SimulatedDeviceEnumerator;
+import com.dmacheese.pccheck.SystemCheckService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the full check list against in-memory registry, device and file backends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckPipelineBenchmark {
+
+    private CheckPlan plan;
+    private InMemoryRegistryReader registry;
+    private SimulatedDeviceEnumerator devices;
+    private SystemCheckService warmService;
+    private RegistryRuleChecks warmRules;
+
+    @Setup
+    public void setUp() {
+        plan = CheckPlan.loadDefault();
+        registry = Fixtures.passingRegistry(plan);
+        devices = Fixtures.devices(64, 40, "1.3.0.10");
+        warmService = newService();
+        warmRules = RegistryRuleChecks.of(warmService);
+        warmRules.evaluate(0);
+    }
+
+    /**
+     * Every registry rule against values already read by the service.
+     */
+    @Benchmark
+    public void evaluateRulesWarm(Blackhole blackhole) {
+        for (int i = 0; i < plan.getRules().size(); i++) {
+            blackhole.consume(warmRules.evaluate(i));
+        }
+    }
+
+    /**
+     * Every registry rule on a fresh service, including the batched registry read.
+     */
+    @Benchmark
+    public void evaluateRulesCold(Blackhole blackhole) {
+        RegistryRuleChecks rules = RegistryRuleChecks.of(newService());
+        for (int i = 0; i < plan.getRules().size(); i++) {
+            blackhole.consume(rules.evaluate(i));
+        }
+    }
+
+    /**
+     * The FTDI device lookup and driver version check.
+     */
+    @Benchmark
+    public CheckResult evaluateFTDIBUS() {
+        return DeviceDriverCheck.of(warmService).evaluate();
+    }
+
+    /**
+     * The whole task list, called inline without the executor, with caching disabled.
+     */
+    @Benchmark
+    public void allTasks(Blackhole blackhole) throws Exception {
+        SystemCheckService service = newService();
+        List<CheckExecutor.Task> tasks = service.createTasks(ResultCache.disabled());
+        for (CheckExecutor.Task task : tasks) {
+            blackhole.consume(task.getCheck().call());
+        }
+    }
+
+    private SystemCheckService newService() {
+        return new SystemCheckService(registry, plan, devices, Fixtures.allFilesPresent());
+    }
+}
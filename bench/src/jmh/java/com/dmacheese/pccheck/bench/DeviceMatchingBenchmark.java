@@ -0,0 +1,95 @@
+package com.dmacheese.pccheck.bench;
+
+import com.dmacheese.pccheck.DeviceQuery;
+import com.dmacheese.pccheck.DeviceRecord;
+import com.dmacheese.pccheck.SimulatedDeviceEnumerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Device lookup over large simulated device lists, with the FT601 as the last device.
+ * The catalog variants look for 32 device models at once, the FT601 listed last.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeviceMatchingBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int deviceCount;
+
+    private SimulatedDeviceEnumerator devices;
+    private SimulatedDeviceEnumerator devicesWithoutTarget;
+    private DeviceQuery hardwareIdQuery;
+    private DeviceQuery nameOnlyQuery;
+    private DeviceQuery allClassesQuery;
+    private DeviceQuery catalogQuery;
+    private DeviceQuery catalogNameOnlyQuery;
+
+    @Setup
+    public void setUp() {
+        devices = Fixtures.devices(deviceCount, deviceCount - 1, "1.3.0.10");
+        devicesWithoutTarget = Fixtures.devices(deviceCount, -1, null);
+        hardwareIdQuery = new DeviceQuery("USB", Fixtures.FTDI_NAME, "USB\\VID_0403&PID_601F");
+        nameOnlyQuery = new DeviceQuery("USB", Collections.emptyList(), Fixtures.FTDI_NAME);
+        allClassesQuery = new DeviceQuery(null, Fixtures.FTDI_NAME, "USB\\VID_0403&PID_601F");
+
+        List<String> hardwareIds = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 31; i++) {
+            hardwareIds.add(String.format("USB\\VID_1D50&PID_%04X", 0x6000 + i));
+            names.add("Bridge Model " + i);
+        }
+        hardwareIds.add("USB\\VID_0403&PID_601F");
+        names.add(Fixtures.FTDI_NAME);
+        catalogQuery = DeviceQuery.anyOf("USB", hardwareIds, names);
+        catalogNameOnlyQuery = DeviceQuery.anyOf("USB", Collections.<String>emptyList(), names);
+    }
+
+    @Benchmark
+    public List<DeviceRecord> hardwareIdHit() {
+        return devices.findAll(hardwareIdQuery);
+    }
+
+    @Benchmark
+    public List<DeviceRecord> hardwareIdMiss() {
+        return devicesWithoutTarget.findAll(hardwareIdQuery);
+    }
+
+    @Benchmark
+    public List<DeviceRecord> nameOnlyHit() {
+        return devices.findAll(nameOnlyQuery);
+    }
+
+    @Benchmark
+    public List<DeviceRecord> allClassesHit() {
+        return devices.findAll(allClassesQuery);
+    }
+
+    @Benchmark
+    public List<DeviceRecord> catalogHit() {
+        return devices.findAll(catalogQuery);
+    }
+
+    @Benchmark
+    public List<DeviceRecord> catalogNameOnlyHit() {
+        return devices.findAll(catalogNameOnlyQuery);
+    }
+}
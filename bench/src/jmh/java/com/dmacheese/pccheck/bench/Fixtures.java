@@ -0,0 +1,110 @@
+package com.dmacheese.pccheck.bench;
+
+import com.dmacheese.pccheck.CheckPlan;
+import com.dmacheese.pccheck.DeviceRecord;
+import com.dmacheese.pccheck.DriverVersion;
+import com.dmacheese.pccheck.FileProbe;
+import com.dmacheese.pccheck.InMemoryRegistryReader;
+import com.dmacheese.pccheck.RegistryRule;
+import com.dmacheese.pccheck.SimulatedDeviceEnumerator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * In-memory backends shared by the benchmarks, so they run without any Windows API.
+ */
+final class Fixtures {
+
+    static final String FTDI_NAME = "FTDI FT601 USB 3.0 Bridge Device";
+    static final String FTDI_HARDWARE_ID = "USB\\VID_0403&PID_601F&REV_0001";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns a registry in which every rule of the plan passes.
+     */
+    static InMemoryRegistryReader passingRegistry(CheckPlan plan) {
+        InMemoryRegistryReader registry = new InMemoryRegistryReader();
+        for (RegistryRule rule : plan.getRules()) {
+            int value = rule.getPassWhen() == RegistryRule.PassWhen.EQUAL ? rule.getExpectedValue()
+                    : rule.getExpectedValue() + 1;
+            registry.putDword(rule.getKeyPath(), rule.getValueName(), value);
+        }
+        registry.putKey("SYSTEM\\CurrentControlSet\\Services\\FTDIBUS3");
+        return registry;
+    }
+
+    /**
+     * Returns an enumerator with {@code count} unrelated USB and PCI devices.
+     * If {@code ftdiIndex} is within range, the FT601 replaces the device at that position.
+     */
+    static SimulatedDeviceEnumerator devices(int count, int ftdiIndex, String driverVersion) {
+        SimulatedDeviceEnumerator enumerator = new SimulatedDeviceEnumerator();
+        for (int i = 0; i < count; i++) {
+            if (i == ftdiIndex) {
+                enumerator.add(ftdi(driverVersion));
+            } else if (i % 2 == 0) {
+                enumerator.add(new DeviceRecord("USB\\VID_046D&PID_C0" + (i % 100) + "\\" + i,
+                        Arrays.asList("USB\\VID_046D&PID_C0" + (i % 100) + "&REV_0100",
+                                "USB\\VID_046D&PID_C0" + (i % 100)),
+                        "USB Input Device " + i, "USB Input Device", "10.0.19041.1"));
+            } else {
+                enumerator.add(new DeviceRecord("PCI\\VEN_8086&DEV_A3" + (i % 100) + "\\" + i,
+                        Collections.singletonList("PCI\\VEN_8086&DEV_A3" + (i % 100)),
+                        null, "Intel(R) PCI Express Root Port #" + i, "10.1.1.42"));
+            }
+        }
+        return enumerator;
+    }
+
+    static DeviceRecord ftdi(String driverVersion) {
+        return new DeviceRecord("USB\\VID_0403&PID_601F\\000000000001",
+                Arrays.asList(FTDI_HARDWARE_ID, "USB\\VID_0403&PID_601F"), null, FTDI_NAME, driverVersion);
+    }
+
+    /**
+     * Returns a file probe that reports every file as present.
+     */
+    static FileProbe allFilesPresent() {
+        return new FileProbe() {
+            @Override
+            public boolean exists(String path) {
+                return true;
+            }
+
+            @Override
+            public long lastModified(String path) {
+                return 1_600_000_000_000L;
+            }
+
+            @Override
+            public long size(String path) {
+                return 1_024L;
+            }
+
+            @Override
+            public long fileVersion(String path) {
+                return DriverVersion.INVALID;
+            }
+        };
+    }
+
+    /**
+     * Returns a stream that discards everything written to it.
+     */
+    static PrintStream nullStream() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+}
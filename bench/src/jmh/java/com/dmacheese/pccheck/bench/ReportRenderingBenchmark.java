@@ -0,0 +1,86 @@
+package com.dmacheese.pccheck.bench;
+
+import com.dmacheese.pccheck.AnsiRenderer;
+import com.dmacheese.pccheck.PlainRenderer;
+import com.dmacheese.pccheck.ReportRenderer;
+import com.dmacheese.pccheck.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a full eight-check report into a discarding stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportRenderingBenchmark {
+
+    private static final String[] NAMES = { "FTDIBUS3 Driver", "Windows Security (Defender OFF)",
+            "HVCI / Core Isolation", "Vulnerable Driver Blocklist", "User Account Control (UAC)",
+            "Kernel DMA Protection / VBS", "Visual C++ Runtimes (x64)", "DirectX End-User Runtimes" };
+
+    private PrintStream originalOut;
+    private PrintStream sink;
+
+    @Setup
+    public void setUp() {
+        originalOut = System.out;
+        sink = Fixtures.nullStream();
+        // Utils.printResult always writes to System.out
+        System.setOut(sink);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    /**
+     * One Utils.printResult call per check, each with its own flush.
+     */
+    @Benchmark
+    public void printResultPerLine() {
+        for (int i = 0; i < NAMES.length; i++) {
+            Utils.printResult(NAMES[i], i % 3 != 0, i % 3 != 0 ? "OK" : "Not Found");
+        }
+    }
+
+    /**
+     * The whole report buffered in a plain renderer and written once.
+     */
+    @Benchmark
+    public void plainRendererReport() {
+        render(new PlainRenderer(sink));
+    }
+
+    /**
+     * The whole report buffered with VT color sequences and written once.
+     */
+    @Benchmark
+    public void ansiRendererReport() {
+        render(new AnsiRenderer(sink));
+    }
+
+    private static void render(ReportRenderer out) {
+        out.color(Utils.Color.Yellow).println("[ CRITICAL CHECKS ]").color(Utils.Color.Default);
+        for (int i = 0; i < NAMES.length; i++) {
+            out.result(NAMES[i], i % 3 != 0, i % 3 != 0 ? "OK" : "Not Found");
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,140 @@
+package com.dmacheese.pccheck.bench;
+
+import com.dmacheese.pccheck.Backend;
+import com.dmacheese.pccheck.CheckPlan;
+import com.dmacheese.pccheck.CommandLineOptions;
+import com.dmacheese.pccheck.ConsoleRunner;
+import com.dmacheese.pccheck.DeviceCatalog;
+import com.dmacheese.pccheck.FixService;
+import com.dmacheese.pccheck.ResultCache;
+import com.dmacheese.pccheck.SimulatedBackend;
+import com.dmacheese.pccheck.SystemCheckService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Drives the full interactive {@link ConsoleRunner} end to end against {@link SimulatedBackend}
+ * under scenarios a real machine rarely produces on demand: tens of thousands of devices, slow or
+ * inaccessible registry keys, failing enumeration and checks running into their timeout.
+ * Prints one row per scenario with the wall time and the backend calls the run made.
+ * <p>
+ * Arguments select scenarios by name substring; with none, every scenario runs.
+ */
+public final class ScaleHarness {
+
+    private static final long MICROS = 1_000L;
+    private static final long MILLIS = 1_000_000L;
+
+    private ScaleHarness() {
+    }
+
+    public static void main(String[] args) {
+        CheckPlan plan = CheckPlan.loadDefault();
+        DeviceCatalog catalog = DeviceCatalog.loadDefault();
+        String uacKey = plan.getRules().get(plan.indexOf(SystemCheckService.RULE_UAC)).getKeyPath();
+
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new Scenario("baseline-100", () -> new SimulatedBackend().devices(100)));
+        scenarios.add(new Scenario("devices-1k", () -> new SimulatedBackend().devices(1_000)));
+        scenarios.add(new Scenario("devices-10k", () -> new SimulatedBackend().devices(10_000)));
+        scenarios.add(new Scenario("devices-50k", () -> new SimulatedBackend().devices(50_000)));
+        scenarios.add(new Scenario("devices-50k-no-target", () -> new SimulatedBackend().devices(50_000).noTarget()));
+        scenarios.add(new Scenario("devices-10k-target-first",
+                () -> new SimulatedBackend().devices(10_000).target(0, "1.3.0.10")));
+        scenarios.add(new Scenario("devices-10k-slow-properties",
+                () -> new SimulatedBackend().devices(10_000).propertyReadLatency(20 * MICROS)));
+        scenarios.add(new Scenario("old-driver", () -> new SimulatedBackend().target(50, "1.3.0.4")));
+        scenarios.add(new Scenario("enumeration-error",
+                () -> new SimulatedBackend().enumerationError(13)));
+        scenarios.add(new Scenario("registry-slow",
+                () -> new SimulatedBackend().registryLatency(2 * MILLIS, 500 * MICROS)));
+        scenarios.add(new Scenario("registry-timeout",
+                () -> new SimulatedBackend().registryLatency(1_500 * MILLIS, 0), "--timeout", "1"));
+        scenarios.add(new Scenario("rules-failing-fix-denied",
+                () -> new SimulatedBackend().registryOutcomes(1.0, 0).deny(uacKey).input("y")));
+        scenarios.add(new Scenario("rules-missing-as-user",
+                () -> new SimulatedBackend().registryOutcomes(0, 1.0).asUser().input("", "y")));
+        scenarios.add(new Scenario("files-missing", () -> new SimulatedBackend().missingFiles()));
+        scenarios.add(new Scenario("legacy-console-10k",
+                () -> new SimulatedBackend().devices(10_000).terminal(false)));
+
+        System.out.println(String.format(Locale.ROOT, "%-28s %-7s %9s %6s %5s %10s %10s %6s %6s %6s",
+                "scenario", "verdict", "wall ms", "failed", "enum", "visited", "props", "opens", "reads", "colors"));
+        for (Scenario scenario : scenarios) {
+            if (selected(scenario.name, args)) {
+                System.out.println(scenario.run(plan, catalog));
+            }
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static boolean selected(String name, String[] args) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (name.contains(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Scenario {
+
+        private final String name;
+        private final Supplier<SimulatedBackend> simulation;
+        private final String[] options;
+
+        Scenario(String name, Supplier<SimulatedBackend> simulation, String... options) {
+            this.name = name;
+            this.simulation = simulation;
+            this.options = options;
+        }
+
+        String run(CheckPlan plan, DeviceCatalog catalog) {
+            SimulatedBackend simulation = this.simulation.get();
+            Backend backend = simulation.build(plan);
+            CommandLineOptions parsed = CommandLineOptions.parse(options);
+
+            long start = System.nanoTime();
+            try (SystemCheckService checkService = new SystemCheckService(backend, plan, catalog)) {
+                FixService fixService = new FixService(backend.getRegistryWriter(), backend.getConsole());
+                new ConsoleRunner(checkService, fixService, backend.getConsole(), backend.getPrivileges())
+                        .run(parsed, ResultCache.disabled());
+            }
+            long wallNanos = System.nanoTime() - start;
+
+            String output = simulation.getConsole().getOutput();
+            return String.format(Locale.ROOT, "%-28s %-7s %9.1f %6d %5d %10d %10d %6d %6d %6d", name,
+                    verdict(output), wallNanos / 1e6, countFailed(output),
+                    simulation.getDevices().getEnumerationCount(), simulation.getDevices().getDevicesVisited(),
+                    simulation.getDevices().getPropertyReads(), simulation.getRegistry().getKeyOpenCount(),
+                    simulation.getRegistry().getValueReadCount(), simulation.getConsole().getColorChanges());
+        }
+
+        private static String verdict(String output) {
+            if (output.contains("[PASS] SYSTEM")) {
+                return "PASS";
+            }
+            if (output.contains("[WARN] SYSTEM")) {
+                return "WARN";
+            }
+            return output.contains("[FAIL] CRITICAL") ? "FAIL" : "?";
+        }
+
+        private static int countFailed(String output) {
+            int count = 0;
+            for (String line : output.split("\\R")) {
+                if (line.startsWith("[FAIL] ")) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.dmacheese.pccheck.bench;
+
+import com.dmacheese.pccheck.CheckPlan;
+import com.dmacheese.pccheck.CheckResult;
+import com.dmacheese.pccheck.DeviceDriverCheck;
+import com.dmacheese.pccheck.InMemoryRegistryReader;
+import com.dmacheese.pccheck.SimulatedDeviceEnumerator;
+import com.dmacheese.pccheck.SystemCheckService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FTDI driver version matching with the device as the only one present,
+ * so the cost is dominated by the version comparison and result creation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VersionMatchingBenchmark {
+
+    @Param({ "1.3.0.10", "1.3.0.8", "2.12.36.4" })
+    public String driverVersion;
+
+    private DeviceDriverCheck check;
+
+    @Setup
+    public void setUp() {
+        CheckPlan plan = CheckPlan.loadDefault();
+        InMemoryRegistryReader registry = Fixtures.passingRegistry(plan);
+        SimulatedDeviceEnumerator devices = new SimulatedDeviceEnumerator().add(Fixtures.ftdi(driverVersion));
+        check = DeviceDriverCheck.of(new SystemCheckService(registry, plan, devices, Fixtures.allFilesPresent()));
+    }
+
+    @Benchmark
+    public CheckResult evaluateFTDIBUS() {
+        return check.evaluate();
+    }
+}
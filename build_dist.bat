@@ -5,6 +5,7 @@ set "PATH=%JAVA_HOME%\bin;%PATH%"
 set "DIST_DIR=%APP_DIR%dist"
 set "LIBS_DIR=%APP_DIR%libs"
 set "SRC_DIR=%APP_DIR%src\main\java"
+set "RES_DIR=%APP_DIR%src\main\resources"
 
 echo [1/4] Preparing 'dist' directory...
 if exist "%DIST_DIR%" rmdir /s /q "%DIST_DIR%"
@@ -19,6 +20,15 @@ if not exist "bin" mkdir "bin"
 dir /s /B "%SRC_DIR%\*.java" > sources.txt
 echo [INFO] Compiling for Java 8 compatibility...
 javac --release 8 -d bin -cp "%LIBS_DIR%\*" @sources.txt
+if %ERRORLEVEL% NEQ 0 (
+    echo.
+    echo [ERROR] Compilation Failed! pc_check.jar was not packed.
+    del sources.txt
+    rmdir /s /q bin
+    pause
+    exit /b 1
+)
+xcopy /E /Y /Q "%RES_DIR%\*" bin\ > nul
 
 echo Warning: Packing minimal JAR (Main-Class manifest)...
 echo Main-Class: com.dmacheese.pccheck.Main > manifest.txt
@@ -33,11 +43,20 @@ echo @echo off > "%RUN_BAT%"
 echo echo PC Check - Distribution Mode >> "%RUN_BAT%"
 echo echo. >> "%RUN_BAT%"
 echo echo [INFO] Checking Java Version... >> "%RUN_BAT%"
-echo java -version >> "%RUN_BAT%"
+echo java -version 2^> "%%TEMP%%\pccheck-java-version.txt" >> "%RUN_BAT%"
+echo type "%%TEMP%%\pccheck-java-version.txt" >> "%RUN_BAT%"
+echo set "JAVA_MAJOR=0" >> "%RUN_BAT%"
+echo for /f "usebackq tokens=3" %%%%v in (`findstr /c:" version " "%%TEMP%%\pccheck-java-version.txt"`) do for /f "delims=." %%%%m in ("%%%%~v") do set "JAVA_MAJOR=%%%%m" >> "%RUN_BAT%"
 echo echo. >> "%RUN_BAT%"
 echo echo [INFO] Starting Application... >> "%RUN_BAT%"
 echo echo --------------------------------------------------- >> "%RUN_BAT%"
-echo java -jar pc_check.jar >> "%RUN_BAT%"
+REM JDK 19+ writes a class data sharing archive for this machine's JVM on the first run and maps it on
+REM later runs, recreating it when Java is updated. Older JVMs keep their default archive.
+echo set "JAVA_OPTS=" >> "%RUN_BAT%"
+echo set "CDS_DIR=%%LOCALAPPDATA%%\DMACHEESE\pccheck" >> "%RUN_BAT%"
+echo if %%JAVA_MAJOR%% GEQ 19 if not exist "%%CDS_DIR%%" mkdir "%%CDS_DIR%%" >> "%RUN_BAT%"
+echo if %%JAVA_MAJOR%% GEQ 19 set "JAVA_OPTS=-XX:+AutoCreateSharedArchive "-XX:SharedArchiveFile=%%CDS_DIR%%\pc_check.jsa"" >> "%RUN_BAT%"
+echo java %%JAVA_OPTS%% -jar pc_check.jar %%* >> "%RUN_BAT%"
 echo echo --------------------------------------------------- >> "%RUN_BAT%"
 echo echo. >> "%RUN_BAT%"
 echo if %%ERRORLEVEL%% NEQ 0 ( >> "%RUN_BAT%"
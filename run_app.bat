@@ -4,6 +4,7 @@ set "JAVA_HOME=%APP_DIR%jdk-17.0.2"
 set "PATH=%JAVA_HOME%\bin;%PATH%"
 set "LIBS_DIR=%APP_DIR%libs"
 set "SRC_DIR=%APP_DIR%src\main\java"
+set "RES_DIR=%APP_DIR%src\main\resources"
 set "OUT_DIR=%APP_DIR%bin"
 
 echo Using JAVA_HOME=%JAVA_HOME%
@@ -26,14 +27,17 @@ if not exist "%LIBS_DIR%\jna-platform-5.13.0.jar" (
 echo [2/3] Compiling...
 dir /s /B "%SRC_DIR%\*.java" > sources.txt
 javac -d "%OUT_DIR%" -cp "%LIBS_DIR%\jna-5.13.0.jar;%LIBS_DIR%\jna-platform-5.13.0.jar" @sources.txt
+REM Checked before del and xcopy, which reset ERRORLEVEL
+set "JAVAC_EXIT=%ERRORLEVEL%"
 del sources.txt
 
-if %ERRORLEVEL% NEQ 0 (
+if %JAVAC_EXIT% NEQ 0 (
     echo.
     echo [ERROR] Compilation Failed!
     pause
-    exit /b %ERRORLEVEL%
+    exit /b %JAVAC_EXIT%
 )
+xcopy /E /Y /Q "%RES_DIR%\*" "%OUT_DIR%\" > nul
 
 echo [3/3] Running Application...
 echo ======================================================
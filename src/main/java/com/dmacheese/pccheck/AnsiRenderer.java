@@ -0,0 +1,68 @@
+package com.dmacheese.pccheck;
+
+import java.io.PrintStream;
+
+/**
+ * Renderer expressing colors as ANSI/VT escape sequences, so a whole report
+ * is a single write with no native calls in between.
+ */
+public class AnsiRenderer extends ReportRenderer implements CursorControl {
+
+    private static final String ESC = "\u001B[";
+
+    private Utils.Color current = Utils.Color.Default;
+
+    public AnsiRenderer(PrintStream out) {
+        super(out);
+    }
+
+    @Override
+    public ReportRenderer color(Utils.Color color) {
+        if (color == current) {
+            return this;
+        }
+        current = color;
+
+        switch (color) {
+            case Red:
+                buffer.append(ESC).append("91m");
+                break;
+            case Green:
+                buffer.append(ESC).append("92m");
+                break;
+            case Yellow:
+                buffer.append(ESC).append("93m");
+                break;
+            case White:
+                buffer.append(ESC).append("97m");
+                break;
+            case Default:
+            default:
+                buffer.append(ESC).append("0m");
+                break;
+        }
+        return this;
+    }
+
+    @Override
+    public CursorControl cursorUp(int lines) {
+        if (lines > 0) {
+            buffer.append(ESC).append(lines).append('F');
+        }
+        return this;
+    }
+
+    @Override
+    public CursorControl cursorDown(int lines) {
+        if (lines > 0) {
+            buffer.append(ESC).append(lines).append('E');
+        }
+        return this;
+    }
+
+    @Override
+    public CursorControl clearLine() {
+        buffer.append(ESC).append("2K");
+        return this;
+    }
+}
@@ -0,0 +1,108 @@
+package com.dmacheese.pccheck;
+
+import java.util.function.Supplier;
+
+/**
+ * Everything the checks, fixes and runners need from the operating system: registry reads and
+ * writes, device enumeration, file probes, the console and the process's privileges.
+ * {@link #windows(boolean)} returns the live system; {@link SimulatedBackend} builds a
+ * deterministic one that runs anywhere.
+ */
+public final class Backend {
+
+    private final Supplier<RegistryReader> registryReader;
+    private final Supplier<RegistryWriter> registryWriter;
+    private final Supplier<DeviceEnumerator> deviceEnumerator;
+    private final Supplier<FileProbe> fileProbe;
+    private final Supplier<ConsoleBackend> console;
+    private final Supplier<PrivilegeProbe> privileges;
+
+    public Backend(RegistryReader registryReader, RegistryWriter registryWriter, DeviceEnumerator deviceEnumerator,
+            FileProbe fileProbe, ConsoleBackend console, PrivilegeProbe privileges) {
+        this(() -> registryReader, () -> registryWriter, () -> deviceEnumerator, () -> fileProbe, () -> console,
+                () -> privileges);
+    }
+
+    private Backend(Supplier<RegistryReader> registryReader, Supplier<RegistryWriter> registryWriter,
+            Supplier<DeviceEnumerator> deviceEnumerator, Supplier<FileProbe> fileProbe,
+            Supplier<ConsoleBackend> console, Supplier<PrivilegeProbe> privileges) {
+        this.registryReader = registryReader;
+        this.registryWriter = registryWriter;
+        this.deviceEnumerator = deviceEnumerator;
+        this.fileProbe = fileProbe;
+        this.console = console;
+        this.privileges = privileges;
+    }
+
+    /**
+     * Returns the live Windows backend. Each component is created on first use, so a run whose
+     * selected checks never enumerate devices never loads the SetupAPI classes, and so on.
+     *
+     * @param fullDeviceScan true to walk every device class instead of only USB devices
+     */
+    public static Backend windows(boolean fullDeviceScan) {
+        // Lambdas rather than constructor references, which would load each class when linked
+        return new Backend(lazy(() -> new WindowsRegistryReader()), lazy(() -> new WindowsRegistryWriter()),
+                lazy(() -> new SetupApiDeviceEnumerator(fullDeviceScan)), lazy(() -> new LocalFileProbe()),
+                lazy(() -> WindowsConsoleBackend.INSTANCE), lazy(() -> new WindowsPrivilegeProbe()));
+    }
+
+    /**
+     * Returns a copy reading check inputs from elsewhere, such as a snapshot or an offline image,
+     * while keeping this backend's console, privileges and registry writer.
+     */
+    public Backend withInputs(RegistryReader registryReader, DeviceEnumerator deviceEnumerator, FileProbe fileProbe) {
+        return new Backend(() -> registryReader, this.registryWriter, () -> deviceEnumerator, () -> fileProbe,
+                console, privileges);
+    }
+
+    public RegistryReader getRegistryReader() {
+        return registryReader.get();
+    }
+
+    public RegistryWriter getRegistryWriter() {
+        return registryWriter.get();
+    }
+
+    public DeviceEnumerator getDeviceEnumerator() {
+        return deviceEnumerator.get();
+    }
+
+    public FileProbe getFileProbe() {
+        return fileProbe.get();
+    }
+
+    public ConsoleBackend getConsole() {
+        return console.get();
+    }
+
+    public PrivilegeProbe getPrivileges() {
+        return privileges.get();
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Returns a supplier that creates its value once, on the first call.
+     */
+    private static <T> Supplier<T> lazy(Supplier<T> factory) {
+        return new Supplier<T>() {
+            private volatile T value;
+
+            @Override
+            public T get() {
+                T result = value;
+                if (result == null) {
+                    synchronized (this) {
+                        result = value;
+                        if (result == null) {
+                            result = factory.get();
+                            value = result;
+                        }
+                    }
+                }
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.dmacheese.pccheck;
+
+import java.util.concurrent.Callable;
+import java.util.function.LongSupplier;
+
+/**
+ * What a {@link CheckProvider} gets to build its checks: the loaded rules and catalog, the system
+ * being checked and the run's result cache. Backend components are created on first use.
+ */
+public final class CheckContext {
+
+    private final SystemCheckService checkService;
+    private final ResultCache cache;
+
+    CheckContext(SystemCheckService checkService, ResultCache cache) {
+        this.checkService = checkService;
+        this.cache = cache;
+    }
+
+    public CheckPlan getPlan() {
+        return checkService.getPlan();
+    }
+
+    public DeviceCatalog getCatalog() {
+        return checkService.getCatalog();
+    }
+
+    public RegistryReader getRegistryReader() {
+        return checkService.registryReader();
+    }
+
+    public DeviceEnumerator getDeviceEnumerator() {
+        return checkService.deviceEnumerator();
+    }
+
+    public FileProbe getFileProbe() {
+        return checkService.fileProbe();
+    }
+
+    public FileVersionProbe getFileVersionProbe() {
+        return checkService.fileVersionProbe();
+    }
+
+    /**
+     * Creates a task that reuses its cached result while the fingerprint of its inputs is unchanged,
+     * and records its wall time, including the cache lookup, in {@link Metrics}.
+     */
+    public CheckExecutor.Task task(String checkId, String name, boolean critical, LongSupplier fingerprint,
+            Callable<CheckResult> check) {
+        return new CheckExecutor.Task(checkId, name, critical, timed(checkId, cache.cached(checkId, fingerprint,
+                check)));
+    }
+
+    /**
+     * Creates a task that always runs its check and records its wall time in {@link Metrics}.
+     */
+    public CheckExecutor.Task task(String checkId, String name, boolean critical, Callable<CheckResult> check) {
+        return new CheckExecutor.Task(checkId, name, critical, timed(checkId, check));
+    }
+
+    SystemCheckService getCheckService() {
+        return checkService;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static Callable<CheckResult> timed(String checkId, Callable<CheckResult> check) {
+        Metrics.Timer timer = Metrics.check(checkId);
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return check.call();
+            } finally {
+                timer.stop(start);
+            }
+        };
+    }
+}
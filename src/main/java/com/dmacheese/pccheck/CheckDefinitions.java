@@ -0,0 +1,95 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+
+/**
+ * The registry rules and the device catalog checks are defined by, each loaded on first use.
+ * A run whose selected checks need neither, such as a DirectX-only run, never reads the catalog.
+ */
+public final class CheckDefinitions {
+
+    private final Callable<CheckPlan> planLoader;
+    private final Callable<DeviceCatalog> catalogLoader;
+    private volatile CheckPlan plan;
+    private volatile DeviceCatalog catalog;
+
+    /**
+     * @param planLoader    loads the rules; an {@link IOException} is rethrown unchecked by {@link #getPlan()}
+     * @param catalogLoader loads the catalog; an {@link IOException} is rethrown unchecked by {@link #getCatalog()}
+     */
+    public CheckDefinitions(Callable<CheckPlan> planLoader, Callable<DeviceCatalog> catalogLoader) {
+        this.planLoader = planLoader;
+        this.catalogLoader = catalogLoader;
+    }
+
+    /**
+     * Returns definitions that are already loaded.
+     */
+    public static CheckDefinitions of(CheckPlan plan, DeviceCatalog catalog) {
+        // Lambdas rather than method references, which would load each class when linked
+        return new CheckDefinitions(() -> plan, () -> catalog);
+    }
+
+    /**
+     * Returns the bundled rules and catalog.
+     */
+    public static CheckDefinitions defaults() {
+        return new CheckDefinitions(() -> CheckPlan.loadDefault(), () -> DeviceCatalog.loadDefault());
+    }
+
+    /**
+     * Returns the registry rules, loading them on first call.
+     *
+     * @throws UncheckedIOException     if the rules file cannot be read
+     * @throws IllegalArgumentException if the rules table is invalid
+     */
+    public CheckPlan getPlan() {
+        CheckPlan result = plan;
+        if (result == null) {
+            synchronized (this) {
+                result = plan;
+                if (result == null) {
+                    result = load(planLoader);
+                    plan = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the device catalog, loading it on first call.
+     *
+     * @throws UncheckedIOException     if the catalog file cannot be read
+     * @throws IllegalArgumentException if the catalog table is invalid
+     */
+    public DeviceCatalog getCatalog() {
+        DeviceCatalog result = catalog;
+        if (result == null) {
+            synchronized (this) {
+                result = catalog;
+                if (result == null) {
+                    result = load(catalogLoader);
+                    catalog = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static <T> T load(Callable<T> loader) {
+        try {
+            return loader.call();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs independent checks concurrently with a per-check deadline, counted from when the check starts.
+ * Uses virtual threads when the JVM provides them and a growing daemon pool otherwise, so every check
+ * starts at once however many there are. A check stuck in a native call cannot be interrupted; it keeps
+ * its thread, and later checks get new ones.
+ * Results are always delivered in submission order, regardless of completion order,
+ * stamped with their task's id, criticality and duration.
+ */
+public class CheckExecutor implements AutoCloseable {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    private final ExecutorService executor;
+    private final long timeoutNanos;
+
+    public CheckExecutor(long timeoutMillis) {
+        this.executor = newExecutor();
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * A named check to run.
+     */
+    public static final class Task {
+        private final String id;
+        private final String name;
+        private final boolean critical;
+        private final Callable<CheckResult> check;
+
+        public Task(String name, Callable<CheckResult> check) {
+            this(name, name, check);
+        }
+
+        public Task(String id, String name, Callable<CheckResult> check) {
+            this(id, name, false, check);
+        }
+
+        public Task(String id, String name, boolean critical, Callable<CheckResult> check) {
+            this.id = id;
+            this.name = name;
+            this.critical = critical;
+            this.check = check;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isCritical() {
+            return critical;
+        }
+
+        public Callable<CheckResult> getCheck() {
+            return check;
+        }
+    }
+
+    /**
+     * Receives each result in task order together with how long the check took.
+     */
+    public interface ResultListener {
+        void onResult(int index, CheckResult result, long durationNanos);
+    }
+
+    /**
+     * Runs all tasks and returns their results in task order.
+     * Each result is passed to the listener as soon as it and all results before it are available.
+     */
+    public List<CheckResult> runAll(List<Task> tasks, Consumer<CheckResult> listener) {
+        return runAll(tasks, (index, result, durationNanos) -> listener.accept(result));
+    }
+
+    /**
+     * Runs all tasks, publishing each result to the stream as soon as it and all results before it
+     * are available, and returns the results in task order. Publishing never waits on the sinks.
+     */
+    public List<CheckResult> runAll(List<Task> tasks, ResultStream stream) {
+        return runAll(tasks, (index, result, durationNanos) -> stream.publish(result));
+    }
+
+    /**
+     * Runs all tasks and returns their results in task order, reporting each check's duration.
+     * A check that misses its deadline is reported with the time waited for it.
+     */
+    public List<CheckResult> runAll(List<Task> tasks, ResultListener listener) {
+        List<Future<CheckResult>> futures = new ArrayList<>(tasks.size());
+        long submitted = System.nanoTime();
+        long[] starts = new long[tasks.size()];
+        CountDownLatch[] started = new CountDownLatch[tasks.size()];
+        long[] durations = new long[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            int index = i;
+            Callable<CheckResult> check = tasks.get(i).check;
+            started[i] = new CountDownLatch(1);
+            futures.add(executor.submit(() -> {
+                starts[index] = System.nanoTime();
+                started[index].countDown();
+                try {
+                    return check.call();
+                } finally {
+                    durations[index] = System.nanoTime() - starts[index];
+                }
+            }));
+        }
+
+        List<CheckResult> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            // The deadline runs from the check's start; one that cannot even start in that long has missed it
+            long start = awaitStart(started[i], submitted + timeoutNanos) ? starts[i] : submitted;
+            CheckResult result = await(task, futures.get(i), start + timeoutNanos);
+            // Future.get() orders the task's write to durations[i] before this read
+            long duration = futures.get(i).isCancelled() ? System.nanoTime() - start : durations[i];
+            result = result.withTask(task.id, task.critical, duration);
+            results.add(result);
+            listener.onResult(i, result, duration);
+        }
+        return results;
+    }
+
+    /**
+     * Stops accepting tasks and interrupts any check still running.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Waits for a task to start running until a deadline. Returns false if it has not started by then.
+     * The latch orders the task's write of its start time before the caller's read.
+     */
+    private static boolean awaitStart(CountDownLatch started, long deadline) {
+        try {
+            return started.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Waits for a single task until its deadline.
+     */
+    private static CheckResult await(Task task, Future<CheckResult> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return CheckResult.timedOut(task.name);
+        } catch (ExecutionException e) {
+            return CheckResult.error(task.name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return CheckResult.timedOut(task.name);
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor on Java 21+, or on older JVMs a daemon pool that adds a
+     * thread whenever none is idle. Checks block on native calls rather than CPU, so the pool grows to
+     * the number of checks, and a thread stuck in a native call never delays another check.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Virtual threads not available
+        }
+
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pccheck-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable set of registry rules compiled from a rules table.
+ * Rules are grouped by key so each key is opened once, and every rule is
+ * bound to a fixed result slot so evaluation is a single array lookup.
+ */
+public final class CheckPlan {
+
+    private static final String DEFAULT_RULES_RESOURCE = "registry-rules.properties";
+
+    private final List<RegistryRule> rules;
+    private final int[] slots;
+    private final RegistryQuery query;
+    private final Map<String, int[]> rulesByKey;
+
+    private CheckPlan(List<RegistryRule> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        this.slots = new int[rules.size()];
+        this.query = new RegistryQuery();
+
+        Map<String, List<Integer>> grouped = new LinkedHashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            String keyPath = rules.get(i).getKeyPath();
+            List<Integer> indices = grouped.get(keyPath);
+            if (indices == null) {
+                indices = new ArrayList<>();
+                grouped.put(keyPath, indices);
+            }
+            indices.add(i);
+        }
+
+        Map<String, int[]> byKey = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> group : grouped.entrySet()) {
+            int[] indices = new int[group.getValue().size()];
+            for (int j = 0; j < indices.length; j++) {
+                int ruleIndex = group.getValue().get(j);
+                indices[j] = ruleIndex;
+                slots[ruleIndex] = query.add(group.getKey(), rules.get(ruleIndex).getValueName());
+            }
+            byKey.put(group.getKey(), indices);
+        }
+        this.rulesByKey = Collections.unmodifiableMap(byKey);
+    }
+
+    /**
+     * Compiles a plan from already constructed rules.
+     */
+    public static CheckPlan of(List<RegistryRule> rules) {
+        return new CheckPlan(rules);
+    }
+
+    /**
+     * Loads the rules table bundled on the classpath.
+     */
+    public static CheckPlan loadDefault() {
+        try (InputStream in = CheckPlan.class.getResourceAsStream(DEFAULT_RULES_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing rules resource: " + DEFAULT_RULES_RESOURCE);
+            }
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return fromProperties(properties);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read rules resource: " + DEFAULT_RULES_RESOURCE, e);
+        }
+    }
+
+    /**
+     * Loads a rules table from a file.
+     */
+    public static CheckPlan load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Compiles a plan from a rules table. See registry-rules.properties for the format.
+     */
+    public static CheckPlan fromProperties(Properties properties) {
+        List<RegistryRule> rules = new ArrayList<>();
+        for (String id : properties.getProperty("rules", "").split(",")) {
+            id = id.trim();
+            if (id.isEmpty()) {
+                continue;
+            }
+            rules.add(new RegistryRule(id,
+                    require(properties, id, "name"),
+                    require(properties, id, "key"),
+                    require(properties, id, "value"),
+                    parseExpected(id, require(properties, id, "expected")),
+                    parsePassWhen(id, require(properties, id, "passWhen")),
+                    properties.getProperty(id + ".pass", ""),
+                    properties.getProperty(id + ".fail", ""),
+                    parseFiles(id, properties.getProperty(id + ".files", ""))));
+        }
+        return new CheckPlan(rules);
+    }
+
+    /**
+     * Returns the rules in report order.
+     */
+    public List<RegistryRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the batched query reading every value the plan needs.
+     */
+    public RegistryQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns the indices of the rules reading from each key.
+     */
+    public Map<String, int[]> getRulesByKey() {
+        return rulesByKey;
+    }
+
+    /**
+     * Returns the index of a rule by id, or -1 if the plan has no such rule.
+     */
+    public int indexOf(String ruleId) {
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).getId().equals(ruleId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the result slot of a rule in {@link #getQuery()}.
+     */
+    public int getSlot(int ruleIndex) {
+        return slots[ruleIndex];
+    }
+
+    /**
+     * Evaluates a single rule against values read with {@link #getQuery()}.
+     */
+    public CheckResult evaluate(int ruleIndex, RegistryResults values) {
+        return rules.get(ruleIndex).evaluate(values, slots[ruleIndex]);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static String require(Properties properties, String id, String field) {
+        String value = properties.getProperty(id + "." + field);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rule '" + id + "' is missing '" + field + "'");
+        }
+        return value.trim();
+    }
+
+    private static int parseExpected(String id, String value) {
+        try {
+            return Integer.decode(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Rule '" + id + "' has invalid expected value: " + value);
+        }
+    }
+
+    private static List<FileRequirement> parseFiles(String id, String value) {
+        List<FileRequirement> files = new ArrayList<>();
+        for (String file : value.split(",")) {
+            if (file.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                files.add(FileRequirement.parse(file));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Rule '" + id + "' has " + e.getMessage());
+            }
+        }
+        return files;
+    }
+
+    private static RegistryRule.PassWhen parsePassWhen(String id, String value) {
+        if (value.equalsIgnoreCase("equal")) {
+            return RegistryRule.PassWhen.EQUAL;
+        } else if (value.equalsIgnoreCase("notEqual")) {
+            return RegistryRule.PassWhen.NOT_EQUAL;
+        }
+        throw new IllegalArgumentException("Rule '" + id + "' has invalid passWhen: " + value);
+    }
+}
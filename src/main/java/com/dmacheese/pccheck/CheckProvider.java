@@ -0,0 +1,45 @@
+package com.dmacheese.pccheck;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service provider interface for checks, discovered with {@link java.util.ServiceLoader} from the
+ * application jar and from jars dropped into the {@code libs} folder (see {@link CheckProviders}).
+ * A provider is listed in {@code META-INF/services/com.dmacheese.pccheck.CheckProvider} and needs a
+ * public no-argument constructor.
+ * <p>
+ * Providers are created on every launch, so they must stay light: classes that bind native libraries
+ * belong in the tasks, which are only created for selected checks.
+ */
+public interface CheckProvider {
+
+    /**
+     * Returns the checks this provider offers, as id to display name in report order.
+     * Must not touch the system; it is also called to list and validate selections.
+     */
+    Map<String, String> getChecks(CheckContext context);
+
+    /**
+     * Returns the ids of the checks this provider offers, in report order. Selections are validated
+     * against the ids of every provider, but names are only asked of providers with a selected check,
+     * so a provider whose names come from definitions it loads can return fixed ids here instead.
+     */
+    default Set<String> getCheckIds(CheckContext context) {
+        return getChecks(context).keySet();
+    }
+
+    /**
+     * Creates the tasks for some of the ids returned by {@link #getChecks}, in report order.
+     */
+    List<CheckExecutor.Task> createTasks(CheckContext context, Set<String> checkIds);
+
+    /**
+     * Returns the provider's position in the report; lower comes first.
+     * The built-in providers use 100 to 300, so plug-ins report after them by default.
+     */
+    default int getOrder() {
+        return 1000;
+    }
+}
@@ -0,0 +1,120 @@
+package com.dmacheese.pccheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.jar.JarFile;
+
+/**
+ * Finds the {@link CheckProvider}s: the built-in ones listed in the application jar, then any in jars
+ * dropped into the {@code libs} folder next to pc_check.jar. The manifest class path only names the
+ * JNA jars, so plug-in jars get their own class loader; only jars that declare a provider are added.
+ */
+public final class CheckProviders {
+
+    public static final String LIBS_DIRECTORY = "libs";
+
+    private static final String SERVICE_FILE = "META-INF/services/" + CheckProvider.class.getName();
+
+    private static ClassLoader classLoader;
+    private static List<CheckProvider> providers;
+
+    private CheckProviders() {
+    }
+
+    /**
+     * Returns the providers in report order, loading them on first call.
+     * A provider that cannot be instantiated is skipped with a warning.
+     */
+    public static synchronized List<CheckProvider> get() {
+        if (providers == null) {
+            List<CheckProvider> found = new ArrayList<>();
+            Iterator<CheckProvider> iterator = ServiceLoader.load(CheckProvider.class, classLoader()).iterator();
+            while (true) {
+                try {
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    found.add(iterator.next());
+                } catch (ServiceConfigurationError e) {
+                    System.err.println("WARNING: Skipping check provider: " + e.getMessage());
+                }
+            }
+            // Stable, so providers with equal order keep their discovery order
+            found.sort(Comparator.comparingInt(CheckProvider::getOrder));
+            providers = Collections.unmodifiableList(found);
+        }
+        return providers;
+    }
+
+    /**
+     * Returns the class loader that sees the application and the plug-in jars, for providers and
+     * the resources they contribute.
+     */
+    public static synchronized ClassLoader classLoader() {
+        if (classLoader == null) {
+            ClassLoader parent = CheckProviders.class.getClassLoader();
+            List<URL> jars = findPluginJars(libsDirectory());
+            classLoader = jars.isEmpty() ? parent : new URLClassLoader(jars.toArray(new URL[0]), parent);
+        }
+        return classLoader;
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Returns the libs folder next to the application jar, or in the working directory when
+     * running from a classes directory.
+     */
+    private static Path libsDirectory() {
+        try {
+            Path location = Paths.get(CheckProviders.class.getProtectionDomain().getCodeSource().getLocation()
+                    .toURI());
+            if (Files.isRegularFile(location) && location.toAbsolutePath().getParent() != null) {
+                return location.toAbsolutePath().getParent().resolve(LIBS_DIRECTORY);
+            }
+        } catch (URISyntaxException | SecurityException | NullPointerException e) {
+            // Unknown location; fall back to the working directory
+        }
+        return Paths.get(LIBS_DIRECTORY);
+    }
+
+    /**
+     * Returns the jars in the folder, in name order, that list a check provider.
+     */
+    private static List<URL> findPluginJars(Path directory) {
+        List<URL> jars = new ArrayList<>();
+        File[] files = directory.toFile().listFiles((dir, name) -> name.toLowerCase(Locale.ROOT).endsWith(".jar"));
+        if (files == null) {
+            return jars;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            try (JarFile jar = new JarFile(file)) {
+                if (jar.getEntry(SERVICE_FILE) != null) {
+                    jars.add(file.toURI().toURL());
+                }
+            } catch (MalformedURLException e) {
+                // Not reachable for a file path
+            } catch (IOException e) {
+                System.err.println("WARNING: Cannot read " + file + ": " + e.getMessage());
+            }
+        }
+        return jars;
+    }
+}
@@ -0,0 +1,139 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Immutable outcome of a single system check.
+ * Checks create results with a name, status and message; {@link CheckExecutor} then stamps them with
+ * the task's id, criticality and run time before publishing them.
+ */
+public final class CheckResult {
+
+    /**
+     * How a check ended.
+     */
+    public enum Status {
+        PASS, FAIL, TIMED_OUT, ERROR
+    }
+
+    // getValue() of results that observed no value
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private final String id;
+    private final String name;
+    private final Status status;
+    private final String message;
+    private final boolean critical;
+    private final long durationNanos;
+    private final long value;
+    private final boolean cached;
+
+    private CheckResult(String id, String name, Status status, String message, boolean critical,
+            long durationNanos, long value, boolean cached) {
+        this.id = id;
+        this.name = name;
+        this.status = status;
+        this.message = message;
+        this.critical = critical;
+        this.durationNanos = durationNanos;
+        this.value = value;
+        this.cached = cached;
+    }
+
+    /**
+     * Creates a result for a completed check.
+     */
+    public static CheckResult of(String name, boolean passed, String message) {
+        return new CheckResult(null, name, passed ? Status.PASS : Status.FAIL, message, false, 0, NO_VALUE, false);
+    }
+
+    /**
+     * Creates a failed result for a check that missed its deadline.
+     */
+    public static CheckResult timedOut(String name) {
+        return new CheckResult(null, name, Status.TIMED_OUT, "Timed Out", false, 0, NO_VALUE, false);
+    }
+
+    /**
+     * Creates a failed result for a check that threw an exception.
+     */
+    public static CheckResult error(String name, Throwable error) {
+        return new CheckResult(null, name, Status.ERROR, "Error: " + error, false, 0, NO_VALUE, false);
+    }
+
+    /**
+     * Returns a copy carrying the id and criticality of the task that produced it and how long it ran.
+     */
+    public CheckResult withTask(String id, boolean critical, long durationNanos) {
+        return new CheckResult(id, name, status, message, critical, durationNanos, value, cached);
+    }
+
+    /**
+     * Returns a copy carrying a number the check observed, such as the packed driver version.
+     */
+    public CheckResult withValue(long value) {
+        return new CheckResult(id, name, status, message, critical, durationNanos, value, cached);
+    }
+
+    /**
+     * Returns a copy marked as answered from the {@link ResultCache} rather than evaluated.
+     */
+    public CheckResult fromCache() {
+        return new CheckResult(id, name, status, message, critical, durationNanos, value, true);
+    }
+
+    /**
+     * Returns the id of the check, or null if the result was not produced by a task.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isPassed() {
+        return status == Status.PASS;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns true if a failure of this check blocks the speedtest.
+     */
+    public boolean isCritical() {
+        return critical;
+    }
+
+    /**
+     * Returns the check's wall time, or the time waited for it if it timed out.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Returns the number the check observed, or {@link #NO_VALUE}.
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Returns true if the result was answered from the {@link ResultCache}, so its duration is the
+     * lookup's rather than the check's.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + (isPassed() ? "OK" : "FAIL") + " (" + message + ")";
+    }
+}
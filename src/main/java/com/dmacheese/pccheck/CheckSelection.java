@@ -0,0 +1,140 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The checks a run includes, from {@code --only} or {@code --profile}. Checks left out are never
+ * created, so their classes are not loaded and their native libraries are not bound.
+ */
+public final class CheckSelection {
+
+    public static final CheckSelection ALL = new CheckSelection(null, null, null);
+
+    // Profiles are read from every copy of this resource, the bundled one first, so plug-in jars can add their own
+    public static final String PROFILES_RESOURCE = "com/dmacheese/pccheck/check-profiles.properties";
+
+    private static final String EVERY_CHECK = "*";
+
+    // Null when every check is selected
+    private final Set<String> checkIds;
+    // The option and value the selection came from, or null for ALL
+    private final String option;
+    private final String value;
+
+    private CheckSelection(Set<String> checkIds, String option, String value) {
+        this.checkIds = checkIds;
+        this.option = option;
+        this.value = value;
+    }
+
+    /**
+     * Selects the checks in a comma-separated list of ids.
+     */
+    public static CheckSelection only(String checkIds) {
+        return parse(checkIds, "--only", checkIds);
+    }
+
+    /**
+     * Selects the checks of a named profile.
+     *
+     * @throws IllegalArgumentException if no profile has that name
+     */
+    public static CheckSelection profile(String name) {
+        Properties profiles = loadProfiles();
+        String checkIds = profiles.getProperty(name);
+        if (checkIds == null) {
+            throw new IllegalArgumentException("Unknown profile: " + name + " (profiles: "
+                    + String.join(", ", new TreeSet<>(profiles.stringPropertyNames())) + ")");
+        }
+        return parse(checkIds, "--profile", name);
+    }
+
+    /**
+     * Returns true if every check is selected.
+     */
+    public boolean isAll() {
+        return checkIds == null;
+    }
+
+    /**
+     * Returns the selected ids among the available ones, in their order.
+     *
+     * @throws IllegalArgumentException if the selection names a check that is not available
+     */
+    public Set<String> resolve(Set<String> available) {
+        if (checkIds == null) {
+            return available;
+        }
+        Set<String> unknown = new LinkedHashSet<>(checkIds);
+        unknown.removeAll(available);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown check in " + this + ": " + String.join(", ", unknown)
+                    + " (checks: " + String.join(", ", available) + ")");
+        }
+        Set<String> selected = new LinkedHashSet<>(available);
+        selected.retainAll(checkIds);
+        return selected;
+    }
+
+    /**
+     * Returns the command line arguments that make this selection, none for ALL.
+     */
+    public List<String> toArguments() {
+        return option == null ? Collections.emptyList() : Arrays.asList(option, value);
+    }
+
+    @Override
+    public String toString() {
+        return option == null ? "all checks" : option + " " + value;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static CheckSelection parse(String list, String option, String value) {
+        Set<String> checkIds = new LinkedHashSet<>();
+        for (String id : list.split(",")) {
+            id = id.trim();
+            if (id.equals(EVERY_CHECK)) {
+                return new CheckSelection(null, option, value);
+            } else if (!id.isEmpty()) {
+                checkIds.add(id);
+            }
+        }
+        if (checkIds.isEmpty()) {
+            throw new IllegalArgumentException(option + " " + value + " selects no checks");
+        }
+        return new CheckSelection(Collections.unmodifiableSet(checkIds), option, value);
+    }
+
+    /**
+     * Merges every profiles resource; a name defined twice keeps its first definition.
+     */
+    private static Properties loadProfiles() {
+        Properties profiles = new Properties();
+        try {
+            Enumeration<URL> resources = CheckProviders.classLoader().getResources(PROFILES_RESOURCE);
+            while (resources.hasMoreElements()) {
+                Properties file = new Properties();
+                try (InputStream in = resources.nextElement().openStream()) {
+                    file.load(in);
+                }
+                for (String name : file.stringPropertyNames()) {
+                    profiles.putIfAbsent(name, file.getProperty(name));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read check profiles: " + e.getMessage(), e);
+        }
+        return profiles;
+    }
+}
@@ -0,0 +1,364 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Parsed command line options.
+ */
+public class CommandLineOptions {
+
+    private long checkTimeoutMillis = CheckExecutor.DEFAULT_TIMEOUT_MILLIS;
+    private Path rulesFile;
+    private Path devicesFile;
+    private boolean fullDeviceScan;
+    private boolean fullRecheck;
+    private Path captureFile;
+    private Path replayFile;
+    private Path imageDirectory;
+    private Path sweepDirectory;
+    private Path jsonFile;
+    private boolean colorEnabled = true;
+    private boolean startupProfile;
+    private boolean headless;
+    private boolean metrics;
+    private boolean watch;
+    private boolean listChecks;
+    private boolean daemon;
+    private boolean connect;
+    private Path daemonEndpoint;
+    private int historyRuns;
+    private boolean historyDisabled;
+    private CheckSelection checkSelection = CheckSelection.ALL;
+
+    /**
+     * Parses command line arguments. Unknown arguments are reported and ignored.
+     */
+    public static CommandLineOptions parse(String... args) {
+        CommandLineOptions options = new CommandLineOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--timeout") && i + 1 < args.length) {
+                options.checkTimeoutMillis = parseSeconds(arg, args[++i]) * 1000L;
+            } else if (arg.equals("--rules") && i + 1 < args.length) {
+                options.rulesFile = Paths.get(args[++i]);
+            } else if (arg.equals("--devices") && i + 1 < args.length) {
+                options.devicesFile = Paths.get(args[++i]);
+            } else if (arg.equals("--full-device-scan")) {
+                options.fullDeviceScan = true;
+            } else if (arg.equals("--full")) {
+                options.fullRecheck = true;
+            } else if (arg.equals("--capture") && i + 1 < args.length) {
+                options.captureFile = Paths.get(args[++i]);
+            } else if (arg.equals("--replay") && i + 1 < args.length) {
+                options.replayFile = Paths.get(args[++i]);
+            } else if (arg.equals("--image") && i + 1 < args.length) {
+                options.imageDirectory = Paths.get(args[++i]);
+            } else if (arg.equals("--sweep") && i + 1 < args.length) {
+                options.sweepDirectory = Paths.get(args[++i]);
+            } else if (arg.equals("--json") && i + 1 < args.length) {
+                options.jsonFile = Paths.get(args[++i]);
+            } else if (arg.equals("--no-color")) {
+                options.colorEnabled = false;
+            } else if (arg.equals("--startup-profile")) {
+                options.startupProfile = true;
+            } else if (arg.equals("--headless")) {
+                options.headless = true;
+            } else if (arg.equals("--metrics")) {
+                options.metrics = true;
+            } else if (arg.equals("--watch")) {
+                options.watch = true;
+            } else if (arg.equals("--only") && i + 1 < args.length) {
+                options.selectChecks(CheckSelection.only(args[++i]));
+            } else if (arg.equals("--profile") && i + 1 < args.length) {
+                options.selectChecks(CheckSelection.profile(args[++i]));
+            } else if (arg.equals("--list-checks")) {
+                options.listChecks = true;
+            } else if (arg.equals("--daemon")) {
+                options.daemon = true;
+            } else if (arg.equals("--connect")) {
+                options.connect = true;
+            } else if (arg.equals("--socket") && i + 1 < args.length) {
+                options.daemonEndpoint = Paths.get(args[++i]);
+            } else if (arg.equals("--history") && i + 1 < args.length) {
+                options.historyRuns = parseCount(arg, args[++i]);
+            } else if (arg.equals("--no-history")) {
+                options.historyDisabled = true;
+            } else {
+                System.err.println("Ignoring unknown argument: " + arg);
+            }
+        }
+        if (options.watch && options.headless) {
+            throw new IllegalArgumentException("--watch cannot be combined with --headless");
+        }
+        int sources = (options.replayFile != null ? 1 : 0) + (options.imageDirectory != null ? 1 : 0)
+                + (options.sweepDirectory != null ? 1 : 0);
+        if (sources > 1) {
+            throw new IllegalArgumentException("Only one of --replay, --image and --sweep can be given");
+        }
+        if (options.sweepDirectory != null && (options.watch || options.captureFile != null)) {
+            throw new IllegalArgumentException("--sweep cannot be combined with --watch or --capture");
+        }
+        if (options.jsonFile != null && (options.watch || options.sweepDirectory != null)) {
+            throw new IllegalArgumentException("--json cannot be combined with --watch or --sweep");
+        }
+        if (options.daemon && (options.headless || options.watch || options.sweepDirectory != null
+                || options.jsonFile != null || options.captureFile != null)) {
+            throw new IllegalArgumentException(
+                    "--daemon cannot be combined with --headless, --watch, --sweep, --json or --capture");
+        }
+        if (options.connect && (options.daemon || options.watch || sources > 0 || options.captureFile != null)) {
+            throw new IllegalArgumentException(
+                    "--connect cannot be combined with --daemon, --watch, --replay, --image, --sweep or --capture");
+        }
+        if (options.watch && !options.checkSelection.isAll()) {
+            throw new IllegalArgumentException("--watch always runs every check; drop --only and --profile");
+        }
+        return options;
+    }
+
+    /**
+     * Returns the deadline for each individual check.
+     */
+    public long getCheckTimeoutMillis() {
+        return checkTimeoutMillis;
+    }
+
+    /**
+     * Returns the registry rules file replacing the bundled rules, or null for the defaults.
+     */
+    public Path getRulesFile() {
+        return rulesFile;
+    }
+
+    /**
+     * Returns the device catalog file replacing the bundled catalog, or null for the default.
+     */
+    public Path getDevicesFile() {
+        return devicesFile;
+    }
+
+    /**
+     * Returns true if device checks should walk every device class instead of only USB devices.
+     */
+    public boolean isFullDeviceScan() {
+        return fullDeviceScan;
+    }
+
+    /**
+     * Returns true if cached results from the previous run must be ignored.
+     */
+    public boolean isFullRecheck() {
+        // A capture must observe every input, so it never reuses cached results
+        return fullRecheck || captureFile != null;
+    }
+
+    /**
+     * Returns the file to write a snapshot of all check inputs to, or null.
+     */
+    public Path getCaptureFile() {
+        return captureFile;
+    }
+
+    /**
+     * Returns the file to also write the JSON report to, or null.
+     */
+    public Path getJsonFile() {
+        return jsonFile;
+    }
+
+    /**
+     * Returns the snapshot file to evaluate instead of the live system, or null.
+     */
+    public Path getReplayFile() {
+        return replayFile;
+    }
+
+    /**
+     * Returns true when checks run against a snapshot instead of the live system.
+     */
+    public boolean isReplay() {
+        return replayFile != null;
+    }
+
+    /**
+     * Returns the offline Windows image to evaluate instead of the live system, or null.
+     */
+    public Path getImageDirectory() {
+        return imageDirectory;
+    }
+
+    /**
+     * Returns true when checks run against an offline Windows image instead of the live system.
+     */
+    public boolean isImage() {
+        return imageDirectory != null;
+    }
+
+    /**
+     * Returns the directory whose image subdirectories are all evaluated, or null.
+     */
+    public Path getSweepDirectory() {
+        return sweepDirectory;
+    }
+
+    /**
+     * Returns true when checks describe another machine (a snapshot or an image) rather than this one.
+     */
+    public boolean isOffline() {
+        return replayFile != null || imageDirectory != null || sweepDirectory != null;
+    }
+
+    /**
+     * Returns false if the report must be rendered without colors.
+     */
+    public boolean isColorEnabled() {
+        return colorEnabled;
+    }
+
+    /**
+     * Returns true if a breakdown of start-up time should be printed after the report.
+     */
+    public boolean isStartupProfile() {
+        return startupProfile;
+    }
+
+    /**
+     * Returns true for a non-interactive run that writes a JSON report and exits with a status code.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Returns true if check and native-call metrics should be published over JMX and printed at exit.
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns true if the tool should keep running and re-check registry rules when their keys change.
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Returns true if the available check ids should be printed instead of running the checks.
+     */
+    public boolean isListChecks() {
+        return listChecks;
+    }
+
+    /**
+     * Returns true if the tool should stay resident and answer report requests from clients.
+     */
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    /**
+     * Returns true if the report should be requested from a running daemon instead of checked here.
+     */
+    public boolean isConnect() {
+        return connect;
+    }
+
+    /**
+     * Returns the socket, or port file, the daemon listens at and clients connect to.
+     */
+    public Path getDaemonEndpoint() {
+        return daemonEndpoint != null ? daemonEndpoint : LocalEndpoint.defaultLocation();
+    }
+
+    /**
+     * Returns true if the run history should be printed instead of running the checks.
+     */
+    public boolean isHistory() {
+        return historyRuns > 0;
+    }
+
+    /**
+     * Returns how many of the most recent runs {@code --history} computes latency percentiles over.
+     */
+    public int getHistoryRuns() {
+        return historyRuns;
+    }
+
+    /**
+     * Returns true if this run should be appended to the run history. Only runs against the live
+     * system are recorded.
+     */
+    public boolean isHistoryRecorded() {
+        return !historyDisabled && !isOffline();
+    }
+
+    /**
+     * Returns the checks to run, from {@code --only} or {@code --profile}; all checks by default.
+     */
+    public CheckSelection getCheckSelection() {
+        return checkSelection;
+    }
+
+    /**
+     * Loads the registry rules selected by these options.
+     */
+    public CheckPlan loadCheckPlan() throws IOException {
+        return rulesFile != null ? CheckPlan.load(rulesFile) : CheckPlan.loadDefault();
+    }
+
+    /**
+     * Loads the device catalog selected by these options.
+     */
+    public DeviceCatalog loadDeviceCatalog() throws IOException {
+        return devicesFile != null ? DeviceCatalog.load(devicesFile) : DeviceCatalog.loadDefault();
+    }
+
+    /**
+     * Returns the rules and catalog selected by these options, each loaded on first use.
+     */
+    public CheckDefinitions checkDefinitions() {
+        return new CheckDefinitions(() -> loadCheckPlan(), () -> loadDeviceCatalog());
+    }
+
+    /**
+     * Opens the result cache selected by these options. Offline runs never use or update the cache.
+     */
+    public ResultCache openResultCache() {
+        return isOffline() ? ResultCache.disabled()
+                : ResultCache.load(ResultCache.defaultLocation(), !isFullRecheck());
+    }
+
+    private void selectChecks(CheckSelection selection) {
+        if (!checkSelection.isAll()) {
+            throw new IllegalArgumentException("Only one of --only and --profile can be given");
+        }
+        checkSelection = selection;
+    }
+
+    private static int parseCount(String option, String value) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count > 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException(option + " expects a positive number of runs, got: " + value);
+    }
+
+    private static long parseSeconds(String option, String value) {
+        try {
+            long seconds = Long.parseLong(value);
+            if (seconds > 0) {
+                return seconds;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException(option + " expects a positive number of seconds, got: " + value);
+    }
+}
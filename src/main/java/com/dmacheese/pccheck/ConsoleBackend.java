@@ -0,0 +1,44 @@
+package com.dmacheese.pccheck;
+
+import java.io.PrintStream;
+
+/**
+ * The console the interactive runners talk to: output, colors, title and user input.
+ */
+public interface ConsoleBackend {
+
+    /**
+     * Returns the stream reports are written to.
+     */
+    PrintStream out();
+
+    /**
+     * Returns true if output goes to a console rather than a file or pipe.
+     */
+    boolean isInteractive();
+
+    /**
+     * Enables interpretation of ANSI escape sequences. Returns false if the console does not support it.
+     */
+    boolean enableVirtualTerminal();
+
+    /**
+     * Sets the color of subsequent text through console attributes, for consoles without escape sequences.
+     */
+    void setColor(Utils.Color color);
+
+    /**
+     * Sets the console window title.
+     */
+    void setTitle(String title);
+
+    /**
+     * Reads a line of user input, or returns null when input is closed.
+     */
+    String readLine();
+
+    /**
+     * Opens a URI with the shell, such as a Windows Security settings page.
+     */
+    void open(String uri);
+}
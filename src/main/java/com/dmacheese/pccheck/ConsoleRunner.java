@@ -1,6 +1,12 @@
 package com.dmacheese.pccheck;
 
-import java.util.Scanner;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Main console runner that orchestrates system checks and user interaction.
@@ -10,125 +16,219 @@ public class ConsoleRunner {
 
     private final SystemCheckService checkService;
     private final FixService fixService;
+    private final ConsoleBackend console;
+    private final PrivilegeProbe privileges;
 
     public ConsoleRunner(SystemCheckService checkService, FixService fixService) {
+        this(checkService, fixService, WindowsConsoleBackend.INSTANCE, new WindowsPrivilegeProbe());
+    }
+
+    public ConsoleRunner(SystemCheckService checkService, FixService fixService, ConsoleBackend console,
+            PrivilegeProbe privileges) {
         this.checkService = checkService;
         this.fixService = fixService;
+        this.console = console;
+        this.privileges = privileges;
     }
 
     /**
      * Runs the PC compatibility checker application.
      */
     public void run(String... args) {
-        com.sun.jna.platform.win32.Kernel32.INSTANCE.SetConsoleTitle("DMACHEESE.COM PC CHECKER");
+        run(CommandLineOptions.parse(args));
+    }
+
+    /**
+     * Runs the PC compatibility checker application with parsed options.
+     */
+    public void run(CommandLineOptions options) {
+        // Checks whose inputs are unchanged since the last run reuse the cached result
+        run(options, options.openResultCache());
+    }
+
+    /**
+     * Runs the application with a given result cache, such as a disabled one for simulated runs.
+     */
+    public void run(CommandLineOptions options, ResultCache cache) {
+        console.setTitle("DMACHEESE.COM PC CHECKER");
 
-        printHeader();
+        // Output is buffered and written in one flush per block or result line instead of per print
+        ReportRenderer out = ReportRenderer.forConsole(console, options.isColorEnabled());
+        printHeader(out);
 
-        if (!Utils.isAdministrator()) {
-            Utils.setConsoleColor(Utils.Color.Red);
-            System.out.println("WARNING: Application is not running as Administrator!");
-            System.out.println("Automated fixes will not work and some checks may result in false negatives.");
-            System.out.println("Please restart as Administrator.");
-            Utils.setConsoleColor(Utils.Color.Default);
-            System.out.println();
+        if (options.isReplay()) {
+            out.color(Utils.Color.Yellow);
+            out.println("REPLAY: Evaluating snapshot " + options.getReplayFile());
+            out.println("Results describe the captured machine, not this one. Fixes are disabled.");
+            out.color(Utils.Color.Default);
+            out.println();
+        } else if (options.isImage()) {
+            out.color(Utils.Color.Yellow);
+            out.println("IMAGE: Evaluating offline Windows image " + options.getImageDirectory());
+            out.println("Results describe the image, not this machine. Fixes are disabled.");
+            out.color(Utils.Color.Default);
+            out.println();
+        } else if (!privileges.isAdministrator()) {
+            out.color(Utils.Color.Red);
+            out.println("WARNING: Application is not running as Administrator!");
+            out.println("Automated fixes will not work and some checks may result in false negatives.");
+            out.println("Please restart as Administrator.");
+            out.color(Utils.Color.Default);
+            out.println();
         }
 
-        System.out.println("Checking system requirements for DMA...\n");
+        out.println("Checking system requirements for DMA...\n");
+        out.flush();
 
-        boolean criticalPass = true;
-        boolean optionalPass = true;
+        // All checks run concurrently; results are printed in this fixed order
+        List<CheckExecutor.Task> tasks = checkService.createTasks(cache, options.getCheckSelection());
 
         // Critical Checks
-        Utils.setConsoleColor(Utils.Color.Yellow);
-        System.out.println("[ CRITICAL CHECKS ]");
-        Utils.setConsoleColor(Utils.Color.Default);
-
-        if (!checkService.checkFTDIBUS())
-            criticalPass = false;
+        out.color(Utils.Color.Yellow);
+        out.println("[ CRITICAL CHECKS ]");
+        out.color(Utils.Color.Default);
 
-        System.out.println();
+        StartupProfile.mark(StartupProfile.Milestone.CHECKS_STARTED);
+        List<CheckResult> results;
+        NativeTraceSink trace = new NativeTraceSink();
+        // Checks publish to the stream and never wait for the console or the JSON file to keep up
+        try (ResultStream stream = new ResultStream();
+                CheckExecutor executor = new CheckExecutor(options.getCheckTimeoutMillis())) {
+            stream.subscribe("console", tasks.size(), new ConsoleSink(out));
+            stream.subscribe("metrics", Metrics.resultSink());
+            stream.subscribe("trace", trace);
+            if (options.isHistoryRecorded()) {
+                stream.subscribe("history", tasks.size(), new RunHistorySink());
+            }
+            subscribeJsonFile(stream, tasks.size(), options, out);
+            results = executor.runAll(tasks, (index, result, durationNanos) -> {
+                StartupProfile.mark(StartupProfile.Milestone.FIRST_RESULT);
+                stream.publish(result);
+            });
+        }
+        StartupProfile.mark(StartupProfile.Milestone.REPORT_DONE);
+        if (trace.getDumpFile() != null) {
+            out.println();
+            out.println("Native call trace saved to " + trace.getDumpFile() + " (attach it to bug reports)");
+        }
+        out.flush();
 
-        // Recommended Checks
-        Utils.setConsoleColor(Utils.Color.Yellow);
-        System.out.println("[ RECOMMENDED CHECKS (Nice to have) ]");
-        Utils.setConsoleColor(Utils.Color.Default);
+        try {
+            cache.save();
+        } catch (IOException e) {
+            // Caching is an optimization only; the next run re-checks everything
+        }
 
-        boolean failWinSec = !checkService.checkWindowsSecurity();
-        if (failWinSec)
-            optionalPass = false;
+        Verdict verdict = Verdict.of(results);
 
-        boolean failHVCI = !checkService.checkHVCI();
-        if (failHVCI)
-            optionalPass = false;
+        // Registry rules that FixService can repair, by rule id
+        Map<String, Runnable> fixes = new LinkedHashMap<>();
+        fixes.put(SystemCheckService.RULE_DEFENDER, fixService::fixWindowsSecurity);
+        fixes.put(SystemCheckService.RULE_HVCI, fixService::fixHVCI);
+        fixes.put(SystemCheckService.RULE_VULN_BLOCKLIST, fixService::fixVulnDriverBlocklist);
+        fixes.put(SystemCheckService.RULE_UAC, fixService::fixUAC);
 
-        boolean failVuln = !checkService.checkVulnDriverBlocklist();
-        if (failVuln)
-            optionalPass = false;
+        // Only checks that ran can ask for a fix; --only and --profile may leave rules out
+        Set<String> failedChecks = new HashSet<>();
+        for (CheckResult result : results) {
+            if (!result.isPassed()) {
+                failedChecks.add(result.getId());
+            }
+        }
+        List<Runnable> applicableFixes = new ArrayList<>();
+        for (Map.Entry<String, Runnable> fix : fixes.entrySet()) {
+            if (failedChecks.contains(fix.getKey())) {
+                applicableFixes.add(fix.getValue());
+            }
+        }
 
-        boolean failUAC = !checkService.checkUAC();
-        if (failUAC)
-            optionalPass = false;
+        // Offer fixes if any recommended checks failed
+        if (verdict != Verdict.PASS && !applicableFixes.isEmpty() && !options.isOffline()) {
+            out.println("\n[!] Some recommended settings are incorrect.");
+            out.print("Do you want to attempt to fix these issues? (Windows Security, HVCI, VulnDriver, UAC) [Y/n]: ");
+            out.flush();
 
-        if (!checkService.checkKernelDMAProtection())
-            optionalPass = false;
-        if (!checkService.checkVCRuntimes())
-            optionalPass = false;
-        if (!checkService.checkDirectX())
-            optionalPass = false;
+            String response = readAnswer();
 
-        // Offer fixes if any recommended checks failed
-        if (!optionalPass && (failWinSec || failHVCI || failVuln || failUAC)) {
-            System.out.println("\n[!] Some recommended settings are incorrect.");
-            System.out.print(
-                    "Do you want to attempt to fix these issues? (Windows Security, HVCI, VulnDriver, UAC) [Y/n]: ");
-
-            Scanner scanner = new Scanner(System.in);
-            String response = scanner.next();
-
-            if (response.equalsIgnoreCase("y")) {
-                System.out.println("\n--- Applying Fixes ---");
-                if (!Utils.isAdministrator()) {
-                    System.out.println("ERROR: Cannot apply fixes without Administrator privileges.");
+            if ("y".equalsIgnoreCase(response)) {
+                console.out().println("\n--- Applying Fixes ---");
+                if (!privileges.isAdministrator()) {
+                    console.out().println("ERROR: Cannot apply fixes without Administrator privileges.");
                 } else {
-                    if (failWinSec)
-                        fixService.fixWindowsSecurity();
-                    if (failHVCI)
-                        fixService.fixHVCI();
-                    if (failVuln)
-                        fixService.fixVulnDriverBlocklist();
-                    if (failUAC)
-                        fixService.fixUAC();
-
-                    System.out.println("\n[INFO] Fixes applied. Please REBOOT your PC to apply these changes fully.");
+                    for (Runnable fix : applicableFixes) {
+                        fix.run();
+                    }
+
+                    console.out().println("\n[INFO] Fixes applied. Please REBOOT your PC to apply these changes fully.");
                 }
             }
         }
 
         // Print final result
-        System.out.println("\n======================================================================");
-
-        if (criticalPass && optionalPass) {
-            Utils.setConsoleColor(Utils.Color.Green);
-            System.out.println("            [PASS] SYSTEM IS PERFECTLY READY FOR DMACHEESE  ");
-        } else if (criticalPass) {
-            Utils.setConsoleColor(Utils.Color.Yellow);
-            System.out.println("            [WARN] SYSTEM IS READY (WITH WARNINGS)          ");
-            System.out.println("            Critical checks passed. Speedtest allowed.      ");
-            System.out.println("            (Performance might be better if you fix optional issues)");
+        out.println("\n======================================================================");
+
+        if (verdict == Verdict.PASS) {
+            out.color(Utils.Color.Green);
+            out.println("            [PASS] SYSTEM IS PERFECTLY READY FOR DMACHEESE  ");
+        } else if (verdict == Verdict.WARN) {
+            out.color(Utils.Color.Yellow);
+            out.println("            [WARN] SYSTEM IS READY (WITH WARNINGS)          ");
+            out.println("            Critical checks passed. Speedtest allowed.      ");
+            out.println("            (Performance might be better if you fix optional issues)");
         } else {
-            Utils.setConsoleColor(Utils.Color.Red);
-            System.out.println("            [FAIL] CRITICAL CHECKS FAILED                   ");
-            System.out.println("            Cannot proceed to speedtest without drivers.    ");
+            out.color(Utils.Color.Red);
+            out.println("            [FAIL] CRITICAL CHECKS FAILED                   ");
+            out.println("            Cannot proceed to speedtest without drivers.    ");
         }
-        Utils.setConsoleColor(Utils.Color.Default);
-        System.out.println("======================================================================");
+        out.color(Utils.Color.Default);
+        out.println("======================================================================");
+        if (options.isStartupProfile()) {
+            out.println();
+            StartupProfile.render(out);
+        }
+        if (options.isMetrics()) {
+            out.println();
+            Metrics.render(out);
+        }
+        out.flush();
+
+        Utils.pressEnterToExit(console);
+    }
+
+    /**
+     * Writes the JSON report to the --json file as well, if one was given.
+     */
+    private void subscribeJsonFile(ResultStream stream, int capacity, CommandLineOptions options,
+            ReportRenderer out) {
+        if (options.getJsonFile() == null) {
+            return;
+        }
+        try {
+            stream.subscribe("json", capacity, JsonReportSink.toFile(options.getJsonFile(),
+                    !options.isOffline() && privileges.isAdministrator(),
+                    options.isReplay() ? options.getReplayFile().toString() : null,
+                    options.isImage() ? options.getImageDirectory().toString() : null));
+        } catch (IOException e) {
+            out.color(Utils.Color.Yellow);
+            out.println("WARNING: Cannot write JSON report " + options.getJsonFile() + ": " + e.getMessage());
+            out.color(Utils.Color.Default);
+        }
+    }
 
-        Utils.pressEnterToExit();
+    /**
+     * Reads the first non-blank answer, or returns null when input is closed.
+     */
+    private String readAnswer() {
+        String line;
+        do {
+            line = console.readLine();
+        } while (line != null && line.trim().isEmpty());
+        return line == null ? null : line.trim();
     }
 
-    private void printHeader() {
-        Utils.setConsoleColor(Utils.Color.Yellow);
-        System.out.println(
+    private void printHeader(ReportRenderer out) {
+        out.color(Utils.Color.Yellow);
+        out.println(
                 "  ____  __  __    _    ____ _   _ _____ _____ ____  _____     ____ ___  __  __\n" +
                         " |  _ \\|  \\/  |  / \\  / ___| | | | ____| ____/ ___|| ____|   / ___/ _ \\|  \\/  |\n" +
                         " | | | | |\\/| | / _ \\| |   | |_| |  _| |  _| \\___ \\|  _|    | |  | | | | |\\/| |\n" +
@@ -137,7 +237,39 @@ public class ConsoleRunner {
                         "\n" +
                         "                      PC COMPATIBILITY CHECKER (JAVA EDITION)\n" +
                         "======================================================================");
-        Utils.setConsoleColor(Utils.Color.Default);
-        System.out.println();
+        out.color(Utils.Color.Default);
+        out.println();
+    }
+
+    /**
+     * Prints results under the critical and recommended headings as they arrive.
+     */
+    private static final class ConsoleSink implements ResultSink {
+        private final ReportRenderer out;
+        private boolean recommended;
+
+        ConsoleSink(ReportRenderer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void onResult(CheckResult result) {
+            // Interrupted when the stream gave up on the console; the runner has moved on to the verdict
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (!result.isCritical() && !recommended) {
+                recommended = true;
+                out.println();
+
+                // Recommended Checks
+                out.color(Utils.Color.Yellow);
+                out.println("[ RECOMMENDED CHECKS (Nice to have) ]");
+                out.color(Utils.Color.Default);
+            }
+            out.result(result.getName(), result.isPassed(), result.getMessage());
+            // Results arrive in report order, so each one is shown as soon as it and those before it are done
+            out.flush();
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Implemented by renderers that can rewrite lines already written, so watch mode
+ * can redraw a changed result in place instead of appending it.
+ */
+public interface CursorControl {
+
+    /**
+     * Moves the cursor up to the start of a line already written.
+     */
+    CursorControl cursorUp(int lines);
+
+    /**
+     * Moves the cursor down to the start of a later line.
+     */
+    CursorControl cursorDown(int lines);
+
+    /**
+     * Erases the line under the cursor.
+     */
+    CursorControl clearLine();
+}
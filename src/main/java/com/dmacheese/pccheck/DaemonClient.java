@@ -0,0 +1,71 @@
+package com.dmacheese.pccheck;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Thin client of a {@link DaemonRunner}: sends one report request and copies the JSON report to
+ * standard output. It loads no rules, catalog or native library, so it starts as fast as the JVM does.
+ * Scripts that cannot afford even that can speak the one-line protocol directly, for example with
+ * {@code nc -U} against the daemon's socket.
+ */
+public class DaemonClient {
+
+    private final PrintStream out;
+
+    public DaemonClient(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Requests the report for the selected checks and returns the daemon's exit code for it.
+     */
+    public int run(CommandLineOptions options) {
+        Path endpoint = options.getDaemonEndpoint();
+        StringBuilder request = new StringBuilder(DaemonRunner.REQUEST_REPORT);
+        for (String argument : options.getCheckSelection().toArguments()) {
+            request.append(' ').append(argument);
+        }
+
+        String reply;
+        try (SocketChannel channel = LocalEndpoint.connect(endpoint)) {
+            Channels.newOutputStream(channel).write((request + "\n").getBytes(StandardCharsets.UTF_8));
+            reply = readAll(Channels.newInputStream(channel));
+        } catch (IOException e) {
+            System.err.println("ERROR: Cannot reach the daemon at " + endpoint + ": " + e.getMessage());
+            return HeadlessRunner.EXIT_ERROR;
+        }
+
+        int newline = reply.indexOf('\n');
+        String status = newline < 0 ? reply : reply.substring(0, newline);
+        if (status.startsWith("OK ")) {
+            try {
+                int exitCode = Integer.parseInt(status.substring(3).trim());
+                out.print(reply.substring(newline + 1));
+                out.flush();
+                return exitCode;
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        System.err.println("ERROR: " + (status.startsWith("ERROR ") ? status.substring(6)
+                : "Unexpected reply from the daemon: " + status));
+        return HeadlessRunner.EXIT_ERROR;
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,392 @@
+package com.dmacheese.pccheck;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resident mode that keeps the check service, its native bindings and its results warm, and answers
+ * report requests from {@link DaemonClient}s over a {@link LocalEndpoint}.
+ * <p>
+ * Every request first re-reads the registry keys written since the previous request, then runs the
+ * checks through an in-memory {@link ResultCache}. A check whose inputs kept their fingerprint is
+ * answered from memory, so an unchanged machine is reported in milliseconds, and a changed one
+ * only re-evaluates what changed.
+ * <p>
+ * The protocol is one request line per connection: {@code report}, optionally followed by
+ * {@code --only <ids>} or {@code --profile <name>}, or {@code ping}. The reply is {@code OK <exit code>}
+ * followed by the JSON report, or {@code ERROR <message>}, and the connection is then closed. Over
+ * loopback TCP the request line must be preceded by the endpoint's token line (see {@link LocalEndpoint}).
+ * <p>
+ * Requests are served by a few handler threads with a short queue; connections beyond that are
+ * answered {@code ERROR Daemon busy}. A client must send its request within a deadline, and take
+ * the reply within another, so a stalled client only holds a handler that long.
+ */
+public class DaemonRunner {
+
+    public static final String REQUEST_REPORT = "report";
+    public static final String REQUEST_PING = "ping";
+
+    // Longest request line read; requests are a few words
+    private static final int MAX_REQUEST_LENGTH = 4096;
+    // Requests are evaluated one at a time, so a few handlers are enough to keep pings responsive
+    static final int HANDLER_THREADS = 4;
+    static final int MAX_QUEUED_REQUESTS = 16;
+    private static final long REQUEST_TIMEOUT_MILLIS = 5000;
+    // A refused client's request is still read, so the reply is not lost to a reset; only briefly
+    private static final long REFUSAL_TIMEOUT_MILLIS = 100;
+
+    private final SystemCheckService checkService;
+    private final PrivilegeProbe privileges;
+    private final PrintStream out;
+    private final long requestTimeoutMillis;
+    private final boolean unixDomain;
+    private final ResultCache cache = ResultCache.inMemory();
+
+    private List<CheckExecutor.Task> tasks;
+    private Set<String> checkIds;
+    private CheckExecutor executor;
+    private ThreadPoolExecutor handlers;
+    // Set when listening on loopback TCP, where every connection must first send it
+    private String token;
+    private boolean administrator;
+    private String replayFile;
+    private String image;
+    private volatile ServerSocketChannel server;
+
+    public DaemonRunner(SystemCheckService checkService, PrivilegeProbe privileges, PrintStream out) {
+        this(checkService, privileges, out, REQUEST_TIMEOUT_MILLIS, true);
+    }
+
+    /**
+     * @param requestTimeoutMillis how long a client has to send its request, and to take the reply
+     * @param unixDomain           false to listen on loopback TCP even where Unix domain sockets work
+     */
+    DaemonRunner(SystemCheckService checkService, PrivilegeProbe privileges, PrintStream out,
+            long requestTimeoutMillis, boolean unixDomain) {
+        this.checkService = checkService;
+        this.privileges = privileges;
+        this.out = out;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.unixDomain = unixDomain;
+    }
+
+    /**
+     * Warms up the checks, then serves requests until {@link #stop()} is called or the process exits.
+     * Returns the process exit code.
+     */
+    public int run(CommandLineOptions options) {
+        administrator = !options.isOffline() && privileges.isAdministrator();
+        replayFile = options.isReplay() ? options.getReplayFile().toString() : null;
+        image = options.isImage() ? options.getImageDirectory().toString() : null;
+
+        tasks = checkService.createTasks(cache, options.getCheckSelection());
+        checkIds = new LinkedHashSet<>();
+        for (CheckExecutor.Task task : tasks) {
+            checkIds.add(task.getId());
+        }
+
+        Path endpoint = options.getDaemonEndpoint();
+        try {
+            String newToken = LocalEndpoint.newToken();
+            server = LocalEndpoint.bind(endpoint, newToken, unixDomain);
+            token = LocalEndpoint.isTcp(server) ? newToken : null;
+        } catch (IOException e) {
+            System.err.println("ERROR: Cannot listen at " + endpoint + ": " + e.getMessage());
+            return HeadlessRunner.EXIT_ERROR;
+        }
+        Thread cleanup = new Thread(() -> deleteEndpoint(endpoint), "pccheck-daemon-cleanup");
+        Runtime.getRuntime().addShutdownHook(cleanup);
+
+        executor = new CheckExecutor(options.getCheckTimeoutMillis());
+        handlers = new ThreadPoolExecutor(HANDLER_THREADS, HANDLER_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS), runnable -> {
+                    Thread thread = new Thread(runnable, "pccheck-daemon-request");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        handlers.allowCoreThreadTimeOut(true);
+        try {
+            // The first run binds the native libraries and fills the cache
+            long start = System.nanoTime();
+            Verdict verdict = Verdict.of(evaluate(tasks));
+            out.println(String.format("Daemon ready at %s (%s, %d checks warmed up in %.1f ms)", endpoint,
+                    token == null ? "Unix domain socket" : "loopback TCP",
+                    tasks.size(), (System.nanoTime() - start) / 1e6));
+            out.println("Initial result: " + verdict + ". Query with --connect; stop with Ctrl+C.");
+            out.flush();
+
+            while (true) {
+                SocketChannel channel = server.accept();
+                try {
+                    handlers.execute(() -> serve(channel));
+                } catch (RejectedExecutionException e) {
+                    refuse(channel);
+                }
+            }
+        } catch (ClosedChannelException e) {
+            // Stopped
+        } catch (IOException e) {
+            System.err.println("ERROR: Daemon stopped: " + e.getMessage());
+            return HeadlessRunner.EXIT_ERROR;
+        } finally {
+            handlers.shutdownNow();
+            executor.close();
+            deleteEndpoint(endpoint);
+            try {
+                Runtime.getRuntime().removeShutdownHook(cleanup);
+            } catch (IllegalStateException e) {
+                // Already shutting down; the hook deletes the endpoint too
+            }
+        }
+        return HeadlessRunner.EXIT_PASS;
+    }
+
+    /**
+     * Stops accepting requests; {@link #run} then returns.
+     */
+    public void stop() {
+        ServerSocketChannel channel = server;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Closed anyway
+            }
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Answers one request line.
+     */
+    private String handle(String request) {
+        String[] words = request.trim().split("\\s+", 3);
+        if (words[0].equals(REQUEST_PING)) {
+            return "OK pong\n";
+        }
+        if (!words[0].equals(REQUEST_REPORT)) {
+            return "ERROR Unknown request: " + words[0] + "\n";
+        }
+
+        try {
+            CheckSelection selection;
+            if (words.length == 1) {
+                selection = CheckSelection.ALL;
+            } else if (words.length == 3 && words[1].equals("--only")) {
+                selection = CheckSelection.only(words[2]);
+            } else if (words.length == 3 && words[1].equals("--profile")) {
+                selection = CheckSelection.profile(words[2]);
+            } else {
+                return "ERROR Expected: report [--only <ids> | --profile <name>]\n";
+            }
+            return report(selection);
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage() + "\n";
+        }
+    }
+
+    private String report(CheckSelection selection) {
+        long start = System.nanoTime();
+        Set<String> selected = selection.resolve(checkIds);
+        List<CheckExecutor.Task> selectedTasks = new ArrayList<>(selected.size());
+        for (CheckExecutor.Task task : tasks) {
+            if (selected.contains(task.getId())) {
+                selectedTasks.add(task);
+            }
+        }
+        List<CheckResult> results = evaluate(selectedTasks);
+        Verdict verdict = Verdict.of(results);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        PrintStream reply;
+        try {
+            reply = new PrintStream(buffer, false, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        reply.print("OK " + verdict.getExitCode() + "\n");
+        JsonReportWriter report = new JsonReportWriter(reply);
+        report.begin(administrator, replayFile, image);
+        for (CheckResult result : results) {
+            report.check(result);
+        }
+        report.end(verdict.getLabel(), verdict.getExitCode(), System.nanoTime() - start);
+        reply.flush();
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Re-reads changed keys, then runs the tasks. Requests are evaluated one at a time, so concurrent
+     * clients never evaluate the same check twice.
+     */
+    private synchronized List<CheckResult> evaluate(List<CheckExecutor.Task> selectedTasks) {
+        // Rule results are computed from registry values read once, so keys written since the previous
+        // request are read again before their rules' fingerprints send them back to evaluation
+        RegistryRuleChecks.of(checkService).refreshWrittenKeys(checkIds);
+        return executor.runAll(selectedTasks, result -> {
+        });
+    }
+
+    private void serve(SocketChannel channel) {
+        try (SocketChannel socket = channel; Connection connection = new Connection(socket, requestTimeoutMillis)) {
+            if (token != null && !isAuthorized(connection.readLine())) {
+                connection.write("ERROR Not authorized\n");
+                return;
+            }
+            String request = connection.readLine();
+            connection.write(handle(request));
+        } catch (IOException e) {
+            // The client went away or missed its deadline; nothing to answer
+        }
+    }
+
+    private boolean isAuthorized(String line) {
+        // Compared in constant time, so the token cannot be guessed byte by byte
+        return MessageDigest.isEqual(line.getBytes(StandardCharsets.UTF_8),
+                (LocalEndpoint.AUTH_REQUEST + " " + token).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Answers a connection no handler can take. Its request is read first, as closing a socket with
+     * unread input resets it and the client would lose the reply.
+     */
+    private void refuse(SocketChannel channel) {
+        try (SocketChannel socket = channel;
+                Connection connection = new Connection(socket, REFUSAL_TIMEOUT_MILLIS)) {
+            if (token != null) {
+                connection.readLine();
+            }
+            connection.readLine();
+            connection.write("ERROR Daemon busy\n");
+        } catch (IOException e) {
+            // The client went away or is stalled; refused either way
+        }
+    }
+
+    private static void deleteEndpoint(Path endpoint) {
+        try {
+            Files.deleteIfExists(endpoint);
+        } catch (IOException e) {
+            // Replaced by the next daemon
+        }
+    }
+
+    /**
+     * A request connection read and written without blocking, so every read and write waits at most
+     * until a deadline.
+     */
+    private static final class Connection implements Closeable {
+        private final SocketChannel channel;
+        private final Selector selector;
+        private final SelectionKey key;
+        private final long timeoutMillis;
+        private final long readDeadline;
+        private final ByteBuffer input = ByteBuffer.allocate(MAX_REQUEST_LENGTH);
+
+        Connection(SocketChannel channel, long timeoutMillis) throws IOException {
+            this.channel = channel;
+            this.selector = Selector.open();
+            this.timeoutMillis = timeoutMillis;
+            this.readDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            try {
+                channel.configureBlocking(false);
+                this.key = channel.register(selector, 0);
+            } catch (IOException e) {
+                selector.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Reads the next line, or what was sent before the client closed its side.
+         *
+         * @throws SocketTimeoutException if no full line arrives before the request deadline
+         */
+        String readLine() throws IOException {
+            while (true) {
+                for (int i = 0; i < input.position(); i++) {
+                    if (input.get(i) == '\n') {
+                        return take(i, 1);
+                    }
+                }
+                if (!input.hasRemaining()) {
+                    throw new IOException("Request too long");
+                }
+                int read = channel.read(input);
+                if (read == -1) {
+                    return take(input.position(), 0);
+                }
+                if (read == 0) {
+                    await(SelectionKey.OP_READ, readDeadline);
+                }
+            }
+        }
+
+        /**
+         * Writes the reply, waiting for the client to take it until a fresh deadline.
+         */
+        void write(String reply) throws IOException {
+            ByteBuffer output = ByteBuffer.wrap(reply.getBytes(StandardCharsets.UTF_8));
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (output.hasRemaining()) {
+                if (channel.write(output) == 0) {
+                    await(SelectionKey.OP_WRITE, deadline);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            selector.close();
+        }
+
+        /**
+         * Removes a line of the given length, and its terminator, from the input.
+         */
+        private String take(int length, int terminator) {
+            byte[] line = new byte[length];
+            input.flip();
+            input.get(line);
+            input.position(input.position() + terminator);
+            input.compact();
+            return new String(line, StandardCharsets.UTF_8);
+        }
+
+        private void await(int operation, long deadline) throws IOException {
+            key.interestOps(operation);
+            while (true) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException("Request timed out");
+                }
+                if (selector.select(remaining) > 0) {
+                    selector.selectedKeys().clear();
+                    return;
+                }
+            }
+        }
+    }
+}
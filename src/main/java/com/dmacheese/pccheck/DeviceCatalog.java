@@ -0,0 +1,210 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Immutable set of device models the device check accepts, compiled from a catalog table.
+ * Every target's hardware ID prefixes and name patterns go into a single
+ * {@link DeviceQuery}, so enumeration matches each device once however many
+ * targets there are. Only the few devices that match are then attributed to a
+ * target, with that target's own query.
+ */
+public final class DeviceCatalog {
+
+    private static final String DEFAULT_CATALOG_RESOURCE = "device-catalog.properties";
+    private static final String DEFAULT_CHECK_NAME = "FTDIBUS3 Driver";
+
+    private final String checkName;
+    private final List<DeviceTarget> targets;
+    private final DeviceQuery query;
+    // Query of each target alone, in target order
+    private final List<DeviceQuery> targetQueries = new ArrayList<>();
+
+    private DeviceCatalog(String checkName, List<DeviceTarget> targets) {
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("Device catalog has no targets");
+        }
+        this.checkName = checkName;
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+
+        List<String> hardwareIds = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        String enumerator = targets.get(0).getEnumerator();
+        for (DeviceTarget target : targets) {
+            hardwareIds.addAll(target.getHardwareIdPrefixes());
+            names.addAll(target.getNamePatterns());
+            targetQueries.add(DeviceQuery.anyOf(target.getEnumerator(), target.getHardwareIdPrefixes(),
+                    target.getNamePatterns()));
+            // Targets under different enumerators need a scan of every device class
+            if (enumerator != null && !enumerator.equalsIgnoreCase(target.getEnumerator())) {
+                enumerator = null;
+            }
+        }
+        this.query = DeviceQuery.anyOf(enumerator, hardwareIds, names);
+    }
+
+    /**
+     * Compiles a catalog from already constructed targets.
+     */
+    public static DeviceCatalog of(List<DeviceTarget> targets) {
+        return new DeviceCatalog(DEFAULT_CHECK_NAME, targets);
+    }
+
+    /**
+     * Loads the catalog bundled on the classpath.
+     */
+    public static DeviceCatalog loadDefault() {
+        try (InputStream in = DeviceCatalog.class.getResourceAsStream(DEFAULT_CATALOG_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing device catalog resource: " + DEFAULT_CATALOG_RESOURCE);
+            }
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return fromProperties(properties);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read device catalog resource: " + DEFAULT_CATALOG_RESOURCE, e);
+        }
+    }
+
+    /**
+     * Loads a catalog from a file.
+     */
+    public static DeviceCatalog load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Compiles a catalog from a catalog table. See device-catalog.properties for the format.
+     */
+    public static DeviceCatalog fromProperties(Properties properties) {
+        List<DeviceTarget> targets = new ArrayList<>();
+        for (String id : properties.getProperty("targets", "").split(",")) {
+            id = id.trim();
+            if (id.isEmpty()) {
+                continue;
+            }
+            List<String> hardwareIds = list(properties.getProperty(id + ".hardwareIds", ""));
+            List<String> names = list(properties.getProperty(id + ".names", ""));
+            if (hardwareIds.isEmpty() && names.isEmpty()) {
+                throw new IllegalArgumentException("Target '" + id + "' needs 'hardwareIds' or 'names'");
+            }
+            String enumerator = properties.getProperty(id + ".enumerator", "").trim();
+            String service = properties.getProperty(id + ".service", "").trim();
+            targets.add(new DeviceTarget(id,
+                    require(properties, id, "name"),
+                    enumerator.isEmpty() ? null : enumerator,
+                    hardwareIds,
+                    names,
+                    service.isEmpty() ? null : service,
+                    parseVersions(id, require(properties, id, "versions"))));
+        }
+        return new DeviceCatalog(properties.getProperty("checkName", DEFAULT_CHECK_NAME).trim(), targets);
+    }
+
+    /**
+     * Returns the report name of the device check.
+     */
+    public String getCheckName() {
+        return checkName;
+    }
+
+    /**
+     * Returns the targets in priority order.
+     */
+    public List<DeviceTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the query matching any target.
+     */
+    public DeviceQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns the target a device is an instance of. Only targets whose enumerator matches the device
+     * are considered. Among them, a hardware ID match takes precedence over a name match, and the
+     * earliest target wins when several match the same way.
+     */
+    public Optional<DeviceTarget> find(DeviceRecord device) {
+        for (int i = 0; i < targets.size(); i++) {
+            DeviceQuery target = targetQueries.get(i);
+            if (target.matchesEnumerator(device.getEnumerator())) {
+                for (String hardwareId : device.getHardwareIds()) {
+                    if (target.matchesHardwareId(hardwareId)) {
+                        return Optional.of(targets.get(i));
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            DeviceQuery target = targetQueries.get(i);
+            if (target.matchesEnumerator(device.getEnumerator())
+                    && (device.getFriendlyName().map(target::matchesName).orElse(false)
+                            || device.getDescription().map(target::matchesName).orElse(false))) {
+                return Optional.of(targets.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a fingerprint of every target definition.
+     */
+    public long definitionFingerprint() {
+        long[] parts = new long[targets.size() + 1];
+        parts[0] = Fingerprint.of(checkName);
+        for (int i = 0; i < targets.size(); i++) {
+            parts[i + 1] = targets.get(i).definitionFingerprint();
+        }
+        return Fingerprint.combine(parts);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static List<String> list(String value) {
+        List<String> values = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                values.add(item.trim());
+            }
+        }
+        return values;
+    }
+
+    private static String require(Properties properties, String id, String field) {
+        String value = properties.getProperty(id + "." + field);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Target '" + id + "' is missing '" + field + "'");
+        }
+        return value.trim();
+    }
+
+    private static List<VersionRange> parseVersions(String id, String value) {
+        List<VersionRange> ranges = new ArrayList<>();
+        for (String range : list(value)) {
+            try {
+                ranges.add(VersionRange.parse(range));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Target '" + id + "' has " + e.getMessage());
+            }
+        }
+        return ranges;
+    }
+}
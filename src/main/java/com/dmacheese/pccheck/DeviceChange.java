@@ -0,0 +1,47 @@
+package com.dmacheese.pccheck;
+
+/**
+ * A device arrival or removal reported by a {@link DeviceChangeSource}.
+ */
+public final class DeviceChange {
+
+    /**
+     * Kind of device change.
+     */
+    public enum Type {
+        ARRIVAL,
+        REMOVAL
+    }
+
+    private final Type type;
+    private final String instanceId;
+
+    private DeviceChange(Type type, String instanceId) {
+        this.type = type;
+        this.instanceId = instanceId;
+    }
+
+    public static DeviceChange arrival(String instanceId) {
+        return new DeviceChange(Type.ARRIVAL, instanceId);
+    }
+
+    public static DeviceChange removal(String instanceId) {
+        return new DeviceChange(Type.REMOVAL, instanceId);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the device instance id, e.g. USB\VID_0403&amp;PID_601F\000000000001.
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + instanceId;
+    }
+}
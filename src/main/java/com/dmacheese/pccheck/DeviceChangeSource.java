@@ -0,0 +1,28 @@
+package com.dmacheese.pccheck;
+
+import java.util.List;
+
+/**
+ * Source of USB device arrival and removal notifications.
+ */
+public interface DeviceChangeSource extends AutoCloseable {
+
+    /**
+     * Starts listening. Only changes after this call are reported.
+     *
+     * @throws IllegalStateException if the notification cannot be registered
+     */
+    void start();
+
+    /**
+     * Blocks until at least one device arrives or is removed and returns every pending
+     * change in the order it happened. Returns an empty list once the source is closed.
+     */
+    List<DeviceChange> awaitChanges() throws InterruptedException;
+
+    /**
+     * Stops listening and wakes up a pending {@link #awaitChanges()}.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,35 @@
+package com.dmacheese.pccheck;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Built-in provider of the critical device driver check, driven by the device catalog.
+ * The catalog is only loaded once the check is selected.
+ */
+public class DeviceCheckProvider implements CheckProvider {
+
+    @Override
+    public Map<String, String> getChecks(CheckContext context) {
+        return Collections.singletonMap(SystemCheckService.CHECK_FTDIBUS, context.getCatalog().getCheckName());
+    }
+
+    @Override
+    public Set<String> getCheckIds(CheckContext context) {
+        return Collections.singleton(SystemCheckService.CHECK_FTDIBUS);
+    }
+
+    @Override
+    public List<CheckExecutor.Task> createTasks(CheckContext context, Set<String> checkIds) {
+        DeviceDriverCheck check = DeviceDriverCheck.of(context.getCheckService());
+        return Collections.singletonList(context.task(SystemCheckService.CHECK_FTDIBUS,
+                context.getCatalog().getCheckName(), true, check::fingerprint, check::evaluate));
+    }
+
+    @Override
+    public int getOrder() {
+        return 100;
+    }
+}
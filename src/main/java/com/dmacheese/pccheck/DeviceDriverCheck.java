@@ -0,0 +1,146 @@
+package com.dmacheese.pccheck;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The critical device driver check of {@link DeviceCheckProvider}: every attached device of a catalog
+ * model must have a driver in one of that model's accepted versions. One instance is kept per
+ * {@link SystemCheckService}, so watch mode can track the devices between evaluations.
+ */
+public final class DeviceDriverCheck {
+
+    // Parent of the driver service keys; a service key is rewritten when its driver is installed or updated
+    private static final String REG_SERVICES = "SYSTEM\\CurrentControlSet\\Services\\";
+
+    private final SystemCheckService service;
+    private final DeviceCatalog catalog;
+    // Set while device changes are tracked; the check then reads it instead of enumerating
+    private volatile DeviceIndex devices;
+
+    private DeviceDriverCheck(SystemCheckService service) {
+        this.service = service;
+        this.catalog = service.getCatalog();
+    }
+
+    /**
+     * Returns the service's device check, creating it on first call.
+     */
+    public static DeviceDriverCheck of(SystemCheckService service) {
+        return service.check(DeviceDriverCheck.class, DeviceDriverCheck::new);
+    }
+
+    /**
+     * Evaluates the check against the catalog without printing.
+     */
+    public CheckResult evaluate() {
+        DeviceIndex index = devices;
+        List<DeviceRecord> found;
+        try {
+            found = index != null ? index.all() : service.deviceEnumerator().findAll(catalog.getQuery());
+        } catch (DeviceEnumerationException e) {
+            return CheckResult.of(catalog.getCheckName(), false, e.getMessage());
+        }
+        return handleFoundDevices(found);
+    }
+
+    /**
+     * Fingerprints the check's inputs: the catalog, the present device set and the driver service keys.
+     */
+    public long fingerprint() {
+        List<DeviceTarget> targets = catalog.getTargets();
+        long[] parts = new long[targets.size() + 2];
+        parts[0] = catalog.definitionFingerprint();
+        parts[1] = service.deviceEnumerator().getDeviceSetFingerprint(catalog.getQuery());
+        for (int i = 0; i < targets.size(); i++) {
+            String driverService = targets.get(i).getDriverService();
+            parts[i + 2] = driverService == null ? 1
+                    : service.registryReader().getLastWriteTime(REG_SERVICES + driverService);
+        }
+        return Fingerprint.combine(parts);
+    }
+
+    /**
+     * Starts keeping the catalog devices in an index updated by {@link #applyDeviceChanges(List)},
+     * after one enumeration. Call once the device change source has started.
+     */
+    public void trackDevices() {
+        DeviceIndex index = new DeviceIndex(service.deviceEnumerator(), catalog.getQuery());
+        try {
+            index.seed();
+            devices = index;
+        } catch (DeviceEnumerationException e) {
+            // Left untracked; the check enumerates and reports the error
+        }
+    }
+
+    /**
+     * Applies device arrivals and removals to the tracked devices, reading only the devices
+     * that changed. Returns true if the check may have a new result.
+     */
+    public boolean applyDeviceChanges(List<DeviceChange> changes) {
+        DeviceIndex index = devices;
+        if (index == null) {
+            return false;
+        }
+        boolean changed = false;
+        try {
+            for (DeviceChange change : changes) {
+                changed |= index.apply(change);
+            }
+        } catch (DeviceEnumerationException e) {
+            // Fall back to enumerating, which reports the error, until tracking is restarted
+            devices = null;
+            return true;
+        }
+        return changed;
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Handles the catalog devices found - checks each one's driver version against its target's ranges.
+     * Every attached device is validated, and the check passes only if all of them have an accepted driver.
+     */
+    private CheckResult handleFoundDevices(List<DeviceRecord> found) {
+        String checkName = catalog.getCheckName();
+        // Same model and version on several devices reads as one detail
+        Set<String> details = new LinkedHashSet<>();
+        boolean passed = true;
+        long value = CheckResult.NO_VALUE;
+        for (DeviceRecord device : found) {
+            Optional<DeviceTarget> target = catalog.find(device);
+            if (!target.isPresent()) {
+                continue;
+            }
+            // Name the model only when there is more than one to tell apart
+            String model = catalog.getTargets().size() > 1 ? target.get().getName() : "";
+            Optional<String> version = device.getDriverVersion();
+            if (!version.isPresent()) {
+                passed = false;
+                details.add(model.isEmpty() ? "Driver Version Not Found" : "Driver Version Not Found (" + model + ")");
+                continue;
+            }
+            String ver = version.get();
+            long packed = DriverVersion.parse(ver);
+            // The first device's packed version goes into the run history
+            if (value == CheckResult.NO_VALUE && packed != DriverVersion.INVALID) {
+                value = packed;
+            }
+            String prefix = model.isEmpty() ? "" : model + ", ";
+            if (target.get().accepts(packed)) {
+                details.add("Installed (" + prefix + ver + ")");
+            } else {
+                passed = false;
+                details.add("Wrong Version (" + prefix + ver + ", expected "
+                        + target.get().describeAcceptedVersions() + ")");
+            }
+        }
+        if (details.isEmpty()) {
+            return CheckResult.of(checkName, false, "Device Not Found");
+        }
+        return CheckResult.of(checkName, passed, String.join("; ", details)).withValue(value);
+    }
+}
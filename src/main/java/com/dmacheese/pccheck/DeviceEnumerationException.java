@@ -0,0 +1,23 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Thrown when the device information set cannot be opened.
+ */
+public class DeviceEnumerationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int errorCode;
+
+    public DeviceEnumerationException(int errorCode) {
+        super("Failed to Enumerate Devices - Error: " + errorCode);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Returns the Win32 error code reported by GetLastError.
+     */
+    public int getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,34 @@
+package com.dmacheese.pccheck;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Enumerates present devices.
+ */
+public interface DeviceEnumerator {
+
+    /**
+     * Finds every present device matching the query, in enumeration order, and reads their
+     * driver versions. The scan does not stop at the first match, so that every attached model
+     * is validated; devices that do not match have only their hardware IDs and names read.
+     *
+     * @throws DeviceEnumerationException if the device list cannot be opened
+     */
+    List<DeviceRecord> findAll(DeviceQuery query);
+
+    /**
+     * Reads a single present device by instance id, including its driver version,
+     * without enumerating any other device.
+     *
+     * @throws DeviceEnumerationException if the device list cannot be opened
+     */
+    Optional<DeviceRecord> findByInstanceId(String instanceId);
+
+    /**
+     * Returns a cheap fingerprint of the set of present devices in scope of the query,
+     * which changes whenever a device in scope arrives or is removed.
+     * Returns {@link Fingerprint#UNKNOWN} if the device set cannot be observed.
+     */
+    long getDeviceSetFingerprint(DeviceQuery query);
+}
@@ -0,0 +1,92 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory index of the present devices matching a query, kept current from
+ * device change notifications. Arrivals outside the query's enumerator are
+ * dropped without a native call, and an arrival in scope reads only that device.
+ */
+public class DeviceIndex {
+
+    private final DeviceEnumerator enumerator;
+    private final DeviceQuery query;
+    // Upper-case instance id to record, in arrival order
+    private final Map<String, DeviceRecord> devices = new LinkedHashMap<>();
+
+    public DeviceIndex(DeviceEnumerator enumerator, DeviceQuery query) {
+        this.enumerator = enumerator;
+        this.query = query;
+    }
+
+    /**
+     * Fills the index with one enumeration. Call after the change source has started
+     * so no arrival falls between the two.
+     *
+     * @throws DeviceEnumerationException if the device list cannot be opened
+     */
+    public synchronized void seed() {
+        devices.clear();
+        for (DeviceRecord device : enumerator.findAll(query)) {
+            devices.put(key(device.getInstanceId()), device);
+        }
+    }
+
+    /**
+     * Applies one change and returns true if the indexed devices changed.
+     *
+     * @throws DeviceEnumerationException if the device list cannot be opened
+     */
+    public synchronized boolean apply(DeviceChange change) {
+        String key = key(change.getInstanceId());
+        if (change.getType() == DeviceChange.Type.REMOVAL) {
+            // The index holds every match, so a removal never needs another scan
+            return devices.remove(key) != null;
+        }
+
+        if (!query.matchesEnumerator(enumeratorOf(change.getInstanceId()))) {
+            return false;
+        }
+        // Re-read even a known device: a driver update restarts it and changes its version
+        Optional<DeviceRecord> device = enumerator.findByInstanceId(change.getInstanceId());
+        if (device.isPresent() && query.matches(device.get())) {
+            devices.put(key, device.get());
+            return true;
+        }
+        return devices.remove(key) != null;
+    }
+
+    /**
+     * Returns the earliest indexed device still present.
+     */
+    public synchronized Optional<DeviceRecord> first() {
+        return devices.values().stream().findFirst();
+    }
+
+    /**
+     * Returns every indexed device, in enumeration and then arrival order.
+     */
+    public synchronized List<DeviceRecord> all() {
+        return new ArrayList<>(devices.values());
+    }
+
+    public synchronized int size() {
+        return devices.size();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static String key(String instanceId) {
+        return String.valueOf(instanceId).toUpperCase(Locale.ROOT);
+    }
+
+    private static String enumeratorOf(String instanceId) {
+        int separator = instanceId.indexOf('\\');
+        return separator < 0 ? instanceId : instanceId.substring(0, separator);
+    }
+}
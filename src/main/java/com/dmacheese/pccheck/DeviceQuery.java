@@ -0,0 +1,131 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Describes the devices a check is looking for.
+ * Enumerators first narrow the device set by enumerator, then match the cheap
+ * hardware ID property, and only read display names when that does not match.
+ * All prefixes and name patterns are compiled into one automaton each.
+ */
+public final class DeviceQuery {
+
+    private final String enumerator;
+    private final List<String> hardwareIdPrefixes;
+    private final List<String> namePatterns;
+    private final MultiPatternMatcher hardwareIdMatcher;
+    private final MultiPatternMatcher nameMatcher;
+
+    /**
+     * @param enumerator         device enumerator to restrict the scan to (e.g. "USB"), or null for all
+     * @param hardwareIdPrefixes hardware ID prefixes (e.g. "USB\VID_0403&amp;PID_601F"), matched case-insensitively
+     * @param namePattern        text the friendly name or description must contain, or null
+     */
+    public DeviceQuery(String enumerator, List<String> hardwareIdPrefixes, String namePattern) {
+        this(enumerator, hardwareIdPrefixes, namePattern == null ? Collections.<String>emptyList()
+                : Collections.singletonList(namePattern));
+    }
+
+    public DeviceQuery(String enumerator, String namePattern, String... hardwareIdPrefixes) {
+        this(enumerator, Arrays.asList(hardwareIdPrefixes), namePattern);
+    }
+
+    private DeviceQuery(String enumerator, List<String> hardwareIdPrefixes, List<String> namePatterns) {
+        this.enumerator = enumerator;
+        List<String> prefixes = new ArrayList<>();
+        for (String prefix : hardwareIdPrefixes) {
+            prefixes.add(prefix.toUpperCase(Locale.ROOT));
+        }
+        this.hardwareIdPrefixes = Collections.unmodifiableList(prefixes);
+        this.namePatterns = Collections.unmodifiableList(new ArrayList<>(namePatterns));
+        this.hardwareIdMatcher = new MultiPatternMatcher(this.hardwareIdPrefixes, true);
+        this.nameMatcher = new MultiPatternMatcher(this.namePatterns, false);
+    }
+
+    /**
+     * Creates a query matching any of several hardware ID prefixes or name patterns.
+     * Pattern indices returned by {@link #findHardwareId(String)} and {@link #findName(String)}
+     * are positions in these lists.
+     */
+    public static DeviceQuery anyOf(String enumerator, List<String> hardwareIdPrefixes, List<String> namePatterns) {
+        return new DeviceQuery(enumerator, hardwareIdPrefixes, namePatterns);
+    }
+
+    /**
+     * Returns the enumerator filter, or null when every device class is scanned.
+     */
+    public String getEnumerator() {
+        return enumerator;
+    }
+
+    public List<String> getHardwareIdPrefixes() {
+        return hardwareIdPrefixes;
+    }
+
+    public List<String> getNamePatterns() {
+        return namePatterns;
+    }
+
+    /**
+     * Returns true if devices can also be matched by display name.
+     */
+    public boolean hasNamePatterns() {
+        return !namePatterns.isEmpty();
+    }
+
+    /**
+     * Checks if a device with the given enumerator is in scope.
+     */
+    public boolean matchesEnumerator(String deviceEnumerator) {
+        return enumerator == null || enumerator.equalsIgnoreCase(deviceEnumerator);
+    }
+
+    /**
+     * Checks if a single hardware ID matches one of the prefixes.
+     */
+    public boolean matchesHardwareId(String hardwareId) {
+        return findHardwareId(hardwareId) >= 0;
+    }
+
+    /**
+     * Checks if a friendly name or description contains one of the name patterns.
+     */
+    public boolean matchesName(String deviceName) {
+        return findName(deviceName) >= 0;
+    }
+
+    /**
+     * Returns the index of the first prefix the hardware ID starts with, or -1.
+     */
+    public int findHardwareId(String hardwareId) {
+        return hardwareIdMatcher.firstPrefixOf(hardwareId);
+    }
+
+    /**
+     * Returns the index of the first name pattern the device name contains, or -1.
+     * The name is scanned once regardless of the number of patterns.
+     */
+    public int findName(String deviceName) {
+        return nameMatcher.firstMatchIn(deviceName);
+    }
+
+    /**
+     * Checks if a fully read device record matches this query.
+     */
+    public boolean matches(DeviceRecord device) {
+        if (!matchesEnumerator(device.getEnumerator())) {
+            return false;
+        }
+        for (String hardwareId : device.getHardwareIds()) {
+            if (matchesHardwareId(hardwareId)) {
+                return true;
+            }
+        }
+        return device.getFriendlyName().map(this::matchesName).orElse(false)
+                || device.getDescription().map(this::matchesName).orElse(false);
+    }
+}
@@ -0,0 +1,66 @@
+package com.dmacheese.pccheck;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Properties of a present device as reported by the device enumerator.
+ */
+public final class DeviceRecord {
+
+    private final String instanceId;
+    private final List<String> hardwareIds;
+    private final String friendlyName;
+    private final String description;
+    private final String driverVersion;
+
+    public DeviceRecord(String instanceId, List<String> hardwareIds, String friendlyName, String description,
+            String driverVersion) {
+        this.instanceId = instanceId;
+        this.hardwareIds = hardwareIds == null ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(hardwareIds);
+        this.friendlyName = friendlyName;
+        this.description = description;
+        this.driverVersion = driverVersion;
+    }
+
+    /**
+     * Returns the device instance id, e.g. USB\VID_0403&amp;PID_601F\000000000001.
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Returns the enumerator part of the instance id, e.g. USB.
+     */
+    public String getEnumerator() {
+        if (instanceId == null) {
+            return "";
+        }
+        int separator = instanceId.indexOf('\\');
+        return separator < 0 ? instanceId : instanceId.substring(0, separator);
+    }
+
+    public List<String> getHardwareIds() {
+        return hardwareIds;
+    }
+
+    public Optional<String> getFriendlyName() {
+        return Optional.ofNullable(friendlyName);
+    }
+
+    public Optional<String> getDescription() {
+        return Optional.ofNullable(description);
+    }
+
+    public Optional<String> getDriverVersion() {
+        return Optional.ofNullable(driverVersion);
+    }
+
+    @Override
+    public String toString() {
+        return instanceId + " (" + (friendlyName != null ? friendlyName : description) + ")";
+    }
+}
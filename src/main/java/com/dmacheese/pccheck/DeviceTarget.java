@@ -0,0 +1,102 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A device model from the device catalog and the driver versions accepted for it.
+ */
+public final class DeviceTarget {
+
+    private final String id;
+    private final String name;
+    private final String enumerator;
+    private final List<String> hardwareIdPrefixes;
+    private final List<String> namePatterns;
+    private final String driverService;
+    private final List<VersionRange> acceptedVersions;
+
+    /**
+     * @param driverService name of the driver's service key, rewritten when the driver is installed, or null
+     */
+    public DeviceTarget(String id, String name, String enumerator, List<String> hardwareIdPrefixes,
+            List<String> namePatterns, String driverService, List<VersionRange> acceptedVersions) {
+        this.id = id;
+        this.name = name;
+        this.enumerator = enumerator;
+        this.hardwareIdPrefixes = Collections.unmodifiableList(new ArrayList<>(hardwareIdPrefixes));
+        this.namePatterns = Collections.unmodifiableList(new ArrayList<>(namePatterns));
+        this.driverService = driverService;
+        this.acceptedVersions = Collections.unmodifiableList(new ArrayList<>(acceptedVersions));
+    }
+
+    /**
+     * Checks if a packed driver version is in one of the accepted ranges.
+     */
+    public boolean accepts(long driverVersion) {
+        for (int i = 0; i < acceptedVersions.size(); i++) {
+            if (acceptedVersions.get(i).contains(driverVersion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the accepted ranges for display, e.g. "1.3.0.8/1.3.0.10".
+     */
+    public String describeAcceptedVersions() {
+        StringBuilder text = new StringBuilder();
+        for (VersionRange range : acceptedVersions) {
+            if (text.length() > 0) {
+                text.append('/');
+            }
+            text.append(range);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns a fingerprint of the target definition, so cached results are invalidated when the catalog changes.
+     */
+    public long definitionFingerprint() {
+        long hash = Fingerprint.of(id, name, enumerator, driverService, String.join(",", hardwareIdPrefixes),
+                describeAcceptedVersions());
+        for (String pattern : namePatterns) {
+            hash = Fingerprint.add(hash, pattern);
+        }
+        return hash;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the device enumerator, e.g. USB, or null if the device may appear under any.
+     */
+    public String getEnumerator() {
+        return enumerator;
+    }
+
+    public List<String> getHardwareIdPrefixes() {
+        return hardwareIdPrefixes;
+    }
+
+    public List<String> getNamePatterns() {
+        return namePatterns;
+    }
+
+    public String getDriverService() {
+        return driverService;
+    }
+
+    public List<VersionRange> getAcceptedVersions() {
+        return acceptedVersions;
+    }
+}
@@ -0,0 +1,44 @@
+package com.dmacheese.pccheck;
+
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ * The DirectX End-User Runtimes check of {@link DirectXCheckProvider}: the last D3DX 9 library must be
+ * present, in the June 2010 release or later.
+ */
+public final class DirectXCheck {
+
+    static final String NAME = "DirectX End-User Runtimes";
+
+    // June 2010 DirectX End-User Runtime, the last release of D3DX 9; SimulatedBackend generates it too
+    static final FileRequirement FILE = FileRequirement.parse("C:\\Windows\\System32\\d3dx9_43.dll@9.29.952.3111+");
+
+    private final SystemCheckService service;
+
+    public DirectXCheck(SystemCheckService service) {
+        this.service = service;
+    }
+
+    /**
+     * Evaluates the check without printing.
+     */
+    public CheckResult evaluate() {
+        FileVersion version = service.fileVersionProbe().probe(FILE.getPath());
+        Optional<CheckResult> failure = FileChecks.checkFile(NAME, FILE, version);
+        if (failure.isPresent()) {
+            return failure.get();
+        }
+        return CheckResult.of(NAME, true, version.hasVersion()
+                ? "Installed (" + FILE.getFileName() + " " + version + ")"
+                : "Installed (" + FILE.getFileName() + " found)");
+    }
+
+    /**
+     * Fingerprints the check's input: the probed file's modification time and size.
+     */
+    public long fingerprint() {
+        return Fingerprint.combine(Fingerprint.of(FILE.toString()),
+                FileChecks.fingerprint(service.fileProbe(), Collections.singletonList(FILE)));
+    }
+}
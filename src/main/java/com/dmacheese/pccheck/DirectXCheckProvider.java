@@ -0,0 +1,29 @@
+package com.dmacheese.pccheck;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Built-in provider of the DirectX End-User Runtimes file check.
+ */
+public class DirectXCheckProvider implements CheckProvider {
+
+    @Override
+    public Map<String, String> getChecks(CheckContext context) {
+        return Collections.singletonMap(SystemCheckService.CHECK_DIRECTX, DirectXCheck.NAME);
+    }
+
+    @Override
+    public List<CheckExecutor.Task> createTasks(CheckContext context, Set<String> checkIds) {
+        DirectXCheck check = new DirectXCheck(context.getCheckService());
+        return Collections.singletonList(context.task(SystemCheckService.CHECK_DIRECTX, DirectXCheck.NAME, false,
+                check::fingerprint, check::evaluate));
+    }
+
+    @Override
+    public int getOrder() {
+        return 300;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Packs Windows driver versions (major.minor.build.revision, 16 bits each) into a long.
+ * Packed versions order the same way as the versions when compared unsigned,
+ * so range checks are plain comparisons with no parsing or allocation.
+ */
+public final class DriverVersion {
+
+    /**
+     * Returned for strings that are not a version. Equal to 65535.65535.65535.65535,
+     * which is therefore not representable.
+     */
+    public static final long INVALID = -1L;
+
+    private static final int COMPONENTS = 4;
+    private static final int MAX_COMPONENT = 0xFFFF;
+
+    private DriverVersion() {
+    }
+
+    /**
+     * Parses "1.3.0.10" into packed form. Missing trailing components are zero.
+     * Returns {@link #INVALID} for anything else.
+     */
+    public static long parse(CharSequence version) {
+        if (version == null || version.length() == 0) {
+            return INVALID;
+        }
+        long packed = 0;
+        int component = 0;
+        int value = 0;
+        boolean digits = false;
+        for (int i = 0; i < version.length(); i++) {
+            char c = version.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > MAX_COMPONENT) {
+                    return INVALID;
+                }
+                digits = true;
+            } else if (c == '.' && digits && component < COMPONENTS - 1) {
+                packed = (packed << 16) | value;
+                component++;
+                value = 0;
+                digits = false;
+            } else {
+                return INVALID;
+            }
+        }
+        if (!digits) {
+            return INVALID;
+        }
+        packed = (packed << 16) | value;
+        return packed << (16 * (COMPONENTS - 1 - component));
+    }
+
+    /**
+     * Formats a packed version as "major.minor.build.revision".
+     */
+    public static String format(long packed) {
+        return (packed >>> 48) + "." + ((packed >>> 32) & MAX_COMPONENT) + "." + ((packed >>> 16) & MAX_COMPONENT)
+                + "." + (packed & MAX_COMPONENT);
+    }
+
+    /**
+     * Compares two packed versions.
+     */
+    public static int compare(long a, long b) {
+        return Long.compareUnsigned(a, b);
+    }
+}
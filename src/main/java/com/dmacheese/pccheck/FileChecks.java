@@ -0,0 +1,62 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * File requirement checks shared by the registry rules and the DirectX check.
+ */
+final class FileChecks {
+
+    private FileChecks() {
+    }
+
+    /**
+     * Probes the files in parallel and returns the result for the first one missing or in an unaccepted version.
+     */
+    static Optional<CheckResult> checkFiles(FileVersionProbe probe, String checkName, List<FileRequirement> files) {
+        List<String> paths = new ArrayList<>(files.size());
+        for (FileRequirement file : files) {
+            paths.add(file.getPath());
+        }
+        List<FileVersion> versions = probe.probe(paths);
+        for (int i = 0; i < files.size(); i++) {
+            Optional<CheckResult> failure = checkFile(checkName, files.get(i), versions.get(i));
+            if (failure.isPresent()) {
+                return failure;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a failed result if a file is missing or its version is not accepted.
+     * A file without a readable version resource is accepted, as presence was all that was checked before.
+     */
+    static Optional<CheckResult> checkFile(String checkName, FileRequirement file, FileVersion version) {
+        if (!version.exists()) {
+            return Optional.of(CheckResult.of(checkName, false, "Missing (" + file.getFileName() + " not found)"));
+        }
+        if (file.getVersions() != null && version.hasVersion() && !file.getVersions().contains(version.getVersion())) {
+            return Optional.of(CheckResult.of(checkName, false, "Outdated (" + file.getFileName() + " " + version
+                    + ", expected " + file.getVersions() + ")"));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Fingerprints files by modification time and size, the same inputs that invalidate cached versions.
+     */
+    static long fingerprint(FileProbe probe, List<FileRequirement> files) {
+        long[] parts = new long[files.size() * 2 + 1];
+        parts[0] = 1;
+        for (int i = 0; i < files.size(); i++) {
+            String path = files.get(i).getPath();
+            long lastModified = probe.lastModified(path);
+            parts[i * 2 + 1] = lastModified == 0 ? -1 : lastModified;
+            parts[i * 2 + 2] = lastModified == 0 ? -1 : probe.size(path);
+        }
+        return Fingerprint.combine(parts);
+    }
+}
@@ -0,0 +1,28 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Probes files consumed by checks.
+ */
+public interface FileProbe {
+
+    /**
+     * Checks if a file exists.
+     */
+    boolean exists(String path);
+
+    /**
+     * Returns the file's last modification time in milliseconds, or 0 if it does not exist.
+     */
+    long lastModified(String path);
+
+    /**
+     * Returns the file's size in bytes, or 0 if it does not exist.
+     */
+    long size(String path);
+
+    /**
+     * Returns the packed file version from the file's version resource (see {@link DriverVersion}),
+     * or {@link DriverVersion#INVALID} if the file is missing or has none.
+     */
+    long fileVersion(String path);
+}
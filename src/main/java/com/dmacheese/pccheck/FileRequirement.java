@@ -0,0 +1,58 @@
+package com.dmacheese.pccheck;
+
+/**
+ * A file a check needs, optionally with the file versions it accepts.
+ * Written as "path" or "path@range", e.g. C:\Windows\System32\msvcp140.dll@14.0+.
+ */
+public final class FileRequirement {
+
+    private final String path;
+    private final VersionRange versions;
+
+    /**
+     * @param versions accepted file versions, or null if any version will do
+     */
+    public FileRequirement(String path, VersionRange versions) {
+        this.path = path;
+        this.versions = versions;
+    }
+
+    /**
+     * Parses "path" or "path@range".
+     *
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    public static FileRequirement parse(String value) {
+        String text = value.trim();
+        int separator = text.lastIndexOf('@');
+        if (separator < 0) {
+            return new FileRequirement(text, null);
+        }
+        return new FileRequirement(text.substring(0, separator).trim(),
+                VersionRange.parse(text.substring(separator + 1)));
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the file name without its directory, for messages.
+     */
+    public String getFileName() {
+        int separator = Math.max(path.lastIndexOf('\\'), path.lastIndexOf('/'));
+        return path.substring(separator + 1);
+    }
+
+    /**
+     * Returns the accepted versions, or null if any version will do.
+     */
+    public VersionRange getVersions() {
+        return versions;
+    }
+
+    @Override
+    public String toString() {
+        return versions == null ? path : path + "@" + versions;
+    }
+}
@@ -0,0 +1,54 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Result of probing a file: whether it exists and its packed file version.
+ */
+public final class FileVersion {
+
+    private static final FileVersion MISSING = new FileVersion(false, DriverVersion.INVALID);
+
+    private final boolean exists;
+    private final long version;
+
+    private FileVersion(boolean exists, long version) {
+        this.exists = exists;
+        this.version = version;
+    }
+
+    public static FileVersion missing() {
+        return MISSING;
+    }
+
+    /**
+     * Creates the result for an existing file. Pass {@link DriverVersion#INVALID} if it has no version resource.
+     */
+    public static FileVersion of(long version) {
+        return new FileVersion(true, version);
+    }
+
+    public boolean exists() {
+        return exists;
+    }
+
+    /**
+     * Returns true if the file exists and has a readable version resource.
+     */
+    public boolean hasVersion() {
+        return exists && version != DriverVersion.INVALID;
+    }
+
+    /**
+     * Returns the packed file version, or {@link DriverVersion#INVALID}.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        if (!exists) {
+            return "missing";
+        }
+        return hasVersion() ? DriverVersion.format(version) : "no version";
+    }
+}
@@ -0,0 +1,81 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Reads file versions for checks through a {@link FileProbe}.
+ * Lists of files are probed in parallel, and each version is cached by path,
+ * size and modification time, so a file is only read again after it changes.
+ */
+public class FileVersionProbe {
+
+    private final FileProbe fileProbe;
+    // Lower-case path to the version read at a given size and modification time
+    private final ConcurrentMap<String, CachedVersion> cache = new ConcurrentHashMap<>();
+    private final LongAdder versionReads = new LongAdder();
+
+    public FileVersionProbe(FileProbe fileProbe) {
+        this.fileProbe = fileProbe;
+    }
+
+    /**
+     * Probes several files in parallel and returns the results in the same order.
+     */
+    public List<FileVersion> probe(List<String> paths) {
+        FileVersion[] results = new FileVersion[paths.size()];
+        IntStream indices = IntStream.range(0, results.length);
+        // A single file is not worth a hop to the common pool
+        (results.length > 1 ? indices.parallel() : indices).forEach(i -> results[i] = probe(paths.get(i)));
+        List<FileVersion> list = new ArrayList<>(results.length);
+        for (FileVersion result : results) {
+            list.add(result);
+        }
+        return list;
+    }
+
+    /**
+     * Probes one file, reading its version only if its size or modification time changed.
+     */
+    public FileVersion probe(String path) {
+        if (!fileProbe.exists(path)) {
+            return FileVersion.missing();
+        }
+        long size = fileProbe.size(path);
+        long lastModified = fileProbe.lastModified(path);
+        String key = path.toLowerCase(Locale.ROOT);
+        CachedVersion cached = cache.get(key);
+        if (cached != null && cached.size == size && cached.lastModified == lastModified) {
+            return cached.version;
+        }
+
+        versionReads.increment();
+        FileVersion version = FileVersion.of(fileProbe.fileVersion(path));
+        cache.put(key, new CachedVersion(size, lastModified, version));
+        return version;
+    }
+
+    /**
+     * Returns how many version resources have been read, as opposed to served from the cache.
+     */
+    public long getVersionReads() {
+        return versionReads.sum();
+    }
+
+    private static final class CachedVersion {
+        final long size;
+        final long lastModified;
+        final FileVersion version;
+
+        CachedVersion(long size, long lastModified, FileVersion version) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Helpers for building cheap 64-bit fingerprints of check inputs.
+ * A fingerprint of {@link #UNKNOWN} means the input could not be observed and must not be cached.
+ */
+public final class Fingerprint {
+
+    public static final long UNKNOWN = 0;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Fingerprint() {
+    }
+
+    /**
+     * Hashes strings with 64-bit FNV-1a, separating each with a NUL.
+     */
+    public static long of(String... values) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String value : values) {
+            hash = add(hash, value);
+        }
+        return hash;
+    }
+
+    /**
+     * Adds a string to a running FNV-1a hash.
+     */
+    public static long add(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        }
+        // Terminator so that ("ab", "c") and ("a", "bc") hash differently
+        return hash * FNV_PRIME;
+    }
+
+    /**
+     * Combines observed values into one fingerprint. Returns {@link #UNKNOWN} if any part is unknown.
+     */
+    public static long combine(long... parts) {
+        long hash = FNV_OFFSET_BASIS;
+        for (long part : parts) {
+            if (part == UNKNOWN) {
+                return UNKNOWN;
+            }
+            for (int shift = 0; shift < 64; shift += 8) {
+                hash = (hash ^ ((part >>> shift) & 0xFF)) * FNV_PRIME;
+            }
+        }
+        return hash == UNKNOWN ? 1 : hash;
+    }
+}
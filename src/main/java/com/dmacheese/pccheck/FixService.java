@@ -1,35 +1,43 @@
 package com.dmacheese.pccheck;
 
-import com.sun.jna.platform.win32.Advapi32Util;
-import com.sun.jna.platform.win32.Shell32;
-import com.sun.jna.platform.win32.WinReg;
-
 /**
  * Service class for applying automated fixes to system settings.
  * Requires Administrator privileges to modify registry values.
  */
 public class FixService {
 
+    private final RegistryWriter registryWriter;
+    private final ConsoleBackend console;
+
+    public FixService() {
+        this(new WindowsRegistryWriter(), WindowsConsoleBackend.INSTANCE);
+    }
+
+    public FixService(RegistryWriter registryWriter, ConsoleBackend console) {
+        this.registryWriter = registryWriter;
+        this.console = console;
+    }
+
     /**
      * Attempts to disable Windows Defender Real-Time Protection.
      * Note: This may fail if Tamper Protection is enabled.
      */
     public boolean fixWindowsSecurity() {
-        System.out.println(" -> Attempting to disable Real-Time Protection...");
+        console.out().println(" -> Attempting to disable Real-Time Protection...");
         try {
-            Advapi32Util.registrySetIntValue(WinReg.HKEY_LOCAL_MACHINE,
-                    "SOFTWARE\\Microsoft\\Windows Defender\\Real-Time Protection", "DisableRealtimeMonitoring", 1);
+            registryWriter.setDword("SOFTWARE\\Microsoft\\Windows Defender\\Real-Time Protection",
+                    "DisableRealtimeMonitoring", 1);
             return true;
         } catch (Exception e) {
-            Utils.setConsoleColor(Utils.Color.Red);
-            System.out.println("    [FAILED] Could not disable Real-Time Protection.");
-            System.out.println("    [!] Tamper Protection is likely ON.");
-            Utils.setConsoleColor(Utils.Color.Yellow);
-            System.out.println("    [ACTION] Please manually disable 'Tamper Protection' in Windows Security.");
-            System.out.println("             Opening Windows Security settings...");
-            Utils.setConsoleColor(Utils.Color.Default);
+            console.setColor(Utils.Color.Red);
+            console.out().println("    [FAILED] Could not disable Real-Time Protection.");
+            console.out().println("    [!] Tamper Protection is likely ON.");
+            console.setColor(Utils.Color.Yellow);
+            console.out().println("    [ACTION] Please manually disable 'Tamper Protection' in Windows Security.");
+            console.out().println("             Opening Windows Security settings...");
+            console.setColor(Utils.Color.Default);
 
-            Shell32.INSTANCE.ShellExecute(null, "open", "windowsdefender://threat/", null, null, 1);
+            console.open("windowsdefender://threat/");
             return false;
         }
     }
@@ -38,14 +46,14 @@ public class FixService {
      * Attempts to disable HVCI (Hypervisor-Enforced Code Integrity).
      */
     public boolean fixHVCI() {
-        System.out.println(" -> Attempting to disable HVCI (Core Isolation)...");
+        console.out().println(" -> Attempting to disable HVCI (Core Isolation)...");
         try {
-            Advapi32Util.registrySetIntValue(WinReg.HKEY_LOCAL_MACHINE,
+            registryWriter.setDword(
                     "SYSTEM\\CurrentControlSet\\Control\\DeviceGuard\\Scenarios\\HypervisorEnforcedCodeIntegrity",
                     "Enabled", 0);
             return true;
         } catch (Exception e) {
-            System.out.println("    [FAILED] " + e.getMessage());
+            console.out().println("    [FAILED] " + e.getMessage());
             return false;
         }
     }
@@ -54,13 +62,13 @@ public class FixService {
      * Attempts to disable the Vulnerable Driver Blocklist.
      */
     public boolean fixVulnDriverBlocklist() {
-        System.out.println(" -> Attempting to disable Vulnerable Driver Blocklist...");
+        console.out().println(" -> Attempting to disable Vulnerable Driver Blocklist...");
         try {
-            Advapi32Util.registrySetIntValue(WinReg.HKEY_LOCAL_MACHINE,
-                    "SYSTEM\\CurrentControlSet\\Control\\CI\\Config", "VulnerableDriverBlocklistEnable", 0);
+            registryWriter.setDword("SYSTEM\\CurrentControlSet\\Control\\CI\\Config",
+                    "VulnerableDriverBlocklistEnable", 0);
             return true;
         } catch (Exception e) {
-            System.out.println("    [FAILED] " + e.getMessage());
+            console.out().println("    [FAILED] " + e.getMessage());
             return false;
         }
     }
@@ -69,13 +77,13 @@ public class FixService {
      * Attempts to disable User Account Control (UAC).
      */
     public boolean fixUAC() {
-        System.out.println(" -> Attempting to disable UAC...");
+        console.out().println(" -> Attempting to disable UAC...");
         try {
-            Advapi32Util.registrySetIntValue(WinReg.HKEY_LOCAL_MACHINE,
-                    "SOFTWARE\\Microsoft\\Windows\\CurrentVersion\\Policies\\System", "EnableLUA", 0);
+            registryWriter.setDword("SOFTWARE\\Microsoft\\Windows\\CurrentVersion\\Policies\\System",
+                    "EnableLUA", 0);
             return true;
         } catch (Exception e) {
-            System.out.println("    [FAILED] " + e.getMessage());
+            console.out().println("    [FAILED] " + e.getMessage());
             return false;
         }
     }
@@ -0,0 +1,101 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Non-interactive runner for scripted validation.
+ * Never prompts or applies fixes; streams a JSON report to standard output and
+ * returns an exit code summarizing the outcome.
+ */
+public class HeadlessRunner {
+
+    public static final int EXIT_PASS = 0;
+    public static final int EXIT_WARN = 1;
+    public static final int EXIT_CRITICAL_FAIL = 2;
+    public static final int EXIT_ERROR = 3;
+
+    private final SystemCheckService checkService;
+    private final PrintStream out;
+    private final PrivilegeProbe privileges;
+
+    public HeadlessRunner(SystemCheckService checkService) {
+        this(checkService, System.out);
+    }
+
+    public HeadlessRunner(SystemCheckService checkService, PrintStream out) {
+        this(checkService, out, new WindowsPrivilegeProbe());
+    }
+
+    public HeadlessRunner(SystemCheckService checkService, PrintStream out, PrivilegeProbe privileges) {
+        this.checkService = checkService;
+        this.out = out;
+        this.privileges = privileges;
+    }
+
+    /**
+     * Runs the selected checks and returns the process exit code.
+     */
+    public int run(CommandLineOptions options) {
+        long start = System.nanoTime();
+        boolean administrator = !options.isOffline() && privileges.isAdministrator();
+        String replayFile = options.isReplay() ? options.getReplayFile().toString() : null;
+        String image = options.isImage() ? options.getImageDirectory().toString() : null;
+        JsonReportWriter report = new JsonReportWriter(out);
+        report.begin(administrator, replayFile, image);
+
+        ResultCache cache = options.openResultCache();
+        List<CheckExecutor.Task> tasks = checkService.createTasks(cache, options.getCheckSelection());
+
+        List<CheckResult> results;
+        NativeTraceSink trace = new NativeTraceSink();
+        StartupProfile.mark(StartupProfile.Milestone.CHECKS_STARTED);
+        // Checks publish to the stream and never wait for the report writers to keep up
+        try (ResultStream stream = new ResultStream();
+                CheckExecutor executor = new CheckExecutor(options.getCheckTimeoutMillis())) {
+            stream.subscribe("stdout", tasks.size(), new JsonReportSink(report, start));
+            stream.subscribe("metrics", Metrics.resultSink());
+            stream.subscribe("trace", trace);
+            if (options.isHistoryRecorded()) {
+                stream.subscribe("history", tasks.size(), new RunHistorySink());
+            }
+            if (options.getJsonFile() != null) {
+                try {
+                    stream.subscribe("json", tasks.size(), JsonReportSink.toFile(options.getJsonFile(),
+                            administrator, replayFile, image));
+                } catch (IOException e) {
+                    System.err.println("WARNING: Cannot write JSON report " + options.getJsonFile() + ": "
+                            + e.getMessage());
+                }
+            }
+            results = executor.runAll(tasks, (index, result, durationNanos) -> {
+                StartupProfile.mark(StartupProfile.Milestone.FIRST_RESULT);
+                stream.publish(result);
+            });
+        }
+        StartupProfile.mark(StartupProfile.Milestone.REPORT_DONE);
+        if (trace.getDumpFile() != null) {
+            System.err.println("Native call trace saved to " + trace.getDumpFile());
+        }
+
+        // Standard output carries only the JSON document
+        if (options.isStartupProfile() || options.isMetrics()) {
+            ReportRenderer diagnostics = new PlainRenderer(System.err);
+            if (options.isStartupProfile()) {
+                StartupProfile.render(diagnostics);
+            }
+            if (options.isMetrics()) {
+                Metrics.render(diagnostics);
+            }
+            diagnostics.flush();
+        }
+
+        try {
+            cache.save();
+        } catch (IOException e) {
+            // Caching is an optimization only; the next run re-checks everything
+        }
+        return Verdict.of(results).getExitCode();
+    }
+}
@@ -0,0 +1,92 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Prints a summary of the {@link RunHistory}: when each check last changed status, the FTDI driver
+ * version in use since it last changed, and check latency percentiles over recent runs.
+ */
+public class HistoryRunner {
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private final Path file;
+    private final PrintStream out;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+    public HistoryRunner(PrintStream out) {
+        this(RunHistory.defaultLocation(), out);
+    }
+
+    public HistoryRunner(Path file, PrintStream out) {
+        this.file = file;
+        this.out = out;
+    }
+
+    /**
+     * Prints the summary, with percentiles over the last {@link CommandLineOptions#getHistoryRuns()}
+     * runs, and returns the process exit code.
+     */
+    public int run(CommandLineOptions options) {
+        RunHistory history;
+        try {
+            history = RunHistory.open(file);
+        } catch (IOException e) {
+            System.err.println("ERROR: Cannot read run history " + file + ": " + e.getMessage());
+            return HeadlessRunner.EXIT_ERROR;
+        }
+        long runs = history.getRunCount();
+        if (runs == 0) {
+            out.println("No runs recorded yet in " + file);
+            return HeadlessRunner.EXIT_PASS;
+        }
+
+        out.println(String.format("%d runs from %s to %s (%s)", runs, date(history, 0), date(history, runs - 1),
+                file));
+        long driverRun = history.lastDriverChange();
+        long driver = history.getDriverVersion(runs - 1);
+        if (driver != DriverVersion.INVALID) {
+            out.println("FTDI driver " + DriverVersion.format(driver)
+                    + (driverRun >= 0 ? " since run " + describe(history, driverRun) : " in every run"));
+        }
+        out.println();
+
+        int lastRuns = (int) Math.min(options.getHistoryRuns(), runs);
+        out.println(String.format("%-16s %-8s %6s  %-26s %-26s %9s %9s %9s", "CHECK", "STATUS", "FLIPS",
+                "FIRST FLIP", "LAST FLIP", "P50 MS", "P95 MS", "P99 MS"));
+        for (String checkId : history.getCheckIds()) {
+            CheckResult.Status status = history.getStatus(checkId, runs - 1);
+            int flips = 0;
+            long firstFlip = history.firstFlip(checkId, 0);
+            for (long run = firstFlip; run >= 0; run = history.firstFlip(checkId, run + 1)) {
+                flips++;
+            }
+            double[] millis = history.latencyPercentiles(checkId, lastRuns, PERCENTILES);
+            out.println(String.format("%-16s %-8s %6d  %-26s %-26s %9s %9s %9s", checkId,
+                    status != null ? status : "-", flips, describe(history, firstFlip),
+                    describe(history, history.lastFlip(checkId)), millis(millis[0]), millis(millis[1]),
+                    millis(millis[2])));
+        }
+        out.println();
+        out.println("Latency over the last " + lastRuns + " runs.");
+        return HeadlessRunner.EXIT_PASS;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private String describe(RunHistory history, long run) {
+        return run < 0 ? "-" : "#" + (run + 1) + " " + date(history, run);
+    }
+
+    private String date(RunHistory history, long run) {
+        return dateFormat.format(new Date(history.getTimestamp(run)));
+    }
+
+    private static String millis(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.1f", value);
+    }
+}
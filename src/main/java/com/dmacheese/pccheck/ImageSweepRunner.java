@@ -0,0 +1,146 @@
+package com.dmacheese.pccheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates every offline Windows image found in a directory and streams one JSON line per image.
+ * Images are independent and read in pure Java, so several are evaluated at once, up to one per CPU.
+ */
+public class ImageSweepRunner {
+
+    private final CheckDefinitions definitions;
+    private final PrintStream out;
+
+    public ImageSweepRunner(CheckDefinitions definitions) {
+        this(definitions, System.out);
+    }
+
+    public ImageSweepRunner(CheckDefinitions definitions, PrintStream out) {
+        this.definitions = definitions;
+        this.out = out;
+    }
+
+    /**
+     * Evaluates the images under the sweep directory and returns the worst exit code among them.
+     */
+    public int run(CommandLineOptions options) {
+        List<Path> images = findImages(options.getSweepDirectory());
+        if (images.isEmpty()) {
+            System.err.println("ERROR: No Windows images found in " + options.getSweepDirectory());
+            return HeadlessRunner.EXIT_ERROR;
+        }
+
+        int threads = Math.min(images.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pccheck-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        JsonReportWriter report = new JsonReportWriter(out);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(images.size());
+            for (Path image : images) {
+                futures.add(pool.submit(() -> evaluate(image, options, report)));
+            }
+            int exitCode = HeadlessRunner.EXIT_PASS;
+            for (Future<Integer> future : futures) {
+                exitCode = Math.max(exitCode, future.get());
+            }
+            return exitCode;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return HeadlessRunner.EXIT_ERROR;
+        } catch (ExecutionException e) {
+            System.err.println("ERROR: " + e.getCause());
+            return HeadlessRunner.EXIT_ERROR;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Returns the directory itself if it is an image, otherwise its image subdirectories in name order.
+     */
+    private static List<Path> findImages(Path directory) {
+        List<Path> images = new ArrayList<>();
+        if (WindowsImage.isImage(directory)) {
+            images.add(directory);
+            return images;
+        }
+        File[] entries = directory.toFile().listFiles(File::isDirectory);
+        if (entries != null) {
+            Arrays.sort(entries);
+            for (File entry : entries) {
+                if (WindowsImage.isImage(entry.toPath())) {
+                    images.add(entry.toPath());
+                }
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Runs the selected checks against one image, writes its summary line and returns its exit code.
+     * An image that cannot be read gets an error line instead, so it never stops the others.
+     */
+    private int evaluate(Path path, CommandLineOptions options, JsonReportWriter report) {
+        long start = System.nanoTime();
+        List<CheckResult> results;
+        try {
+            results = evaluateChecks(WindowsImage.open(path), options);
+        } catch (IOException e) {
+            return reportError(report, path, e.getMessage());
+        } catch (RuntimeException e) {
+            // A corrupt hive can fail anywhere a cell is read
+            return reportError(report, path, "Unreadable image: " + e);
+        }
+
+        // Failed check ids and their details, in report order
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (CheckResult result : results) {
+            if (!result.isPassed()) {
+                failed.put(result.getId(), result.getMessage());
+            }
+        }
+
+        Verdict verdict = Verdict.of(results);
+        synchronized (report) {
+            report.imageSummary(path.toString(), verdict.getLabel(), verdict.getExitCode(), failed,
+                    System.nanoTime() - start);
+        }
+        return verdict.getExitCode();
+    }
+
+    private List<CheckResult> evaluateChecks(WindowsImage image, CommandLineOptions options) {
+        Backend backend = Backend.windows(false).withInputs(image.registryReader(), image.deviceEnumerator(),
+                image.fileProbe());
+        try (SystemCheckService checkService = new SystemCheckService(backend, definitions);
+                CheckExecutor executor = new CheckExecutor(options.getCheckTimeoutMillis())) {
+            List<CheckExecutor.Task> tasks = checkService.createTasks(ResultCache.disabled(),
+                    options.getCheckSelection());
+            return executor.runAll(tasks, result -> {
+            });
+        }
+    }
+
+    private static int reportError(JsonReportWriter report, Path path, String message) {
+        synchronized (report) {
+            report.imageError(path.toString(), message, HeadlessRunner.EXIT_ERROR);
+        }
+        return HeadlessRunner.EXIT_ERROR;
+    }
+}
@@ -0,0 +1,56 @@
+package com.dmacheese.pccheck;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * File probe backed by an in-memory file list, for running file checks without Windows.
+ * Paths are matched case-insensitively, as on NTFS.
+ */
+public class InMemoryFileProbe implements FileProbe {
+
+    private final Map<String, long[]> files = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    // Logical clock standing in for modification times; bumped on every write
+    private long clock = 1;
+
+    /**
+     * Adds or replaces a file with a packed version (see {@link DriverVersion}), or
+     * {@link DriverVersion#INVALID} for a file without a version resource.
+     */
+    public synchronized InMemoryFileProbe putFile(String path, long size, long version) {
+        files.put(path, new long[] { ++clock, size, version });
+        return this;
+    }
+
+    /**
+     * Removes a file if present.
+     */
+    public synchronized InMemoryFileProbe remove(String path) {
+        files.remove(path);
+        return this;
+    }
+
+    @Override
+    public synchronized boolean exists(String path) {
+        return files.containsKey(path);
+    }
+
+    @Override
+    public synchronized long lastModified(String path) {
+        long[] file = files.get(path);
+        return file == null ? 0 : file[0];
+    }
+
+    @Override
+    public synchronized long size(String path) {
+        long[] file = files.get(path);
+        return file == null ? 0 : file[1];
+    }
+
+    @Override
+    public synchronized long fileVersion(String path) {
+        long[] file = files.get(path);
+        return file == null ? DriverVersion.INVALID : file[2];
+    }
+}
@@ -0,0 +1,191 @@
+package com.dmacheese.pccheck;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registry reader and writer backed by an in-memory map, for running checks without Windows.
+ * Counts key opens, value reads and batches so the savings of batched reads can be measured,
+ * and can simulate slow reads and keys that cannot be accessed.
+ */
+public class InMemoryRegistryReader implements RegistryReader, RegistryWriter {
+
+    private final Map<String, Map<String, Object>> keys = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Long> lastWriteTimes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Set<String> openKeys = new HashSet<>();
+    private final Set<String> deniedKeys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    // Logical clock standing in for FILETIME; bumped on every write
+    private long clock;
+
+    // Simulated cost of opening a key and of reading one value
+    private long keyOpenLatencyNanos;
+    private long valueReadLatencyNanos;
+
+    private int keyOpenCount;
+    private int valueReadCount;
+    private int batchCount;
+
+    /**
+     * Creates an empty key. Values can be added later.
+     */
+    public synchronized InMemoryRegistryReader putKey(String keyPath) {
+        values(keyPath);
+        return this;
+    }
+
+    /**
+     * Stores a DWORD value, creating the key if needed.
+     */
+    public synchronized InMemoryRegistryReader putDword(String keyPath, String valueName, int value) {
+        values(keyPath).put(valueName, value);
+        return this;
+    }
+
+    /**
+     * Stores a string value, creating the key if needed.
+     */
+    public synchronized InMemoryRegistryReader putString(String keyPath, String valueName, String value) {
+        values(keyPath).put(valueName, value);
+        return this;
+    }
+
+    /**
+     * Removes a value if present.
+     */
+    public synchronized InMemoryRegistryReader remove(String keyPath, String valueName) {
+        Map<String, Object> values = keys.get(keyPath);
+        if (values != null && values.remove(valueName) != null) {
+            lastWriteTimes.put(keyPath, ++clock);
+        }
+        return this;
+    }
+
+    /**
+     * Makes every key open and value read take the given time, like a slow or contended registry.
+     * Reads hold the reader's lock while they wait, as {@link WindowsRegistryReader} does.
+     */
+    public synchronized InMemoryRegistryReader setLatency(long keyOpenNanos, long valueReadNanos) {
+        this.keyOpenLatencyNanos = keyOpenNanos;
+        this.valueReadLatencyNanos = valueReadNanos;
+        return this;
+    }
+
+    /**
+     * Makes a key fail to open: its values read as missing and writes to it are refused.
+     */
+    public synchronized InMemoryRegistryReader denyAccess(String keyPath) {
+        deniedKeys.add(keyPath);
+        return this;
+    }
+
+    @Override
+    public synchronized void setDword(String keyPath, String valueName, int value) {
+        if (deniedKeys.contains(keyPath)) {
+            throw new IllegalStateException("Access is denied.");
+        }
+        putDword(keyPath, valueName, value);
+    }
+
+    @Override
+    public synchronized RegistryResults read(RegistryQuery query) {
+        batchCount++;
+        RegistryResults results = new RegistryResults(query.size());
+        for (String keyPath : query.keyPaths()) {
+            if (openKeys.add(keyPath.toLowerCase(Locale.ROOT))) {
+                keyOpenCount++;
+                pause(keyOpenLatencyNanos);
+            }
+            if (deniedKeys.contains(keyPath)) {
+                continue;
+            }
+
+            Map<String, Object> values = keys.get(keyPath);
+            for (RegistryQuery.Entry entry : query.entries(keyPath)) {
+                valueReadCount++;
+                pause(valueReadLatencyNanos);
+                Object value = values == null ? null : values.get(entry.valueName);
+                if (value instanceof Integer) {
+                    results.setDword(entry.slot, (Integer) value);
+                } else if (value instanceof String) {
+                    results.setString(entry.slot, (String) value);
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public synchronized long getLastWriteTime(String keyPath) {
+        if (deniedKeys.contains(keyPath)) {
+            return KEY_MISSING;
+        }
+        Long lastWriteTime = lastWriteTimes.get(keyPath);
+        return lastWriteTime == null ? KEY_MISSING : lastWriteTime;
+    }
+
+    @Override
+    public synchronized void invalidate(String keyPath) {
+        openKeys.remove(keyPath.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public synchronized void close() {
+        openKeys.clear();
+    }
+
+    /**
+     * Returns how many distinct keys have been opened.
+     */
+    public synchronized int getKeyOpenCount() {
+        return keyOpenCount;
+    }
+
+    /**
+     * Returns how many values have been read.
+     */
+    public synchronized int getValueReadCount() {
+        return valueReadCount;
+    }
+
+    /**
+     * Returns how many batches have been read.
+     */
+    public synchronized int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Returns how many key opens the unbatched exists-then-get pattern would have
+     * needed for the same reads (two per value).
+     */
+    public synchronized int getUnbatchedOpenCount() {
+        return valueReadCount * 2;
+    }
+
+    /**
+     * Waits for a simulated latency; returns early if the reading thread is interrupted.
+     */
+    private static void pause(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0 && !Thread.currentThread().isInterrupted();
+                left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    private Map<String, Object> values(String keyPath) {
+        Map<String, Object> values = keys.get(keyPath);
+        if (values == null) {
+            values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            keys.put(keyPath, values);
+        }
+        lastWriteTimes.put(keyPath, ++clock);
+        return values;
+    }
+}
@@ -0,0 +1,64 @@
+package com.dmacheese.pccheck;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ResultStream} sink writing the JSON report, to standard output in headless mode or to the
+ * file given with {@code --json}. The document is completed when the stream closes.
+ */
+public class JsonReportSink implements ResultSink {
+
+    private final JsonReportWriter report;
+    private final long startNanos;
+    private final PrintStream ownedStream;
+    private final List<CheckResult> results = new ArrayList<>();
+
+    /**
+     * @param report a writer whose header has been written
+     * @param startNanos nanoTime the run started at, for the document's duration
+     */
+    public JsonReportSink(JsonReportWriter report, long startNanos) {
+        this(report, startNanos, null);
+    }
+
+    private JsonReportSink(JsonReportWriter report, long startNanos, PrintStream ownedStream) {
+        this.report = report;
+        this.startNanos = startNanos;
+        this.ownedStream = ownedStream;
+    }
+
+    /**
+     * Creates the report file, writes its header and returns a sink that closes it when complete.
+     */
+    public static JsonReportSink toFile(Path file, boolean administrator, String replayFile, String image)
+            throws IOException {
+        PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(file)), false, "UTF-8");
+        JsonReportWriter report = new JsonReportWriter(out);
+        report.begin(administrator, replayFile, image);
+        return new JsonReportSink(report, System.nanoTime(), out);
+    }
+
+    @Override
+    public void onResult(CheckResult result) {
+        results.add(result);
+        report.check(result);
+    }
+
+    @Override
+    public void onComplete() throws IOException {
+        Verdict verdict = Verdict.of(results);
+        report.end(verdict.getLabel(), verdict.getExitCode(), System.nanoTime() - startNanos);
+        if (ownedStream != null) {
+            ownedStream.close();
+            if (ownedStream.checkError()) {
+                throw new IOException("Cannot write JSON report");
+            }
+        }
+    }
+}
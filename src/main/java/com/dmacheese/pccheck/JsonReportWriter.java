@@ -0,0 +1,154 @@
+package com.dmacheese.pccheck;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams a machine-readable report as a single JSON document.
+ * Each check is written and flushed as soon as its result is known, so a
+ * reader sees partial progress and the document is complete when the run ends.
+ */
+public class JsonReportWriter {
+
+    // Version 2 reports checks that timed out or threw as "timed_out" and "error" rather than "fail"
+    public static final int FORMAT_VERSION = 2;
+
+    private final PrintStream out;
+    private final StringBuilder line = new StringBuilder(256);
+    private int checkCount;
+
+    public JsonReportWriter(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the document header and opens the checks array.
+     */
+    public void begin(boolean administrator, String replayFile, String image) {
+        line.setLength(0);
+        line.append("{\"version\":").append(FORMAT_VERSION);
+        line.append(",\"administrator\":").append(administrator);
+        line.append(",\"replay\":");
+        appendString(replayFile);
+        line.append(",\"image\":");
+        appendString(image);
+        line.append(",\"checks\":[");
+        emit();
+    }
+
+    /**
+     * Writes one check result.
+     */
+    public void check(CheckResult result) {
+        line.setLength(0);
+        line.append(checkCount++ == 0 ? "\n" : ",\n");
+        line.append("{\"id\":");
+        appendString(result.getId());
+        line.append(",\"name\":");
+        appendString(result.getName());
+        line.append(",\"critical\":").append(result.isCritical());
+        line.append(",\"status\":\"").append(result.getStatus().name().toLowerCase(Locale.ROOT)).append('"');
+        line.append(",\"detail\":");
+        appendString(result.getMessage());
+        line.append(",\"durationMillis\":").append(millis(result.getDurationNanos()));
+        line.append('}');
+        emit();
+    }
+
+    /**
+     * Closes the checks array and writes the overall outcome.
+     */
+    public void end(String status, int exitCode, long durationNanos) {
+        line.setLength(0);
+        line.append("\n],\"status\":\"").append(status).append('"');
+        line.append(",\"exitCode\":").append(exitCode);
+        line.append(",\"durationMillis\":").append(millis(durationNanos));
+        line.append("}\n");
+        emit();
+    }
+
+    /**
+     * Writes the outcome of one image of a sweep as a single line, with the failed checks' details by id.
+     */
+    public void imageSummary(String image, String status, int exitCode, Map<String, String> failed,
+            long durationNanos) {
+        line.setLength(0);
+        line.append("{\"image\":");
+        appendString(image);
+        line.append(",\"status\":\"").append(status).append('"');
+        line.append(",\"exitCode\":").append(exitCode);
+        line.append(",\"failed\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> check : failed.entrySet()) {
+            line.append(first ? "" : ",");
+            appendString(check.getKey());
+            line.append(':');
+            appendString(check.getValue());
+            first = false;
+        }
+        line.append("},\"durationMillis\":").append(millis(durationNanos));
+        line.append("}\n");
+        emit();
+    }
+
+    /**
+     * Writes a sweep line for an image that could not be opened.
+     */
+    public void imageError(String image, String message, int exitCode) {
+        line.setLength(0);
+        line.append("{\"image\":");
+        appendString(image);
+        line.append(",\"status\":\"error\",\"exitCode\":").append(exitCode);
+        line.append(",\"error\":");
+        appendString(message);
+        line.append("}\n");
+        emit();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private void emit() {
+        out.print(line);
+        out.flush();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
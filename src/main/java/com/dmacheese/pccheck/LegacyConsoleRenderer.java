@@ -0,0 +1,27 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Fallback renderer for consoles without virtual-terminal support.
+ * Text between color changes is still written in one piece, but each color
+ * change needs a console attribute call.
+ */
+public class LegacyConsoleRenderer extends ReportRenderer {
+
+    private final ConsoleBackend console;
+    private Utils.Color current = Utils.Color.Default;
+
+    public LegacyConsoleRenderer(ConsoleBackend console) {
+        super(console.out());
+        this.console = console;
+    }
+
+    @Override
+    public ReportRenderer color(Utils.Color color) {
+        if (color != current) {
+            current = color;
+            flush();
+            console.setColor(color);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,215 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+
+/**
+ * Local transport between the daemon and its clients. A Unix domain socket is used when the JVM
+ * supports one (Java 16+, on Linux and on Windows 10 1803+); the endpoint path is then the socket
+ * file, protected by file permissions. On older JVMs the daemon listens on a loopback TCP port
+ * instead and writes the port number and a random token to the endpoint path. Any local process can
+ * reach a loopback port, so a TCP client must first send {@code auth <token>}, which only a process
+ * that can read the owner-only endpoint file knows; {@link #connect(Path)} does so.
+ * <p>
+ * The code is compiled for Java 8, so the Unix domain socket API is reached through reflection.
+ */
+public final class LocalEndpoint {
+
+    /**
+     * The first line a client sends over loopback TCP, followed by a space and the endpoint's token.
+     */
+    public static final String AUTH_REQUEST = "auth";
+
+    // Null on JVMs without Unix domain sockets
+    private static final ProtocolFamily UNIX = unixFamily();
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private LocalEndpoint() {
+    }
+
+    /**
+     * Returns the default endpoint, next to the result cache.
+     */
+    public static Path defaultLocation() {
+        return ResultCache.defaultLocation().resolveSibling("daemon.sock");
+    }
+
+    /**
+     * Returns true if this JVM can use Unix domain sockets.
+     */
+    public static boolean isUnixDomainSupported() {
+        return UNIX != null;
+    }
+
+    /**
+     * Returns a new random token for {@link #bind(Path, String)}.
+     */
+    public static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        StringBuilder token = new StringBuilder(TOKEN_BYTES * 2);
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+
+    /**
+     * Starts listening at the endpoint. A leftover endpoint from a daemon that exited is replaced.
+     *
+     * @param token written to the endpoint file if the daemon falls back to loopback TCP
+     * @throws IOException if another daemon answers there, or the endpoint cannot be created
+     */
+    public static ServerSocketChannel bind(Path endpoint, String token) throws IOException {
+        return bind(endpoint, token, true);
+    }
+
+    /**
+     * Returns true if the server listens on loopback TCP, where clients must send the token first.
+     */
+    public static boolean isTcp(ServerSocketChannel server) throws IOException {
+        return server.getLocalAddress() instanceof InetSocketAddress;
+    }
+
+    /**
+     * Starts listening at the endpoint, over loopback TCP unless Unix domain sockets are allowed and supported.
+     */
+    static ServerSocketChannel bind(Path endpoint, String token, boolean unixDomain) throws IOException {
+        if (Files.exists(endpoint)) {
+            if (isListening(endpoint)) {
+                throw new IOException("A daemon is already listening at " + endpoint);
+            }
+            Files.delete(endpoint);
+        }
+        Files.createDirectories(endpoint.toAbsolutePath().getParent());
+
+        if (unixDomain && UNIX != null) {
+            try {
+                ServerSocketChannel server = (ServerSocketChannel) ServerSocketChannel.class
+                        .getMethod("open", ProtocolFamily.class).invoke(null, UNIX);
+                server.bind(unixAddress(endpoint));
+                return server;
+            } catch (InvocationTargetException e) {
+                // AF_UNIX is missing on this Windows build; fall back to TCP below
+                if (!(e.getCause() instanceof UnsupportedOperationException || e.getCause() instanceof IOException)) {
+                    throw new IOException(e.getCause());
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IOException(e);
+            }
+        }
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+        try {
+            writeOwnerOnly(endpoint, port + " " + token);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        return server;
+    }
+
+    /**
+     * Connects to the daemon listening at the endpoint. Over loopback TCP the token line is sent
+     * before returning, so the caller only writes its request.
+     *
+     * @throws IOException if no daemon is listening there
+     */
+    public static SocketChannel connect(Path endpoint) throws IOException {
+        if (Files.isRegularFile(endpoint)) {
+            // A port file written by a daemon without Unix domain sockets
+            String[] fields = new String(Files.readAllBytes(endpoint), StandardCharsets.US_ASCII).trim().split(" ");
+            int port;
+            try {
+                port = Integer.parseInt(fields[0]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Not a daemon endpoint: " + endpoint);
+            }
+            if (fields.length != 2) {
+                throw new IOException("Not a daemon endpoint: " + endpoint);
+            }
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            try {
+                ByteBuffer auth = ByteBuffer.wrap((AUTH_REQUEST + " " + fields[1] + "\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                while (auth.hasRemaining()) {
+                    channel.write(auth);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return channel;
+        }
+        if (UNIX == null || !Files.exists(endpoint)) {
+            throw new IOException("No daemon is listening at " + endpoint);
+        }
+        try {
+            SocketChannel channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class)
+                    .invoke(null, UNIX);
+            try {
+                channel.connect(unixAddress(endpoint));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return channel;
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static ProtocolFamily unixFamily() {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a file only the current user can read. On POSIX systems the permissions are set when the
+     * file is created; on Windows the file inherits the user profile's owner-only access.
+     */
+    private static void writeOwnerOnly(Path file, String content) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (Files.getFileStore(parent).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static boolean isListening(Path endpoint) {
+        try (SocketChannel channel = connect(endpoint)) {
+            return channel.isConnected();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static SocketAddress unixAddress(Path path) throws ReflectiveOperationException {
+        return (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class)
+                .invoke(null, path);
+    }
+}
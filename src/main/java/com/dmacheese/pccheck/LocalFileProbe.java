@@ -0,0 +1,39 @@
+package com.dmacheese.pccheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+
+/**
+ * File probe backed by the local file system.
+ */
+public class LocalFileProbe implements FileProbe {
+
+    @Override
+    public boolean exists(String path) {
+        return new File(path).exists();
+    }
+
+    @Override
+    public long lastModified(String path) {
+        return new File(path).lastModified();
+    }
+
+    @Override
+    public long size(String path) {
+        return new File(path).length();
+    }
+
+    /**
+     * Reads the version resource with {@link PeVersionReader}, without any Windows API.
+     */
+    @Override
+    public long fileVersion(String path) {
+        try {
+            return PeVersionReader.readFileVersion(Paths.get(path));
+        } catch (IOException | InvalidPathException e) {
+            return DriverVersion.INVALID;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.dmacheese.pccheck;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
 /**
  * Application entry point.
  * Initializes service components and starts the console runner.
@@ -7,10 +11,135 @@ package com.dmacheese.pccheck;
 public class Main {
 
     public static void main(String[] args) {
-        SystemCheckService checkService = new SystemCheckService();
-        FixService fixService = new FixService();
-        ConsoleRunner runner = new ConsoleRunner(checkService, fixService);
+        try {
+            run(args);
+        } catch (RuntimeException | Error e) {
+            // Left uncaught, the JVM exits with 1, which automation reads as "ready with warnings"
+            System.err.println("ERROR: Unexpected failure: " + e);
+            e.printStackTrace();
+            System.exit(HeadlessRunner.EXIT_ERROR);
+        }
+    }
+
+    private static void run(String[] args) {
+        StartupProfile.mark(StartupProfile.Milestone.MAIN_ENTERED);
+
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+            if (options.isConnect()) {
+                // The daemon holds the rules and the system; the client only relays its report
+                System.exit(new DaemonClient(System.out).run(options));
+                return;
+            }
+            if (options.isHistory()) {
+                System.exit(new HistoryRunner(System.out).run(options));
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(HeadlessRunner.EXIT_ERROR);
+            return;
+        }
+
+        // Reject unknown check ids and broken definitions before anything runs. Listing loads the
+        // providers but no checks, and only the definitions of the selected checks are read.
+        CheckDefinitions definitions = options.checkDefinitions();
+        try {
+            SystemCheckService listing = SystemCheckService.forListing(definitions);
+            if (options.isListChecks()) {
+                for (Map.Entry<String, String> check : listing.listChecks().entrySet()) {
+                    System.out.println(String.format("%-16s %s", check.getKey(), check.getValue()));
+                }
+                return;
+            }
+            listing.selectChecks(options.getCheckSelection());
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(HeadlessRunner.EXIT_ERROR);
+            return;
+        }
+
+        if (options.isMetrics()) {
+            Metrics.registerMBean();
+        }
+
+        if (options.getSweepDirectory() != null) {
+            System.exit(new ImageSweepRunner(definitions).run(options));
+            return;
+        }
+
+        Backend backend = Backend.windows(options.isFullDeviceScan());
+        if (options.isReplay()) {
+            SnapshotReader snapshot;
+            try {
+                snapshot = SnapshotReader.open(options.getReplayFile());
+            } catch (IOException e) {
+                System.err.println("ERROR: Cannot read snapshot " + options.getReplayFile() + ": " + e.getMessage());
+                System.exit(HeadlessRunner.EXIT_ERROR);
+                return;
+            }
+            backend = backend.withInputs(snapshot.registryReader(), snapshot.deviceEnumerator(),
+                    snapshot.fileProbe());
+        } else if (options.isImage()) {
+            WindowsImage image;
+            try {
+                image = WindowsImage.open(options.getImageDirectory());
+            } catch (IOException e) {
+                System.err.println("ERROR: Cannot read image " + options.getImageDirectory() + ": " + e.getMessage());
+                System.exit(HeadlessRunner.EXIT_ERROR);
+                return;
+            }
+            backend = backend.withInputs(image.registryReader(), image.deviceEnumerator(), image.fileProbe());
+        }
+
+        SnapshotRecorder recorder = null;
+        if (options.getCaptureFile() != null) {
+            recorder = new SnapshotRecorder();
+            backend = backend.withInputs(recorder.record(backend.getRegistryReader()),
+                    recorder.record(backend.getDeviceEnumerator()), recorder.record(backend.getFileProbe()));
+        }
+
+        int exitCode = HeadlessRunner.EXIT_PASS;
+        try (SystemCheckService checkService = new SystemCheckService(backend, definitions)) {
+            if (options.isHeadless()) {
+                StartupProfile.mark(StartupProfile.Milestone.SERVICES_READY);
+                exitCode = new HeadlessRunner(checkService, System.out, backend.getPrivileges()).run(options);
+            } else if (options.isDaemon()) {
+                StartupProfile.mark(StartupProfile.Milestone.SERVICES_READY);
+                exitCode = new DaemonRunner(checkService, backend.getPrivileges(), System.out).run(options);
+            } else if (options.isWatch()) {
+                // Snapshots and images never change, so offline runs get sources that never fire
+                try (RegistryChangeSource changeSource = options.isOffline() ? new SimulatedRegistryChangeSource()
+                        : new WindowsRegistryChangeSource();
+                        DeviceChangeSource deviceSource = options.isOffline() ? new SimulatedDeviceChangeSource()
+                                : new WindowsDeviceChangeSource()) {
+                    new WatchRunner(checkService, changeSource, deviceSource, backend.getConsole()).run(options);
+                }
+            } else {
+                FixService fixService = new FixService(backend.getRegistryWriter(), backend.getConsole());
+                ConsoleRunner runner = new ConsoleRunner(checkService, fixService, backend.getConsole(),
+                        backend.getPrivileges());
+                StartupProfile.mark(StartupProfile.Milestone.SERVICES_READY);
+
+                runner.run(options);
+            }
+        }
+
+        if (recorder != null) {
+            try {
+                recorder.write(options.getCaptureFile());
+                // In headless mode standard output carries only the JSON report
+                (options.isHeadless() ? System.err : System.out).println("Snapshot written to "
+                        + options.getCaptureFile());
+            } catch (IOException e) {
+                System.err.println("ERROR: Cannot write snapshot " + options.getCaptureFile() + ": " + e.getMessage());
+                exitCode = HeadlessRunner.EXIT_ERROR;
+            }
+        }
 
-        runner.run(args);
+        if (options.isHeadless() || options.isDaemon()) {
+            System.exit(exitCode);
+        }
     }
 }
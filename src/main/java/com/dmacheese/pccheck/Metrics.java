@@ -0,0 +1,299 @@
+package com.dmacheese.pccheck;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide latency and native-call counters.
+ * All counters are striped adders, so recording never takes a lock and is
+ * cheap enough to stay on in production. Timers are looked up once and then
+ * updated directly.
+ */
+public final class Metrics {
+
+    public static final String OBJECT_NAME = "com.dmacheese.pccheck:type=Metrics";
+
+    private static final ConcurrentMap<String, Timer> checks = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Timer> nativeCalls = new ConcurrentHashMap<>();
+    private static final LongAdder nativeBytesAllocated = new LongAdder();
+    private static final LongAdder nativeAllocations = new LongAdder();
+    private static final ConcurrentMap<String, LongAdder> results = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> droppedResults = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Call count, total and maximum duration of one operation.
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Records one call that started at the given nanoTime.
+         */
+        public void stop(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+    /**
+     * Returns the wall-time timer of a check.
+     */
+    public static Timer check(String checkId) {
+        return timer(checks, checkId);
+    }
+
+    /**
+     * Returns the timer of a native API, named "library.Function".
+     */
+    public static Timer nativeCall(String api) {
+        return timer(nativeCalls, api);
+    }
+
+    /**
+     * Records a native memory allocation.
+     */
+    public static void recordNativeAllocation(long bytes) {
+        nativeAllocations.increment();
+        nativeBytesAllocated.add(bytes);
+    }
+
+    /**
+     * Counts a published check result by status.
+     */
+    public static void recordResult(CheckResult result) {
+        counter(results, result.getStatus().name()).increment();
+    }
+
+    /**
+     * Returns a {@link ResultStream} sink that counts results by status.
+     */
+    public static ResultSink resultSink() {
+        return Metrics::recordResult;
+    }
+
+    /**
+     * Counts a result a sink's full queue had to drop.
+     */
+    public static void recordDroppedResult(String sinkName) {
+        counter(droppedResults, sinkName).increment();
+    }
+
+    /**
+     * Returns the number of published results by status.
+     */
+    public static Map<String, Long> getResultCounts() {
+        return sums(results);
+    }
+
+    /**
+     * Returns the number of dropped results by sink.
+     */
+    public static Map<String, Long> getDroppedResults() {
+        return sums(droppedResults);
+    }
+
+    public static long getNativeBytesAllocated() {
+        return nativeBytesAllocated.sum();
+    }
+
+    public static long getNativeAllocations() {
+        return nativeAllocations.sum();
+    }
+
+    /**
+     * Returns a sorted view of the check timers.
+     */
+    public static Map<String, Timer> getChecks() {
+        return new TreeMap<>(checks);
+    }
+
+    /**
+     * Returns a sorted view of the native API timers.
+     */
+    public static Map<String, Timer> getNativeCalls() {
+        return new TreeMap<>(nativeCalls);
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public static void reset() {
+        checks.values().forEach(Timer::reset);
+        nativeCalls.values().forEach(Timer::reset);
+        nativeBytesAllocated.reset();
+        nativeAllocations.reset();
+        results.values().forEach(LongAdder::reset);
+        droppedResults.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Registers the metrics MBean with the platform MBean server. Safe to call more than once.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("WARNING: Cannot register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the metrics to a report.
+     */
+    public static void render(ReportRenderer out) {
+        out.color(Utils.Color.Yellow);
+        out.println("[ METRICS ]");
+        out.color(Utils.Color.Default);
+
+        out.println(String.format("  %-44s %7s %11s %11s", "Check", "Runs", "Total ms", "Max ms"));
+        for (Map.Entry<String, Timer> check : getChecks().entrySet()) {
+            line(out, check.getKey(), check.getValue());
+        }
+        out.println();
+
+        out.println(String.format("  %-44s %7s %11s %11s", "Native API", "Calls", "Total ms", "Max ms"));
+        for (Map.Entry<String, Timer> call : getNativeCalls().entrySet()) {
+            line(out, call.getKey(), call.getValue());
+        }
+        out.println(String.format("  Native memory: %d bytes in %d allocations", getNativeBytesAllocated(),
+                getNativeAllocations()));
+        out.println(String.format("  Results: %s, dropped by slow sinks: %s", getResultCounts(),
+                getDroppedResults()));
+        out.println();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static Timer timer(ConcurrentMap<String, Timer> timers, String name) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            Timer created = new Timer();
+            timer = timers.putIfAbsent(name, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String name) {
+        LongAdder counter = counters.get(name);
+        if (counter == null) {
+            LongAdder created = new LongAdder();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            values.put(counter.getKey(), counter.getValue().sum());
+        }
+        return values;
+    }
+
+    private static void line(ReportRenderer out, String name, Timer timer) {
+        out.println(String.format("  %-44s %7d %11.3f %11.3f", name, timer.getCount(),
+                timer.getTotalNanos() / 1_000_000.0, timer.getMaxNanos() / 1_000_000.0));
+    }
+
+    private static Map<String, Long> snapshot(Map<String, Timer> timers, boolean counts) {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+            values.put(timer.getKey(), counts ? timer.getValue().getCount()
+                    : timer.getValue().getTotalNanos() / 1_000);
+        }
+        return values;
+    }
+
+    private static final class MetricsMBean implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCheckRuns() {
+            return snapshot(checks, true);
+        }
+
+        @Override
+        public Map<String, Long> getCheckMicros() {
+            return snapshot(checks, false);
+        }
+
+        @Override
+        public Map<String, Long> getNativeCallCounts() {
+            return snapshot(nativeCalls, true);
+        }
+
+        @Override
+        public Map<String, Long> getNativeCallMicros() {
+            return snapshot(nativeCalls, false);
+        }
+
+        @Override
+        public Map<String, Long> getResultCounts() {
+            return Metrics.getResultCounts();
+        }
+
+        @Override
+        public Map<String, Long> getDroppedResults() {
+            return Metrics.getDroppedResults();
+        }
+
+        @Override
+        public long getNativeBytesAllocated() {
+            return Metrics.getNativeBytesAllocated();
+        }
+
+        @Override
+        public long getNativeAllocations() {
+            return Metrics.getNativeAllocations();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
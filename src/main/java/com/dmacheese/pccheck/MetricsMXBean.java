@@ -0,0 +1,48 @@
+package com.dmacheese.pccheck;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link Metrics}, registered as {@value Metrics#OBJECT_NAME}.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Returns how many times each check ran, by check id.
+     */
+    Map<String, Long> getCheckRuns();
+
+    /**
+     * Returns the total wall time of each check in microseconds, by check id.
+     */
+    Map<String, Long> getCheckMicros();
+
+    /**
+     * Returns the number of calls per native API.
+     */
+    Map<String, Long> getNativeCallCounts();
+
+    /**
+     * Returns the total time spent in each native API in microseconds.
+     */
+    Map<String, Long> getNativeCallMicros();
+
+    /**
+     * Returns the number of published check results by status.
+     */
+    Map<String, Long> getResultCounts();
+
+    /**
+     * Returns the number of results dropped by slow result sinks, by sink.
+     */
+    Map<String, Long> getDroppedResults();
+
+    long getNativeBytesAllocated();
+
+    long getNativeAllocations();
+
+    /**
+     * Clears all counters.
+     */
+    void reset();
+}
@@ -0,0 +1,194 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton over a fixed set of patterns.
+ * The automaton is compiled to a dense transition table over the characters the
+ * patterns use, so a text is scanned once, one array lookup per character, no
+ * matter how many patterns there are. Matching does not allocate.
+ */
+public final class MultiPatternMatcher {
+
+    private static final int NO_MATCH = -1;
+    private static final int ROOT = 0;
+
+    private final boolean ignoreCase;
+    // Sorted distinct pattern characters; a character's class is its index + 1, 0 for any other character
+    private final char[] alphabet;
+    private final int[] asciiClasses = new int[128];
+    private final int columns;
+    private final int[] transitions;
+    private final int[] depths;
+    // Lowest pattern index ending exactly at a state
+    private final int[] terminals;
+    // Lowest pattern index ending at a state or at any of its suffix states
+    private final int[] outputs;
+    private final int size;
+
+    /**
+     * @param patterns   patterns in priority order; empty patterns never match
+     * @param ignoreCase if true, patterns and text are compared upper-cased
+     */
+    public MultiPatternMatcher(List<String> patterns, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.size = patterns.size();
+
+        // Build the trie
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminalList = new ArrayList<>();
+        List<Integer> depthList = new ArrayList<>();
+        children.add(new HashMap<>());
+        terminalList.add(NO_MATCH);
+        depthList.add(0);
+        TreeSet<Character> chars = new TreeSet<>();
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = fold(patterns.get(p));
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                chars.add(c);
+                Integer child = children.get(state).get(c);
+                if (child == null) {
+                    child = children.size();
+                    children.add(new HashMap<>());
+                    terminalList.add(NO_MATCH);
+                    depthList.add(i + 1);
+                    children.get(state).put(c, child);
+                }
+                state = child;
+            }
+            if (terminalList.get(state) == NO_MATCH) {
+                terminalList.set(state, p);
+            }
+        }
+
+        alphabet = new char[chars.size()];
+        int index = 0;
+        for (char c : chars) {
+            alphabet[index] = c;
+            if (c < asciiClasses.length) {
+                asciiClasses[c] = index + 1;
+            }
+            index++;
+        }
+        columns = alphabet.length + 1;
+
+        int states = children.size();
+        transitions = new int[states * columns];
+        depths = new int[states];
+        terminals = new int[states];
+        outputs = new int[states];
+        for (int s = 0; s < states; s++) {
+            depths[s] = depthList.get(s);
+            terminals[s] = terminalList.get(s);
+        }
+
+        // Breadth-first, so a state's failure state is complete before the state itself
+        int[] failures = new int[states];
+        outputs[ROOT] = terminals[ROOT];
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int c = 1; c < columns; c++) {
+                Integer child = children.get(state).get(alphabet[c - 1]);
+                int fallback = state == ROOT ? ROOT : transitions[failures[state] * columns + c];
+                if (child == null) {
+                    transitions[state * columns + c] = fallback;
+                    continue;
+                }
+                transitions[state * columns + c] = child;
+                failures[child] = fallback;
+                outputs[child] = lowest(terminals[child], outputs[fallback]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of patterns, including empty ones.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the lowest index of a pattern contained in the text, or -1 if none is.
+     */
+    public int firstMatchIn(CharSequence text) {
+        if (text == null) {
+            return NO_MATCH;
+        }
+        int best = NO_MATCH;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * columns + classOf(text.charAt(i))];
+            best = lowest(best, outputs[state]);
+            if (best == 0) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the lowest index of a pattern the text starts with, or -1 if none.
+     */
+    public int firstPrefixOf(CharSequence text) {
+        if (text == null) {
+            return NO_MATCH;
+        }
+        int best = NO_MATCH;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            int c = classOf(text.charAt(i));
+            int next = transitions[state * columns + c];
+            // A transition that does not go one level deeper leaves the trie
+            if (c == 0 || depths[next] != i + 1) {
+                break;
+            }
+            state = next;
+            best = lowest(best, terminals[state]);
+        }
+        return best;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private int classOf(char c) {
+        if (ignoreCase) {
+            c = Character.toUpperCase(c);
+        }
+        if (c < asciiClasses.length) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(alphabet, c);
+        return index < 0 ? 0 : index + 1;
+    }
+
+    private String fold(String pattern) {
+        if (pattern == null) {
+            return "";
+        }
+        return ignoreCase ? pattern.toUpperCase(Locale.ROOT) : pattern;
+    }
+
+    private static int lowest(int a, int b) {
+        if (a == NO_MATCH) {
+            return b;
+        }
+        return b == NO_MATCH ? a : Math.min(a, b);
+    }
+}
@@ -0,0 +1,135 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.Library;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.platform.win32.Advapi32;
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.SetupApi;
+import com.sun.jna.win32.W32APIOptions;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Binds native libraries on first use and records how long each binding took.
+ * Every JNA interface the application calls directly is bound through here, from
+ * a holder that is only initialized when a check actually calls into the library.
+ * Bindings are wrapped so each call is counted and timed in {@link Metrics} and
+ * recorded in the {@link NativeTrace} ring buffer. The jna-platform helpers
+ * Advapi32Util and Cfgmgr32Util bind their own instances; their callers time and
+ * trace those calls instead.
+ */
+public final class NativeLibraries {
+
+    private NativeLibraries() {
+    }
+
+    /**
+     * Binds a custom JNA interface with the Windows API options.
+     */
+    public static <T extends Library> T load(String name, Class<T> type) {
+        return bind(name, () -> instrument(name, type, Native.load(name, type, W32APIOptions.DEFAULT_OPTIONS)));
+    }
+
+    /**
+     * Allocates native memory and records the allocation.
+     */
+    public static Memory allocate(long size) {
+        Metrics.recordNativeAllocation(size);
+        return new Memory(size);
+    }
+
+    /**
+     * Returns the jna-platform Advapi32 binding.
+     */
+    public static Advapi32 advapi32() {
+        return Advapi32Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the jna-platform Kernel32 binding.
+     */
+    public static Kernel32 kernel32() {
+        return Kernel32Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the jna-platform SetupApi binding.
+     */
+    public static SetupApi setupApi() {
+        return SetupApiHolder.INSTANCE;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static <T> T bind(String name, Supplier<T> binding) {
+        long start = System.nanoTime();
+        T library = binding.get();
+        StartupProfile.recordNativeBind(name, System.nanoTime() - start);
+        return library;
+    }
+
+    /**
+     * Wraps a binding so every native call is timed under "library.Function" and recorded in {@link NativeTrace}.
+     */
+    private static <T> T instrument(String library, Class<T> type, T delegate) {
+        Map<Method, TracedApi> apis = new ConcurrentHashMap<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(delegate, args);
+            }
+            TracedApi api = apis.get(method);
+            if (api == null) {
+                api = new TracedApi(library + "." + method.getName());
+                apis.put(method, api);
+            }
+            long start = System.nanoTime();
+            Object result = null;
+            try {
+                result = method.invoke(delegate, args);
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                long duration = System.nanoTime() - start;
+                api.timer.record(duration);
+                NativeTrace.record(api.traceId, args, result, Native.getLastError(), start, duration);
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    /**
+     * Metrics timer and trace id of one native API, looked up on its first call.
+     */
+    private static final class TracedApi {
+        final Metrics.Timer timer;
+        final int traceId;
+
+        TracedApi(String name) {
+            this.timer = Metrics.nativeCall(name);
+            this.traceId = NativeTrace.register(name);
+        }
+    }
+
+    private static final class Advapi32Holder {
+        static final Advapi32 INSTANCE = bind("advapi32 (platform)",
+                () -> instrument("advapi32", Advapi32.class, Advapi32.INSTANCE));
+    }
+
+    private static final class Kernel32Holder {
+        static final Kernel32 INSTANCE = bind("kernel32 (platform)",
+                () -> instrument("kernel32", Kernel32.class, Kernel32.INSTANCE));
+    }
+
+    private static final class SetupApiHolder {
+        static final SetupApi INSTANCE = bind("setupapi (platform)",
+                () -> instrument("setupapi", SetupApi.class, SetupApi.INSTANCE));
+    }
+}
@@ -0,0 +1,259 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+import com.sun.jna.Structure;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on flight recorder of the last {@value #CAPACITY} native calls: API, arguments, return value,
+ * last error, thread and timing. Records live in preallocated primitive arrays; a writer takes a sequence
+ * number with one atomic increment, claims its slot with a compare-and-set on the slot's stamp and stamps
+ * it again when done, so recording takes no lock and allocates nothing. A writer that laps onto a slot
+ * another one is still writing drops its record rather than interleave with it. String arguments are kept
+ * by reference rather than copied or converted.
+ * <p>
+ * The buffer is only read when a run has a failed check; see {@link NativeTraceSink}.
+ */
+public final class NativeTrace {
+
+    public static final int CAPACITY = 4096;
+
+    // Arguments kept per call; later ones are counted but not stored
+    public static final int ARG_SLOTS = 6;
+
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_APIS = 256;
+
+    private static final AtomicLong next = new AtomicLong();
+    private static final String[] apiNames = new String[MAX_APIS];
+    private static int apiCount;
+
+    private NativeTrace() {
+    }
+
+    /**
+     * Preallocated on first record, so runs without native calls never pay for it.
+     */
+    private static final class Buffer {
+        // Sequence number + 1 of the record in each slot once complete, negated while it is being written
+        static final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+        static final int[] apis = new int[CAPACITY];
+        // Argument count in the low 16 bits, index + 1 of the text argument above them
+        static final int[] argInfo = new int[CAPACITY];
+        static final long[] args = new long[CAPACITY * ARG_SLOTS];
+        // String or WString, converted only when dumped
+        static final CharSequence[] texts = new CharSequence[CAPACITY];
+        static final long[] results = new long[CAPACITY];
+        static final int[] lastErrors = new int[CAPACITY];
+        static final long[] threads = new long[CAPACITY];
+        static final long[] startNanos = new long[CAPACITY];
+        static final long[] durationNanos = new long[CAPACITY];
+    }
+
+    /**
+     * Registers an API name, such as "advapi32.RegOpenKeyEx", and returns its id. Call once per API.
+     */
+    public static synchronized int register(String api) {
+        for (int i = 0; i < apiCount; i++) {
+            if (apiNames[i].equals(api)) {
+                return i;
+            }
+        }
+        if (apiCount == MAX_APIS) {
+            return MAX_APIS - 1;
+        }
+        apiNames[apiCount] = api;
+        return apiCount++;
+    }
+
+    /**
+     * Records a call made through a JNA binding. Arguments are read after the call, so
+     * by-reference integers show their output values.
+     */
+    public static void record(int api, Object[] arguments, Object result, int lastError, long startNanos,
+            long durationNanos) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        int slot = (int) (sequence & MASK);
+        int count = arguments == null ? 0 : arguments.length;
+        int textIndex = 0;
+        Buffer.texts[slot] = null;
+        for (int i = 0; i < count; i++) {
+            Object argument = arguments[i];
+            if (textIndex == 0 && (argument instanceof String || argument instanceof WString)) {
+                Buffer.texts[slot] = (CharSequence) argument;
+                textIndex = i + 1;
+            } else if (i < ARG_SLOTS) {
+                Buffer.args[slot * ARG_SLOTS + i] = toLong(argument);
+            }
+        }
+        publish(sequence, api, count | textIndex << 16, toLong(result), lastError, startNanos, durationNanos);
+    }
+
+    /**
+     * Records a call made outside the instrumented bindings, such as through Advapi32Util.
+     */
+    public static void record(int api, String text, long argument, long result, int lastError, long startNanos,
+            long durationNanos) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        int slot = (int) (sequence & MASK);
+        Buffer.texts[slot] = text;
+        Buffer.args[slot * ARG_SLOTS] = argument;
+        publish(sequence, api, 2 | 2 << 16, result, lastError, startNanos, durationNanos);
+    }
+
+    /**
+     * Returns how many calls have been recorded since start-up, including overwritten ones.
+     */
+    public static long getRecordCount() {
+        return next.get();
+    }
+
+    /**
+     * Writes the buffered calls to a text file, oldest first, one line per call.
+     *
+     * @return the number of calls written
+     */
+    public static int dump(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            return dump(out);
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Takes the next sequence number and marks its slot as being written, or returns -1 if another
+     * writer still holds the slot or has already filled it with a newer call. The compare-and-set
+     * keeps the record's writes from moving ahead of the mark.
+     */
+    private static long claim() {
+        long sequence = next.getAndIncrement();
+        int slot = (int) (sequence & MASK);
+        long stamp = Buffer.stamps.get(slot);
+        if (stamp < 0 || stamp > sequence || !Buffer.stamps.compareAndSet(slot, stamp, -(sequence + 1))) {
+            return -1;
+        }
+        return sequence;
+    }
+
+    private static void publish(long sequence, int api, int argInfo, long result, int lastError, long startNanos,
+            long durationNanos) {
+        int slot = (int) (sequence & MASK);
+        Buffer.apis[slot] = api;
+        Buffer.argInfo[slot] = argInfo;
+        Buffer.results[slot] = result;
+        Buffer.lastErrors[slot] = lastError;
+        Buffer.threads[slot] = Thread.currentThread().getId();
+        Buffer.startNanos[slot] = startNanos;
+        Buffer.durationNanos[slot] = durationNanos;
+        // Ordered after the field writes; a reader that sees the stamp sees the record
+        Buffer.stamps.lazySet(slot, sequence + 1);
+    }
+
+    private static int dump(Writer out) throws IOException {
+        long end = next.get();
+        long first = Math.max(0, end - CAPACITY);
+        long origin = 0;
+        int written = 0;
+        out.write("# pccheck native call trace: " + (end - first) + " of " + end
+                + " calls, oldest first. +ms since the first listed call, [thread], API(args) = result, "
+                + "GetLastError, duration\n");
+        StringBuilder line = new StringBuilder(256);
+        long[] args = new long[ARG_SLOTS];
+        for (long sequence = first; sequence < end; sequence++) {
+            int slot = (int) (sequence & MASK);
+            long stamp = sequence + 1;
+            if (Buffer.stamps.get(slot) != stamp) {
+                // Still being written, or already overwritten by a newer call
+                continue;
+            }
+            // Copy the record, then check that no writer took the slot meanwhile. The compare-and-set
+            // keeps the copies from moving past the check, which a plain volatile read would not.
+            long start = Buffer.startNanos[slot];
+            long thread = Buffer.threads[slot];
+            int api = Buffer.apis[slot];
+            int argInfo = Buffer.argInfo[slot];
+            CharSequence text = Buffer.texts[slot];
+            System.arraycopy(Buffer.args, slot * ARG_SLOTS, args, 0, ARG_SLOTS);
+            long result = Buffer.results[slot];
+            int lastError = Buffer.lastErrors[slot];
+            long duration = Buffer.durationNanos[slot];
+            if (!Buffer.stamps.compareAndSet(slot, stamp, stamp)) {
+                continue;
+            }
+
+            line.setLength(0);
+            if (written == 0) {
+                origin = start;
+            }
+            int count = argInfo & 0xFFFF;
+            int textIndex = argInfo >>> 16;
+            line.append(String.format(Locale.ROOT, "+%10.3f [%d] ", (start - origin) / 1e6, thread));
+            line.append(apiName(api)).append('(');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    line.append(", ");
+                }
+                if (i + 1 == textIndex) {
+                    line.append('"').append(text).append('"');
+                } else if (i < ARG_SLOTS) {
+                    line.append("0x").append(Long.toHexString(args[i]));
+                } else {
+                    line.append("...");
+                    break;
+                }
+            }
+            line.append(") = 0x").append(Long.toHexString(result));
+            line.append(" err=").append(lastError);
+            line.append(String.format(Locale.ROOT, " %.3fms%n", duration / 1e6));
+            out.write(line.toString());
+            written++;
+        }
+        return written;
+    }
+
+    private static synchronized String apiName(int api) {
+        return api < apiCount ? apiNames[api] : "?";
+    }
+
+    /**
+     * Reduces an argument or return value to a number without allocating.
+     */
+    private static long toLong(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        } else if (value instanceof IntByReference) {
+            return ((IntByReference) value).getValue();
+        } else if (value instanceof PointerType) {
+            return Pointer.nativeValue(((PointerType) value).getPointer());
+        } else if (value instanceof Pointer) {
+            return Pointer.nativeValue((Pointer) value);
+        } else if (value instanceof Structure) {
+            return Pointer.nativeValue(((Structure) value).getPointer());
+        }
+        return System.identityHashCode(value);
+    }
+}
@@ -0,0 +1,51 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * {@link ResultStream} sink that dumps the {@link NativeTrace} buffer once the run is over,
+ * but only if a check failed, timed out or threw, and only if native calls were made.
+ */
+public class NativeTraceSink implements ResultSink {
+
+    private final Path file;
+    private boolean failed;
+    private volatile Path dumpedTo;
+
+    public NativeTraceSink() {
+        this(defaultLocation());
+    }
+
+    public NativeTraceSink(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the trace file next to the result cache.
+     */
+    public static Path defaultLocation() {
+        return ResultCache.defaultLocation().resolveSibling("native-trace.log");
+    }
+
+    @Override
+    public void onResult(CheckResult result) {
+        failed |= !result.isPassed();
+    }
+
+    @Override
+    public void onComplete() throws IOException {
+        if (failed && NativeTrace.getRecordCount() > 0) {
+            NativeTrace.dump(file);
+            dumpedTo = file;
+        }
+    }
+
+    /**
+     * Returns the file the trace was written to, or null if it was not needed.
+     * Valid after the stream is closed.
+     */
+    public Path getDumpFile() {
+        return dumpedTo;
+    }
+}
@@ -0,0 +1,245 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the file version from the version resource of a PE image (DLL or EXE) in pure Java.
+ * Only the headers, the resource directory path to RT_VERSION and the fixed file
+ * info are read, a page at a time with positional reads, so a probe reads a handful
+ * of pages and holds no mapping that would keep the file from being replaced.
+ * No Windows API is involved, so it works on any OS.
+ */
+public final class PeVersionReader {
+
+    private static final int DOS_SIGNATURE = 0x5A4D; // "MZ"
+    private static final int PE_SIGNATURE = 0x00004550; // "PE\0\0"
+    private static final int PE32_MAGIC = 0x10B;
+    private static final int PE32_PLUS_MAGIC = 0x20B;
+    private static final int RESOURCE_DIRECTORY_INDEX = 2;
+    private static final int RT_VERSION = 16;
+    private static final int VS_FFI_SIGNATURE = 0xFEEF04BD;
+    // VS_VERSIONINFO header and its "VS_VERSION_INFO" key are 40 bytes; allow for odd padding
+    private static final int FIXED_INFO_SEARCH_LIMIT = 256;
+    private static final int SECTION_HEADER_SIZE = 40;
+    private static final int RESOURCE_ENTRY_SIZE = 8;
+    // Marks a resource directory entry that points to a subdirectory
+    private static final int SUBDIRECTORY = 0x80000000;
+    // Entry ids are never negative, so this matches the first entry
+    private static final int ANY_ID = -1;
+    // Offset 0 holds the root directory, so no entry can point there
+    private static final int NOT_FOUND = 0;
+    private static final int PAGE_SIZE = 4096;
+
+    private PeVersionReader() {
+    }
+
+    /**
+     * Reads a file and returns its packed file version (see {@link DriverVersion}), or
+     * {@link DriverVersion#INVALID} if it is not a PE image or has no version resource.
+     * The file is closed before this returns.
+     *
+     * @throws IOException if the file cannot be opened or read
+     */
+    public static long readFileVersion(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return DriverVersion.INVALID;
+            }
+            return readFileVersion(new ChannelImage(channel));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the packed file version of a PE image held in a buffer, or {@link DriverVersion#INVALID}.
+     */
+    public static long readFileVersion(ByteBuffer image) {
+        ByteBuffer in = image.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        return readFileVersion(new Image() {
+            @Override
+            public int getInt(int offset) {
+                return in.getInt(offset);
+            }
+
+            @Override
+            public short getShort(int offset) {
+                return in.getShort(offset);
+            }
+        });
+    }
+
+    private static long readFileVersion(Image in) {
+        try {
+            return parse(in);
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated or corrupt image
+            return DriverVersion.INVALID;
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static long parse(Image in) {
+        if ((in.getShort(0) & 0xFFFF) != DOS_SIGNATURE) {
+            return DriverVersion.INVALID;
+        }
+        int pe = in.getInt(0x3C);
+        if (pe < 0 || in.getInt(pe) != PE_SIGNATURE) {
+            return DriverVersion.INVALID;
+        }
+
+        int coffHeader = pe + 4;
+        int sectionCount = in.getShort(coffHeader + 2) & 0xFFFF;
+        int optionalHeaderSize = in.getShort(coffHeader + 16) & 0xFFFF;
+        int optionalHeader = coffHeader + 20;
+        int sectionTable = optionalHeader + optionalHeaderSize;
+
+        int magic = in.getShort(optionalHeader) & 0xFFFF;
+        int dataDirectories;
+        if (magic == PE32_PLUS_MAGIC) {
+            dataDirectories = optionalHeader + 112;
+        } else if (magic == PE32_MAGIC) {
+            dataDirectories = optionalHeader + 96;
+        } else {
+            return DriverVersion.INVALID;
+        }
+        if (in.getInt(dataDirectories - 4) <= RESOURCE_DIRECTORY_INDEX) {
+            return DriverVersion.INVALID;
+        }
+        int resourceRva = in.getInt(dataDirectories + RESOURCE_DIRECTORY_INDEX * 8);
+        int resources = toFileOffset(in, sectionTable, sectionCount, resourceRva);
+        if (resourceRva == 0 || resources < 0) {
+            return DriverVersion.INVALID;
+        }
+
+        // Type, then name, then language; any name and language will do
+        int type = findEntry(in, resources, RT_VERSION);
+        int name = isSubdirectory(type) ? findEntry(in, resources + (type & ~SUBDIRECTORY), ANY_ID) : NOT_FOUND;
+        int language = isSubdirectory(name) ? findEntry(in, resources + (name & ~SUBDIRECTORY), ANY_ID) : NOT_FOUND;
+        if (language == NOT_FOUND || isSubdirectory(language)) {
+            return DriverVersion.INVALID;
+        }
+
+        int dataEntry = resources + language;
+        int data = toFileOffset(in, sectionTable, sectionCount, in.getInt(dataEntry));
+        int dataSize = in.getInt(dataEntry + 4);
+        if (data < 0) {
+            return DriverVersion.INVALID;
+        }
+        int limit = Math.min(dataSize, FIXED_INFO_SEARCH_LIMIT);
+        for (int offset = 0; offset + 16 <= limit; offset += 4) {
+            if (in.getInt(data + offset) == VS_FFI_SIGNATURE) {
+                long fileVersionMs = in.getInt(data + offset + 8) & 0xFFFFFFFFL;
+                long fileVersionLs = in.getInt(data + offset + 12) & 0xFFFFFFFFL;
+                return (fileVersionMs << 32) | fileVersionLs;
+            }
+        }
+        return DriverVersion.INVALID;
+    }
+
+    /**
+     * Returns the OffsetToData field of a directory entry with the given id, or of the first
+     * entry for {@link #ANY_ID}; {@link #NOT_FOUND} if there is none. Named entries never match an id.
+     */
+    private static int findEntry(Image in, int directory, int id) {
+        int namedCount = in.getShort(directory + 12) & 0xFFFF;
+        int idCount = in.getShort(directory + 14) & 0xFFFF;
+        int entries = directory + 16;
+        for (int i = 0; i < namedCount + idCount; i++) {
+            int entry = entries + i * RESOURCE_ENTRY_SIZE;
+            if (id == ANY_ID || in.getInt(entry) == id) {
+                return in.getInt(entry + 4);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private static boolean isSubdirectory(int offsetToData) {
+        return (offsetToData & SUBDIRECTORY) != 0;
+    }
+
+    /**
+     * Converts a relative virtual address to a file offset using the section table, or -1.
+     */
+    private static int toFileOffset(Image in, int sectionTable, int sectionCount, int rva) {
+        for (int i = 0; i < sectionCount; i++) {
+            int section = sectionTable + i * SECTION_HEADER_SIZE;
+            int virtualSize = in.getInt(section + 8);
+            int virtualAddress = in.getInt(section + 12);
+            int rawSize = in.getInt(section + 16);
+            int rawPointer = in.getInt(section + 20);
+            // Past the raw data the section is zero-filled in memory but not backed by the file
+            if (rva >= virtualAddress && rva - virtualAddress < Math.min(virtualSize, rawSize)) {
+                return rva - virtualAddress + rawPointer;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Little-endian reads at absolute offsets; out-of-range offsets throw {@link IndexOutOfBoundsException}.
+     */
+    private interface Image {
+        int getInt(int offset);
+
+        short getShort(int offset);
+    }
+
+    /**
+     * Reads a file through positional reads into a single cached page.
+     */
+    private static final class ChannelImage implements Image {
+        private final FileChannel channel;
+        private final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long pageStart = -1;
+
+        ChannelImage(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int getInt(int offset) {
+            return page.getInt(load(offset, 4));
+        }
+
+        @Override
+        public short getShort(int offset) {
+            return page.getShort(load(offset, 2));
+        }
+
+        /**
+         * Makes sure the page holds the given bytes and returns their position in it.
+         */
+        private int load(int offset, int length) {
+            if (offset < 0) {
+                throw new IndexOutOfBoundsException("Offset " + offset);
+            }
+            if (pageStart < 0 || offset < pageStart || (long) offset + length > pageStart + page.limit()) {
+                long start = offset & ~(PAGE_SIZE - 1L);
+                // A value straddling a page boundary starts its own page
+                pageStart = (long) offset + length > start + PAGE_SIZE ? offset : start;
+                page.clear();
+                try {
+                    while (page.hasRemaining() && channel.read(page, pageStart + page.position()) >= 0) {
+                        // Keep reading until the page is full or the file ends
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                page.flip();
+            }
+            int position = (int) (offset - pageStart);
+            if (position + length > page.limit()) {
+                throw new IndexOutOfBoundsException("Offset " + offset + " is past the end of the file");
+            }
+            return position;
+        }
+    }
+}
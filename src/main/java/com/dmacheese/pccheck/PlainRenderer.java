@@ -0,0 +1,18 @@
+package com.dmacheese.pccheck;
+
+import java.io.PrintStream;
+
+/**
+ * Renderer without colors, for redirected output and byte-exact comparisons.
+ */
+public class PlainRenderer extends ReportRenderer {
+
+    public PlainRenderer(PrintStream out) {
+        super(out);
+    }
+
+    @Override
+    public ReportRenderer color(Utils.Color color) {
+        return this;
+    }
+}
@@ -0,0 +1,12 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Reports the privileges the process runs with.
+ */
+public interface PrivilegeProbe {
+
+    /**
+     * Checks if the process runs with administrator privileges.
+     */
+    boolean isAdministrator();
+}
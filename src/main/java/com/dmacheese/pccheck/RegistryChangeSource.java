@@ -0,0 +1,31 @@
+package com.dmacheese.pccheck;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Source of change notifications for HKEY_LOCAL_MACHINE keys.
+ */
+public interface RegistryChangeSource extends AutoCloseable {
+
+    /**
+     * Starts watching keys. Keys that do not exist yet are watched for their creation.
+     *
+     * @throws IllegalStateException if a key cannot be watched
+     */
+    void watch(Collection<String> keyPaths);
+
+    /**
+     * Blocks until at least one watched key changes and returns every key that changed,
+     * coalescing bursts of writes. Returns an empty set once the source is closed.
+     *
+     * @throws IllegalStateException if waiting fails or a key can no longer be watched
+     */
+    Set<String> awaitChanges() throws InterruptedException;
+
+    /**
+     * Stops watching and wakes up a pending {@link #awaitChanges()}.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,406 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only parser for a binary registry hive file (REGF), such as the SYSTEM and
+ * SOFTWARE files under Windows\System32\config of an offline Windows image.
+ * The file is memory-mapped and keys are located through the hive's own subkey
+ * index lists, comparing name hashes before names, so a lookup touches only the
+ * cells on its path. Keys and values are identified by their cell offsets.
+ * Pending transaction logs are not applied; a cleanly shut down image is consistent without them,
+ * and a hive whose base block records an unfinished write is rejected instead of read half-updated.
+ * Corrupt hives surface as {@link IllegalStateException} or {@link IndexOutOfBoundsException}.
+ */
+public final class RegistryHive {
+
+    /**
+     * Returned for a key or value that does not exist.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int REGF_SIGNATURE = 0x66676572; // "regf"
+    private static final int BASE_BLOCK_SIZE = 4096;
+    // Incremented before and after each write to the hive; they differ while one is unfinished
+    private static final int PRIMARY_SEQUENCE_OFFSET = 0x04;
+    private static final int SECONDARY_SEQUENCE_OFFSET = 0x08;
+    private static final int ROOT_CELL_OFFSET = 0x24;
+
+    // Cell signatures, read as little-endian shorts
+    private static final short NK = 0x6B6E;
+    private static final short VK = 0x6B76;
+    private static final short LI = 0x696C;
+    private static final short LF = 0x666C;
+    private static final short LH = 0x686C;
+    private static final short RI = 0x6972;
+    private static final short DB = 0x6264;
+
+    // Key node flag: the name is stored as Latin-1 instead of UTF-16
+    private static final int KEY_COMP_NAME = 0x0020;
+    // Value flag: the name is stored as Latin-1 instead of UTF-16
+    private static final int VALUE_COMP_NAME = 0x0001;
+    // Set in a value's data size when the data is stored in the offset field itself
+    private static final int DATA_INLINE = 0x80000000;
+    // Larger values are split into big data segments (hive format 1.4 and later)
+    private static final int BIG_DATA_SEGMENT_SIZE = 16344;
+
+    private final ByteBuffer buffer;
+    private final int rootKey;
+
+    private RegistryHive(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.rootKey = buffer.getInt(ROOT_CELL_OFFSET);
+        cell(rootKey, NK);
+    }
+
+    /**
+     * Maps a hive file.
+     *
+     * @throws IOException if the file cannot be read, is not a registry hive or is dirty
+     */
+    public static RegistryHive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < BASE_BLOCK_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a registry hive: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != REGF_SIGNATURE) {
+                throw new IOException("Not a registry hive: " + file);
+            }
+            if (buffer.getInt(PRIMARY_SEQUENCE_OFFSET) != buffer.getInt(SECONDARY_SEQUENCE_OFFSET)) {
+                throw new IOException("Dirty registry hive, its transaction logs were not applied: " + file);
+            }
+            try {
+                return new RegistryHive(buffer);
+            } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt registry hive: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the root key of the hive.
+     */
+    public int rootKey() {
+        return rootKey;
+    }
+
+    /**
+     * Finds a key by a backslash-separated path relative to another key, or {@link #NOT_FOUND}.
+     * Names are matched case-insensitively.
+     */
+    public int findKey(int key, String path) {
+        int start = 0;
+        while (key != NOT_FOUND && start < path.length()) {
+            int end = path.indexOf('\\', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                key = findSubkey(key, path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return key;
+    }
+
+    /**
+     * Finds a direct subkey by name, or {@link #NOT_FOUND}.
+     */
+    public int findSubkey(int key, String name) {
+        int node = cell(key, NK);
+        if (buffer.getInt(node + 0x14) == 0) {
+            return NOT_FOUND;
+        }
+        return findInList(buffer.getInt(node + 0x1C), name, hash(name));
+    }
+
+    /**
+     * Returns the names of the direct subkeys of a key, in the hive's (sorted) order.
+     */
+    public List<String> subkeyNames(int key) {
+        int node = cell(key, NK);
+        if (buffer.getInt(node + 0x14) == 0) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>();
+        collectNames(buffer.getInt(node + 0x1C), names);
+        return names;
+    }
+
+    /**
+     * Returns the last write time of a key as a FILETIME tick count.
+     */
+    public long lastWriteTime(int key) {
+        return buffer.getLong(cell(key, NK) + 0x04);
+    }
+
+    /**
+     * Finds a value of a key by name, or {@link #NOT_FOUND}. An empty name finds the default value.
+     */
+    public int findValue(int key, String name) {
+        int node = cell(key, NK);
+        int count = buffer.getInt(node + 0x24);
+        if (count == 0) {
+            return NOT_FOUND;
+        }
+        int list = cell(buffer.getInt(node + 0x28));
+        for (int i = 0; i < count; i++) {
+            int value = buffer.getInt(list + i * 4);
+            int record = cell(value, VK);
+            int nameLength = buffer.getShort(record + 0x02) & 0xFFFF;
+            boolean compressed = (buffer.getShort(record + 0x10) & VALUE_COMP_NAME) != 0;
+            if (nameEquals(record + 0x14, nameLength, compressed, name)) {
+                return value;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the registry type of a value, e.g. {@code REG_DWORD}.
+     */
+    public int valueType(int value) {
+        return buffer.getInt(cell(value, VK) + 0x0C);
+    }
+
+    /**
+     * Returns the raw data of a value as a little-endian buffer.
+     */
+    public ByteBuffer valueData(int value) {
+        int record = cell(value, VK);
+        int size = buffer.getInt(record + 0x04);
+        if ((size & DATA_INLINE) != 0) {
+            size &= ~DATA_INLINE;
+            return slice(record + 0x08, Math.min(size, 4));
+        }
+        int data = cell(buffer.getInt(record + 0x08));
+        if (size > BIG_DATA_SEGMENT_SIZE && buffer.getShort(data) == DB) {
+            return bigData(data, size);
+        }
+        return slice(data, size);
+    }
+
+    /**
+     * Decodes REG_SZ or REG_EXPAND_SZ data, stopping at the first terminator.
+     */
+    public static String decodeString(ByteBuffer data) {
+        StringBuilder text = new StringBuilder(data.remaining() / 2);
+        for (int i = 0; i + 1 < data.limit(); i += 2) {
+            char c = data.getChar(i);
+            if (c == 0) {
+                break;
+            }
+            text.append(c);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Decodes REG_MULTI_SZ data into its strings, stopping at the first empty string.
+     */
+    public static List<String> decodeMultiString(ByteBuffer data) {
+        List<String> strings = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i + 1 < data.limit(); i += 2) {
+            char c = data.getChar(i);
+            if (c != 0) {
+                text.append(c);
+            } else if (text.length() == 0) {
+                break;
+            } else {
+                strings.add(text.toString());
+                text.setLength(0);
+            }
+        }
+        if (text.length() > 0) {
+            strings.add(text.toString());
+        }
+        return strings;
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Returns the absolute position of a cell's data, checking that the cell is inside the hive.
+     */
+    private int cell(int offset) {
+        if (offset < 0 || offset > buffer.limit() - BASE_BLOCK_SIZE - 4) {
+            throw new IllegalStateException("Cell offset out of range: " + offset);
+        }
+        return BASE_BLOCK_SIZE + offset + 4;
+    }
+
+    /**
+     * Returns the absolute position of a cell's data, checking its two-letter signature.
+     */
+    private int cell(int offset, short signature) {
+        int position = cell(offset);
+        if (buffer.getShort(position) != signature) {
+            throw new IllegalStateException("Unexpected cell at offset " + offset);
+        }
+        return position;
+    }
+
+    /**
+     * Searches a subkey index list. Hash leaves (lh) compare the stored name hash and fast leaves (lf)
+     * the stored first characters before reading a key node; index roots (ri) hold further lists.
+     */
+    private int findInList(int list, String name, int hash) {
+        int position = cell(list);
+        short signature = buffer.getShort(position);
+        int count = buffer.getShort(position + 2) & 0xFFFF;
+        int entries = position + 4;
+        switch (signature) {
+            case LH:
+                for (int i = 0; i < count; i++) {
+                    int entry = entries + i * 8;
+                    if (buffer.getInt(entry + 4) == hash && keyNameEquals(buffer.getInt(entry), name)) {
+                        return buffer.getInt(entry);
+                    }
+                }
+                return NOT_FOUND;
+            case LF:
+                for (int i = 0; i < count; i++) {
+                    int entry = entries + i * 8;
+                    if (hintMatches(entry + 4, name) && keyNameEquals(buffer.getInt(entry), name)) {
+                        return buffer.getInt(entry);
+                    }
+                }
+                return NOT_FOUND;
+            case LI:
+                for (int i = 0; i < count; i++) {
+                    int key = buffer.getInt(entries + i * 4);
+                    if (keyNameEquals(key, name)) {
+                        return key;
+                    }
+                }
+                return NOT_FOUND;
+            case RI:
+                for (int i = 0; i < count; i++) {
+                    int key = findInList(buffer.getInt(entries + i * 4), name, hash);
+                    if (key != NOT_FOUND) {
+                        return key;
+                    }
+                }
+                return NOT_FOUND;
+            default:
+                throw new IllegalStateException("Unexpected subkey list at offset " + list);
+        }
+    }
+
+    private void collectNames(int list, List<String> names) {
+        int position = cell(list);
+        short signature = buffer.getShort(position);
+        int count = buffer.getShort(position + 2) & 0xFFFF;
+        int stride = signature == LH || signature == LF ? 8 : 4;
+        for (int i = 0; i < count; i++) {
+            int target = buffer.getInt(position + 4 + i * stride);
+            if (signature == RI) {
+                collectNames(target, names);
+            } else {
+                names.add(keyName(target));
+            }
+        }
+    }
+
+    private String keyName(int key) {
+        int node = cell(key, NK);
+        int length = buffer.getShort(node + 0x48) & 0xFFFF;
+        boolean compressed = (buffer.getShort(node + 0x02) & KEY_COMP_NAME) != 0;
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < (compressed ? length : length / 2); i++) {
+            name.append(nameChar(node + 0x4C, i, compressed));
+        }
+        return name.toString();
+    }
+
+    private boolean keyNameEquals(int key, String name) {
+        int node = cell(key, NK);
+        int length = buffer.getShort(node + 0x48) & 0xFFFF;
+        boolean compressed = (buffer.getShort(node + 0x02) & KEY_COMP_NAME) != 0;
+        return nameEquals(node + 0x4C, length, compressed, name);
+    }
+
+    /**
+     * Compares a stored name with a string case-insensitively, without decoding it.
+     */
+    private boolean nameEquals(int position, int byteLength, boolean compressed, String name) {
+        int length = compressed ? byteLength : byteLength / 2;
+        if (length != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!sameLetter(nameChar(position, i, compressed), name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char nameChar(int position, int index, boolean compressed) {
+        return compressed ? (char) (buffer.get(position + index) & 0xFF) : buffer.getChar(position + index * 2);
+    }
+
+    /**
+     * Checks the first four characters an lf entry stores for its key. Only ASCII
+     * characters are compared, as the hint holds a single byte per character.
+     */
+    private boolean hintMatches(int hint, String name) {
+        for (int i = 0; i < 4 && i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < 0x80 && !sameLetter((char) (buffer.get(hint + i) & 0xFF), c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the name hash stored in lh lists: each upper-cased character, multiplied through by 37.
+     */
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = hash * 37 + Character.toUpperCase(name.charAt(i));
+        }
+        return hash;
+    }
+
+    private static boolean sameLetter(char a, char b) {
+        return a == b || Character.toUpperCase(a) == Character.toUpperCase(b);
+    }
+
+    private ByteBuffer slice(int position, int length) {
+        if (length < 0 || position + length > buffer.limit()) {
+            throw new IllegalStateException("Value data out of range at " + position);
+        }
+        ByteBuffer data = buffer.duplicate();
+        data.position(position).limit(position + length);
+        return data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Joins the segments of a big data record into one buffer.
+     */
+    private ByteBuffer bigData(int record, int size) {
+        int count = buffer.getShort(record + 2) & 0xFFFF;
+        int segments = cell(buffer.getInt(record + 4));
+        ByteBuffer data = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count && data.hasRemaining(); i++) {
+            int segment = cell(buffer.getInt(segments + i * 4));
+            data.put(slice(segment, Math.min(BIG_DATA_SEGMENT_SIZE, data.remaining())));
+        }
+        data.flip();
+        return data;
+    }
+}
@@ -0,0 +1,75 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A batch of registry values to read, grouped by key path.
+ * Each requested value is assigned a slot used to look up its result.
+ */
+public final class RegistryQuery {
+
+    private final Map<String, List<Entry>> entriesByKey = new LinkedHashMap<>();
+    private int size;
+
+    /**
+     * Adds a value to the batch and returns its result slot.
+     * Requesting the same key/value pair twice returns the same slot.
+     */
+    public int add(String keyPath, String valueName) {
+        List<Entry> entries = entriesByKey.get(keyPath);
+        if (entries == null) {
+            entries = new ArrayList<>();
+            entriesByKey.put(keyPath, entries);
+        }
+
+        for (Entry entry : entries) {
+            if (entry.valueName.equalsIgnoreCase(valueName)) {
+                return entry.slot;
+            }
+        }
+
+        Entry entry = new Entry(size++, valueName);
+        entries.add(entry);
+        return entry.slot;
+    }
+
+    /**
+     * Returns the number of requested values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the distinct key paths referenced by this batch.
+     */
+    public Set<String> keyPaths() {
+        return Collections.unmodifiableSet(entriesByKey.keySet());
+    }
+
+    /**
+     * Returns the values requested under a key path.
+     */
+    public List<Entry> entries(String keyPath) {
+        List<Entry> entries = entriesByKey.get(keyPath);
+        return entries == null ? Collections.<Entry>emptyList() : Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * A single requested value and its result slot.
+     */
+    public static final class Entry {
+        public final int slot;
+        public final String valueName;
+
+        Entry(int slot, String valueName) {
+            this.slot = slot;
+            this.valueName = valueName;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Reads HKEY_LOCAL_MACHINE values in batches.
+ * Implementations open each key at most once and keep the handle until {@link #close()}.
+ */
+public interface RegistryReader extends AutoCloseable {
+
+    long KEY_MISSING = -1;
+
+    /**
+     * Reads every value in the query. Missing keys, missing values and access
+     * errors are reported as {@link RegistryResults.Type#MISSING}.
+     */
+    RegistryResults read(RegistryQuery query);
+
+    /**
+     * Returns the last write time of a key as a FILETIME tick count, or
+     * {@link #KEY_MISSING} if the key does not exist or cannot be opened.
+     */
+    long getLastWriteTime(String keyPath);
+
+    /**
+     * Forgets the cached handle of a key, so the next read re-opens it.
+     * Needed after a key was created, deleted or replaced.
+     */
+    default void invalidate(String keyPath) {
+    }
+
+    /**
+     * Releases all cached key handles.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,91 @@
+package com.dmacheese.pccheck;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Typed results of a {@link RegistryQuery}, indexed by slot.
+ */
+public final class RegistryResults {
+
+    public enum Type {
+        MISSING, DWORD, STRING, OTHER
+    }
+
+    private final Type[] types;
+    private final int[] dwords;
+    private final String[] strings;
+
+    RegistryResults(int size) {
+        this.types = new Type[size];
+        this.dwords = new int[size];
+        this.strings = new String[size];
+        Arrays.fill(types, Type.MISSING);
+    }
+
+    void setDword(int slot, int value) {
+        types[slot] = Type.DWORD;
+        dwords[slot] = value;
+    }
+
+    void setString(int slot, String value) {
+        types[slot] = Type.STRING;
+        strings[slot] = value;
+    }
+
+    void setOther(int slot) {
+        types[slot] = Type.OTHER;
+    }
+
+    /**
+     * Replaces a slot with the value held by a slot of another result set.
+     */
+    void copy(int slot, RegistryResults from, int fromSlot) {
+        types[slot] = from.types[fromSlot];
+        dwords[slot] = from.dwords[fromSlot];
+        strings[slot] = from.strings[fromSlot];
+    }
+
+    /**
+     * Returns the number of slots.
+     */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Returns the registry type found for a slot.
+     */
+    public Type getType(int slot) {
+        return types[slot];
+    }
+
+    /**
+     * Checks if the value for a slot exists.
+     */
+    public boolean isPresent(int slot) {
+        return types[slot] != Type.MISSING;
+    }
+
+    /**
+     * Gets a DWORD value as OptionalInt.
+     */
+    public OptionalInt getDword(int slot) {
+        return types[slot] == Type.DWORD ? OptionalInt.of(dwords[slot]) : OptionalInt.empty();
+    }
+
+    /**
+     * Gets a string value as Optional.
+     */
+    public Optional<String> getString(int slot) {
+        return types[slot] == Type.STRING ? Optional.of(strings[slot]) : Optional.empty();
+    }
+
+    /**
+     * Checks if a slot holds a DWORD equal to the expected value.
+     */
+    public boolean dwordEquals(int slot, int expectedValue) {
+        return types[slot] == Type.DWORD && dwords[slot] == expectedValue;
+    }
+}
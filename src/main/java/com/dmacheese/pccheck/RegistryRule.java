@@ -0,0 +1,100 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A registry check defined by a rules table entry, optionally backed by files
+ * that must be present in accepted versions.
+ * Pass and fail results are created once so evaluation does not allocate.
+ */
+public final class RegistryRule {
+
+    public enum PassWhen {
+        EQUAL, NOT_EQUAL
+    }
+
+    private final String id;
+    private final String name;
+    private final String keyPath;
+    private final String valueName;
+    private final int expectedValue;
+    private final PassWhen passWhen;
+    private final CheckResult passResult;
+    private final CheckResult failResult;
+    private final List<FileRequirement> files;
+
+    public RegistryRule(String id, String name, String keyPath, String valueName, int expectedValue,
+            PassWhen passWhen, String passMessage, String failMessage) {
+        this(id, name, keyPath, valueName, expectedValue, passWhen, passMessage, failMessage,
+                Collections.<FileRequirement>emptyList());
+    }
+
+    /**
+     * @param files files that must also be present, in accepted versions, for the rule to pass
+     */
+    public RegistryRule(String id, String name, String keyPath, String valueName, int expectedValue,
+            PassWhen passWhen, String passMessage, String failMessage, List<FileRequirement> files) {
+        this.id = id;
+        this.name = name;
+        this.keyPath = keyPath;
+        this.valueName = valueName;
+        this.expectedValue = expectedValue;
+        this.passWhen = passWhen;
+        this.passResult = CheckResult.of(name, true, passMessage);
+        this.failResult = CheckResult.of(name, false, failMessage);
+        this.files = Collections.unmodifiableList(new ArrayList<>(files));
+    }
+
+    /**
+     * Returns the result for a value read from the registry.
+     */
+    public CheckResult evaluate(RegistryResults values, int slot) {
+        boolean equal = values.dwordEquals(slot, expectedValue);
+        return (equal == (passWhen == PassWhen.EQUAL)) ? passResult : failResult;
+    }
+
+    /**
+     * Returns a fingerprint of the rule definition, so cached results are invalidated when the rules change.
+     */
+    public long definitionFingerprint() {
+        long hash = Fingerprint.of(id, name, keyPath, valueName, Integer.toString(expectedValue), passWhen.name(),
+                passResult.getMessage(), failResult.getMessage());
+        for (FileRequirement file : files) {
+            hash = Fingerprint.add(hash, file.toString());
+        }
+        return hash;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKeyPath() {
+        return keyPath;
+    }
+
+    public String getValueName() {
+        return valueName;
+    }
+
+    public int getExpectedValue() {
+        return expectedValue;
+    }
+
+    public PassWhen getPassWhen() {
+        return passWhen;
+    }
+
+    /**
+     * Returns the files checked after the registry value passes.
+     */
+    public List<FileRequirement> getFiles() {
+        return files;
+    }
+}
@@ -0,0 +1,44 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Built-in provider of one check per registry rule in the plan, in plan order.
+ * All selected rules share one batched registry read.
+ */
+public class RegistryRuleCheckProvider implements CheckProvider {
+
+    @Override
+    public Map<String, String> getChecks(CheckContext context) {
+        Map<String, String> checks = new LinkedHashMap<>();
+        for (RegistryRule rule : context.getPlan().getRules()) {
+            checks.put(rule.getId(), rule.getName());
+        }
+        return checks;
+    }
+
+    @Override
+    public List<CheckExecutor.Task> createTasks(CheckContext context, Set<String> checkIds) {
+        RegistryRuleChecks checks = RegistryRuleChecks.of(context.getCheckService());
+        List<RegistryRule> rules = checks.getPlan().getRules();
+        List<CheckExecutor.Task> tasks = new ArrayList<>(checkIds.size());
+        for (int i = 0; i < rules.size(); i++) {
+            int ruleIndex = i;
+            RegistryRule rule = rules.get(i);
+            if (checkIds.contains(rule.getId())) {
+                tasks.add(context.task(rule.getId(), rule.getName(), false, () -> checks.fingerprint(ruleIndex),
+                        () -> checks.evaluate(ruleIndex)));
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public int getOrder() {
+        return 200;
+    }
+}
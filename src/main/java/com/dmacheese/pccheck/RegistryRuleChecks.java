@@ -0,0 +1,129 @@
+package com.dmacheese.pccheck;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The registry rule checks of {@link RegistryRuleCheckProvider}. The values of every rule in the plan
+ * are read in one batch on first evaluation and kept, so later evaluations only re-read the keys
+ * refreshed with {@link #refreshKey(String)}. One instance is kept per {@link SystemCheckService}.
+ */
+public final class RegistryRuleChecks {
+
+    private final SystemCheckService service;
+    private final CheckPlan plan;
+    private RegistryResults values;
+    // Last write time of each key seen by refreshWrittenKeys
+    private final Map<String, Long> keyWriteTimes = new HashMap<>();
+
+    private RegistryRuleChecks(SystemCheckService service) {
+        this.service = service;
+        this.plan = service.getPlan();
+    }
+
+    /**
+     * Returns the service's rule checks, creating them on first call.
+     */
+    public static RegistryRuleChecks of(SystemCheckService service) {
+        return service.check(RegistryRuleChecks.class, RegistryRuleChecks::new);
+    }
+
+    /**
+     * Returns the compiled rules evaluated by these checks.
+     */
+    public CheckPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Evaluates a rule by index in the plan without printing.
+     * Files listed by the rule are only probed once the registry value passes.
+     */
+    public CheckResult evaluate(int ruleIndex) {
+        CheckResult result = plan.evaluate(ruleIndex, values());
+        List<FileRequirement> files = plan.getRules().get(ruleIndex).getFiles();
+        if (!result.isPassed() || files.isEmpty()) {
+            return result;
+        }
+        return FileChecks.checkFiles(service.fileVersionProbe(), result.getName(), files).orElse(result);
+    }
+
+    /**
+     * Fingerprints a rule's inputs: the rule definition, its key's last write time and its files.
+     */
+    public long fingerprint(int ruleIndex) {
+        RegistryRule rule = plan.getRules().get(ruleIndex);
+        return Fingerprint.combine(rule.definitionFingerprint(),
+                service.registryReader().getLastWriteTime(rule.getKeyPath()),
+                FileChecks.fingerprint(service.fileProbe(), rule.getFiles()));
+    }
+
+    /**
+     * Re-reads the values of a single key, so only the rules tied to it see new data.
+     * Returns the indices of those rules, or an empty array if the plan does not read the key.
+     */
+    public int[] refreshKey(String keyPath) {
+        int[] ruleIndices = plan.getRulesByKey().get(keyPath);
+        if (ruleIndices == null) {
+            return new int[0];
+        }
+
+        RegistryQuery query = new RegistryQuery();
+        int[] freshSlots = new int[ruleIndices.length];
+        for (int i = 0; i < ruleIndices.length; i++) {
+            freshSlots[i] = query.add(keyPath, plan.getRules().get(ruleIndices[i]).getValueName());
+        }
+
+        RegistryReader reader = service.registryReader();
+        reader.invalidate(keyPath);
+        RegistryResults fresh = reader.read(query);
+        synchronized (this) {
+            RegistryResults current = values();
+            for (int i = 0; i < ruleIndices.length; i++) {
+                current.copy(plan.getSlot(ruleIndices[i]), fresh, freshSlots[i]);
+            }
+        }
+        return ruleIndices;
+    }
+
+    /**
+     * Refreshes the keys read by the given rules that were written since the previous call, so their
+     * rules' fingerprints send them back to evaluation with new values. The first call only records
+     * the write times.
+     */
+    public synchronized void refreshWrittenKeys(Set<String> ruleIds) {
+        for (Map.Entry<String, int[]> key : plan.getRulesByKey().entrySet()) {
+            if (!readsAny(key.getValue(), ruleIds)) {
+                continue;
+            }
+            long written = service.registryReader().getLastWriteTime(key.getKey());
+            Long seen = keyWriteTimes.put(key.getKey(), written);
+            if (seen != null && seen != written) {
+                refreshKey(key.getKey());
+            }
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Reads all registry values used by the plan on first access.
+     */
+    private synchronized RegistryResults values() {
+        if (values == null) {
+            values = service.registryReader().read(plan.getQuery());
+        }
+        return values;
+    }
+
+    private boolean readsAny(int[] ruleIndices, Set<String> ruleIds) {
+        for (int ruleIndex : ruleIndices) {
+            if (ruleIds.contains(plan.getRules().get(ruleIndex).getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
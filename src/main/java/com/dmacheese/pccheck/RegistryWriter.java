@@ -0,0 +1,14 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Writes HKEY_LOCAL_MACHINE values, as needed by automated fixes.
+ */
+public interface RegistryWriter {
+
+    /**
+     * Stores a DWORD value in an existing key.
+     *
+     * @throws IllegalStateException if the value cannot be written, e.g. access is denied
+     */
+    void setDword(String keyPath, String valueName, int value);
+}
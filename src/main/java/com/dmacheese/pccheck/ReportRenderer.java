@@ -0,0 +1,95 @@
+package com.dmacheese.pccheck;
+
+import java.io.PrintStream;
+
+/**
+ * Builds console output in a buffer and writes it with a single flush.
+ * Subclasses decide how colors are expressed: VT escape sequences, legacy
+ * console attributes, or not at all. Renderers that can rewrite lines already
+ * written also implement {@link CursorControl}.
+ */
+public abstract class ReportRenderer {
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    protected final PrintStream out;
+    protected final StringBuilder buffer = new StringBuilder(4096);
+
+    protected ReportRenderer(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Selects the renderer for standard output: plain text when output is redirected
+     * or colors are disabled, VT sequences when the console supports them, and legacy
+     * console attributes otherwise.
+     */
+    public static ReportRenderer forConsole(boolean colorEnabled) {
+        return forConsole(WindowsConsoleBackend.INSTANCE, colorEnabled);
+    }
+
+    /**
+     * Selects the renderer for a console backend, as {@link #forConsole(boolean)} does for standard output.
+     */
+    public static ReportRenderer forConsole(ConsoleBackend console, boolean colorEnabled) {
+        if (!colorEnabled || !console.isInteractive()) {
+            return new PlainRenderer(console.out());
+        }
+        if (console.enableVirtualTerminal()) {
+            return new AnsiRenderer(console.out());
+        }
+        return new LegacyConsoleRenderer(console);
+    }
+
+    /**
+     * Switches the color of subsequent text.
+     */
+    public abstract ReportRenderer color(Utils.Color color);
+
+    public ReportRenderer print(String text) {
+        buffer.append(text);
+        return this;
+    }
+
+    public ReportRenderer println(String text) {
+        buffer.append(text).append(NEWLINE);
+        return this;
+    }
+
+    public ReportRenderer println() {
+        buffer.append(NEWLINE);
+        return this;
+    }
+
+    /**
+     * Appends a formatted check result line with color coding.
+     */
+    public ReportRenderer result(String checkName, boolean passed, String message) {
+        print("[");
+        if (passed) {
+            color(Utils.Color.Green).print(" OK ");
+        } else {
+            color(Utils.Color.Red).print("FAIL");
+        }
+
+        color(Utils.Color.Default).print("] " + checkName);
+
+        if (message != null && !message.isEmpty()) {
+            print(" (");
+            color(passed ? Utils.Color.Green : Utils.Color.Red).print(message);
+            color(Utils.Color.Default).print(")");
+        }
+        return println();
+    }
+
+    /**
+     * Writes everything buffered so far in one call.
+     */
+    public void flush() {
+        if (buffer.length() > 0) {
+            out.print(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+}
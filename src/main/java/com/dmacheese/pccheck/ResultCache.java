@@ -0,0 +1,177 @@
+package com.dmacheese.pccheck;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Local cache of the previous run's check results, keyed by a fingerprint of each check's inputs.
+ * A check whose fingerprint is unchanged since the last run returns its cached result
+ * without touching native APIs.
+ *
+ * File format (big-endian): magic "PCCR", format version, entry count, then per entry
+ * check id, fingerprint, passed flag, name, message and observed value.
+ */
+public class ResultCache {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int MAGIC = 0x50434352; // "PCCR"
+
+    private final Path file;
+    private final boolean readEnabled;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private ResultCache(Path file, boolean readEnabled) {
+        this.file = file;
+        this.readEnabled = readEnabled;
+    }
+
+    /**
+     * Loads the cache file. A missing, corrupt or outdated file yields an empty cache.
+     *
+     * @param readEnabled false to force a full re-check while still refreshing the cache
+     */
+    public static ResultCache load(Path file, boolean readEnabled) {
+        ResultCache cache = new ResultCache(file, readEnabled);
+        if (readEnabled && Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String checkId = in.readUTF();
+                        long fingerprint = in.readLong();
+                        boolean passed = in.readBoolean();
+                        String name = in.readUTF();
+                        String message = in.readUTF();
+                        long value = in.readLong();
+                        cache.entries.put(checkId, new Entry(fingerprint,
+                                CheckResult.of(name, passed, message).withValue(value)));
+                    }
+                }
+            } catch (IOException e) {
+                cache.entries.clear();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns a cache that never serves or persists results.
+     */
+    public static ResultCache disabled() {
+        return new ResultCache(null, false);
+    }
+
+    /**
+     * Returns a cache that serves results but is never persisted, for a process that outlives many runs.
+     */
+    public static ResultCache inMemory() {
+        return new ResultCache(null, true);
+    }
+
+    /**
+     * Returns the default cache location under the user's local application data.
+     */
+    public static Path defaultLocation() {
+        String localAppData = System.getenv("LOCALAPPDATA");
+        Path base = localAppData != null ? Paths.get(localAppData, "DMACHEESE")
+                : Paths.get(System.getProperty("user.home"), ".dmacheese");
+        return base.resolve("pccheck").resolve("results.cache");
+    }
+
+    /**
+     * Returns the cached result if the check's fingerprint is unchanged.
+     */
+    public Optional<CheckResult> get(String checkId, long fingerprint) {
+        if (!readEnabled || fingerprint == Fingerprint.UNKNOWN) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(checkId);
+        return entry != null && entry.fingerprint == fingerprint ? Optional.of(entry.result) : Optional.empty();
+    }
+
+    /**
+     * Stores a fresh result. Results with an unknown fingerprint are not cached.
+     */
+    public void put(String checkId, long fingerprint, CheckResult result) {
+        if (fingerprint == Fingerprint.UNKNOWN) {
+            entries.remove(checkId);
+        } else {
+            entries.put(checkId, new Entry(fingerprint, result));
+        }
+    }
+
+    /**
+     * Wraps a check so it is only evaluated when its fingerprint changed.
+     * A check that throws is not cached.
+     */
+    public Callable<CheckResult> cached(String checkId, LongSupplier fingerprint, Callable<CheckResult> check) {
+        return () -> {
+            long current;
+            try {
+                current = fingerprint.getAsLong();
+            } catch (RuntimeException e) {
+                current = Fingerprint.UNKNOWN;
+            }
+
+            Optional<CheckResult> cached = get(checkId, current);
+            if (cached.isPresent()) {
+                return cached.get().fromCache();
+            }
+
+            CheckResult result = check.call();
+            put(checkId, current, result);
+            return result;
+        };
+    }
+
+    /**
+     * Writes the cache atomically, replacing the previous file.
+     */
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            Map<String, Entry> snapshot = new LinkedHashMap<>(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                CheckResult result = e.getValue().result;
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().fingerprint);
+                out.writeBoolean(result.isPassed());
+                out.writeUTF(result.getName());
+                out.writeUTF(result.getMessage() == null ? "" : result.getMessage());
+                out.writeLong(result.getValue());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static final class Entry {
+        final long fingerprint;
+        final CheckResult result;
+
+        Entry(long fingerprint, CheckResult result) {
+            this.fingerprint = fingerprint;
+            this.result = result;
+        }
+    }
+}
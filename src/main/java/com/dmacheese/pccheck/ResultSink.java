@@ -0,0 +1,19 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Consumer of check results subscribed to a {@link ResultStream}.
+ * Each sink is called from its own thread, one result at a time, in publication order.
+ */
+public interface ResultSink {
+
+    /**
+     * Handles one result. An exception unsubscribes the sink; other sinks are unaffected.
+     */
+    void onResult(CheckResult result) throws Exception;
+
+    /**
+     * Called once after the last result, when the stream is closed.
+     */
+    default void onComplete() throws Exception {
+    }
+}
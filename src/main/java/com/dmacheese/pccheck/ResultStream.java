@@ -0,0 +1,226 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans check results out to any number of sinks without ever making the publisher wait.
+ * Every subscription has its own bounded queue and delivery thread. When a sink falls behind and its
+ * queue is full, further results are dropped for that sink only and counted, so a stalled console or
+ * a slow file cannot delay the checks or the other sinks. A sink that has not finished when the
+ * stream is closed is abandoned and handed nothing more, so it cannot write after its owner moves on.
+ */
+public class ResultStream implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // How long close() waits for sinks to write what they were given
+    public static final long DEFAULT_DRAIN_MILLIS = 5_000;
+
+    // Queued after the last result; one slot is always kept free for it
+    private static final CheckResult END = CheckResult.of(null, false, null);
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * A sink's queue and delivery thread.
+     */
+    public static final class Subscription {
+        private final String name;
+        private final ResultSink sink;
+        private final BlockingQueue<CheckResult> queue;
+        private final Thread thread;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile Exception failure;
+        private volatile boolean abandoned;
+
+        private Subscription(String name, ResultSink sink, int capacity) {
+            this.name = name;
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<>(capacity + 1);
+            this.thread = new Thread(this::deliver, "pccheck-sink-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns how many results the sink has handled.
+         */
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        /**
+         * Returns how many results were discarded because the sink's queue was full.
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * Returns the exception that unsubscribed the sink, or null.
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+
+        /**
+         * Returns true if the stream was closed before the sink finished, so it was stopped.
+         */
+        public boolean isAbandoned() {
+            return abandoned;
+        }
+
+        private void offer(CheckResult result) {
+            // The last slot is reserved for END
+            if (queue.remainingCapacity() <= 1 || !queue.offer(result)) {
+                dropped.incrementAndGet();
+                Metrics.recordDroppedResult(name);
+            }
+        }
+
+        private void deliver() {
+            try {
+                while (true) {
+                    CheckResult result = queue.take();
+                    // Checked before every call, as close() may have given up on the sink during the last one
+                    if (abandoned) {
+                        return;
+                    }
+                    if (result == END) {
+                        complete();
+                        return;
+                    }
+                    // A failed sink keeps taking results so its queue never fills up
+                    if (failure == null) {
+                        try {
+                            sink.onResult(result);
+                            delivered.incrementAndGet();
+                        } catch (Exception e) {
+                            failure = e;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void abandon() {
+            abandoned = true;
+            thread.interrupt();
+        }
+
+        private void complete() {
+            if (failure == null) {
+                try {
+                    sink.onComplete();
+                } catch (Exception e) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Subscribes a sink with the default queue capacity.
+     */
+    public Subscription subscribe(String name, ResultSink sink) {
+        return subscribe(name, DEFAULT_CAPACITY, sink);
+    }
+
+    /**
+     * Subscribes a sink and starts its delivery thread. Results published earlier are not replayed.
+     *
+     * @param capacity how many results may wait for the sink before new ones are dropped
+     */
+    public synchronized Subscription subscribe(String name, int capacity, ResultSink sink) {
+        if (closed) {
+            throw new IllegalStateException("Result stream is closed");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        Subscription subscription = new Subscription(name, sink, capacity);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Hands a result to every sink. Never blocks; results published after close are ignored.
+     */
+    public synchronized void publish(CheckResult result) {
+        if (closed) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(result);
+        }
+    }
+
+    /**
+     * Closes the stream and waits up to {@link #DEFAULT_DRAIN_MILLIS} for the sinks to finish.
+     */
+    @Override
+    public void close() {
+        close(DEFAULT_DRAIN_MILLIS);
+    }
+
+    /**
+     * Closes the stream and waits for every sink to handle its queued results and complete.
+     * Sinks still busy at the deadline are abandoned: their threads are interrupted and call the sink
+     * no more, not even {@link ResultSink#onComplete()}. A call already under way is left to return.
+     *
+     * @return true if every sink completed in time
+     */
+    public boolean close(long timeoutMillis) {
+        List<Subscription> pending;
+        synchronized (this) {
+            if (!closed) {
+                closed = true;
+                for (Subscription subscription : subscriptions) {
+                    subscription.queue.offer(END);
+                }
+            }
+            pending = new ArrayList<>(subscriptions);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            for (Subscription subscription : pending) {
+                long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (left > 0) {
+                    subscription.thread.join(left);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean completed = true;
+        for (Subscription subscription : pending) {
+            if (subscription.thread.isAlive()) {
+                subscription.abandon();
+                completed = false;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Returns the subscriptions in subscription order.
+     */
+    public synchronized List<Subscription> getSubscriptions() {
+        return new ArrayList<>(subscriptions);
+    }
+}
@@ -0,0 +1,473 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only history of runs: when each ran, its verdict, the FTDI driver version and every check's
+ * status and duration. Queries memory-map the file and scan only the columns they need, so finding a
+ * flip or a latency percentile stays fast after years of runs.
+ * <p>
+ * File format (big-endian): a {@value #HEADER_SIZE}-byte header with magic "PCCH", format version,
+ * rows per block, check slots, committed run count and the check id of each slot, followed by blocks
+ * of {@value #ROWS_PER_BLOCK} runs. Within a block every column is contiguous: timestamps, driver
+ * versions, verdicts, then a status byte column and a duration column (microseconds) per check slot.
+ * Statuses and verdicts are stored as fixed codes, never ordinals, so reordering an enum keeps old
+ * files readable. A check answered from the result cache is stored with duration {@value #CACHED},
+ * since the lookup's microseconds say nothing about the check's latency.
+ * A run is written into its block first and counted in the header last, so a run cut short by a crash
+ * is never read.
+ */
+public final class RunHistory {
+
+    public static final int FORMAT_VERSION = 1;
+
+    // Checks beyond this many distinct ids are not recorded
+    public static final int MAX_CHECKS = 32;
+
+    public static final int ROWS_PER_BLOCK = 512;
+
+    // Stored status of a check that was not part of a run
+    private static final byte NOT_RUN = 0;
+    private static final byte STATUS_PASS = 1;
+    private static final byte STATUS_FAIL = 2;
+    private static final byte STATUS_TIMED_OUT = 3;
+    private static final byte STATUS_ERROR = 4;
+
+    private static final byte VERDICT_PASS = 1;
+    private static final byte VERDICT_WARN = 2;
+    private static final byte VERDICT_FAIL = 3;
+
+    // Stored duration of a check answered from the result cache; left out of latency percentiles
+    private static final int CACHED = -1;
+
+    private static final int MAGIC = 0x50434348; // "PCCH"
+    private static final int HEADER_SIZE = 4096;
+    private static final int RUN_COUNT_OFFSET = 16;
+    private static final int CHECK_COUNT_OFFSET = 24;
+    private static final int CHECK_IDS_OFFSET = 28;
+    private static final int CHECK_ID_BYTES = 64;
+
+    // Column offsets within a block
+    private static final int TIMESTAMPS = 0;
+    private static final int DRIVER_VERSIONS = TIMESTAMPS + 8 * ROWS_PER_BLOCK;
+    private static final int VERDICTS = DRIVER_VERSIONS + 8 * ROWS_PER_BLOCK;
+    private static final int STATUSES = VERDICTS + ROWS_PER_BLOCK;
+    private static final int DURATIONS = STATUSES + MAX_CHECKS * ROWS_PER_BLOCK;
+    private static final int BLOCK_SIZE = DURATIONS + 4 * MAX_CHECKS * ROWS_PER_BLOCK;
+
+    // Blocks per mapping; a mapping cannot exceed 2 GB
+    private static final int BLOCKS_PER_SEGMENT = Integer.MAX_VALUE / BLOCK_SIZE;
+
+    private final long runCount;
+    private final List<String> checkIds;
+    private final MappedByteBuffer[] segments;
+
+    private RunHistory(long runCount, List<String> checkIds, MappedByteBuffer[] segments) {
+        this.runCount = runCount;
+        this.checkIds = checkIds;
+        this.segments = segments;
+    }
+
+    /**
+     * Returns the history file next to the result cache.
+     */
+    public static Path defaultLocation() {
+        return ResultCache.defaultLocation().resolveSibling("history.bin");
+    }
+
+    /**
+     * Appends one run, creating the file if needed. Processes appending at once take turns through a
+     * file lock.
+     *
+     * @param driverVersion the packed FTDI driver version, or {@link DriverVersion#INVALID} if none was read
+     * @return the ids of checks left out because the file has no slot for them: it holds {@link #MAX_CHECKS}
+     *         check ids, never reused, of up to 62 bytes each
+     */
+    public static List<String> append(Path file, long timestampMillis, long driverVersion,
+            List<CheckResult> results) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Released when the channel closes
+            channel.lock();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (header.getInt(0) == 0) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, FORMAT_VERSION);
+                header.putInt(8, ROWS_PER_BLOCK);
+                header.putInt(12, MAX_CHECKS);
+            }
+            validate(header, file);
+            List<String> checkIds = readCheckIds(header);
+
+            long run = header.getLong(RUN_COUNT_OFFSET);
+            int row = (int) (run % ROWS_PER_BLOCK);
+            MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + (run / ROWS_PER_BLOCK) * BLOCK_SIZE, BLOCK_SIZE);
+            block.putLong(TIMESTAMPS + row * 8, timestampMillis);
+            block.putLong(DRIVER_VERSIONS + row * 8, driverVersion);
+            block.put(VERDICTS + row, verdictCode(Verdict.of(results)));
+            // Clear every slot first; the row may hold a run that was never committed
+            for (int slot = 0; slot < MAX_CHECKS; slot++) {
+                block.put(statusIndex(slot, row), NOT_RUN);
+                block.putInt(durationIndex(slot, row), 0);
+            }
+            List<String> unrecorded = new ArrayList<>();
+            for (CheckResult result : results) {
+                int slot = slotOf(header, checkIds, result.getId());
+                if (slot < 0) {
+                    if (result.getId() != null) {
+                        unrecorded.add(result.getId());
+                    }
+                } else {
+                    block.put(statusIndex(slot, row), statusCode(result.getStatus()));
+                    long micros = result.getDurationNanos() / 1000;
+                    block.putInt(durationIndex(slot, row),
+                            result.isCached() ? CACHED : (int) Math.min(micros, Integer.MAX_VALUE));
+                }
+            }
+            block.force();
+            header.putLong(RUN_COUNT_OFFSET, run + 1);
+            header.force();
+            return unrecorded;
+        }
+    }
+
+    /**
+     * Maps the history for queries. Runs appended later are not seen. A missing file is an empty history.
+     */
+    public static RunHistory open(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return new RunHistory(0, Collections.emptyList(), new MappedByteBuffer[0]);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a run history file: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            validate(header, file);
+            // Never trust the count beyond the blocks actually present
+            long blocks = (channel.size() - HEADER_SIZE) / BLOCK_SIZE;
+            long runCount = Math.min(header.getLong(RUN_COUNT_OFFSET), blocks * ROWS_PER_BLOCK);
+
+            long neededBlocks = (runCount + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((neededBlocks + BLOCKS_PER_SEGMENT - 1)
+                    / BLOCKS_PER_SEGMENT)];
+            for (int i = 0; i < segments.length; i++) {
+                long firstBlock = (long) i * BLOCKS_PER_SEGMENT;
+                long blockCount = Math.min(BLOCKS_PER_SEGMENT, neededBlocks - firstBlock);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstBlock * BLOCK_SIZE,
+                        blockCount * BLOCK_SIZE);
+            }
+            return new RunHistory(runCount, Collections.unmodifiableList(readCheckIds(header)), segments);
+        }
+    }
+
+    public long getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Returns the ids of the checks recorded so far, in the order they first appeared.
+     */
+    public List<String> getCheckIds() {
+        return checkIds;
+    }
+
+    /**
+     * Returns when a run started, in milliseconds since the epoch.
+     */
+    public long getTimestamp(long run) {
+        return segment(run).getLong(base(run) + TIMESTAMPS + row(run) * 8);
+    }
+
+    /**
+     * Returns a run's packed FTDI driver version, or {@link DriverVersion#INVALID} if none was read.
+     */
+    public long getDriverVersion(long run) {
+        return segment(run).getLong(base(run) + DRIVER_VERSIONS + row(run) * 8);
+    }
+
+    public Verdict getVerdict(long run) {
+        byte code = segment(run).get(base(run) + VERDICTS + row(run));
+        switch (code) {
+            case VERDICT_PASS:
+                return Verdict.PASS;
+            case VERDICT_WARN:
+                return Verdict.WARN;
+            case VERDICT_FAIL:
+                return Verdict.FAIL;
+            default:
+                throw new IllegalStateException("Unknown verdict code " + code + " in run " + run);
+        }
+    }
+
+    /**
+     * Returns a check's status in a run, or null if the check was not part of it.
+     */
+    public CheckResult.Status getStatus(String checkId, long run) {
+        int slot = checkIds.indexOf(checkId);
+        if (slot < 0) {
+            return null;
+        }
+        byte code = status(slot, run);
+        switch (code) {
+            case NOT_RUN:
+                return null;
+            case STATUS_PASS:
+                return CheckResult.Status.PASS;
+            case STATUS_FAIL:
+                return CheckResult.Status.FAIL;
+            case STATUS_TIMED_OUT:
+                return CheckResult.Status.TIMED_OUT;
+            case STATUS_ERROR:
+                return CheckResult.Status.ERROR;
+            default:
+                throw new IllegalStateException("Unknown status code " + code + " in run " + run);
+        }
+    }
+
+    /**
+     * Returns the first run at or after {@code fromRun} where the check's status differs from its
+     * status in the previous run that included it, or -1 if there is none.
+     */
+    public long firstFlip(String checkId, long fromRun) {
+        int slot = checkIds.indexOf(checkId);
+        if (slot < 0) {
+            return -1;
+        }
+        byte previous = NOT_RUN;
+        for (long run = Math.min(fromRun, runCount) - 1; run >= 0 && previous == NOT_RUN; run--) {
+            previous = status(slot, run);
+        }
+        for (long run = Math.max(0, fromRun); run < runCount; run++) {
+            byte status = status(slot, run);
+            if (status != NOT_RUN) {
+                if (previous != NOT_RUN && status != previous) {
+                    return run;
+                }
+                previous = status;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the run where the check's current status began, or -1 if it never changed.
+     */
+    public long lastFlip(String checkId) {
+        int slot = checkIds.indexOf(checkId);
+        if (slot < 0) {
+            return -1;
+        }
+        byte current = NOT_RUN;
+        long streakStart = -1;
+        for (long run = runCount - 1; run >= 0; run--) {
+            byte status = status(slot, run);
+            if (status == NOT_RUN) {
+                continue;
+            }
+            if (current != NOT_RUN && status != current) {
+                return streakStart;
+            }
+            current = status;
+            streakStart = run;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first run at or after {@code fromRun} that read a different driver version than the
+     * previous run that read one, or -1 if there is none.
+     */
+    public long firstDriverChange(long fromRun) {
+        long previous = DriverVersion.INVALID;
+        for (long run = Math.min(fromRun, runCount) - 1; run >= 0 && previous == DriverVersion.INVALID; run--) {
+            previous = getDriverVersion(run);
+        }
+        for (long run = Math.max(0, fromRun); run < runCount; run++) {
+            long version = getDriverVersion(run);
+            if (version != DriverVersion.INVALID) {
+                if (previous != DriverVersion.INVALID && version != previous) {
+                    return run;
+                }
+                previous = version;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the run where the current driver version was first read, or -1 if it never changed.
+     */
+    public long lastDriverChange() {
+        long current = DriverVersion.INVALID;
+        long since = -1;
+        for (long run = runCount - 1; run >= 0; run--) {
+            long version = getDriverVersion(run);
+            if (version == DriverVersion.INVALID) {
+                continue;
+            }
+            if (current != DriverVersion.INVALID && version != current) {
+                return since;
+            }
+            current = version;
+            since = run;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the check's duration percentiles in milliseconds over the last runs that evaluated it,
+     * using the nearest-rank method. Runs that answered it from the result cache are skipped. Each
+     * percentile is NaN if no such run exists.
+     *
+     * @param lastRuns how many of the most recent runs to look at
+     * @param percentiles percentiles from 0 to 100
+     */
+    public double[] latencyPercentiles(String checkId, int lastRuns, double... percentiles) {
+        double[] millis = new double[percentiles.length];
+        Arrays.fill(millis, Double.NaN);
+        int slot = checkIds.indexOf(checkId);
+        if (slot < 0) {
+            return millis;
+        }
+
+        int[] durations = new int[(int) Math.min(lastRuns, runCount)];
+        int count = 0;
+        for (long run = runCount - durations.length; run < runCount; run++) {
+            int duration = segment(run).getInt(base(run) + durationIndex(slot, row(run)));
+            if (status(slot, run) != NOT_RUN && duration != CACHED) {
+                durations[count++] = duration;
+            }
+        }
+        if (count == 0) {
+            return millis;
+        }
+        Arrays.sort(durations, 0, count);
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * count);
+            millis[i] = durations[Math.max(0, Math.min(count - 1, rank - 1))] / 1000.0;
+        }
+        return millis;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static void validate(ByteBuffer header, Path file) throws IOException {
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a run history file: " + file);
+        }
+        if (header.getInt(4) != FORMAT_VERSION || header.getInt(8) != ROWS_PER_BLOCK
+                || header.getInt(12) != MAX_CHECKS) {
+            throw new IOException("Unsupported run history format in " + file);
+        }
+    }
+
+    private static List<String> readCheckIds(ByteBuffer header) {
+        int count = Math.min(header.getInt(CHECK_COUNT_OFFSET), MAX_CHECKS);
+        List<String> checkIds = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            int offset = CHECK_IDS_OFFSET + slot * CHECK_ID_BYTES;
+            byte[] bytes = new byte[Math.min(header.getShort(offset), CHECK_ID_BYTES - 2)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = header.get(offset + 2 + i);
+            }
+            checkIds.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return checkIds;
+    }
+
+    /**
+     * Returns the check's slot, assigning the next free one to a new id. Returns -1 when the slots are
+     * used up or the id does not fit.
+     */
+    private static int slotOf(ByteBuffer header, List<String> checkIds, String checkId) {
+        if (checkId == null) {
+            return -1;
+        }
+        int slot = checkIds.indexOf(checkId);
+        if (slot >= 0) {
+            return slot;
+        }
+        byte[] bytes = checkId.getBytes(StandardCharsets.UTF_8);
+        if (checkIds.size() == MAX_CHECKS || bytes.length > CHECK_ID_BYTES - 2) {
+            return -1;
+        }
+        slot = checkIds.size();
+        int offset = CHECK_IDS_OFFSET + slot * CHECK_ID_BYTES;
+        header.putShort(offset, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            header.put(offset + 2 + i, bytes[i]);
+        }
+        checkIds.add(checkId);
+        header.putInt(CHECK_COUNT_OFFSET, checkIds.size());
+        return slot;
+    }
+
+    private static byte statusCode(CheckResult.Status status) {
+        switch (status) {
+            case PASS:
+                return STATUS_PASS;
+            case FAIL:
+                return STATUS_FAIL;
+            case TIMED_OUT:
+                return STATUS_TIMED_OUT;
+            case ERROR:
+                return STATUS_ERROR;
+            default:
+                throw new IllegalArgumentException("No history code for status " + status);
+        }
+    }
+
+    private static byte verdictCode(Verdict verdict) {
+        switch (verdict) {
+            case PASS:
+                return VERDICT_PASS;
+            case WARN:
+                return VERDICT_WARN;
+            case FAIL:
+                return VERDICT_FAIL;
+            default:
+                throw new IllegalArgumentException("No history code for verdict " + verdict);
+        }
+    }
+
+    private static int statusIndex(int slot, int row) {
+        return STATUSES + slot * ROWS_PER_BLOCK + row;
+    }
+
+    private static int durationIndex(int slot, int row) {
+        return DURATIONS + (slot * ROWS_PER_BLOCK + row) * 4;
+    }
+
+    private byte status(int slot, long run) {
+        return segment(run).get(base(run) + statusIndex(slot, row(run)));
+    }
+
+    private MappedByteBuffer segment(long run) {
+        return segments[(int) (run / ROWS_PER_BLOCK / BLOCKS_PER_SEGMENT)];
+    }
+
+    /**
+     * Returns the offset of the run's block within its segment.
+     */
+    private static int base(long run) {
+        return (int) (run / ROWS_PER_BLOCK % BLOCKS_PER_SEGMENT) * BLOCK_SIZE;
+    }
+
+    private static int row(long run) {
+        return (int) (run % ROWS_PER_BLOCK);
+    }
+}
@@ -0,0 +1,42 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ResultStream} sink appending the run to the {@link RunHistory} once it is over.
+ */
+public class RunHistorySink implements ResultSink {
+
+    private final Path file;
+    private final long startMillis = System.currentTimeMillis();
+    private final List<CheckResult> results = new ArrayList<>();
+    private long driverVersion = DriverVersion.INVALID;
+
+    public RunHistorySink() {
+        this(RunHistory.defaultLocation());
+    }
+
+    public RunHistorySink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void onResult(CheckResult result) {
+        results.add(result);
+        if (SystemCheckService.CHECK_FTDIBUS.equals(result.getId()) && result.getValue() != CheckResult.NO_VALUE) {
+            driverVersion = result.getValue();
+        }
+    }
+
+    @Override
+    public void onComplete() throws IOException {
+        List<String> unrecorded = RunHistory.append(file, startMillis, driverVersion, results);
+        if (!unrecorded.isEmpty()) {
+            System.err.println("WARNING: Run history " + file + " has no room for checks " + unrecorded
+                    + "; it records at most " + RunHistory.MAX_CHECKS + " check ids");
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.Library;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.Advapi32Util;
+import com.sun.jna.platform.win32.Cfgmgr32;
+import com.sun.jna.platform.win32.Cfgmgr32Util;
+import com.sun.jna.platform.win32.SetupApi;
+import com.sun.jna.platform.win32.Win32Exception;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.platform.win32.WinReg.HKEY;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.sun.jna.platform.win32.SetupApi.DIGCF_ALLCLASSES;
+import static com.sun.jna.platform.win32.SetupApi.DIGCF_PRESENT;
+
+/**
+ * Device enumerator backed by the Windows SetupApi.
+ * Restricts the device information set to the query's enumerator, matches the
+ * hardware ID before reading display names, and reuses a single growable buffer
+ * for all property reads.
+ */
+public class SetupApiDeviceEnumerator implements DeviceEnumerator {
+
+    /**
+     * Custom JNA interface for Cfgmgr32 device list and notification functions.
+     */
+    public interface MyCfgmgr32 extends Library {
+        MyCfgmgr32 INSTANCE = NativeLibraries.load("cfgmgr32", MyCfgmgr32.class);
+
+        int CM_Get_Device_ID_List_Size(IntByReference pulLen, String pszFilter, int ulFlags);
+
+        int CM_Get_Device_ID_List(String pszFilter, Pointer buffer, int bufferLen, int ulFlags);
+
+        int CM_Register_Notification(WindowsDeviceChangeSource.CM_NOTIFY_FILTER pFilter, Pointer pContext,
+                WindowsDeviceChangeSource.CM_NOTIFY_CALLBACK pCallback, PointerByReference pNotifyContext);
+
+        int CM_Unregister_Notification(Pointer notifyContext);
+    }
+
+    /**
+     * Custom JNA interface for opening a single device by instance id.
+     */
+    public interface MySetupApi extends Library {
+        MySetupApi INSTANCE = NativeLibraries.load("setupapi", MySetupApi.class);
+
+        WinNT.HANDLE SetupDiCreateDeviceInfoList(Pointer classGuid, Pointer hwndParent);
+
+        boolean SetupDiOpenDeviceInfo(WinNT.HANDLE hDevInfo, String deviceInstanceId, Pointer hwndParent,
+                int openFlags, SetupApi.SP_DEVINFO_DATA deviceInfoData);
+    }
+
+    private static final int CM_GETIDLIST_FILTER_ENUMERATOR = 0x00000001;
+    private static final int CM_GETIDLIST_FILTER_PRESENT = 0x00000100;
+
+    // Device property constants
+    private static final int SPDRP_DEVICEDESC = 0x00000000;
+    private static final int SPDRP_HARDWAREID = 0x00000001;
+    private static final int SPDRP_FRIENDLYNAME = 0x0000000C;
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    // jna-platform helpers call their own bindings, so they are timed here instead
+    private static final Metrics.Timer CM_GET_DEVICE_ID_TIMER = Metrics.nativeCall("cfgmgr32.CM_Get_Device_ID");
+    private static final Metrics.Timer DRIVER_VERSION_TIMER = Metrics.nativeCall("advapi32.DriverVersion (Advapi32Util)");
+    private static final int DRIVER_VERSION_TRACE = NativeTrace.register("advapi32.DriverVersion (Advapi32Util)");
+
+    private final boolean fullScan;
+    // Allocated on first scan so constructing the enumerator does not initialize JNA
+    private Memory buffer;
+
+    /**
+     * Creates an enumerator that narrows the scan to the query's enumerator.
+     */
+    public SetupApiDeviceEnumerator() {
+        this(false);
+    }
+
+    /**
+     * @param fullScan if true, ignore the enumerator filter and walk every present device
+     */
+    public SetupApiDeviceEnumerator(boolean fullScan) {
+        this.fullScan = fullScan;
+    }
+
+    @Override
+    public synchronized List<DeviceRecord> findAll(DeviceQuery query) {
+        SetupApi setupApi = NativeLibraries.setupApi();
+        if (buffer == null) {
+            buffer = NativeLibraries.allocate(INITIAL_BUFFER_SIZE);
+        }
+        String enumerator = fullScan ? null : query.getEnumerator();
+        WinNT.HANDLE hDevInfo = setupApi.SetupDiGetClassDevs(null, toWideString(enumerator), null,
+                DIGCF_PRESENT | DIGCF_ALLCLASSES);
+
+        if (hDevInfo == WinBase.INVALID_HANDLE_VALUE) {
+            throw new DeviceEnumerationException(Native.getLastError());
+        }
+
+        try {
+            return scan(setupApi, hDevInfo, query);
+        } finally {
+            setupApi.SetupDiDestroyDeviceInfoList(hDevInfo);
+        }
+    }
+
+    /**
+     * Opens only the given device, so a hotplug event costs one device read rather than a scan.
+     */
+    @Override
+    public synchronized Optional<DeviceRecord> findByInstanceId(String instanceId) {
+        if (buffer == null) {
+            buffer = NativeLibraries.allocate(INITIAL_BUFFER_SIZE);
+        }
+        WinNT.HANDLE hDevInfo = MySetupApi.INSTANCE.SetupDiCreateDeviceInfoList(null, null);
+        if (hDevInfo == WinBase.INVALID_HANDLE_VALUE) {
+            throw new DeviceEnumerationException(Native.getLastError());
+        }
+
+        try {
+            SetupApi.SP_DEVINFO_DATA deviceInfoData = new SetupApi.SP_DEVINFO_DATA();
+            deviceInfoData.cbSize = deviceInfoData.size();
+            if (!MySetupApi.INSTANCE.SetupDiOpenDeviceInfo(hDevInfo, instanceId, null, 0, deviceInfoData)) {
+                // ERROR_NO_SUCH_DEVINST: the device is gone again
+                return Optional.empty();
+            }
+            return Optional.of(readRecord(hDevInfo, deviceInfoData));
+        } finally {
+            NativeLibraries.setupApi().SetupDiDestroyDeviceInfoList(hDevInfo);
+        }
+    }
+
+    /**
+     * Hashes the instance ids of present devices under the query's enumerator.
+     * This is a single Cfgmgr32 list call, far cheaper than a SetupApi property scan.
+     */
+    @Override
+    public long getDeviceSetFingerprint(DeviceQuery query) {
+        String enumerator = fullScan ? null : query.getEnumerator();
+        int flags = CM_GETIDLIST_FILTER_PRESENT | (enumerator != null ? CM_GETIDLIST_FILTER_ENUMERATOR : 0);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            IntByReference length = new IntByReference();
+            if (MyCfgmgr32.INSTANCE.CM_Get_Device_ID_List_Size(length, enumerator, flags) != Cfgmgr32.CR_SUCCESS) {
+                return Fingerprint.UNKNOWN;
+            }
+
+            Memory ids = NativeLibraries.allocate(Math.max(1, length.getValue()) * 2L);
+            int rc = MyCfgmgr32.INSTANCE.CM_Get_Device_ID_List(enumerator, ids, length.getValue(), flags);
+            if (rc == Cfgmgr32.CR_SUCCESS) {
+                long hash = Fingerprint.of();
+                long offset = 0;
+                while (offset + 2 <= ids.size()) {
+                    String id = ids.getWideString(offset);
+                    if (id.isEmpty()) {
+                        break;
+                    }
+                    hash = Fingerprint.add(hash, id);
+                    offset += (id.length() + 1) * 2L;
+                }
+                return Fingerprint.combine(hash);
+            } else if (rc != Cfgmgr32.CR_BUFFER_SMALL) {
+                return Fingerprint.UNKNOWN;
+            }
+            // A device arrived between the two calls; size the list again
+        }
+        return Fingerprint.UNKNOWN;
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Walks the device information set and reads every device that matches.
+     */
+    private List<DeviceRecord> scan(SetupApi setupApi, WinNT.HANDLE hDevInfo, DeviceQuery query) {
+        SetupApi.SP_DEVINFO_DATA deviceInfoData = new SetupApi.SP_DEVINFO_DATA();
+        deviceInfoData.cbSize = deviceInfoData.size();
+
+        List<DeviceRecord> found = new ArrayList<>(1);
+        for (int i = 0; setupApi.SetupDiEnumDeviceInfo(hDevInfo, i, deviceInfoData); i++) {
+            if (matches(hDevInfo, deviceInfoData, query)) {
+                found.add(readRecord(hDevInfo, deviceInfoData));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Matches a device, reading the hardware ID first and names only if needed.
+     */
+    private boolean matches(WinNT.HANDLE hDevInfo, SetupApi.SP_DEVINFO_DATA deviceInfoData, DeviceQuery query) {
+        if (!query.getHardwareIdPrefixes().isEmpty() && readProperty(hDevInfo, deviceInfoData, SPDRP_HARDWAREID)) {
+            for (String hardwareId : multiStringFromBuffer()) {
+                if (query.matchesHardwareId(hardwareId)) {
+                    return true;
+                }
+            }
+        }
+
+        if (!query.hasNamePatterns()) {
+            return false;
+        }
+        return (readProperty(hDevInfo, deviceInfoData, SPDRP_FRIENDLYNAME)
+                && query.matchesName(buffer.getWideString(0)))
+                || (readProperty(hDevInfo, deviceInfoData, SPDRP_DEVICEDESC)
+                        && query.matchesName(buffer.getWideString(0)));
+    }
+
+    /**
+     * Reads all properties of a matched device, including its driver version.
+     */
+    private DeviceRecord readRecord(WinNT.HANDLE hDevInfo, SetupApi.SP_DEVINFO_DATA deviceInfoData) {
+        List<String> hardwareIds = readProperty(hDevInfo, deviceInfoData, SPDRP_HARDWAREID)
+                ? multiStringFromBuffer() : null;
+        String friendlyName = readProperty(hDevInfo, deviceInfoData, SPDRP_FRIENDLYNAME)
+                ? buffer.getWideString(0) : null;
+        String description = readProperty(hDevInfo, deviceInfoData, SPDRP_DEVICEDESC)
+                ? buffer.getWideString(0) : null;
+
+        String instanceId = null;
+        long start = System.nanoTime();
+        try {
+            instanceId = Cfgmgr32Util.CM_Get_Device_ID(deviceInfoData.DevInst);
+        } catch (Cfgmgr32Util.Cfgmgr32Exception e) {
+            // Instance id is informational only
+        } finally {
+            CM_GET_DEVICE_ID_TIMER.stop(start);
+        }
+
+        return new DeviceRecord(instanceId, hardwareIds, friendlyName, description,
+                getDriverVersion(hDevInfo, deviceInfoData).orElse(null));
+    }
+
+    /**
+     * Reads a device property into the shared buffer, growing it when the property is larger.
+     */
+    private boolean readProperty(WinNT.HANDLE hDevInfo, SetupApi.SP_DEVINFO_DATA devInfoData, int property) {
+        IntByReference requiredSize = new IntByReference();
+        if (NativeLibraries.setupApi().SetupDiGetDeviceRegistryProperty(hDevInfo, devInfoData, property, null, buffer,
+                (int) buffer.size(), requiredSize)) {
+            terminate(requiredSize.getValue());
+            return true;
+        }
+
+        if (requiredSize.getValue() > buffer.size()) {
+            buffer = NativeLibraries.allocate(requiredSize.getValue() + 4L);
+            if (NativeLibraries.setupApi().SetupDiGetDeviceRegistryProperty(hDevInfo, devInfoData, property, null, buffer,
+                    (int) buffer.size(), requiredSize)) {
+                terminate(requiredSize.getValue());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Null-terminates the buffer after the returned data in case the stored string is not.
+     */
+    private void terminate(int length) {
+        if (length + 4L <= buffer.size()) {
+            buffer.setInt(length, 0);
+        }
+    }
+
+    /**
+     * Decodes a REG_MULTI_SZ value from the shared buffer.
+     */
+    private List<String> multiStringFromBuffer() {
+        List<String> values = new ArrayList<>();
+        long offset = 0;
+        while (offset + 2 <= buffer.size()) {
+            String value = buffer.getWideString(offset);
+            if (value.isEmpty()) {
+                break;
+            }
+            values.add(value);
+            offset += (value.length() + 1) * 2L;
+        }
+        return values;
+    }
+
+    /**
+     * Gets driver version from device registry key as Optional.
+     */
+    private Optional<String> getDriverVersion(WinNT.HANDLE hDevInfo, SetupApi.SP_DEVINFO_DATA devInfoData) {
+        HKEY hKey = NativeLibraries.setupApi().SetupDiOpenDevRegKey(hDevInfo, devInfoData, SetupApi.DICS_FLAG_GLOBAL, 0,
+                SetupApi.DIREG_DRV, WinNT.KEY_READ);
+        if (hKey != null && !hKey.equals(WinBase.INVALID_HANDLE_VALUE)) {
+            long start = System.nanoTime();
+            // 1 if the value was read, 0 if absent; the Win32 error code if reading it failed
+            int found = 0;
+            int error = 0;
+            try {
+                if (Advapi32Util.registryValueExists(hKey, "", "DriverVersion")) {
+                    String version = Advapi32Util.registryGetStringValue(hKey, "", "DriverVersion");
+                    found = 1;
+                    return Optional.of(version);
+                }
+            } catch (Win32Exception e) {
+                error = e.getErrorCode();
+                throw e;
+            } finally {
+                Advapi32Util.registryCloseKey(hKey);
+                long duration = System.nanoTime() - start;
+                DRIVER_VERSION_TIMER.record(duration);
+                NativeTrace.record(DRIVER_VERSION_TRACE, "DriverVersion", Pointer.nativeValue(hKey.getPointer()),
+                        found, error, start, duration);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Converts an optional string to a native wide string pointer.
+     */
+    private static Memory toWideString(String value) {
+        if (value == null) {
+            return null;
+        }
+        Memory memory = NativeLibraries.allocate((value.length() + 1) * 2L);
+        memory.setWideString(0, value);
+        return memory;
+    }
+}
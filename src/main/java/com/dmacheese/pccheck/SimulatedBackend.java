@@ -0,0 +1,271 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds a deterministic simulated {@link Backend} for running and load-testing the check pipeline
+ * off Windows. Inputs are generated from a seed, so the same settings always produce the same
+ * registry, device list and files, and can be pushed to extremes: tens of thousands of devices,
+ * slow or inaccessible registry keys, failing enumeration, slow device property reads.
+ */
+public class SimulatedBackend {
+
+    public static final String TARGET_INSTANCE_ID = "USB\\VID_0403&PID_601F\\000000000001";
+
+    // Device families the generator draws from; FTDI serial converters share the FT601's vendor id
+    private static final String[][] FAMILIES = {
+            { "USB", "USB\\VID_046D&PID_C%03X", "USB Input Device" },
+            { "USB", "USB\\VID_0403&PID_6%03X", "USB Serial Converter" },
+            { "USB", "USB\\VID_8087&PID_0%03X", "Intel(R) Wireless Bluetooth(R)" },
+            { "USB", "USB\\ROOT_HUB30&VID_8086&PID_A%03X", "USB Root Hub (USB 3.0)" },
+            { "PCI", "PCI\\VEN_8086&DEV_A%03X", "Intel(R) PCI Express Root Port" },
+            { "PCI", "PCI\\VEN_10DE&DEV_2%03X", "NVIDIA GeForce RTX" },
+            { "HID", "HID\\VID_046D&PID_C%03X&MI_00", "HID-compliant mouse" },
+            { "HDAUDIO", "HDAUDIO\\FUNC_01&VEN_10EC&DEV_0%03X", "Realtek High Definition Audio" },
+            { "ACPI", "ACPI\\PNP0%03X", "ACPI Fixed Feature Button" },
+            { "SWD", "SWD\\MMDEVAPI\\{0.0.0.%08X}", "Speakers" }, };
+
+    private long seed = 1;
+    private int deviceCount = 100;
+    // Position of the FT601 in enumeration order; -1 for none, and past the end means last
+    private int targetPosition = Integer.MAX_VALUE;
+    private String targetDriverVersion = "1.3.0.10";
+    private double failingRuleRatio;
+    private double missingRuleRatio;
+    private final List<String> deniedKeys = new ArrayList<>();
+    private long keyOpenLatencyNanos;
+    private long valueReadLatencyNanos;
+    private long propertyReadLatencyNanos;
+    private Integer enumerationError;
+    private boolean filesPresent = true;
+    private boolean administrator = true;
+    private boolean interactive;
+    private boolean virtualTerminal = true;
+    private final List<String> input = new ArrayList<>();
+
+    private InMemoryRegistryReader registry;
+    private SimulatedDeviceEnumerator devices;
+    private InMemoryFileProbe files;
+    private SimulatedConsoleBackend console;
+
+    /**
+     * Sets the seed all generated inputs derive from.
+     */
+    public SimulatedBackend seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets how many devices are present, including the FT601 if any.
+     */
+    public SimulatedBackend devices(int count) {
+        this.deviceCount = count;
+        return this;
+    }
+
+    /**
+     * Places the FT601 at a position in enumeration order with a driver version.
+     * Positions past the end put it last, the slowest case for an early-exit scan.
+     */
+    public SimulatedBackend target(int position, String driverVersion) {
+        this.targetPosition = position;
+        this.targetDriverVersion = driverVersion;
+        return this;
+    }
+
+    /**
+     * Leaves the FT601 out, so every enumeration walks the whole device list.
+     */
+    public SimulatedBackend noTarget() {
+        this.targetPosition = -1;
+        return this;
+    }
+
+    /**
+     * Sets the share of registry rules whose value fails the rule, and of those whose value is missing.
+     */
+    public SimulatedBackend registryOutcomes(double failingRatio, double missingRatio) {
+        this.failingRuleRatio = failingRatio;
+        this.missingRuleRatio = missingRatio;
+        return this;
+    }
+
+    /**
+     * Makes keys inaccessible: their values read as missing and fixes to them are refused.
+     */
+    public SimulatedBackend deny(String... keyPaths) {
+        deniedKeys.addAll(Arrays.asList(keyPaths));
+        return this;
+    }
+
+    /**
+     * Makes every registry key open and value read take the given time.
+     */
+    public SimulatedBackend registryLatency(long keyOpenNanos, long valueReadNanos) {
+        this.keyOpenLatencyNanos = keyOpenNanos;
+        this.valueReadLatencyNanos = valueReadNanos;
+        return this;
+    }
+
+    /**
+     * Makes every device property read take the given time.
+     */
+    public SimulatedBackend propertyReadLatency(long nanos) {
+        this.propertyReadLatencyNanos = nanos;
+        return this;
+    }
+
+    /**
+     * Makes device enumeration fail with a Win32 error code.
+     */
+    public SimulatedBackend enumerationError(int errorCode) {
+        this.enumerationError = errorCode;
+        return this;
+    }
+
+    /**
+     * Leaves out every file the checks require.
+     */
+    public SimulatedBackend missingFiles() {
+        this.filesPresent = false;
+        return this;
+    }
+
+    /**
+     * Runs without administrator privileges.
+     */
+    public SimulatedBackend asUser() {
+        this.administrator = false;
+        return this;
+    }
+
+    /**
+     * Makes the console a terminal, with escape sequences or a legacy console's attribute calls.
+     */
+    public SimulatedBackend terminal(boolean virtualTerminal) {
+        this.interactive = true;
+        this.virtualTerminal = virtualTerminal;
+        return this;
+    }
+
+    /**
+     * Queues answers to the runner's prompts.
+     */
+    public SimulatedBackend input(String... lines) {
+        input.addAll(Arrays.asList(lines));
+        return this;
+    }
+
+    /**
+     * Generates the inputs for a plan and returns the backend serving them.
+     */
+    public Backend build(CheckPlan plan) {
+        Random random = new Random(seed);
+        registry = generateRegistry(plan, random);
+        devices = generateDevices(random);
+        files = generateFiles(plan);
+        console = new SimulatedConsoleBackend(interactive, virtualTerminal).addInput(input.toArray(new String[0]));
+        boolean admin = administrator;
+        return new Backend(registry, registry, devices, files, console, () -> admin);
+    }
+
+    /**
+     * Returns the generated registry, for its read counters. Valid after {@link #build(CheckPlan)}.
+     */
+    public InMemoryRegistryReader getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Returns the generated device list, for its enumeration counters. Valid after {@link #build(CheckPlan)}.
+     */
+    public SimulatedDeviceEnumerator getDevices() {
+        return devices;
+    }
+
+    /**
+     * Returns the generated files. Valid after {@link #build(CheckPlan)}.
+     */
+    public InMemoryFileProbe getFiles() {
+        return files;
+    }
+
+    /**
+     * Returns the console capturing the runner's output. Valid after {@link #build(CheckPlan)}.
+     */
+    public SimulatedConsoleBackend getConsole() {
+        return console;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private InMemoryRegistryReader generateRegistry(CheckPlan plan, Random random) {
+        InMemoryRegistryReader reader = new InMemoryRegistryReader();
+        for (RegistryRule rule : plan.getRules()) {
+            double outcome = random.nextDouble();
+            boolean failing = outcome < failingRuleRatio;
+            if (!failing && outcome < failingRuleRatio + missingRuleRatio) {
+                reader.putKey(rule.getKeyPath());
+            } else {
+                // A rule passes on the expected value when it wants equality, otherwise on any other value
+                boolean equal = (rule.getPassWhen() == RegistryRule.PassWhen.EQUAL) != failing;
+                reader.putDword(rule.getKeyPath(), rule.getValueName(),
+                        equal ? rule.getExpectedValue() : rule.getExpectedValue() + 1);
+            }
+        }
+        reader.putKey("SYSTEM\\CurrentControlSet\\Services\\FTDIBUS3");
+        for (String keyPath : deniedKeys) {
+            reader.denyAccess(keyPath);
+        }
+        return reader.setLatency(keyOpenLatencyNanos, valueReadLatencyNanos);
+    }
+
+    private SimulatedDeviceEnumerator generateDevices(Random random) {
+        SimulatedDeviceEnumerator enumerator = new SimulatedDeviceEnumerator();
+        int target = targetPosition < 0 ? -1 : Math.min(targetPosition, Math.max(deviceCount - 1, 0));
+        for (int i = 0; i < deviceCount; i++) {
+            if (i == target) {
+                enumerator.add(new DeviceRecord(TARGET_INSTANCE_ID,
+                        Arrays.asList("USB\\VID_0403&PID_601F&REV_0001", "USB\\VID_0403&PID_601F"), null,
+                        "FTDI FT601 USB 3.0 Bridge Device", targetDriverVersion));
+                continue;
+            }
+            String[] family = FAMILIES[random.nextInt(FAMILIES.length)];
+            String hardwareId = String.format(Locale.ROOT, family[1], random.nextInt(0x1000));
+            // FTDI serial converters must never be taken for the FT601
+            if (hardwareId.startsWith("USB\\VID_0403&PID_601F")) {
+                hardwareId = "USB\\VID_0403&PID_6001";
+            }
+            String name = family[2] + " #" + i;
+            enumerator.add(new DeviceRecord(hardwareId + "\\" + i, Collections.singletonList(hardwareId),
+                    random.nextBoolean() ? name : null, family[2], "10.0." + random.nextInt(30000) + ".1"));
+        }
+        if (enumerationError != null) {
+            enumerator.failEnumeration(enumerationError);
+        }
+        return enumerator.setPropertyReadLatency(propertyReadLatencyNanos);
+    }
+
+    private InMemoryFileProbe generateFiles(CheckPlan plan) {
+        InMemoryFileProbe probe = new InMemoryFileProbe();
+        if (!filesPresent) {
+            return probe;
+        }
+        List<FileRequirement> required = new ArrayList<>();
+        required.add(DirectXCheck.FILE);
+        for (RegistryRule rule : plan.getRules()) {
+            required.addAll(rule.getFiles());
+        }
+        for (FileRequirement file : required) {
+            probe.putFile(file.getPath(), 1_000_000L, file.getVersions() == null ? DriverVersion.INVALID
+                    : file.getVersions().getMinimum());
+        }
+        return probe;
+    }
+}
@@ -0,0 +1,130 @@
+package com.dmacheese.pccheck;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Console backend that captures output in memory and answers prompts from scripted input,
+ * for driving the interactive runners without a terminal.
+ */
+public class SimulatedConsoleBackend implements ConsoleBackend {
+
+    private static final String CHARSET = "UTF-8";
+
+    private final boolean interactive;
+    private final boolean virtualTerminal;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final PrintStream out;
+    private final Deque<String> input = new ArrayDeque<>();
+    private final List<String> openedUris = new ArrayList<>();
+    private String title;
+    private int colorChanges;
+
+    /**
+     * Creates a console that is redirected, so reports are rendered without colors.
+     */
+    public SimulatedConsoleBackend() {
+        this(false, false);
+    }
+
+    /**
+     * @param interactive     true to act as a terminal, so reports are rendered with colors
+     * @param virtualTerminal true if the terminal interprets escape sequences, false for a legacy console
+     */
+    public SimulatedConsoleBackend(boolean interactive, boolean virtualTerminal) {
+        this.interactive = interactive;
+        this.virtualTerminal = virtualTerminal;
+        try {
+            this.out = new PrintStream(buffer, true, CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Queues lines of user input, answered in order; once they run out, input reads as closed.
+     */
+    public synchronized SimulatedConsoleBackend addInput(String... lines) {
+        Collections.addAll(input, lines);
+        return this;
+    }
+
+    @Override
+    public PrintStream out() {
+        return out;
+    }
+
+    @Override
+    public boolean isInteractive() {
+        return interactive;
+    }
+
+    @Override
+    public boolean enableVirtualTerminal() {
+        return virtualTerminal;
+    }
+
+    @Override
+    public synchronized void setColor(Utils.Color color) {
+        colorChanges++;
+    }
+
+    @Override
+    public synchronized void setTitle(String title) {
+        this.title = title;
+    }
+
+    @Override
+    public synchronized String readLine() {
+        return input.poll();
+    }
+
+    @Override
+    public synchronized void open(String uri) {
+        openedUris.add(uri);
+    }
+
+    /**
+     * Returns everything written so far.
+     */
+    public String getOutput() {
+        out.flush();
+        try {
+            return buffer.toString(CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Discards the output written so far.
+     */
+    public void clearOutput() {
+        out.flush();
+        buffer.reset();
+    }
+
+    public synchronized String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns how many console attribute calls a legacy console would have received.
+     */
+    public synchronized int getColorChanges() {
+        return colorChanges;
+    }
+
+    /**
+     * Returns the URIs opened through the shell.
+     */
+    public synchronized List<String> getOpenedUris() {
+        return new ArrayList<>(openedUris);
+    }
+}
@@ -0,0 +1,94 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Device change source fed by {@link #arrive(DeviceRecord)} and {@link #remove(String)},
+ * for replaying plug and unplug sequences without Windows. When backed by a
+ * {@link SimulatedDeviceEnumerator}, the device list is updated before the change
+ * is reported, as it is when Windows delivers the notification.
+ */
+public class SimulatedDeviceChangeSource implements DeviceChangeSource {
+
+    // Queued after close() to wake up a waiting consumer
+    private static final DeviceChange CLOSED = DeviceChange.removal("");
+
+    private final SimulatedDeviceEnumerator devices;
+    private final BlockingQueue<DeviceChange> events = new LinkedBlockingQueue<>();
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    /**
+     * Creates a source that never fires, e.g. for replayed snapshots.
+     */
+    public SimulatedDeviceChangeSource() {
+        this(null);
+    }
+
+    public SimulatedDeviceChangeSource(SimulatedDeviceEnumerator devices) {
+        this.devices = devices;
+    }
+
+    @Override
+    public void start() {
+        started = true;
+    }
+
+    /**
+     * Plugs in a device.
+     */
+    public void arrive(DeviceRecord device) {
+        if (devices != null) {
+            devices.add(device);
+        }
+        report(DeviceChange.arrival(device.getInstanceId()));
+    }
+
+    /**
+     * Unplugs a device by instance id.
+     */
+    public void remove(String instanceId) {
+        if (devices != null) {
+            devices.remove(instanceId);
+        }
+        report(DeviceChange.removal(instanceId));
+    }
+
+    @Override
+    public List<DeviceChange> awaitChanges() throws InterruptedException {
+        if (closed) {
+            return Collections.emptyList();
+        }
+        List<DeviceChange> batch = new ArrayList<>();
+        batch.add(events.take());
+        events.drainTo(batch);
+
+        for (DeviceChange change : batch) {
+            if (change == CLOSED) {
+                return Collections.emptyList();
+            }
+        }
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        events.add(CLOSED);
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Queues a change. Changes before start() are dropped, as the live source would never see them.
+     */
+    private void report(DeviceChange change) {
+        if (started && !closed) {
+            events.add(change);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Device enumerator backed by an in-memory device list, for exercising device
+ * checks without Windows. Mirrors the narrowing and match order of
+ * {@link SetupApiDeviceEnumerator} and counts the property reads it would make.
+ */
+public class SimulatedDeviceEnumerator implements DeviceEnumerator {
+
+    private final List<DeviceRecord> devices = new ArrayList<>();
+
+    // Bumped on every arrival or removal, like a device-set change counter
+    private long changeCounter = 1;
+    // Simulated cost of one device property read
+    private long propertyReadLatencyNanos;
+    // Error reported instead of enumerating, or null
+    private Integer enumerationError;
+
+    private int enumerationCount;
+    private int lookupCount;
+    private long devicesVisited;
+    private long propertyReads;
+
+    /**
+     * Adds a present device.
+     */
+    public synchronized SimulatedDeviceEnumerator add(DeviceRecord device) {
+        devices.add(device);
+        changeCounter++;
+        return this;
+    }
+
+    /**
+     * Removes a device by instance id.
+     */
+    public synchronized SimulatedDeviceEnumerator remove(String instanceId) {
+        if (devices.removeIf(device -> instanceId.equalsIgnoreCase(device.getInstanceId()))) {
+            changeCounter++;
+        }
+        return this;
+    }
+
+    /**
+     * Makes every device property read take the given time, like a slow device stack.
+     */
+    public synchronized SimulatedDeviceEnumerator setPropertyReadLatency(long nanos) {
+        this.propertyReadLatencyNanos = nanos;
+        return this;
+    }
+
+    /**
+     * Makes enumeration fail with a Win32 error code, or succeed again when null.
+     */
+    public synchronized SimulatedDeviceEnumerator failEnumeration(Integer errorCode) {
+        this.enumerationError = errorCode;
+        return this;
+    }
+
+    /**
+     * Returns a snapshot of the present devices.
+     */
+    public synchronized List<DeviceRecord> getDevices() {
+        return new ArrayList<>(devices);
+    }
+
+    @Override
+    public synchronized List<DeviceRecord> findAll(DeviceQuery query) {
+        enumerationCount++;
+        if (enumerationError != null) {
+            throw new DeviceEnumerationException(enumerationError);
+        }
+        List<DeviceRecord> found = new ArrayList<>(1);
+        for (DeviceRecord device : devices) {
+            if (!query.matchesEnumerator(device.getEnumerator())) {
+                continue;
+            }
+            devicesVisited++;
+            if (matches(device, query)) {
+                found.add(device);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized Optional<DeviceRecord> findByInstanceId(String instanceId) {
+        lookupCount++;
+        for (DeviceRecord device : devices) {
+            if (instanceId.equalsIgnoreCase(device.getInstanceId())) {
+                // Hardware IDs, friendly name and description
+                readProperties(3);
+                return Optional.of(device);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized long getDeviceSetFingerprint(DeviceQuery query) {
+        return changeCounter;
+    }
+
+    /**
+     * Returns how many enumerations have been performed.
+     */
+    public synchronized int getEnumerationCount() {
+        return enumerationCount;
+    }
+
+    /**
+     * Returns how many single-device lookups have been performed.
+     */
+    public synchronized int getLookupCount() {
+        return lookupCount;
+    }
+
+    /**
+     * Returns how many devices were visited after enumerator narrowing.
+     */
+    public synchronized long getDevicesVisited() {
+        return devicesVisited;
+    }
+
+    /**
+     * Returns how many device property reads the SetupApi path would have made.
+     */
+    public synchronized long getPropertyReads() {
+        return propertyReads;
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Matches a device, counting the property reads the SetupApi path would make: the hardware ID
+     * first, then the names only if needed.
+     */
+    private boolean matches(DeviceRecord device, DeviceQuery query) {
+        if (!query.getHardwareIdPrefixes().isEmpty()) {
+            readProperties(1);
+            for (String hardwareId : device.getHardwareIds()) {
+                if (query.matchesHardwareId(hardwareId)) {
+                    return true;
+                }
+            }
+        }
+        if (!query.hasNamePatterns()) {
+            return false;
+        }
+        readProperties(1);
+        if (device.getFriendlyName().map(query::matchesName).orElse(false)) {
+            return true;
+        }
+        readProperties(1);
+        return device.getDescription().map(query::matchesName).orElse(false);
+    }
+
+    private void readProperties(int count) {
+        propertyReads += count;
+        if (propertyReadLatencyNanos > 0) {
+            LockSupport.parkNanos(propertyReadLatencyNanos * count);
+        }
+    }
+}
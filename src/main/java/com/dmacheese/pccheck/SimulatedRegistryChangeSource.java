@@ -0,0 +1,80 @@
+package com.dmacheese.pccheck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Change source fed by {@link #fire(String...)}, for driving watch mode without Windows.
+ * Changes to keys that are not watched are dropped, as the live source would never see them.
+ */
+public class SimulatedRegistryChangeSource implements RegistryChangeSource {
+
+    // Queued after close() to wake up a waiting consumer
+    private static final String CLOSED = "";
+
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    // Lower-case key path to the spelling passed to watch()
+    private final Map<String, String> watched = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    @Override
+    public void watch(Collection<String> keyPaths) {
+        for (String keyPath : keyPaths) {
+            watched.put(keyPath.toLowerCase(Locale.ROOT), keyPath);
+        }
+    }
+
+    /**
+     * Reports a change to one or more keys.
+     */
+    public void fire(String... keyPaths) {
+        for (String keyPath : keyPaths) {
+            String watchedPath = watched.get(keyPath.toLowerCase(Locale.ROOT));
+            if (watchedPath != null) {
+                events.add(watchedPath);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys currently being watched.
+     */
+    public Set<String> getWatchedKeys() {
+        return new TreeSet<>(watched.values());
+    }
+
+    @Override
+    public Set<String> awaitChanges() throws InterruptedException {
+        if (closed) {
+            return Collections.emptySet();
+        }
+        List<String> batch = new ArrayList<>();
+        batch.add(events.take());
+        events.drainTo(batch);
+
+        Set<String> changed = new LinkedHashSet<>();
+        for (String keyPath : batch) {
+            if (keyPath == CLOSED) {
+                return Collections.emptySet();
+            }
+            changed.add(keyPath);
+        }
+        return changed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        events.add(CLOSED);
+    }
+}
@@ -0,0 +1,80 @@
+package com.dmacheese.pccheck;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Binary layout of system snapshot files.
+ *
+ * A snapshot is the magic "PCSN", a format version, then a sequence of tagged
+ * records terminated by {@link #TAG_END}. All numbers are big-endian and strings
+ * are an unsigned 16-bit byte length followed by UTF-8 bytes ({@code 0xFFFF} for null).
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x5043534E; // "PCSN"
+    static final int VERSION = 2;
+    // Version 1 snapshots have no file version records and are still readable
+    static final int OLDEST_READABLE_VERSION = 1;
+
+    static final byte TAG_END = 0;
+    // key, value name, registry type, payload (int for DWORD, string for STRING, none otherwise)
+    static final byte TAG_REG_VALUE = 1;
+    // key, last write time
+    static final byte TAG_REG_KEY = 2;
+    // instance id, hardware id count, hardware ids, friendly name, description, driver version
+    static final byte TAG_DEVICE = 3;
+    // enumerator, fingerprint
+    static final byte TAG_DEVICE_SET = 4;
+    // Win32 error code of a failed enumeration
+    static final byte TAG_DEVICE_ERROR = 5;
+    // path, exists flag, last modified time
+    static final byte TAG_FILE = 6;
+    // path, size, packed file version (since version 2)
+    static final byte TAG_FILE_VERSION = 7;
+
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    private SnapshotFormat() {
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IOException("String too long for snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void skipString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length != NULL_LENGTH) {
+            in.position(in.position() + length);
+        }
+    }
+
+    /**
+     * Builds the lookup key for a registry value; registry names are case-insensitive.
+     */
+    static String valueKey(String keyPath, String valueName) {
+        return keyPath.toLowerCase(Locale.ROOT) + '\u0000' + valueName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,249 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Replays a snapshot written by {@link SnapshotRecorder}.
+ * The file is memory-mapped and indexed once; values are decoded from the
+ * mapping on demand, so checks run against it without any native calls.
+ */
+public class SnapshotReader {
+
+    private final MappedByteBuffer buffer;
+    private final Map<String, Integer> valueOffsets = new HashMap<>();
+    private final Map<String, Long> keyLastWriteTimes = new HashMap<>();
+    private final List<Integer> deviceOffsets = new ArrayList<>();
+    private final Map<String, Long> deviceSetFingerprints = new HashMap<>();
+    private final Map<String, Integer> fileOffsets = new HashMap<>();
+    private final Map<String, Integer> fileVersionOffsets = new HashMap<>();
+    private Integer deviceError;
+    // Version 1 snapshots predate file requirements; files they did not record are assumed present
+    private boolean legacyFiles;
+
+    private SnapshotReader(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        index();
+    }
+
+    /**
+     * Maps and indexes a snapshot file.
+     */
+    public static SnapshotReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new SnapshotReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns a registry reader serving the recorded values.
+     */
+    public RegistryReader registryReader() {
+        return new RegistryReader() {
+            @Override
+            public RegistryResults read(RegistryQuery query) {
+                RegistryResults results = new RegistryResults(query.size());
+                for (String keyPath : query.keyPaths()) {
+                    for (RegistryQuery.Entry entry : query.entries(keyPath)) {
+                        Integer offset = valueOffsets.get(SnapshotFormat.valueKey(keyPath, entry.valueName));
+                        if (offset != null) {
+                            decodeValue(offset, results, entry.slot);
+                        }
+                    }
+                }
+                return results;
+            }
+
+            @Override
+            public long getLastWriteTime(String keyPath) {
+                Long lastWriteTime = keyLastWriteTimes.get(keyPath.toLowerCase(Locale.ROOT));
+                return lastWriteTime == null ? KEY_MISSING : lastWriteTime;
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release; the mapping is freed with the reader
+            }
+        };
+    }
+
+    /**
+     * Returns a device enumerator serving the recorded devices.
+     */
+    public DeviceEnumerator deviceEnumerator() {
+        return new DeviceEnumerator() {
+            @Override
+            public List<DeviceRecord> findAll(DeviceQuery query) {
+                if (deviceError != null) {
+                    throw new DeviceEnumerationException(deviceError);
+                }
+                List<DeviceRecord> found = new ArrayList<>(1);
+                for (int offset : deviceOffsets) {
+                    DeviceRecord device = decodeDevice(offset);
+                    if (query.matches(device)) {
+                        found.add(device);
+                    }
+                }
+                return found;
+            }
+
+            @Override
+            public Optional<DeviceRecord> findByInstanceId(String instanceId) {
+                for (int offset : deviceOffsets) {
+                    DeviceRecord device = decodeDevice(offset);
+                    if (instanceId.equalsIgnoreCase(device.getInstanceId())) {
+                        return Optional.of(device);
+                    }
+                }
+                return Optional.empty();
+            }
+
+            @Override
+            public long getDeviceSetFingerprint(DeviceQuery query) {
+                Long fingerprint = deviceSetFingerprints.get(String.valueOf(query.getEnumerator()));
+                return fingerprint == null ? Fingerprint.UNKNOWN : fingerprint;
+            }
+        };
+    }
+
+    /**
+     * Returns a file probe serving the recorded file states. Unrecorded files are reported as missing
+     * (as present in version 1 snapshots), and files recorded without a version as having none.
+     */
+    public FileProbe fileProbe() {
+        return new FileProbe() {
+            @Override
+            public boolean exists(String path) {
+                Integer offset = fileOffsets.get(path.toLowerCase(Locale.ROOT));
+                if (offset == null) {
+                    return legacyFiles;
+                }
+                return buffer.get(offset) != 0;
+            }
+
+            @Override
+            public long lastModified(String path) {
+                Integer offset = fileOffsets.get(path.toLowerCase(Locale.ROOT));
+                return offset == null ? 0 : buffer.getLong(offset + 1);
+            }
+
+            @Override
+            public long size(String path) {
+                Integer offset = fileVersionOffsets.get(path.toLowerCase(Locale.ROOT));
+                return offset == null ? 0 : buffer.getLong(offset);
+            }
+
+            @Override
+            public long fileVersion(String path) {
+                Integer offset = fileVersionOffsets.get(path.toLowerCase(Locale.ROOT));
+                return offset == null ? DriverVersion.INVALID : buffer.getLong(offset + 8);
+            }
+        };
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Walks the records once, remembering where each one starts.
+     */
+    private void index() throws IOException {
+        ByteBuffer in = buffer.duplicate();
+        if (in.remaining() < 8 || in.getInt() != SnapshotFormat.MAGIC) {
+            throw new IOException("Not a PC Check snapshot file");
+        }
+        int version = in.getInt();
+        if (version < SnapshotFormat.OLDEST_READABLE_VERSION || version > SnapshotFormat.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " (expected "
+                    + SnapshotFormat.OLDEST_READABLE_VERSION + " to " + SnapshotFormat.VERSION + ")");
+        }
+        legacyFiles = version < 2;
+
+        try {
+            while (true) {
+                byte tag = in.get();
+                switch (tag) {
+                    case SnapshotFormat.TAG_END:
+                        return;
+                    case SnapshotFormat.TAG_REG_VALUE: {
+                        String keyPath = SnapshotFormat.readString(in);
+                        String valueName = SnapshotFormat.readString(in);
+                        valueOffsets.put(SnapshotFormat.valueKey(keyPath, valueName), in.position());
+                        int type = in.get();
+                        if (type == RegistryResults.Type.DWORD.ordinal()) {
+                            in.getInt();
+                        } else if (type == RegistryResults.Type.STRING.ordinal()) {
+                            SnapshotFormat.skipString(in);
+                        }
+                        break;
+                    }
+                    case SnapshotFormat.TAG_REG_KEY:
+                        keyLastWriteTimes.put(SnapshotFormat.readString(in).toLowerCase(Locale.ROOT), in.getLong());
+                        break;
+                    case SnapshotFormat.TAG_DEVICE: {
+                        deviceOffsets.add(in.position());
+                        SnapshotFormat.skipString(in);
+                        int hardwareIdCount = in.getShort() & 0xFFFF;
+                        for (int i = 0; i < hardwareIdCount + 3; i++) {
+                            SnapshotFormat.skipString(in);
+                        }
+                        break;
+                    }
+                    case SnapshotFormat.TAG_DEVICE_SET:
+                        deviceSetFingerprints.put(SnapshotFormat.readString(in), in.getLong());
+                        break;
+                    case SnapshotFormat.TAG_DEVICE_ERROR:
+                        deviceError = in.getInt();
+                        break;
+                    case SnapshotFormat.TAG_FILE:
+                        fileOffsets.put(SnapshotFormat.readString(in).toLowerCase(Locale.ROOT), in.position());
+                        in.position(in.position() + 9);
+                        break;
+                    case SnapshotFormat.TAG_FILE_VERSION:
+                        fileVersionOffsets.put(SnapshotFormat.readString(in).toLowerCase(Locale.ROOT), in.position());
+                        in.position(in.position() + 16);
+                        break;
+                    default:
+                        throw new IOException("Corrupt snapshot: unknown record tag " + tag);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot: " + e, e);
+        }
+    }
+
+    private void decodeValue(int offset, RegistryResults results, int slot) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset);
+        int type = in.get();
+        if (type == RegistryResults.Type.DWORD.ordinal()) {
+            results.setDword(slot, in.getInt());
+        } else if (type == RegistryResults.Type.STRING.ordinal()) {
+            results.setString(slot, SnapshotFormat.readString(in));
+        } else {
+            results.setOther(slot);
+        }
+    }
+
+    private DeviceRecord decodeDevice(int offset) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset);
+        String instanceId = SnapshotFormat.readString(in);
+        String[] hardwareIds = new String[in.getShort() & 0xFFFF];
+        for (int i = 0; i < hardwareIds.length; i++) {
+            hardwareIds[i] = SnapshotFormat.readString(in);
+        }
+        return new DeviceRecord(instanceId, Arrays.asList(hardwareIds), SnapshotFormat.readString(in),
+                SnapshotFormat.readString(in), SnapshotFormat.readString(in));
+    }
+}
@@ -0,0 +1,268 @@
+package com.dmacheese.pccheck;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Records every input the checks consume into a compact binary snapshot.
+ * Wrap the live backends with the {@code record} methods, run the checks, then {@link #write(Path)}.
+ * The snapshot can be replayed on any platform with {@link SnapshotReader}.
+ */
+public class SnapshotRecorder {
+
+    private final Map<String, RegistryValue> registryValues = new LinkedHashMap<>();
+    private final Map<String, Long> keyLastWriteTimes = new LinkedHashMap<>();
+    private final Map<String, DeviceRecord> devices = new LinkedHashMap<>();
+    private final Map<String, Long> deviceSetFingerprints = new LinkedHashMap<>();
+    private final Map<String, FileState> files = new LinkedHashMap<>();
+    private final Map<String, FileVersionState> fileVersions = new LinkedHashMap<>();
+    private Integer deviceError;
+
+    /**
+     * Wraps a registry reader so every value it returns is recorded.
+     */
+    public RegistryReader record(RegistryReader delegate) {
+        return new RegistryReader() {
+            @Override
+            public RegistryResults read(RegistryQuery query) {
+                RegistryResults results = delegate.read(query);
+                synchronized (SnapshotRecorder.this) {
+                    for (String keyPath : query.keyPaths()) {
+                        for (RegistryQuery.Entry entry : query.entries(keyPath)) {
+                            if (results.isPresent(entry.slot)) {
+                                registryValues.put(SnapshotFormat.valueKey(keyPath, entry.valueName),
+                                        new RegistryValue(keyPath, entry.valueName, results, entry.slot));
+                            }
+                        }
+                    }
+                }
+                return results;
+            }
+
+            @Override
+            public long getLastWriteTime(String keyPath) {
+                long lastWriteTime = delegate.getLastWriteTime(keyPath);
+                synchronized (SnapshotRecorder.this) {
+                    keyLastWriteTimes.put(keyPath, lastWriteTime);
+                }
+                return lastWriteTime;
+            }
+
+            @Override
+            public void invalidate(String keyPath) {
+                delegate.invalidate(keyPath);
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
+    /**
+     * Wraps a device enumerator so every matched device is recorded.
+     */
+    public DeviceEnumerator record(DeviceEnumerator delegate) {
+        return new DeviceEnumerator() {
+            @Override
+            public List<DeviceRecord> findAll(DeviceQuery query) {
+                List<DeviceRecord> found;
+                try {
+                    found = delegate.findAll(query);
+                } catch (DeviceEnumerationException e) {
+                    synchronized (SnapshotRecorder.this) {
+                        deviceError = e.getErrorCode();
+                    }
+                    throw e;
+                }
+                synchronized (SnapshotRecorder.this) {
+                    for (DeviceRecord device : found) {
+                        devices.put(String.valueOf(device.getInstanceId()), device);
+                    }
+                }
+                return found;
+            }
+
+            @Override
+            public Optional<DeviceRecord> findByInstanceId(String instanceId) {
+                Optional<DeviceRecord> device = delegate.findByInstanceId(instanceId);
+                if (device.isPresent()) {
+                    synchronized (SnapshotRecorder.this) {
+                        devices.put(String.valueOf(device.get().getInstanceId()), device.get());
+                    }
+                }
+                return device;
+            }
+
+            @Override
+            public long getDeviceSetFingerprint(DeviceQuery query) {
+                long fingerprint = delegate.getDeviceSetFingerprint(query);
+                synchronized (SnapshotRecorder.this) {
+                    deviceSetFingerprints.put(String.valueOf(query.getEnumerator()), fingerprint);
+                }
+                return fingerprint;
+            }
+        };
+    }
+
+    /**
+     * Wraps a file probe so every probed file is recorded.
+     */
+    public FileProbe record(FileProbe delegate) {
+        return new FileProbe() {
+            @Override
+            public boolean exists(String path) {
+                return recordFile(delegate, path).exists;
+            }
+
+            @Override
+            public long lastModified(String path) {
+                return recordFile(delegate, path).lastModified;
+            }
+
+            @Override
+            public long size(String path) {
+                return recordFileVersion(delegate, path).size;
+            }
+
+            @Override
+            public long fileVersion(String path) {
+                return recordFileVersion(delegate, path).version;
+            }
+        };
+    }
+
+    /**
+     * Writes the recorded inputs to a snapshot file.
+     */
+    public synchronized void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(SnapshotFormat.MAGIC);
+            out.writeInt(SnapshotFormat.VERSION);
+
+            for (RegistryValue value : registryValues.values()) {
+                out.writeByte(SnapshotFormat.TAG_REG_VALUE);
+                SnapshotFormat.writeString(out, value.keyPath);
+                SnapshotFormat.writeString(out, value.valueName);
+                out.writeByte(value.type.ordinal());
+                if (value.type == RegistryResults.Type.DWORD) {
+                    out.writeInt(value.dword);
+                } else if (value.type == RegistryResults.Type.STRING) {
+                    SnapshotFormat.writeString(out, value.string);
+                }
+            }
+            for (Map.Entry<String, Long> key : keyLastWriteTimes.entrySet()) {
+                out.writeByte(SnapshotFormat.TAG_REG_KEY);
+                SnapshotFormat.writeString(out, key.getKey());
+                out.writeLong(key.getValue());
+            }
+            for (DeviceRecord device : devices.values()) {
+                out.writeByte(SnapshotFormat.TAG_DEVICE);
+                SnapshotFormat.writeString(out, device.getInstanceId());
+                out.writeShort(device.getHardwareIds().size());
+                for (String hardwareId : device.getHardwareIds()) {
+                    SnapshotFormat.writeString(out, hardwareId);
+                }
+                SnapshotFormat.writeString(out, device.getFriendlyName().orElse(null));
+                SnapshotFormat.writeString(out, device.getDescription().orElse(null));
+                SnapshotFormat.writeString(out, device.getDriverVersion().orElse(null));
+            }
+            for (Map.Entry<String, Long> deviceSet : deviceSetFingerprints.entrySet()) {
+                out.writeByte(SnapshotFormat.TAG_DEVICE_SET);
+                SnapshotFormat.writeString(out, deviceSet.getKey());
+                out.writeLong(deviceSet.getValue());
+            }
+            if (deviceError != null) {
+                out.writeByte(SnapshotFormat.TAG_DEVICE_ERROR);
+                out.writeInt(deviceError);
+            }
+            for (Map.Entry<String, FileState> fileState : files.entrySet()) {
+                out.writeByte(SnapshotFormat.TAG_FILE);
+                SnapshotFormat.writeString(out, fileState.getKey());
+                out.writeBoolean(fileState.getValue().exists);
+                out.writeLong(fileState.getValue().lastModified);
+            }
+            for (Map.Entry<String, FileVersionState> fileVersion : fileVersions.entrySet()) {
+                out.writeByte(SnapshotFormat.TAG_FILE_VERSION);
+                SnapshotFormat.writeString(out, fileVersion.getKey());
+                out.writeLong(fileVersion.getValue().size);
+                out.writeLong(fileVersion.getValue().version);
+            }
+            out.writeByte(SnapshotFormat.TAG_END);
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private FileState recordFile(FileProbe delegate, String path) {
+        synchronized (this) {
+            FileState state = files.get(path);
+            if (state != null) {
+                return state;
+            }
+        }
+        FileState state = new FileState(delegate.exists(path), delegate.lastModified(path));
+        synchronized (this) {
+            files.put(path, state);
+        }
+        return state;
+    }
+
+    private FileVersionState recordFileVersion(FileProbe delegate, String path) {
+        synchronized (this) {
+            FileVersionState state = fileVersions.get(path);
+            if (state != null) {
+                return state;
+            }
+        }
+        FileVersionState state = new FileVersionState(delegate.size(path), delegate.fileVersion(path));
+        synchronized (this) {
+            fileVersions.put(path, state);
+        }
+        return state;
+    }
+
+    private static final class RegistryValue {
+        final String keyPath;
+        final String valueName;
+        final RegistryResults.Type type;
+        final int dword;
+        final String string;
+
+        RegistryValue(String keyPath, String valueName, RegistryResults results, int slot) {
+            this.keyPath = keyPath;
+            this.valueName = valueName;
+            this.type = results.getType(slot);
+            this.dword = results.getDword(slot).orElse(0);
+            this.string = results.getString(slot).orElse(null);
+        }
+    }
+
+    private static final class FileState {
+        final boolean exists;
+        final long lastModified;
+
+        FileState(boolean exists, long lastModified) {
+            this.exists = exists;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static final class FileVersionState {
+        final long size;
+        final long version;
+
+        FileVersionState(long size, long version) {
+            this.size = size;
+            this.version = version;
+        }
+    }
+}
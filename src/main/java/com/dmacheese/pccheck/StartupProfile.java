@@ -0,0 +1,88 @@
+package com.dmacheese.pccheck;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide record of where start-up time goes.
+ * Milestones are plain nanoTime stamps so recording costs nothing when no
+ * profile is requested; the management API is only touched when printing.
+ */
+public final class StartupProfile {
+
+    public enum Milestone {
+        MAIN_ENTERED, SERVICES_READY, CHECKS_STARTED, FIRST_RESULT, REPORT_DONE
+    }
+
+    private static final AtomicLongArray milestones = new AtomicLongArray(Milestone.values().length);
+    private static final Map<String, Long> nativeBinds = new ConcurrentSkipListMap<>();
+    private static volatile long mainEnteredMillis;
+
+    private StartupProfile() {
+    }
+
+    /**
+     * Records the first time a milestone is reached. Later calls are ignored.
+     */
+    public static void mark(Milestone milestone) {
+        if (milestones.compareAndSet(milestone.ordinal(), 0, System.nanoTime())) {
+            if (milestone == Milestone.MAIN_ENTERED) {
+                mainEnteredMillis = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Records the time spent binding a native library.
+     */
+    public static void recordNativeBind(String library, long nanos) {
+        nativeBinds.merge(library, nanos, Long::sum);
+    }
+
+    /**
+     * Appends the start-up breakdown to a report.
+     */
+    public static void render(ReportRenderer out) {
+        out.color(Utils.Color.Yellow);
+        out.println("[ STARTUP PROFILE ]");
+        out.color(Utils.Color.Default);
+
+        if (mainEnteredMillis != 0) {
+            long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+            line(out, "JVM start to main()", (mainEnteredMillis - jvmStart) * 1_000_000L);
+        }
+        line(out, "Class loading and setup", between(Milestone.MAIN_ENTERED, Milestone.SERVICES_READY));
+        line(out, "Header and privilege check", between(Milestone.SERVICES_READY, Milestone.CHECKS_STARTED));
+        line(out, "First check result", between(Milestone.CHECKS_STARTED, Milestone.FIRST_RESULT));
+        line(out, "All checks", between(Milestone.CHECKS_STARTED, Milestone.REPORT_DONE));
+
+        long totalBind = 0;
+        for (long nanos : nativeBinds.values()) {
+            totalBind += nanos;
+        }
+        line(out, "JNA binding (" + nativeBinds.size() + " libraries)", totalBind);
+        for (Map.Entry<String, Long> bind : nativeBinds.entrySet()) {
+            line(out, "  " + bind.getKey(), bind.getValue());
+        }
+
+        ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+        out.println(String.format("  %-34s %d", "Classes loaded", classLoading.getTotalLoadedClassCount()));
+        out.println();
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static long between(Milestone from, Milestone to) {
+        long start = milestones.get(from.ordinal());
+        long end = milestones.get(to.ordinal());
+        return start == 0 || end == 0 ? -1 : end - start;
+    }
+
+    private static void line(ReportRenderer out, String label, long nanos) {
+        String value = nanos < 0 ? "n/a" : String.format("%.1f ms", nanos / 1_000_000.0);
+        out.println(String.format("  %-34s %s", label, value));
+    }
+}
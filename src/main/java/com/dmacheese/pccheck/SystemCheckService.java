@@ -1,231 +1,259 @@
 package com.dmacheese.pccheck;
 
-import com.sun.jna.Memory;
-import com.sun.jna.platform.win32.*;
-import com.sun.jna.platform.win32.WinReg.HKEY;
-import com.sun.jna.ptr.IntByReference;
-
-import java.io.File;
-import java.util.Optional;
-
-import static com.sun.jna.platform.win32.SetupApi.DIGCF_ALLCLASSES;
-import static com.sun.jna.platform.win32.SetupApi.DIGCF_PRESENT;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Service class for performing system compatibility checks.
- * Uses JNA to access Windows Registry and Device Manager APIs.
+ * Builds the checks of the {@link CheckProvider}s against a {@link Backend}; each check's logic lives in
+ * a class of its provider, and the service holds what they share: the definitions, the backend
+ * components and the state the checks keep between runs.
  */
-public class SystemCheckService {
+public class SystemCheckService implements AutoCloseable {
 
-    // Registry path constants
-    private static final String REG_DEFENDER_REALTIME = "SOFTWARE\\Microsoft\\Windows Defender\\Real-Time Protection";
-    private static final String REG_HVCI = "SYSTEM\\CurrentControlSet\\Control\\DeviceGuard\\Scenarios\\HypervisorEnforcedCodeIntegrity";
-    private static final String REG_VULN_BLOCKLIST = "SYSTEM\\CurrentControlSet\\Control\\CI\\Config";
-    private static final String REG_UAC = "SOFTWARE\\Microsoft\\Windows\\CurrentVersion\\Policies\\System";
-    private static final String REG_VBS = "SYSTEM\\CurrentControlSet\\Control\\DeviceGuard";
-    private static final String REG_VC_RUNTIMES = "SOFTWARE\\Microsoft\\VisualStudio\\14.0\\VC\\Runtimes\\x64";
+    // Rule ids of the built-in registry checks (see registry-rules.properties)
+    public static final String RULE_DEFENDER = "defender";
+    public static final String RULE_HVCI = "hvci";
+    public static final String RULE_VULN_BLOCKLIST = "vulnBlocklist";
+    public static final String RULE_UAC = "uac";
+    public static final String RULE_VBS = "vbs";
+    public static final String RULE_VC_RUNTIMES = "vcRuntimes";
 
-    // Device property constants
-    private static final int SPDRP_DEVICEDESC = 0x00000000;
-    private static final int SPDRP_FRIENDLYNAME = 0x0000000C;
+    // Ids of the non-registry checks, used as result cache keys
+    public static final String CHECK_FTDIBUS = "ftdibus";
+    public static final String CHECK_DIRECTX = "directx";
 
-    // Target device configuration
-    private static final String TARGET_FTDI_DEVICE = "FTDI FT601 USB 3.0 Bridge Device";
-    private static final String EXPECTED_DRIVER_VERSION_1 = "1.3.0.8";
-    private static final String EXPECTED_DRIVER_VERSION_2 = "1.3.0.10";
+    // Components are taken from the backend on first use, so unselected checks never create theirs
+    private final Backend backend;
+    private final CheckDefinitions definitions;
+    private volatile RegistryReader registryReader;
+    private volatile FileVersionProbe fileVersionProbe;
+    // State kept by the checks between runs, one instance per check class
+    private final Map<Class<?>, Object> checks = new ConcurrentHashMap<>();
 
-    /**
-     * Checks if Windows Defender Real-Time Protection is disabled.
-     */
-    public boolean checkWindowsSecurity() {
-        boolean passing = isRegistryValueEqual(REG_DEFENDER_REALTIME, "DisableRealtimeMonitoring", 1);
-        Utils.printResult("Windows Security (Defender OFF)", passing,
-                passing ? "Disabled" : "Enabled (Please Disable)");
-        return passing;
+    public SystemCheckService() {
+        this(new WindowsRegistryReader(), CheckPlan.loadDefault());
     }
 
-    /**
-     * Checks if HVCI (Hypervisor-Enforced Code Integrity) is disabled.
-     */
-    public boolean checkHVCI() {
-        boolean passing = !isRegistryValueEqual(REG_HVCI, "Enabled", 1);
-        Utils.printResult("HVCI / Core Isolation", passing, passing ? "OFF" : "ON (Please Disable)");
-        return passing;
+    public SystemCheckService(RegistryReader registryReader) {
+        this(registryReader, CheckPlan.loadDefault());
     }
 
-    /**
-     * Checks if the Vulnerable Driver Blocklist is disabled.
-     */
-    public boolean checkVulnDriverBlocklist() {
-        boolean passing = !isRegistryValueEqual(REG_VULN_BLOCKLIST, "VulnerableDriverBlocklistEnable", 1);
-        Utils.printResult("Vulnerable Driver Blocklist", passing, passing ? "OFF" : "ON (Please Disable)");
-        return passing;
+    public SystemCheckService(RegistryReader registryReader, CheckPlan plan) {
+        this(registryReader, plan, new SetupApiDeviceEnumerator());
     }
 
-    /**
-     * Checks if User Account Control (UAC) is disabled.
-     */
-    public boolean checkUAC() {
-        boolean passing = isRegistryValueEqual(REG_UAC, "EnableLUA", 0);
-        Utils.printResult("User Account Control (UAC)", passing, passing ? "OFF" : "ON (Please Disable)");
-        return passing;
+    public SystemCheckService(RegistryReader registryReader, CheckPlan plan, DeviceEnumerator deviceEnumerator) {
+        this(registryReader, plan, deviceEnumerator, new LocalFileProbe());
+    }
+
+    public SystemCheckService(RegistryReader registryReader, CheckPlan plan, DeviceEnumerator deviceEnumerator,
+            FileProbe fileProbe) {
+        this(registryReader, plan, DeviceCatalog.loadDefault(), deviceEnumerator, fileProbe);
+    }
+
+    public SystemCheckService(RegistryReader registryReader, CheckPlan plan, DeviceCatalog catalog,
+            DeviceEnumerator deviceEnumerator, FileProbe fileProbe) {
+        this(Backend.windows(false).withInputs(registryReader, deviceEnumerator, fileProbe), plan, catalog);
+    }
+
+    public SystemCheckService(Backend backend, CheckPlan plan, DeviceCatalog catalog) {
+        this(backend, CheckDefinitions.of(plan, catalog));
+    }
+
+    public SystemCheckService(Backend backend, CheckDefinitions definitions) {
+        this.backend = backend;
+        this.definitions = definitions;
     }
 
     /**
-     * Checks if Kernel DMA Protection / Virtualization Based Security is disabled.
+     * Returns a service for listing and validating checks, without touching the system.
      */
-    public boolean checkKernelDMAProtection() {
-        boolean passing = !isRegistryValueEqual(REG_VBS, "EnableVirtualizationBasedSecurity", 1);
-        Utils.printResult("Kernel DMA Protection / VBS", passing,
-                passing ? "Likely OFF" : "VBS Enabled (Disable IOMMU/VT-d in BIOS)");
-        return passing;
+    public static SystemCheckService forListing(CheckDefinitions definitions) {
+        // The live backend creates nothing until used, and listing uses nothing
+        return new SystemCheckService(Backend.windows(false), definitions);
     }
 
     /**
-     * Checks if Visual C++ Redistributable (x64) is installed.
+     * Returns the compiled registry rules, loading them on first call.
      */
-    public boolean checkVCRuntimes() {
-        boolean passing = isRegistryValueEqual(REG_VC_RUNTIMES, "Installed", 1);
-        Utils.printResult("Visual C++ Runtimes (x64)", passing, passing ? "Installed" : "Missing");
-        return passing;
+    public CheckPlan getPlan() {
+        return definitions.getPlan();
     }
 
     /**
-     * Checks if DirectX End-User Runtimes are installed.
+     * Returns the device models accepted by the device check, loading them on first call.
      */
-    public boolean checkDirectX() {
-        boolean passing = new File("C:\\Windows\\System32\\d3dx9_43.dll").exists();
-        Utils.printResult("DirectX End-User Runtimes", passing,
-                passing ? "Installed (d3dx9_43.dll found)" : "Missing (d3dx9_43.dll not found)");
-        return passing;
+    public DeviceCatalog getCatalog() {
+        return definitions.getCatalog();
     }
 
     /**
-     * Checks if the FTDI FT601 USB 3.0 Bridge Device driver is installed with
-     * correct version.
+     * Returns the checks offered by the providers, as id to name in report order. A check id already
+     * taken by an earlier provider is skipped with a warning.
      */
-    public boolean checkFTDIBUS() {
-        SetupApi setupApi = SetupApi.INSTANCE;
-        WinNT.HANDLE hDevInfo = setupApi.SetupDiGetClassDevs(null, null, null, DIGCF_PRESENT | DIGCF_ALLCLASSES);
-
-        if (hDevInfo == WinBase.INVALID_HANDLE_VALUE) {
-            Utils.printResult("FTDIBUS3 Driver", false,
-                    "Failed to Enumerate Devices - Error: " + Kernel32.INSTANCE.GetLastError());
-            return false;
-        }
-
-        try {
-            return enumerateAndCheckDevices(setupApi, hDevInfo);
-        } finally {
-            setupApi.SetupDiDestroyDeviceInfoList(hDevInfo);
+    public Map<String, String> listChecks() {
+        CheckContext context = new CheckContext(this, ResultCache.disabled());
+        Map<String, String> checks = new LinkedHashMap<>();
+        for (Map.Entry<CheckProvider, Set<String>> provider : offerChecks(context).entrySet()) {
+            Map<String, String> names = provider.getKey().getChecks(context);
+            for (String checkId : provider.getValue()) {
+                checks.put(checkId, names.get(checkId));
+            }
         }
+        return checks;
     }
 
-    // ==================== Helper Methods ====================
-
     /**
-     * Checks if a registry DWORD value equals the expected value.
+     * Resolves a selection against the checks the providers offer and returns the selected checks, as
+     * id to name in report order. Only providers with a selected check are asked for names, so the
+     * definitions the selection does not need are not loaded.
+     *
+     * @throws IllegalArgumentException if the selection names a check no provider offers, or a needed
+     *                                  definitions table is invalid
+     * @throws java.io.UncheckedIOException if a needed definitions file cannot be read
      */
-    private boolean isRegistryValueEqual(String keyPath, String valueName, int expectedValue) {
-        try {
-            if (Advapi32Util.registryValueExists(WinReg.HKEY_LOCAL_MACHINE, keyPath, valueName)) {
-                int val = Advapi32Util.registryGetIntValue(WinReg.HKEY_LOCAL_MACHINE, keyPath, valueName);
-                return val == expectedValue;
+    public Map<String, String> selectChecks(CheckSelection selection) {
+        CheckContext context = new CheckContext(this, ResultCache.disabled());
+        Map<CheckProvider, Set<String>> offered = offerChecks(context);
+        Set<String> selected = selection.resolve(allIds(offered));
+
+        Map<String, String> checks = new LinkedHashMap<>();
+        for (Map.Entry<CheckProvider, Set<String>> provider : offered.entrySet()) {
+            Set<String> checkIds = new LinkedHashSet<>(provider.getValue());
+            checkIds.retainAll(selected);
+            if (!checkIds.isEmpty()) {
+                Map<String, String> names = provider.getKey().getChecks(context);
+                for (String checkId : checkIds) {
+                    checks.put(checkId, names.get(checkId));
+                }
             }
-        } catch (Exception e) {
-            // Registry access denied or key missing
         }
-        return false;
+        return checks;
     }
 
     /**
-     * Checks if a device name contains the target device string.
+     * Builds every check in report order. Each check reuses its cached result when its inputs are unchanged.
      */
-    private boolean containsTargetDevice(String deviceName) {
-        return deviceName != null && deviceName.contains(TARGET_FTDI_DEVICE);
+    public List<CheckExecutor.Task> createTasks(ResultCache cache) {
+        return createTasks(cache, CheckSelection.ALL);
     }
 
     /**
-     * Checks if the driver version is acceptable.
+     * Builds the selected checks in report order, provider by provider: the FTDI driver, the plan's
+     * registry rules, DirectX, then checks from plug-in jars. Providers with no selected check are
+     * not asked for tasks, so their check classes are never loaded.
+     *
+     * @throws IllegalArgumentException if the selection names a check no provider offers
      */
-    private boolean isAcceptableDriverVersion(String version) {
-        return EXPECTED_DRIVER_VERSION_1.equals(version) || EXPECTED_DRIVER_VERSION_2.equals(version);
+    public List<CheckExecutor.Task> createTasks(ResultCache cache, CheckSelection selection) {
+        CheckContext context = new CheckContext(this, cache);
+        Map<CheckProvider, Set<String>> offered = offerChecks(context);
+        Set<String> selected = selection.resolve(allIds(offered));
+
+        List<CheckExecutor.Task> tasks = new ArrayList<>();
+        for (Map.Entry<CheckProvider, Set<String>> provider : offered.entrySet()) {
+            Set<String> checkIds = new LinkedHashSet<>(provider.getValue());
+            checkIds.retainAll(selected);
+            if (!checkIds.isEmpty()) {
+                tasks.addAll(provider.getKey().createTasks(context, checkIds));
+            }
+        }
+        return tasks;
     }
 
     /**
-     * Enumerates devices and checks for FTDI device with correct driver version.
+     * Releases registry handles held by the reader, if one was created.
      */
-    private boolean enumerateAndCheckDevices(SetupApi setupApi, WinNT.HANDLE hDevInfo) {
-        SetupApi.SP_DEVINFO_DATA deviceInfoData = new SetupApi.SP_DEVINFO_DATA();
-        deviceInfoData.cbSize = deviceInfoData.size();
-
-        for (int i = 0; setupApi.SetupDiEnumDeviceInfo(hDevInfo, i, deviceInfoData); i++) {
-            Optional<String> friendlyName = getDeviceProperty(hDevInfo, deviceInfoData, SPDRP_FRIENDLYNAME);
-            Optional<String> descName = getDeviceProperty(hDevInfo, deviceInfoData, SPDRP_DEVICEDESC);
+    @Override
+    public void close() {
+        RegistryReader reader = registryReader;
+        if (reader != null) {
+            reader.close();
+        }
+    }
 
-            boolean found = friendlyName.map(this::containsTargetDevice).orElse(false)
-                    || descName.map(this::containsTargetDevice).orElse(false);
+    // ==================== Backend Access ====================
 
-            if (found) {
-                return handleFoundDevice(hDevInfo, deviceInfoData);
+    RegistryReader registryReader() {
+        RegistryReader reader = registryReader;
+        if (reader == null) {
+            synchronized (this) {
+                reader = registryReader;
+                if (reader == null) {
+                    reader = backend.getRegistryReader();
+                    registryReader = reader;
+                }
             }
         }
+        return reader;
+    }
 
-        Utils.printResult("FTDIBUS3 Driver", false, "Device Not Found");
-        return false;
+    DeviceEnumerator deviceEnumerator() {
+        return backend.getDeviceEnumerator();
     }
 
-    /**
-     * Handles the case when FTDI device is found - checks driver version.
-     */
-    private boolean handleFoundDevice(WinNT.HANDLE hDevInfo, SetupApi.SP_DEVINFO_DATA deviceInfoData) {
-        Optional<String> version = getDriverVersion(hDevInfo, deviceInfoData);
-
-        if (version.isPresent()) {
-            String ver = version.get();
-            if (isAcceptableDriverVersion(ver)) {
-                Utils.printResult("FTDIBUS3 Driver", true, "Installed (" + ver + ")");
-                return true;
-            } else {
-                Utils.printResult("FTDIBUS3 Driver", false,
-                        "Wrong Version (" + ver + ", expected " + EXPECTED_DRIVER_VERSION_1 + "/10)");
-                return false;
+    FileProbe fileProbe() {
+        return backend.getFileProbe();
+    }
+
+    FileVersionProbe fileVersionProbe() {
+        FileVersionProbe probe = fileVersionProbe;
+        if (probe == null) {
+            synchronized (this) {
+                probe = fileVersionProbe;
+                if (probe == null) {
+                    probe = new FileVersionProbe(fileProbe());
+                    fileVersionProbe = probe;
+                }
             }
-        } else {
-            Utils.printResult("FTDIBUS3 Driver", false, "Driver Version Not Found");
-            return false;
         }
+        return probe;
     }
 
     /**
-     * Gets a device property as Optional.
+     * Returns the check state kept for a check class, creating it on first call.
      */
-    private Optional<String> getDeviceProperty(WinNT.HANDLE hDevInfo, SetupApi.SP_DEVINFO_DATA devInfoData,
-            int property) {
-        Memory buffer = new Memory(1024);
-        IntByReference requiredSize = new IntByReference();
-        if (SetupApi.INSTANCE.SetupDiGetDeviceRegistryProperty(hDevInfo, devInfoData, property, null, buffer,
-                (int) buffer.size(), requiredSize)) {
-            return Optional.of(buffer.getWideString(0));
-        }
-        return Optional.empty();
+    <T> T check(Class<T> type, Function<SystemCheckService, T> factory) {
+        return type.cast(checks.computeIfAbsent(type, key -> factory.apply(this)));
     }
 
+    // ==================== Helper Methods ====================
+
     /**
-     * Gets driver version from device registry key as Optional.
+     * Asks each provider for its check ids and returns them by provider, in report order. A check id
+     * already taken by an earlier provider is skipped with a warning.
      */
-    private Optional<String> getDriverVersion(WinNT.HANDLE hDevInfo, SetupApi.SP_DEVINFO_DATA devInfoData) {
-        HKEY hKey = SetupApi.INSTANCE.SetupDiOpenDevRegKey(hDevInfo, devInfoData, SetupApi.DICS_FLAG_GLOBAL, 0,
-                SetupApi.DIREG_DRV, WinNT.KEY_READ);
-        if (hKey != null && !hKey.equals(WinBase.INVALID_HANDLE_VALUE)) {
-            try {
-                if (Advapi32Util.registryValueExists(hKey, "", "DriverVersion")) {
-                    return Optional.of(Advapi32Util.registryGetStringValue(hKey, "", "DriverVersion"));
+    private static Map<CheckProvider, Set<String>> offerChecks(CheckContext context) {
+        Map<CheckProvider, Set<String>> offered = new LinkedHashMap<>();
+        Set<String> taken = new HashSet<>();
+        for (CheckProvider provider : CheckProviders.get()) {
+            Set<String> checkIds = new LinkedHashSet<>();
+            for (String checkId : provider.getCheckIds(context)) {
+                if (!taken.add(checkId)) {
+                    System.err.println("WARNING: Check " + checkId + " from " + provider.getClass().getName()
+                            + " is already provided; skipping it");
+                } else {
+                    checkIds.add(checkId);
                 }
-            } finally {
-                Advapi32Util.registryCloseKey(hKey);
             }
+            offered.put(provider, checkIds);
+        }
+        return offered;
+    }
+
+    private static Set<String> allIds(Map<CheckProvider, Set<String>> offered) {
+        Set<String> checkIds = new LinkedHashSet<>();
+        for (Set<String> providerIds : offered.values()) {
+            checkIds.addAll(providerIds);
         }
-        return Optional.empty();
+        return checkIds;
     }
 }
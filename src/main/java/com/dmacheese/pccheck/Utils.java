@@ -1,15 +1,9 @@
 package com.dmacheese.pccheck;
 
-import com.sun.jna.platform.win32.WinNT;
-import com.sun.jna.platform.win32.WinNT.HANDLE;
-import com.sun.jna.Library;
-import com.sun.jna.Native;
-import com.sun.jna.win32.W32APIOptions;
-
-import java.io.IOException;
-
 /**
  * Utility class for console output formatting and Windows API interactions.
+ * Acts on this process's console; runners take a {@link ConsoleBackend} and
+ * {@link PrivilegeProbe} instead, so they can run against simulated ones.
  */
 public class Utils {
 
@@ -17,107 +11,58 @@ public class Utils {
         Red, Green, Yellow, White, Default
     }
 
-    /**
-     * Custom JNA interface for Shell32 functions.
-     */
-    public interface MyShell32 extends Library {
-        MyShell32 INSTANCE = Native.load("shell32", MyShell32.class, W32APIOptions.DEFAULT_OPTIONS);
-
-        boolean IsUserAnAdmin();
-    }
+    private static final PrivilegeProbe PRIVILEGES = new WindowsPrivilegeProbe();
 
     /**
      * Checks if the application is running with administrator privileges.
      */
     public static boolean isAdministrator() {
-        try {
-            return MyShell32.INSTANCE.IsUserAnAdmin();
-        } catch (Throwable e) {
-            return false;
-        }
+        return PRIVILEGES.isAdministrator();
     }
 
     /**
-     * Custom JNA interface for Kernel32 console functions.
+     * Enables virtual-terminal processing on the console so ANSI escape sequences
+     * are interpreted. Returns false if the console does not support it.
      */
-    public interface MyKernel32 extends Library {
-        MyKernel32 INSTANCE = Native.load("kernel32", MyKernel32.class, W32APIOptions.DEFAULT_OPTIONS);
-
-        WinNT.HANDLE GetStdHandle(int nStdHandle);
-
-        boolean SetConsoleTextAttribute(WinNT.HANDLE hConsoleOutput, short wAttributes);
+    public static boolean enableVirtualTerminal() {
+        return WindowsConsoleBackend.INSTANCE.enableVirtualTerminal();
     }
 
-    private static final int STD_OUTPUT_HANDLE = -11;
-    private static final short FOREGROUND_BLUE = 0x0001;
-    private static final short FOREGROUND_GREEN = 0x0002;
-    private static final short FOREGROUND_RED = 0x0004;
-    private static final short FOREGROUND_INTENSITY = 0x0008;
-
     /**
      * Sets the console text color using Windows API.
      */
     public static void setConsoleColor(Color c) {
-        HANDLE hConsole = MyKernel32.INSTANCE.GetStdHandle(STD_OUTPUT_HANDLE);
-        short attributes;
-
-        switch (c) {
-            case Red:
-                attributes = (short) (FOREGROUND_RED | FOREGROUND_INTENSITY);
-                break;
-            case Green:
-                attributes = (short) (FOREGROUND_GREEN | FOREGROUND_INTENSITY);
-                break;
-            case Yellow:
-                attributes = (short) (FOREGROUND_RED | FOREGROUND_GREEN | FOREGROUND_INTENSITY);
-                break;
-            case White:
-                attributes = (short) (FOREGROUND_RED | FOREGROUND_GREEN | FOREGROUND_BLUE | FOREGROUND_INTENSITY);
-                break;
-            case Default:
-            default:
-                attributes = (short) (FOREGROUND_RED | FOREGROUND_GREEN | FOREGROUND_BLUE);
-                break;
-        }
+        WindowsConsoleBackend.INSTANCE.setColor(c);
+    }
 
-        MyKernel32.INSTANCE.SetConsoleTextAttribute(hConsole, attributes);
+    /**
+     * Sets the console window title. Does nothing off Windows.
+     */
+    public static void setConsoleTitle(String title) {
+        WindowsConsoleBackend.INSTANCE.setTitle(title);
     }
 
     /**
      * Prints a formatted check result to the console with color coding.
      */
     public static void printResult(String checkName, boolean passed, String message) {
-        System.out.print("[");
-        if (passed) {
-            setConsoleColor(Color.Green);
-            System.out.print(" OK ");
-        } else {
-            setConsoleColor(Color.Red);
-            System.out.print("FAIL");
-        }
-
-        setConsoleColor(Color.Default);
-        System.out.print("] " + checkName);
-
-        if (message != null && !message.isEmpty()) {
-            System.out.print(" (");
-            setConsoleColor(passed ? Color.Green : Color.Red);
-            System.out.print(message);
-            setConsoleColor(Color.Default);
-            System.out.print(")");
-        }
-        System.out.println();
+        ReportRenderer renderer = ReportRenderer.forConsole(true);
+        renderer.result(checkName, passed, message);
+        renderer.flush();
     }
 
     /**
      * Pauses execution until user presses Enter.
      */
     public static void pressEnterToExit() {
-        System.out.println("\nPress Enter to exit...");
-        try {
-            System.in.read();
-        } catch (IOException e) {
-            // User closed input stream
-        }
+        pressEnterToExit(WindowsConsoleBackend.INSTANCE);
+    }
+
+    /**
+     * Pauses execution until user presses Enter on the given console.
+     */
+    public static void pressEnterToExit(ConsoleBackend console) {
+        console.out().println("\nPress Enter to exit...");
+        console.readLine();
     }
 }
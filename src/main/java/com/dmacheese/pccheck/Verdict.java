@@ -0,0 +1,48 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Overall outcome of a run, derived from its check results.
+ */
+public enum Verdict {
+    PASS("pass", HeadlessRunner.EXIT_PASS),
+    WARN("warn", HeadlessRunner.EXIT_WARN),
+    FAIL("fail", HeadlessRunner.EXIT_CRITICAL_FAIL);
+
+    private final String label;
+    private final int exitCode;
+
+    Verdict(String label, int exitCode) {
+        this.label = label;
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * Returns FAIL if a critical check failed, WARN if only recommended checks failed, otherwise PASS.
+     */
+    public static Verdict of(Iterable<CheckResult> results) {
+        Verdict verdict = PASS;
+        for (CheckResult result : results) {
+            if (!result.isPassed()) {
+                if (result.isCritical()) {
+                    return FAIL;
+                }
+                verdict = WARN;
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * Returns the status written to JSON reports.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the process exit code of a headless run with this outcome.
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+}
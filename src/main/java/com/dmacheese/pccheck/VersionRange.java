@@ -0,0 +1,69 @@
+package com.dmacheese.pccheck;
+
+/**
+ * Inclusive range of packed driver versions, written as "1.3.0.8" (exactly),
+ * "1.3.0.8-1.3.0.10" (inclusive) or "1.3.0.8+" (at least).
+ */
+public final class VersionRange {
+
+    private static final long UNBOUNDED = DriverVersion.INVALID - 1;
+
+    private final long min;
+    private final long max;
+
+    private VersionRange(long min, long max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Parses a range.
+     *
+     * @throws IllegalArgumentException if either bound is not a version or the bounds are reversed
+     */
+    public static VersionRange parse(String range) {
+        String text = range.trim();
+        long min;
+        long max;
+        int dash = text.indexOf('-');
+        if (text.endsWith("+")) {
+            min = DriverVersion.parse(text.substring(0, text.length() - 1).trim());
+            max = UNBOUNDED;
+        } else if (dash >= 0) {
+            min = DriverVersion.parse(text.substring(0, dash).trim());
+            max = DriverVersion.parse(text.substring(dash + 1).trim());
+        } else {
+            min = DriverVersion.parse(text);
+            max = min;
+        }
+        if (min == DriverVersion.INVALID || max == DriverVersion.INVALID || DriverVersion.compare(min, max) > 0) {
+            throw new IllegalArgumentException("Invalid driver version range: " + range);
+        }
+        return new VersionRange(min, max);
+    }
+
+    /**
+     * Checks if a packed version is in range. {@link DriverVersion#INVALID} never is.
+     */
+    public boolean contains(long version) {
+        return version != DriverVersion.INVALID && DriverVersion.compare(min, version) <= 0
+                && DriverVersion.compare(version, max) <= 0;
+    }
+
+    /**
+     * Returns the lowest packed version in range.
+     */
+    public long getMinimum() {
+        return min;
+    }
+
+    @Override
+    public String toString() {
+        if (min == max) {
+            return DriverVersion.format(min);
+        } else if (max == UNBOUNDED) {
+            return DriverVersion.format(min) + "+";
+        }
+        return DriverVersion.format(min) + "-" + DriverVersion.format(max);
+    }
+}
@@ -0,0 +1,249 @@
+package com.dmacheese.pccheck;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Long-running mode that re-evaluates registry checks when their keys change
+ * and the FTDI check when a USB device is plugged or unplugged.
+ * Only the rules reading a changed key, or the device that changed, are re-read,
+ * and only result lines whose outcome changed are redrawn.
+ */
+public class WatchRunner {
+
+    // Lines printed below the last result: a blank line and the status line
+    private static final int LINES_BELOW_RESULTS = 2;
+
+    private final SystemCheckService checkService;
+    private final RegistryChangeSource changeSource;
+    private final DeviceChangeSource deviceSource;
+    private final ConsoleBackend console;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+
+    private List<CheckResult> results;
+    // Check id to its line in the report
+    private final Map<String, Integer> lineById = new HashMap<>();
+
+    public WatchRunner(SystemCheckService checkService, RegistryChangeSource changeSource) {
+        this(checkService, changeSource, null);
+    }
+
+    /**
+     * @param deviceSource source of USB hotplug notifications, or null to watch the registry only
+     */
+    public WatchRunner(SystemCheckService checkService, RegistryChangeSource changeSource,
+            DeviceChangeSource deviceSource) {
+        this(checkService, changeSource, deviceSource, WindowsConsoleBackend.INSTANCE);
+    }
+
+    public WatchRunner(SystemCheckService checkService, RegistryChangeSource changeSource,
+            DeviceChangeSource deviceSource, ConsoleBackend console) {
+        this.checkService = checkService;
+        this.changeSource = changeSource;
+        this.deviceSource = deviceSource;
+        this.console = console;
+    }
+
+    /**
+     * Prints the full report, then redraws changed results until the change source is closed.
+     */
+    public void run(CommandLineOptions options) {
+        ReportRenderer out = ReportRenderer.forConsole(console, options.isColorEnabled());
+        CheckPlan plan = RegistryRuleChecks.of(checkService).getPlan();
+
+        out.color(Utils.Color.Yellow);
+        out.println("[ WATCH MODE ] Checks are re-evaluated when their keys or devices change. Press Ctrl+C to exit.");
+        out.color(Utils.Color.Default);
+        out.println();
+
+        // Listen before the first enumeration so no arrival falls in between
+        boolean hotplug = startDeviceTracking(out);
+
+        // Watch mode always starts from live values
+        List<CheckExecutor.Task> tasks = checkService.createTasks(ResultCache.disabled());
+        List<CheckResult> initial;
+        try (CheckExecutor executor = new CheckExecutor(options.getCheckTimeoutMillis())) {
+            initial = executor.runAll(tasks, result -> {
+            });
+        }
+        synchronized (this) {
+            results = new ArrayList<>(initial);
+            for (int i = 0; i < tasks.size(); i++) {
+                lineById.put(tasks.get(i).getId(), i);
+            }
+            for (CheckResult result : results) {
+                out.result(result.getName(), result.isPassed(), result.getMessage());
+            }
+            out.println();
+            printStatus(out, plan.getRulesByKey().size() + " keys watched" + (hotplug ? ", USB hotplug on" : ""));
+            out.flush();
+        }
+
+        if (hotplug) {
+            Thread deviceThread = new Thread(() -> watchDevices(out), "pccheck-hotplug");
+            deviceThread.setDaemon(true);
+            deviceThread.start();
+        }
+
+        try {
+            changeSource.watch(plan.getRulesByKey().keySet());
+            while (true) {
+                Set<String> changedKeys = changeSource.awaitChanges();
+                if (changedKeys.isEmpty()) {
+                    return;
+                }
+                onChanges(out, changedKeys);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            // Without notifications the report would silently go stale
+            synchronized (this) {
+                out.color(Utils.Color.Red);
+                out.println("ERROR: Registry change notifications failed (" + e.getMessage() + ").");
+                out.println("Watch mode stopped; results shown above may be out of date.");
+                out.color(Utils.Color.Default);
+                out.flush();
+            }
+        } finally {
+            if (deviceSource != null) {
+                deviceSource.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the current results in report order.
+     */
+    public synchronized List<CheckResult> getResults() {
+        return new ArrayList<>(results);
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Registers for device notifications and indexes the FTDI device. Returns false if unavailable.
+     */
+    private boolean startDeviceTracking(ReportRenderer out) {
+        if (deviceSource == null) {
+            return false;
+        }
+        try {
+            deviceSource.start();
+        } catch (IllegalStateException | UnsatisfiedLinkError e) {
+            // CM_Register_Notification is missing before Windows 8
+            out.color(Utils.Color.Yellow);
+            out.println("USB hotplug notifications unavailable (" + e.getMessage() + ")");
+            out.color(Utils.Color.Default);
+            return false;
+        }
+        DeviceDriverCheck.of(checkService).trackDevices();
+        return true;
+    }
+
+    private void watchDevices(ReportRenderer out) {
+        try {
+            while (true) {
+                List<DeviceChange> changes = deviceSource.awaitChanges();
+                if (changes.isEmpty()) {
+                    return;
+                }
+                DeviceDriverCheck deviceCheck = DeviceDriverCheck.of(checkService);
+                if (deviceCheck.applyDeviceChanges(changes)) {
+                    long start = System.nanoTime();
+                    CheckResult result = deviceCheck.evaluate();
+                    onDeviceChange(out, changes, result, System.nanoTime() - start);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void onDeviceChange(ReportRenderer out, List<DeviceChange> changes, CheckResult result,
+            long durationNanos) {
+        List<Integer> changed = new ArrayList<>();
+        update(SystemCheckService.CHECK_FTDIBUS, result, durationNanos, changed);
+        DeviceChange last = changes.get(changes.size() - 1);
+        redraw(out, changed, (last.getType() == DeviceChange.Type.ARRIVAL ? "device arrived" : "device removed")
+                + (changed.isEmpty() ? ", no result changed" : ""));
+    }
+
+    private synchronized void onChanges(ReportRenderer out, Set<String> changedKeys) {
+        RegistryRuleChecks ruleChecks = RegistryRuleChecks.of(checkService);
+        List<RegistryRule> rules = ruleChecks.getPlan().getRules();
+        List<Integer> changed = new ArrayList<>();
+        for (String keyPath : changedKeys) {
+            for (int ruleIndex : ruleChecks.refreshKey(keyPath)) {
+                long start = System.nanoTime();
+                CheckResult result = ruleChecks.evaluate(ruleIndex);
+                update(rules.get(ruleIndex).getId(), result, System.nanoTime() - start, changed);
+            }
+        }
+
+        redraw(out, changed, changed.isEmpty() ? "no result changed" : changed.size() + " result(s) changed");
+    }
+
+    /**
+     * Replaces the result of a check if its outcome changed, and adds its line to the changed ones.
+     */
+    private void update(String id, CheckResult result, long durationNanos, List<Integer> changed) {
+        Integer line = lineById.get(id);
+        if (line == null) {
+            return;
+        }
+        CheckResult previous = results.get(line);
+        if (!sameOutcome(previous, result)) {
+            results.set(line, result.withTask(id, previous.isCritical(), durationNanos));
+            changed.add(line);
+        }
+    }
+
+    private void redraw(ReportRenderer out, List<Integer> changed, String status) {
+        if (out instanceof CursorControl) {
+            CursorControl cursor = (CursorControl) out;
+            for (int taskIndex : changed) {
+                int linesUp = results.size() - taskIndex + LINES_BELOW_RESULTS;
+                CheckResult result = results.get(taskIndex);
+                cursor.cursorUp(linesUp).clearLine();
+                out.result(result.getName(), result.isPassed(), result.getMessage());
+                cursor.cursorDown(linesUp - 1);
+            }
+            cursor.cursorUp(1).clearLine();
+            printStatus(out, status);
+        } else {
+            // Without cursor control, changed lines are appended under a timestamp
+            for (int taskIndex : changed) {
+                CheckResult result = results.get(taskIndex);
+                out.result(result.getName(), result.isPassed(), result.getMessage());
+            }
+            printStatus(out, status);
+        }
+        out.flush();
+    }
+
+    private void printStatus(ReportRenderer out, String detail) {
+        out.print("[" + timeFormat.format(new Date()) + "] ");
+        switch (Verdict.of(results)) {
+            case PASS:
+                out.color(Utils.Color.Green).print("PASS");
+                break;
+            case WARN:
+                out.color(Utils.Color.Yellow).print("WARN");
+                break;
+            default:
+                out.color(Utils.Color.Red).print("FAIL");
+        }
+        out.color(Utils.Color.Default).println(" - " + detail);
+    }
+
+    private static boolean sameOutcome(CheckResult a, CheckResult b) {
+        return a.isPassed() == b.isPassed() && Objects.equals(a.getMessage(), b.getMessage());
+    }
+}
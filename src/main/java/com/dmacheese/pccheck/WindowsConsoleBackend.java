@@ -0,0 +1,171 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.Library;
+import com.sun.jna.Platform;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.platform.win32.WinNT.HANDLE;
+import com.sun.jna.ptr.IntByReference;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+/**
+ * The process console: standard streams, with colors and title set through the Windows console API.
+ * Console calls do nothing off Windows, where escape sequences are always available.
+ */
+public class WindowsConsoleBackend implements ConsoleBackend {
+
+    /**
+     * The console of this process.
+     */
+    public static final WindowsConsoleBackend INSTANCE = new WindowsConsoleBackend();
+
+    /**
+     * Custom JNA interface for Kernel32 console functions.
+     */
+    public interface MyKernel32 extends Library {
+        MyKernel32 INSTANCE = NativeLibraries.load("kernel32", MyKernel32.class);
+
+        WinNT.HANDLE GetStdHandle(int nStdHandle);
+
+        boolean SetConsoleTextAttribute(WinNT.HANDLE hConsoleOutput, short wAttributes);
+
+        boolean GetConsoleMode(WinNT.HANDLE hConsoleHandle, IntByReference lpMode);
+
+        boolean SetConsoleMode(WinNT.HANDLE hConsoleHandle, int dwMode);
+
+        boolean SetConsoleTitle(String lpConsoleTitle);
+    }
+
+    /**
+     * Custom JNA interface for the Shell32 function that opens links.
+     */
+    public interface MyShell32 extends Library {
+        MyShell32 INSTANCE = NativeLibraries.load("shell32", MyShell32.class);
+
+        WinDef.HINSTANCE ShellExecute(WinDef.HWND hwnd, String lpOperation, String lpFile, String lpParameters,
+                String lpDirectory, int nShowCmd);
+    }
+
+    private static final int STD_OUTPUT_HANDLE = -11;
+    private static final short FOREGROUND_BLUE = 0x0001;
+    private static final short FOREGROUND_GREEN = 0x0002;
+    private static final short FOREGROUND_RED = 0x0004;
+    private static final short FOREGROUND_INTENSITY = 0x0008;
+    private static final int ENABLE_VIRTUAL_TERMINAL_PROCESSING = 0x0004;
+    private static final int SW_SHOWNORMAL = 1;
+
+    // Standard output handle, looked up once instead of on every color change
+    private volatile HANDLE stdOutHandle;
+    private BufferedReader in;
+
+    private WindowsConsoleBackend() {
+    }
+
+    @Override
+    public PrintStream out() {
+        return System.out;
+    }
+
+    @Override
+    public boolean isInteractive() {
+        return System.console() != null;
+    }
+
+    @Override
+    public boolean enableVirtualTerminal() {
+        if (!Platform.isWindows()) {
+            return true;
+        }
+        try {
+            HANDLE hConsole = getStdOutHandle();
+            IntByReference mode = new IntByReference();
+            if (!MyKernel32.INSTANCE.GetConsoleMode(hConsole, mode)) {
+                return false;
+            }
+            if ((mode.getValue() & ENABLE_VIRTUAL_TERMINAL_PROCESSING) != 0) {
+                return true;
+            }
+            return MyKernel32.INSTANCE.SetConsoleMode(hConsole, mode.getValue() | ENABLE_VIRTUAL_TERMINAL_PROCESSING);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void setColor(Utils.Color c) {
+        if (!Platform.isWindows()) {
+            return;
+        }
+
+        HANDLE hConsole = getStdOutHandle();
+        short attributes;
+
+        switch (c) {
+            case Red:
+                attributes = (short) (FOREGROUND_RED | FOREGROUND_INTENSITY);
+                break;
+            case Green:
+                attributes = (short) (FOREGROUND_GREEN | FOREGROUND_INTENSITY);
+                break;
+            case Yellow:
+                attributes = (short) (FOREGROUND_RED | FOREGROUND_GREEN | FOREGROUND_INTENSITY);
+                break;
+            case White:
+                attributes = (short) (FOREGROUND_RED | FOREGROUND_GREEN | FOREGROUND_BLUE | FOREGROUND_INTENSITY);
+                break;
+            case Default:
+            default:
+                attributes = (short) (FOREGROUND_RED | FOREGROUND_GREEN | FOREGROUND_BLUE);
+                break;
+        }
+
+        MyKernel32.INSTANCE.SetConsoleTextAttribute(hConsole, attributes);
+    }
+
+    @Override
+    public void setTitle(String title) {
+        if (!Platform.isWindows()) {
+            return;
+        }
+        try {
+            MyKernel32.INSTANCE.SetConsoleTitle(title);
+        } catch (Throwable e) {
+            // The title is cosmetic
+        }
+    }
+
+    @Override
+    public synchronized String readLine() {
+        if (in == null) {
+            in = new BufferedReader(new InputStreamReader(System.in));
+        }
+        try {
+            return in.readLine();
+        } catch (IOException e) {
+            // User closed input stream
+            return null;
+        }
+    }
+
+    @Override
+    public void open(String uri) {
+        if (Platform.isWindows()) {
+            MyShell32.INSTANCE.ShellExecute(null, "open", uri, null, null, SW_SHOWNORMAL);
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private HANDLE getStdOutHandle() {
+        HANDLE hConsole = stdOutHandle;
+        if (hConsole == null) {
+            hConsole = MyKernel32.INSTANCE.GetStdHandle(STD_OUTPUT_HANDLE);
+            stdOutHandle = hConsole;
+        }
+        return hConsole;
+    }
+}
@@ -0,0 +1,142 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.platform.win32.Cfgmgr32;
+import com.sun.jna.platform.win32.Guid;
+import com.sun.jna.ptr.PointerByReference;
+import com.sun.jna.win32.StdCallLibrary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Device change source backed by CM_Register_Notification on the USB device interface class.
+ * Windows calls back on its own thread pool as soon as a device is plugged or
+ * unplugged; the consumer sleeps on a queue in between and costs no CPU.
+ * Requires Windows 8 or later.
+ */
+public class WindowsDeviceChangeSource implements DeviceChangeSource {
+
+    private static final int MAX_DEVICE_ID_LEN = 200;
+    private static final int CM_NOTIFY_FILTER_TYPE_DEVICEINTERFACE = 0;
+    private static final int CM_NOTIFY_ACTION_DEVICEINTERFACEARRIVAL = 0;
+    private static final int CM_NOTIFY_ACTION_DEVICEINTERFACEREMOVAL = 1;
+
+    // Offset of SymbolicLink in CM_NOTIFY_EVENT_DATA: FilterType, Reserved, ClassGuid
+    private static final int SYMBOLIC_LINK_OFFSET = 24;
+
+    private static final Guid.GUID GUID_DEVINTERFACE_USB_DEVICE = Guid.GUID.fromString(
+            "{A5DCBF10-6530-11D2-901F-00C04FB951ED}");
+
+    // Queued after close() to wake up a waiting consumer
+    private static final DeviceChange CLOSED = DeviceChange.removal("");
+
+    /**
+     * CM_NOTIFY_FILTER with the union sized for its largest member, InstanceId[MAX_DEVICE_ID_LEN].
+     */
+    @Structure.FieldOrder({ "cbSize", "Flags", "FilterType", "Reserved", "ClassGuid", "Padding" })
+    public static class CM_NOTIFY_FILTER extends Structure {
+        public int cbSize;
+        public int Flags;
+        public int FilterType;
+        public int Reserved;
+        public Guid.GUID ClassGuid;
+        public byte[] Padding = new byte[MAX_DEVICE_ID_LEN * 2 - 16];
+    }
+
+    /**
+     * Notification callback, invoked on a system thread pool thread.
+     */
+    public interface CM_NOTIFY_CALLBACK extends StdCallLibrary.StdCallCallback {
+        int callback(Pointer hNotify, Pointer context, int action, Pointer eventData, int eventDataSize);
+    }
+
+    private final BlockingQueue<DeviceChange> events = new LinkedBlockingQueue<>();
+    // Held for as long as the registration exists so the native stub is not collected
+    private final CM_NOTIFY_CALLBACK callback = this::onNotification;
+    private Pointer notifyContext;
+    private volatile boolean closed;
+
+    @Override
+    public synchronized void start() {
+        CM_NOTIFY_FILTER filter = new CM_NOTIFY_FILTER();
+        filter.cbSize = filter.size();
+        filter.FilterType = CM_NOTIFY_FILTER_TYPE_DEVICEINTERFACE;
+        filter.ClassGuid = GUID_DEVINTERFACE_USB_DEVICE;
+
+        PointerByReference context = new PointerByReference();
+        int rc = SetupApiDeviceEnumerator.MyCfgmgr32.INSTANCE.CM_Register_Notification(filter, null, callback,
+                context);
+        if (rc != Cfgmgr32.CR_SUCCESS) {
+            throw new IllegalStateException("CM_Register_Notification failed - Error: " + rc);
+        }
+        notifyContext = context.getValue();
+    }
+
+    @Override
+    public List<DeviceChange> awaitChanges() throws InterruptedException {
+        if (closed) {
+            return Collections.emptyList();
+        }
+        List<DeviceChange> batch = new ArrayList<>();
+        batch.add(events.take());
+        events.drainTo(batch);
+
+        for (DeviceChange change : batch) {
+            if (change == CLOSED) {
+                return Collections.emptyList();
+            }
+        }
+        return batch;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (notifyContext != null) {
+            // Waits for callbacks in progress, so none runs after this returns
+            SetupApiDeviceEnumerator.MyCfgmgr32.INSTANCE.CM_Unregister_Notification(notifyContext);
+            notifyContext = null;
+        }
+        events.add(CLOSED);
+    }
+
+    /**
+     * Converts a device interface path, e.g. \\?\USB#VID_0403&amp;PID_601F#000000000001#{a5dcbf10-...},
+     * to the instance id of its device, e.g. USB\VID_0403&amp;PID_601F\000000000001.
+     */
+    static String instanceIdFromInterfacePath(String symbolicLink) {
+        String path = symbolicLink.startsWith("\\\\?\\") ? symbolicLink.substring(4) : symbolicLink;
+        int guidSeparator = path.lastIndexOf("#{");
+        if (guidSeparator >= 0) {
+            path = path.substring(0, guidSeparator);
+        }
+        return path.replace('#', '\\').toUpperCase(Locale.ROOT);
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Queues the change and returns at once; device lookups happen on the consumer thread.
+     */
+    private int onNotification(Pointer hNotify, Pointer context, int action, Pointer eventData, int eventDataSize) {
+        if (closed || eventData == null || eventDataSize <= SYMBOLIC_LINK_OFFSET) {
+            return 0;
+        }
+        String instanceId = instanceIdFromInterfacePath(eventData.getWideString(SYMBOLIC_LINK_OFFSET));
+        if (action == CM_NOTIFY_ACTION_DEVICEINTERFACEARRIVAL) {
+            events.add(DeviceChange.arrival(instanceId));
+        } else if (action == CM_NOTIFY_ACTION_DEVICEINTERFACEREMOVAL) {
+            events.add(DeviceChange.removal(instanceId));
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,404 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.platform.win32.WinError;
+import com.sun.jna.platform.win32.WinNT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An offline Windows installation, such as a mounted disk image, evaluated without booting it.
+ * Registry values are read from the SYSTEM and SOFTWARE hive files with {@link RegistryHive},
+ * devices from the hive's Enum tree and files relative to the volume root, so checks run
+ * against it on any OS. Nothing is written to the image.
+ */
+public class WindowsImage {
+
+    private static final String CONFIG_DIRECTORY = "Windows\\System32\\config";
+    private static final String SYSTEM_HIVE = "SYSTEM";
+    private static final String SOFTWARE_HIVE = "SOFTWARE";
+    private static final String CURRENT_CONTROL_SET = "CurrentControlSet";
+    private static final String REG_ENUM = "SYSTEM\\CurrentControlSet\\Enum";
+    private static final String REG_CLASS = "SYSTEM\\CurrentControlSet\\Control\\Class\\";
+
+    private final Path root;
+    private final RegistryHive system;
+    private final RegistryHive software;
+    // ControlSetNNN that CurrentControlSet links to when the image boots
+    private final String currentControlSet;
+    // Resolved key paths; NOT_FOUND is cached too, as the image never changes
+    private final Map<String, Integer> keys = new ConcurrentHashMap<>();
+    // Files resolved case-insensitively against the volume, by lower-cased Windows path
+    private final Map<String, Optional<Path>> files = new ConcurrentHashMap<>();
+
+    private WindowsImage(Path root, RegistryHive system, RegistryHive software) {
+        this.root = root;
+        this.system = system;
+        this.software = software;
+        this.currentControlSet = system == null ? null : findCurrentControlSet(system);
+    }
+
+    /**
+     * Opens the hives of an image, given either the root of its Windows volume or a directory
+     * holding copies of the hive files. File checks need the full volume.
+     *
+     * @throws IOException if neither hive is found or a hive cannot be parsed
+     */
+    public static WindowsImage open(Path directory) throws IOException {
+        Optional<Path> config = resolve(directory, CONFIG_DIRECTORY);
+        Path hives = config.isPresent() ? config.get() : directory;
+        RegistryHive system = openHive(hives, SYSTEM_HIVE);
+        RegistryHive software = openHive(hives, SOFTWARE_HIVE);
+        if (system == null && software == null) {
+            throw new IOException("No SYSTEM or SOFTWARE registry hive in " + directory);
+        }
+        return new WindowsImage(config.isPresent() ? directory : null, system, software);
+    }
+
+    /**
+     * Checks if a directory looks like an image {@link #open(Path)} accepts.
+     */
+    public static boolean isImage(Path directory) {
+        Optional<Path> config = resolve(directory, CONFIG_DIRECTORY);
+        Path hives = config.isPresent() ? config.get() : directory;
+        return resolve(hives, SYSTEM_HIVE).isPresent() || resolve(hives, SOFTWARE_HIVE).isPresent();
+    }
+
+    /**
+     * Returns the ControlSetNNN key CurrentControlSet stands for, or null without a SYSTEM hive.
+     */
+    public String getCurrentControlSet() {
+        return currentControlSet;
+    }
+
+    /**
+     * Returns a registry reader serving HKEY_LOCAL_MACHINE paths from the image's hives.
+     */
+    public RegistryReader registryReader() {
+        return new RegistryReader() {
+            @Override
+            public RegistryResults read(RegistryQuery query) {
+                RegistryResults results = new RegistryResults(query.size());
+                for (String keyPath : query.keyPaths()) {
+                    RegistryHive hive = hiveOf(keyPath);
+                    int key = findKey(keyPath);
+                    if (key == RegistryHive.NOT_FOUND) {
+                        continue;
+                    }
+                    for (RegistryQuery.Entry entry : query.entries(keyPath)) {
+                        try {
+                            decodeValue(hive, hive.findValue(key, entry.valueName), results, entry.slot);
+                        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                            // A corrupt value reads as missing, like an access error on a live system
+                        }
+                    }
+                }
+                return results;
+            }
+
+            @Override
+            public long getLastWriteTime(String keyPath) {
+                int key = findKey(keyPath);
+                return key == RegistryHive.NOT_FOUND ? KEY_MISSING : hiveOf(keyPath).lastWriteTime(key);
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release; the mappings are freed with the image
+            }
+        };
+    }
+
+    /**
+     * Returns a device enumerator over the devices recorded in the image's Enum tree.
+     * An offline image has no present devices, so every device it has installed is visited.
+     */
+    public DeviceEnumerator deviceEnumerator() {
+        return new DeviceEnumerator() {
+            @Override
+            public List<DeviceRecord> findAll(DeviceQuery query) {
+                try {
+                    return findDevices(query);
+                } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                    throw new DeviceEnumerationException(WinError.ERROR_REGISTRY_CORRUPT);
+                }
+            }
+
+            @Override
+            public Optional<DeviceRecord> findByInstanceId(String instanceId) {
+                int key = findKey(REG_ENUM + "\\" + instanceId);
+                try {
+                    return key == RegistryHive.NOT_FOUND ? Optional.<DeviceRecord>empty()
+                            : Optional.of(readDevice(instanceId, key));
+                } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                    throw new DeviceEnumerationException(WinError.ERROR_REGISTRY_CORRUPT);
+                }
+            }
+
+            @Override
+            public long getDeviceSetFingerprint(DeviceQuery query) {
+                String scope = query.getEnumerator() == null ? REG_ENUM : REG_ENUM + "\\" + query.getEnumerator();
+                int key = findKey(scope);
+                return key == RegistryHive.NOT_FOUND ? Fingerprint.UNKNOWN : system.lastWriteTime(key);
+            }
+        };
+    }
+
+    /**
+     * Returns a file probe mapping absolute Windows paths (C:\...) to the image's volume.
+     */
+    public FileProbe fileProbe() {
+        LocalFileProbe local = new LocalFileProbe();
+        return new FileProbe() {
+            @Override
+            public boolean exists(String path) {
+                return locate(path).isPresent();
+            }
+
+            @Override
+            public long lastModified(String path) {
+                Optional<Path> file = locate(path);
+                return file.isPresent() ? local.lastModified(file.get().toString()) : 0;
+            }
+
+            @Override
+            public long size(String path) {
+                Optional<Path> file = locate(path);
+                return file.isPresent() ? local.size(file.get().toString()) : 0;
+            }
+
+            @Override
+            public long fileVersion(String path) {
+                Optional<Path> file = locate(path);
+                return file.isPresent() ? local.fileVersion(file.get().toString()) : DriverVersion.INVALID;
+            }
+        };
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static RegistryHive openHive(Path directory, String name) throws IOException {
+        Optional<Path> file = resolve(directory, name);
+        return file.isPresent() ? RegistryHive.open(file.get()) : null;
+    }
+
+    /**
+     * Reads SYSTEM\Select\Current, which names the control set the image boots with.
+     */
+    private static String findCurrentControlSet(RegistryHive system) {
+        int current = 1;
+        try {
+            int select = system.findSubkey(system.rootKey(), "Select");
+            int value = select == RegistryHive.NOT_FOUND ? RegistryHive.NOT_FOUND : system.findValue(select, "Current");
+            if (value != RegistryHive.NOT_FOUND && system.valueType(value) == WinNT.REG_DWORD) {
+                current = system.valueData(value).getInt(0);
+            }
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            // Fall back to the first control set
+        }
+        return String.format(Locale.ROOT, "ControlSet%03d", current);
+    }
+
+    private RegistryHive hiveOf(String keyPath) {
+        int separator = keyPath.indexOf('\\');
+        String hive = separator < 0 ? keyPath : keyPath.substring(0, separator);
+        if (hive.equalsIgnoreCase(SYSTEM_HIVE)) {
+            return system;
+        }
+        return hive.equalsIgnoreCase(SOFTWARE_HIVE) ? software : null;
+    }
+
+    /**
+     * Finds an HKEY_LOCAL_MACHINE key path in its hive, or {@link RegistryHive#NOT_FOUND}.
+     * CurrentControlSet only exists while Windows runs, so it is resolved to its control set here.
+     */
+    private int findKey(String keyPath) {
+        Integer cached = keys.get(keyPath.toLowerCase(Locale.ROOT));
+        if (cached != null) {
+            return cached;
+        }
+
+        int key = RegistryHive.NOT_FOUND;
+        RegistryHive hive = hiveOf(keyPath);
+        if (hive != null) {
+            int separator = keyPath.indexOf('\\');
+            String path = separator < 0 ? "" : keyPath.substring(separator + 1);
+            if (hive == system && (path.regionMatches(true, 0, CURRENT_CONTROL_SET + "\\", 0,
+                    CURRENT_CONTROL_SET.length() + 1) || path.equalsIgnoreCase(CURRENT_CONTROL_SET))) {
+                path = currentControlSet + path.substring(CURRENT_CONTROL_SET.length());
+            }
+            try {
+                key = hive.findKey(hive.rootKey(), path);
+            } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                // A corrupt key reads as missing
+            }
+        }
+        keys.put(keyPath.toLowerCase(Locale.ROOT), key);
+        return key;
+    }
+
+    private static void decodeValue(RegistryHive hive, int value, RegistryResults results, int slot) {
+        if (value == RegistryHive.NOT_FOUND) {
+            return;
+        }
+        ByteBuffer data = hive.valueData(value);
+        switch (hive.valueType(value)) {
+            case WinNT.REG_DWORD:
+                if (data.limit() >= 4) {
+                    results.setDword(slot, data.getInt(0));
+                } else {
+                    results.setOther(slot);
+                }
+                break;
+            case WinNT.REG_SZ:
+            case WinNT.REG_EXPAND_SZ:
+                results.setString(slot, RegistryHive.decodeString(data));
+                break;
+            default:
+                results.setOther(slot);
+                break;
+        }
+    }
+
+    /**
+     * Walks the Enum tree (enumerator, device, instance keys) and returns every matching device.
+     */
+    private List<DeviceRecord> findDevices(DeviceQuery query) {
+        List<DeviceRecord> found = new ArrayList<>(1);
+        int enumKey = findKey(REG_ENUM);
+        if (enumKey == RegistryHive.NOT_FOUND) {
+            return found;
+        }
+        List<String> enumerators = query.getEnumerator() != null
+                ? Collections.singletonList(query.getEnumerator()) : system.subkeyNames(enumKey);
+        for (String enumerator : enumerators) {
+            int enumeratorKey = system.findSubkey(enumKey, enumerator);
+            if (enumeratorKey == RegistryHive.NOT_FOUND) {
+                continue;
+            }
+            for (String deviceId : system.subkeyNames(enumeratorKey)) {
+                int deviceKey = system.findSubkey(enumeratorKey, deviceId);
+                for (String instance : system.subkeyNames(deviceKey)) {
+                    int instanceKey = system.findSubkey(deviceKey, instance);
+                    if (matches(instanceKey, query)) {
+                        found.add(readDevice(enumerator + "\\" + deviceId + "\\" + instance, instanceKey));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Matches a device instance key by hardware IDs first, then by display names.
+     */
+    private boolean matches(int instanceKey, DeviceQuery query) {
+        if (!query.getHardwareIdPrefixes().isEmpty()) {
+            for (String hardwareId : readStrings(instanceKey, "HardwareID")) {
+                if (query.matchesHardwareId(hardwareId)) {
+                    return true;
+                }
+            }
+        }
+        if (query.hasNamePatterns()) {
+            String friendlyName = readString(instanceKey, "FriendlyName");
+            if (friendlyName != null && query.matchesName(friendlyName)) {
+                return true;
+            }
+            String description = readString(instanceKey, "DeviceDesc");
+            return description != null && query.matchesName(description);
+        }
+        return false;
+    }
+
+    /**
+     * Reads a device's properties; its driver version comes from the driver key under Control\Class.
+     */
+    private DeviceRecord readDevice(String instanceId, int instanceKey) {
+        String driverVersion = null;
+        String driver = readString(instanceKey, "Driver");
+        if (driver != null) {
+            int driverKey = findKey(REG_CLASS + driver);
+            if (driverKey != RegistryHive.NOT_FOUND) {
+                driverVersion = readString(driverKey, "DriverVersion");
+            }
+        }
+        return new DeviceRecord(instanceId, readStrings(instanceKey, "HardwareID"),
+                readString(instanceKey, "FriendlyName"), readString(instanceKey, "DeviceDesc"), driverVersion);
+    }
+
+    /**
+     * Reads a string value of a SYSTEM key, or null. Indirect strings such as
+     * "@oem3.inf,%desc%;FT601 USB 3.0 Bridge Device" are reduced to their fallback text.
+     */
+    private String readString(int key, String valueName) {
+        int value = system.findValue(key, valueName);
+        if (value == RegistryHive.NOT_FOUND || system.valueType(value) != WinNT.REG_SZ) {
+            return null;
+        }
+        String text = RegistryHive.decodeString(system.valueData(value));
+        int fallback = text.startsWith("@") ? text.lastIndexOf(';') : -1;
+        return fallback < 0 ? text : text.substring(fallback + 1);
+    }
+
+    private List<String> readStrings(int key, String valueName) {
+        int value = system.findValue(key, valueName);
+        if (value == RegistryHive.NOT_FOUND || system.valueType(value) != WinNT.REG_MULTI_SZ) {
+            return Collections.emptyList();
+        }
+        return RegistryHive.decodeMultiString(system.valueData(value));
+    }
+
+    /**
+     * Maps an absolute Windows path to an existing file on the image's volume.
+     */
+    private Optional<Path> locate(String path) {
+        if (root == null || path.length() < 3 || path.charAt(1) != ':' || path.charAt(2) != '\\') {
+            return Optional.empty();
+        }
+        return files.computeIfAbsent(path.toLowerCase(Locale.ROOT), p -> resolve(root, path.substring(3)));
+    }
+
+    /**
+     * Resolves a backslash-separated relative path one name at a time, falling back to a
+     * case-insensitive match, as a volume mounted on Linux may be case-sensitive.
+     */
+    private static Optional<Path> resolve(Path directory, String relativePath) {
+        Path current = directory;
+        for (String name : relativePath.split("\\\\")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            Path exact = current.resolve(name);
+            if (Files.exists(exact)) {
+                current = exact;
+                continue;
+            }
+            File[] entries = current.toFile().listFiles();
+            Path match = null;
+            if (entries != null) {
+                for (File entry : entries) {
+                    if (entry.getName().equalsIgnoreCase(name)) {
+                        match = entry.toPath();
+                        break;
+                    }
+                }
+            }
+            if (match == null) {
+                return Optional.empty();
+            }
+            current = match;
+        }
+        return Optional.of(current);
+    }
+}
@@ -0,0 +1,41 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.Library;
+import com.sun.jna.Platform;
+
+/**
+ * Privilege probe backed by the Windows shell.
+ */
+public class WindowsPrivilegeProbe implements PrivilegeProbe {
+
+    /**
+     * Custom JNA interface for Shell32 functions.
+     */
+    public interface MyShell32 extends Library {
+        MyShell32 INSTANCE = NativeLibraries.load("shell32", MyShell32.class);
+
+        boolean IsUserAnAdmin();
+    }
+
+    // Cached privilege check; the token does not change while the process runs
+    private static volatile Boolean administrator;
+
+    @Override
+    public boolean isAdministrator() {
+        Boolean result = administrator;
+        if (result == null) {
+            // Elsewhere there is no shell32 to bind, and no Windows administrator
+            if (!Platform.isWindows()) {
+                administrator = false;
+                return false;
+            }
+            try {
+                result = MyShell32.INSTANCE.IsUserAnAdmin();
+            } catch (Throwable e) {
+                result = false;
+            }
+            administrator = result;
+        }
+        return result;
+    }
+}
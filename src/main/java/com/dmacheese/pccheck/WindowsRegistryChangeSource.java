@@ -0,0 +1,188 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.platform.win32.WinError;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.platform.win32.WinReg;
+import com.sun.jna.platform.win32.WinReg.HKEY;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Change source backed by RegNotifyChangeKeyValue.
+ * Each watched key gets an auto-reset event; the waiting thread sleeps in
+ * WaitForMultipleObjects and costs no CPU until a key is written. A key that
+ * does not exist yet is watched through its nearest existing ancestor.
+ * <p>
+ * A registration lasts only as long as the thread that made it, so {@link #watch} and
+ * {@link #awaitChanges()} must be called from the same thread. A key that cannot be
+ * watched throws an IllegalStateException rather than never reporting a change.
+ */
+public class WindowsRegistryChangeSource implements RegistryChangeSource {
+
+    private static final int REG_NOTIFY_CHANGE_NAME = 0x00000001;
+    private static final int REG_NOTIFY_CHANGE_LAST_SET = 0x00000004;
+    // Registrations end with the thread that made them; watch() and awaitChanges() run on the same thread
+    private static final int NOTIFY_FILTER = REG_NOTIFY_CHANGE_NAME | REG_NOTIFY_CHANGE_LAST_SET;
+
+    // WaitForMultipleObjects handles at most 64 objects, one of which is the stop event
+    private static final int MAXIMUM_WAIT_OBJECTS = 64;
+    private static final int MAX_WATCHED_KEYS = MAXIMUM_WAIT_OBJECTS - 1;
+
+    // Settings pages write several values in a row; wait this long to report them together
+    private static final int COALESCE_MILLIS = 50;
+
+    private final List<Watch> watches = new ArrayList<>();
+    private final WinNT.HANDLE stopEvent;
+    private volatile boolean closed;
+
+    public WindowsRegistryChangeSource() {
+        this.stopEvent = NativeLibraries.kernel32().CreateEvent(null, true, false, null);
+    }
+
+    @Override
+    public synchronized void watch(Collection<String> keyPaths) {
+        if (watches.size() + keyPaths.size() > MAX_WATCHED_KEYS) {
+            throw new IllegalArgumentException("Cannot watch more than " + MAX_WATCHED_KEYS + " registry keys");
+        }
+        for (String keyPath : keyPaths) {
+            Watch watch = new Watch(keyPath, NativeLibraries.kernel32().CreateEvent(null, false, false, null));
+            // Added first so close() releases the event even if arming fails
+            watches.add(watch);
+            arm(watch);
+        }
+    }
+
+    @Override
+    public Set<String> awaitChanges() throws InterruptedException {
+        WinNT.HANDLE[] handles;
+        synchronized (this) {
+            handles = new WinNT.HANDLE[watches.size() + 1];
+            for (int i = 0; i < watches.size(); i++) {
+                handles[i] = watches.get(i).event;
+            }
+            handles[watches.size()] = stopEvent;
+        }
+
+        Set<String> changed = new LinkedHashSet<>();
+        int timeout = WinBase.INFINITE;
+        while (true) {
+            if (closed) {
+                return Collections.emptySet();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            int rc = NativeLibraries.kernel32().WaitForMultipleObjects(handles.length, handles, false, timeout);
+            if (rc == WinError.WAIT_TIMEOUT) {
+                return changed;
+            }
+            int index = rc - WinBase.WAIT_OBJECT_0;
+            if (index < 0 || index >= handles.length) {
+                throw new IllegalStateException("WaitForMultipleObjects failed - Error: "
+                        + NativeLibraries.kernel32().GetLastError());
+            }
+            if (index == handles.length - 1) {
+                return Collections.emptySet();
+            }
+
+            Watch watch;
+            synchronized (this) {
+                watch = watches.get(index);
+                // Notifications are one-shot; re-arm before reading so no write is missed
+                arm(watch);
+            }
+            changed.add(watch.keyPath);
+            timeout = COALESCE_MILLIS;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        NativeLibraries.kernel32().SetEvent(stopEvent);
+        for (Watch watch : watches) {
+            closeKey(watch);
+            NativeLibraries.kernel32().CloseHandle(watch.event);
+        }
+        watches.clear();
+        // The stop event stays open so a waiting thread can still observe it
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Requests a notification on the watch's event. An open handle to the key itself is
+     * re-armed in place; otherwise the key, or its nearest existing ancestor, is (re)opened.
+     *
+     * @throws IllegalStateException if no notification could be registered
+     */
+    private void arm(Watch watch) {
+        if (watch.hKey != null && watch.exact && register(watch) == WinError.ERROR_SUCCESS) {
+            return;
+        }
+
+        // Closing a handle with a pending notification signals the event, so clear it afterwards
+        closeKey(watch);
+        NativeLibraries.kernel32().ResetEvent(watch.event);
+
+        String path = watch.keyPath;
+        while (true) {
+            WinReg.HKEYByReference phkKey = new WinReg.HKEYByReference();
+            int rc = NativeLibraries.advapi32().RegOpenKeyEx(WinReg.HKEY_LOCAL_MACHINE, path, 0, WinNT.KEY_NOTIFY,
+                    phkKey);
+            if (rc == WinError.ERROR_SUCCESS) {
+                watch.hKey = phkKey.getValue();
+                watch.exact = path.equals(watch.keyPath);
+                break;
+            }
+            int separator = path.lastIndexOf('\\');
+            if (separator < 0) {
+                throw new IllegalStateException("Cannot open " + watch.keyPath + " or any parent key - Error: " + rc);
+            }
+            path = path.substring(0, separator);
+        }
+
+        int rc = register(watch);
+        if (rc != WinError.ERROR_SUCCESS) {
+            closeKey(watch);
+            throw new IllegalStateException("Cannot watch " + watch.keyPath + " - Error: " + rc);
+        }
+    }
+
+    /**
+     * Registers for the next change. An ancestor is watched with its subtree so the key's creation is seen.
+     */
+    private static int register(Watch watch) {
+        return NativeLibraries.advapi32().RegNotifyChangeKeyValue(watch.hKey, !watch.exact, NOTIFY_FILTER,
+                watch.event, true);
+    }
+
+    private static void closeKey(Watch watch) {
+        if (watch.hKey != null) {
+            NativeLibraries.advapi32().RegCloseKey(watch.hKey);
+            watch.hKey = null;
+        }
+    }
+
+    private static final class Watch {
+        final String keyPath;
+        final WinNT.HANDLE event;
+        HKEY hKey;
+        boolean exact;
+
+        Watch(String keyPath, WinNT.HANDLE event) {
+            this.keyPath = keyPath;
+            this.event = event;
+        }
+    }
+}
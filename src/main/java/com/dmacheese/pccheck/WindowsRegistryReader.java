@@ -0,0 +1,189 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.Library;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.platform.win32.WinError;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.platform.win32.WinReg;
+import com.sun.jna.platform.win32.WinReg.HKEY;
+import com.sun.jna.ptr.IntByReference;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry reader backed by the live HKEY_LOCAL_MACHINE hive.
+ * Each key is opened once and all of its values are fetched with a single
+ * RegQueryMultipleValues call, falling back to per-value reads on the same
+ * handle when one of the values is missing.
+ */
+public class WindowsRegistryReader implements RegistryReader {
+
+    /**
+     * Custom JNA interface for Advapi32 functions missing from jna-platform.
+     */
+    public interface MyAdvapi32 extends Library {
+        MyAdvapi32 INSTANCE = NativeLibraries.load("advapi32", MyAdvapi32.class);
+
+        int RegQueryMultipleValues(HKEY hKey, VALENT[] valList, int numVals, Pointer lpValueBuf,
+                IntByReference ldwTotsize);
+    }
+
+    /**
+     * Native VALENT structure used by RegQueryMultipleValues.
+     */
+    @Structure.FieldOrder({ "ve_valuename", "ve_valuelen", "ve_valueptr", "ve_type" })
+    public static class VALENT extends Structure {
+        public WString ve_valuename;
+        public int ve_valuelen;
+        public Pointer ve_valueptr;
+        public int ve_type;
+    }
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    // Opened key handles; a null value marks a key that could not be opened
+    private final Map<String, HKEY> openKeys = new HashMap<>();
+    // Allocated on first read so constructing the reader does not initialize JNA
+    private Memory buffer;
+
+    @Override
+    public synchronized RegistryResults read(RegistryQuery query) {
+        if (buffer == null) {
+            buffer = NativeLibraries.allocate(INITIAL_BUFFER_SIZE);
+        }
+        RegistryResults results = new RegistryResults(query.size());
+        for (String keyPath : query.keyPaths()) {
+            HKEY hKey = openKey(keyPath);
+            if (hKey != null) {
+                readKey(hKey, query.entries(keyPath), results);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public synchronized long getLastWriteTime(String keyPath) {
+        HKEY hKey = openKey(keyPath);
+        if (hKey == null) {
+            return KEY_MISSING;
+        }
+
+        WinBase.FILETIME lastWriteTime = new WinBase.FILETIME();
+        int rc = NativeLibraries.advapi32().RegQueryInfoKey(hKey, null, null, null, null, null, null, null, null, null,
+                null, lastWriteTime);
+        if (rc != WinError.ERROR_SUCCESS) {
+            return KEY_MISSING;
+        }
+        return ((long) lastWriteTime.dwHighDateTime << 32) | (lastWriteTime.dwLowDateTime & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public synchronized void invalidate(String keyPath) {
+        HKEY hKey = openKeys.remove(keyPath);
+        if (hKey != null) {
+            NativeLibraries.advapi32().RegCloseKey(hKey);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (HKEY hKey : openKeys.values()) {
+            if (hKey != null) {
+                NativeLibraries.advapi32().RegCloseKey(hKey);
+            }
+        }
+        openKeys.clear();
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Opens a key under HKEY_LOCAL_MACHINE, reusing a previously opened handle.
+     */
+    private HKEY openKey(String keyPath) {
+        if (openKeys.containsKey(keyPath)) {
+            return openKeys.get(keyPath);
+        }
+
+        WinReg.HKEYByReference phkKey = new WinReg.HKEYByReference();
+        int rc = NativeLibraries.advapi32().RegOpenKeyEx(WinReg.HKEY_LOCAL_MACHINE, keyPath, 0, WinNT.KEY_READ, phkKey);
+        HKEY hKey = rc == WinError.ERROR_SUCCESS ? phkKey.getValue() : null;
+        openKeys.put(keyPath, hKey);
+        return hKey;
+    }
+
+    /**
+     * Reads all requested values of an open key in one native call.
+     */
+    private void readKey(HKEY hKey, List<RegistryQuery.Entry> entries, RegistryResults results) {
+        VALENT[] valents = (VALENT[]) new VALENT().toArray(entries.size());
+        for (int i = 0; i < valents.length; i++) {
+            valents[i].ve_valuename = new WString(entries.get(i).valueName);
+        }
+
+        IntByReference totalSize = new IntByReference((int) buffer.size());
+        int rc = MyAdvapi32.INSTANCE.RegQueryMultipleValues(hKey, valents, valents.length, buffer, totalSize);
+        if (rc == WinError.ERROR_MORE_DATA) {
+            buffer = NativeLibraries.allocate(totalSize.getValue());
+            totalSize.setValue((int) buffer.size());
+            rc = MyAdvapi32.INSTANCE.RegQueryMultipleValues(hKey, valents, valents.length, buffer, totalSize);
+        }
+
+        if (rc == WinError.ERROR_SUCCESS) {
+            for (int i = 0; i < valents.length; i++) {
+                store(results, entries.get(i).slot, valents[i].ve_type, valents[i].ve_valueptr,
+                        valents[i].ve_valuelen);
+            }
+        } else {
+            // At least one value is missing; read the rest individually on the same handle
+            for (RegistryQuery.Entry entry : entries) {
+                readValue(hKey, entry, results);
+            }
+        }
+    }
+
+    /**
+     * Reads a single value from an open key.
+     */
+    private void readValue(HKEY hKey, RegistryQuery.Entry entry, RegistryResults results) {
+        IntByReference type = new IntByReference();
+        IntByReference size = new IntByReference((int) buffer.size());
+        int rc = NativeLibraries.advapi32().RegQueryValueEx(hKey, entry.valueName, 0, type, buffer, size);
+        if (rc == WinError.ERROR_MORE_DATA) {
+            buffer = NativeLibraries.allocate(size.getValue());
+            size.setValue((int) buffer.size());
+            rc = NativeLibraries.advapi32().RegQueryValueEx(hKey, entry.valueName, 0, type, buffer, size);
+        }
+        if (rc == WinError.ERROR_SUCCESS) {
+            store(results, entry.slot, type.getValue(), buffer, size.getValue());
+        }
+    }
+
+    /**
+     * Decodes raw value data into the results.
+     */
+    private static void store(RegistryResults results, int slot, int type, Pointer data, int length) {
+        switch (type) {
+            case WinNT.REG_DWORD:
+                if (length >= 4) {
+                    results.setDword(slot, data.getInt(0));
+                } else {
+                    results.setOther(slot);
+                }
+                break;
+            case WinNT.REG_SZ:
+            case WinNT.REG_EXPAND_SZ:
+                results.setString(slot, length >= 2 ? data.getWideString(0) : "");
+                break;
+            default:
+                results.setOther(slot);
+                break;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.dmacheese.pccheck;
+
+import com.sun.jna.platform.win32.Advapi32Util;
+import com.sun.jna.platform.win32.Win32Exception;
+import com.sun.jna.platform.win32.WinReg;
+
+/**
+ * Registry writer backed by the live HKEY_LOCAL_MACHINE hive.
+ */
+public class WindowsRegistryWriter implements RegistryWriter {
+
+    private static final int SET_VALUE_TRACE = NativeTrace.register("advapi32.RegSetValueEx (Advapi32Util)");
+
+    @Override
+    public void setDword(String keyPath, String valueName, int value) {
+        long start = System.nanoTime();
+        int error = 0;
+        try {
+            Advapi32Util.registrySetIntValue(WinReg.HKEY_LOCAL_MACHINE, keyPath, valueName, value);
+        } catch (Win32Exception e) {
+            error = e.getErrorCode();
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            NativeTrace.record(SET_VALUE_TRACE, keyPath + "\\" + valueName, value, error, error, start,
+                    System.nanoTime() - start);
+        }
+    }
+}
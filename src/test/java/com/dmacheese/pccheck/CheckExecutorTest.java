@@ -0,0 +1,82 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs more checks than there are processors, some of them stuck, against their deadlines.
+ */
+class CheckExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CheckExecutor executor = new CheckExecutor(500);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    void everyCheckGetsItsWholeDeadline() {
+        // Each check alone fits its deadline; run in batches behind each other, the last ones would not
+        List<CheckExecutor.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            tasks.add(new CheckExecutor.Task("check" + i, () -> {
+                Thread.sleep(300);
+                return CheckResult.of("Check", true, "OK");
+            }));
+        }
+
+        for (CheckResult result : executor.runAll(tasks, result -> {
+        })) {
+            assertEquals(CheckResult.Status.PASS, result.getStatus(), result.getId());
+        }
+    }
+
+    @Test
+    void stuckChecksDoNotStarveLaterRuns() {
+        // Like a thread blocked in a native call, these ignore the interrupt sent at their deadline
+        List<CheckExecutor.Task> stuck = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            stuck.add(new CheckExecutor.Task("stuck" + i, () -> {
+                awaitUninterruptibly(release);
+                return CheckResult.of("Stuck", true, "OK");
+            }));
+        }
+        for (CheckResult result : executor.runAll(stuck, result -> {
+        })) {
+            assertEquals(CheckResult.Status.TIMED_OUT, result.getStatus(), result.getId());
+        }
+
+        List<CheckResult> results = executor.runAll(Collections.singletonList(
+                new CheckExecutor.Task("quick", () -> CheckResult.of("Quick", true, "OK"))), result -> {
+                });
+        assertEquals(CheckResult.Status.PASS, results.get(0).getStatus());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
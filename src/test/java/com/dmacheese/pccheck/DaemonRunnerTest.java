@@ -0,0 +1,177 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Serves requests from a daemon over a simulated backend, through a Unix domain socket and through
+ * the loopback TCP fallback.
+ */
+@EnabledOnOs(OS.LINUX)
+class DaemonRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<SocketChannel> idle = new ArrayList<>();
+    private DaemonRunner daemon;
+    private Thread daemonThread;
+    private Path endpoint;
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        for (SocketChannel channel : idle) {
+            channel.close();
+        }
+        if (daemon != null) {
+            daemon.stop();
+            // The daemon deletes its endpoint on the way out; the temp directory is removed after that
+            daemonThread.join(5000);
+        }
+    }
+
+    @Test
+    void clientGetsTheReportOverAUnixDomainSocket() throws Exception {
+        assumeTrue(LocalEndpoint.isUnixDomainSupported());
+        start(5000, true);
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        int exitCode = new DaemonClient(new PrintStream(report, true, "UTF-8")).run(CommandLineOptions.parse(
+                "--connect", "--socket", endpoint.toString(), "--only", SystemCheckService.CHECK_DIRECTX));
+        String json = new String(report.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(HeadlessRunner.EXIT_PASS, exitCode, json);
+        assertTrue(json.contains("\"id\":\"directx\""), json);
+        assertFalse(json.contains("\"id\":\"ftdibus\""), json);
+    }
+
+    @Test
+    void stalledClientsAreDroppedAtTheDeadline() throws Exception {
+        assumeTrue(LocalEndpoint.isUnixDomainSupported());
+        start(200, true);
+
+        // More silent clients than handlers; each holds its handler until the deadline
+        for (int i = 0; i < DaemonRunner.HANDLER_THREADS * 2; i++) {
+            idle.add(LocalEndpoint.connect(endpoint));
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertEquals("OK pong\n", request("ping"));
+            // The daemon closed the silent connections without a reply
+            for (SocketChannel channel : idle) {
+                assertEquals(-1, channel.read(ByteBuffer.allocate(16)));
+            }
+        });
+    }
+
+    @Test
+    void connectionsBeyondTheQueueAreRefused() throws Exception {
+        assumeTrue(LocalEndpoint.isUnixDomainSupported());
+        start(10000, true);
+
+        // Silent clients take every handler and queue slot. One that arrives before a new handler thread
+        // is running can be refused, so a second wave, once the handlers hold theirs, fills any slot left
+        for (int i = 0; i < DaemonRunner.HANDLER_THREADS + DaemonRunner.MAX_QUEUED_REQUESTS; i++) {
+            idle.add(LocalEndpoint.connect(endpoint));
+        }
+        Thread.sleep(200);
+        for (int i = 0; i < DaemonRunner.HANDLER_THREADS; i++) {
+            idle.add(LocalEndpoint.connect(endpoint));
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertEquals("ERROR Daemon busy\n", request("ping")));
+    }
+
+    @Test
+    void tcpFallbackRequiresTheEndpointToken() throws Exception {
+        start(5000, false);
+
+        String[] fields = new String(Files.readAllBytes(endpoint), StandardCharsets.US_ASCII).trim().split(" ");
+        assertEquals(2, fields.length);
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(endpoint)));
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                Integer.parseInt(fields[0]));
+
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            assertEquals("ERROR Not authorized\n", exchange(channel, "ping"));
+        }
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            assertEquals("ERROR Not authorized\n", exchange(channel, LocalEndpoint.AUTH_REQUEST + " 00\nping"));
+        }
+        // LocalEndpoint.connect sends the token from the endpoint file
+        assertEquals("OK pong\n", request("ping"));
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Starts a daemon and waits until it answers.
+     */
+    private void start(long requestTimeoutMillis, boolean unixDomain) throws Exception {
+        endpoint = dir.resolve("daemon.sock");
+        SystemCheckService service = new SystemCheckService(new SimulatedBackend().build(CheckPlan.loadDefault()),
+                CheckDefinitions.defaults());
+        daemon = new DaemonRunner(service, () -> false, new PrintStream(new ByteArrayOutputStream()),
+                requestTimeoutMillis, unixDomain);
+        CommandLineOptions options = CommandLineOptions.parse("--daemon", "--socket", endpoint.toString());
+        daemonThread = new Thread(() -> daemon.run(options), "daemon-under-test");
+        daemonThread.setDaemon(true);
+        daemonThread.start();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            try {
+                if (request("ping").equals("OK pong\n")) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Daemon did not start");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private String request(String line) throws IOException {
+        try (SocketChannel channel = LocalEndpoint.connect(endpoint)) {
+            return exchange(channel, line);
+        }
+    }
+
+    private static String exchange(SocketChannel channel, String line) throws IOException {
+        ByteBuffer request = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (channel.read(buffer) != -1) {
+            reply.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return new String(reply.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
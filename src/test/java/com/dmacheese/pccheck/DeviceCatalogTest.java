@@ -0,0 +1,106 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Matches devices against a catalog of several models and validates every attached one.
+ */
+class DeviceCatalogTest {
+
+    private static final String FT601_HWID = "USB\\VID_0403&PID_601F";
+    private static final String FT600_HWID = "USB\\VID_0403&PID_601E";
+
+    private final DeviceTarget ft601 = target("ft601", "FT601", "USB", FT601_HWID, "FTDI SuperSpeed", "1.3.0.8+");
+    private final DeviceTarget ft600 = target("ft600", "FT600", "USB", FT600_HWID, null, "1.3.0.4-1.3.0.10");
+    private final DeviceCatalog catalog = DeviceCatalog.of(Arrays.asList(ft601, ft600));
+
+    @Test
+    void hardwareIdMatchBeatsAnEarlierNameMatch() {
+        DeviceRecord device = new DeviceRecord("USB\\VID_0403&PID_601E\\1", hwids(FT600_HWID),
+                "FTDI SuperSpeed-FIFO Bridge", null, "1.3.0.4");
+        assertEquals(ft600, catalog.find(device).get());
+    }
+
+    @Test
+    void targetUnderAnotherEnumeratorFallsThroughToTheNextOne() {
+        // The first target only accepts USB devices, the second one any enumerator
+        DeviceTarget usbOnly = target("usb", "USB Bridge", "USB", FT601_HWID, null, "1.3.0.8+");
+        DeviceTarget anyBus = target("any", "Any Bridge", null, FT601_HWID, null, "1.3.0.8+");
+        DeviceCatalog mixed = DeviceCatalog.of(Arrays.asList(usbOnly, anyBus));
+
+        DeviceRecord device = new DeviceRecord("FTDIBUS\\VID_0403+PID_601F\\1", hwids(FT601_HWID), null, null,
+                "1.3.0.10");
+        assertEquals(anyBus, mixed.find(device).get());
+    }
+
+    @Test
+    void deviceUnderNoTargetsEnumeratorIsNotFound() {
+        DeviceRecord device = new DeviceRecord("HID\\VID_0403&PID_601F\\1", hwids(FT601_HWID), null, null,
+                "1.3.0.10");
+        assertFalse(catalog.find(device).isPresent());
+    }
+
+    @Test
+    void everyAttachedModelIsValidated() {
+        SimulatedDeviceEnumerator devices = new SimulatedDeviceEnumerator();
+        devices.add(new DeviceRecord("USB\\VID_0403&PID_601F\\1", hwids(FT601_HWID), null, null, "1.3.0.10"));
+        devices.add(new DeviceRecord("USB\\VID_0403&PID_601E\\2", hwids(FT600_HWID), null, null, "1.3.0.2"));
+
+        CheckResult result = check(devices).evaluate();
+        // The first device alone would pass; the second one has a driver outside its model's range
+        assertFalse(result.isPassed());
+        assertEquals("Installed (FT601, 1.3.0.10); Wrong Version (FT600, 1.3.0.2, expected 1.3.0.4-1.3.0.10)",
+                result.getMessage());
+    }
+
+    @Test
+    void passesWhenEveryAttachedDeviceHasAnAcceptedDriver() {
+        SimulatedDeviceEnumerator devices = new SimulatedDeviceEnumerator();
+        devices.add(new DeviceRecord("USB\\VID_0403&PID_601F\\1", hwids(FT601_HWID), null, null, "1.3.0.10"));
+        devices.add(new DeviceRecord("USB\\VID_0403&PID_601F\\2", hwids(FT601_HWID), null, null, "1.3.0.10"));
+        devices.add(new DeviceRecord("USB\\VID_0403&PID_601E\\3", hwids(FT600_HWID), null, null, "1.3.0.4"));
+
+        CheckResult result = check(devices).evaluate();
+        assertTrue(result.isPassed());
+        assertEquals("Installed (FT601, 1.3.0.10); Installed (FT600, 1.3.0.4)", result.getMessage());
+        assertEquals(DriverVersion.parse("1.3.0.10"), result.getValue());
+    }
+
+    @Test
+    void noMatchingDeviceIsNotFound() {
+        SimulatedDeviceEnumerator devices = new SimulatedDeviceEnumerator();
+        devices.add(new DeviceRecord("USB\\VID_046D&PID_C52B\\1", hwids("USB\\VID_046D&PID_C52B"), null, null,
+                "1.0.0.0"));
+
+        CheckResult result = check(devices).evaluate();
+        assertFalse(result.isPassed());
+        assertEquals("Device Not Found", result.getMessage());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private DeviceDriverCheck check(DeviceEnumerator devices) {
+        return DeviceDriverCheck.of(new SystemCheckService(new InMemoryRegistryReader(),
+                CheckPlan.of(Collections.<RegistryRule>emptyList()), catalog, devices, new InMemoryFileProbe()));
+    }
+
+    private static DeviceTarget target(String id, String name, String enumerator, String hardwareId,
+            String namePattern, String versions) {
+        List<String> names = namePattern == null ? Collections.<String>emptyList()
+                : Collections.singletonList(namePattern);
+        return new DeviceTarget(id, name, enumerator, Collections.singletonList(hardwareId), names, null,
+                Collections.singletonList(VersionRange.parse(versions)));
+    }
+
+    private static List<String> hwids(String hardwareId) {
+        return Collections.singletonList(hardwareId + "&REV_0001");
+    }
+}
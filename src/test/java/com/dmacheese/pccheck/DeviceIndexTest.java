@@ -0,0 +1,179 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays plug and unplug sequences through {@link SimulatedDeviceChangeSource} into a {@link DeviceIndex}.
+ */
+class DeviceIndexTest {
+
+    private static final String FT601_HWID = "USB\\VID_0403&PID_601F";
+    private static final String FIRST = "USB\\VID_0403&PID_601F\\000000000001";
+    private static final String SECOND = "USB\\VID_0403&PID_601F\\000000000002";
+
+    private final DeviceQuery query = new DeviceQuery("USB", (String) null, FT601_HWID);
+    private SimulatedDeviceEnumerator devices;
+    private SimulatedDeviceChangeSource source;
+    private DeviceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        devices = new SimulatedDeviceEnumerator();
+        devices.add(device("USB\\VID_046D&PID_C52B\\5&1A2B3C4D&0&1", "USB\\VID_046D&PID_C52B", "1.0.0.0"));
+        source = new SimulatedDeviceChangeSource(devices);
+        index = new DeviceIndex(devices, query);
+    }
+
+    @Test
+    void seedIndexesEveryMatchingDevice() throws InterruptedException {
+        devices.add(ft601(FIRST, "1.3.0.10"));
+        devices.add(ft601(SECOND, "1.3.0.8"));
+        source.start();
+        index.seed();
+        assertEquals(2, index.size());
+        assertEquals(FIRST, index.first().get().getInstanceId());
+        assertEquals(1, devices.getEnumerationCount());
+
+        source.remove(FIRST);
+        assertTrue(applyAll(source.awaitChanges()));
+
+        // The second device was already indexed, so its removal needs no new enumeration
+        assertEquals(SECOND, index.first().get().getInstanceId());
+        assertEquals("1.3.0.8", index.all().get(0).getDriverVersion().get());
+        assertEquals(1, devices.getEnumerationCount());
+    }
+
+    @Test
+    void removalAfterAnEmptySeedNeedsNoEnumeration() throws InterruptedException {
+        source.start();
+        index.seed();
+        assertFalse(index.first().isPresent());
+
+        source.arrive(ft601(FIRST, "1.3.0.10"));
+        source.arrive(ft601(SECOND, "1.3.0.8"));
+        assertTrue(applyAll(source.awaitChanges()));
+        assertEquals(2, index.size());
+        assertEquals(2, devices.getLookupCount());
+
+        source.remove(FIRST);
+        source.remove(SECOND);
+        assertTrue(applyAll(source.awaitChanges()));
+        assertFalse(index.first().isPresent());
+        // Every match was seen arriving, so nothing is left to look for
+        assertEquals(1, devices.getEnumerationCount());
+    }
+
+    @Test
+    void arrivalOfAKnownDeviceRereadsItsDriverVersion() throws InterruptedException {
+        devices.add(ft601(FIRST, "1.3.0.8"));
+        source.start();
+        index.seed();
+        assertEquals("1.3.0.8", index.first().get().getDriverVersion().get());
+
+        // A driver update restarts the device, which arrives again with the new version
+        devices.remove(FIRST);
+        source.arrive(ft601(FIRST, "1.3.0.10"));
+        assertTrue(applyAll(source.awaitChanges()));
+
+        assertEquals(1, index.size());
+        assertEquals("1.3.0.10", index.first().get().getDriverVersion().get());
+        assertEquals(1, devices.getLookupCount());
+        assertEquals(1, devices.getEnumerationCount());
+    }
+
+    @Test
+    void arrivalsOutsideTheEnumeratorAreDroppedWithoutALookup() throws InterruptedException {
+        source.start();
+        index.seed();
+
+        source.arrive(device("HID\\VID_0403&PID_601F\\7&2B3C4D5E&0&0000", FT601_HWID, "1.3.0.10"));
+        source.arrive(device("PCI\\VEN_8086&DEV_A0ED\\3&11583659&0&A0", "PCI\\VEN_8086&DEV_A0ED", "10.0.0.1"));
+        assertFalse(applyAll(source.awaitChanges()));
+
+        assertEquals(0, index.size());
+        assertEquals(0, devices.getLookupCount());
+    }
+
+    @Test
+    void arrivalInScopeThatDoesNotMatchIsNotIndexed() throws InterruptedException {
+        source.start();
+        index.seed();
+
+        source.arrive(device("USB\\VID_0781&PID_5583\\4C530001", "USB\\VID_0781&PID_5583", "10.0.0.1"));
+        assertFalse(applyAll(source.awaitChanges()));
+        assertEquals(0, index.size());
+        assertEquals(1, devices.getLookupCount());
+    }
+
+    @Test
+    void removalOfAnUnknownDeviceChangesNothing() throws InterruptedException {
+        devices.add(ft601(FIRST, "1.3.0.10"));
+        source.start();
+        index.seed();
+
+        source.remove("USB\\VID_046D&PID_C52B\\5&1A2B3C4D&0&1");
+        assertFalse(applyAll(source.awaitChanges()));
+        assertEquals(FIRST, index.first().get().getInstanceId());
+        assertEquals(1, devices.getEnumerationCount());
+    }
+
+    @Test
+    void changesBeforeStartAreNotReported() throws InterruptedException {
+        source.arrive(ft601(FIRST, "1.3.0.10"));
+        source.start();
+        source.remove(FIRST);
+
+        List<DeviceChange> changes = source.awaitChanges();
+        assertEquals(1, changes.size());
+        assertEquals(DeviceChange.Type.REMOVAL, changes.get(0).getType());
+    }
+
+    @Test
+    void closeWakesAWaitingConsumer() {
+        source.start();
+        Thread closer = new Thread(() -> {
+            sleep(50);
+            source.close();
+        });
+        closer.start();
+        assertTimeoutPreemptively(java.time.Duration.ofSeconds(5),
+                () -> assertEquals(Collections.emptyList(), source.awaitChanges()));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private boolean applyAll(List<DeviceChange> changes) {
+        boolean changed = false;
+        for (DeviceChange change : changes) {
+            changed |= index.apply(change);
+        }
+        return changed;
+    }
+
+    private static DeviceRecord ft601(String instanceId, String driverVersion) {
+        return device(instanceId, FT601_HWID, driverVersion);
+    }
+
+    private static DeviceRecord device(String instanceId, String hardwareId, String driverVersion) {
+        return new DeviceRecord(instanceId, Collections.singletonList(hardwareId + "&REV_0001"), null, null,
+                driverVersion);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
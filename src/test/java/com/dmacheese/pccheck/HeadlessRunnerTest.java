@@ -0,0 +1,110 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs headless against simulated systems and checks the exit code and the JSON report.
+ */
+class HeadlessRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void allChecksPassingExitsWithZero() {
+        assertEquals(HeadlessRunner.EXIT_PASS, run(new SimulatedBackend()));
+        String report = report();
+        assertTrue(report.startsWith("{\"version\":" + JsonReportWriter.FORMAT_VERSION
+                + ",\"administrator\":false,\"replay\":"), report);
+        assertTrue(report.endsWith("],\"status\":\"pass\",\"exitCode\":0,\"durationMillis\":"
+                + durationOf(report) + "}\n"), report);
+        assertTrue(report.contains("{\"id\":\"ftdibus\",\"name\":\"FTDIBUS3 Driver\",\"critical\":true,"
+                + "\"status\":\"pass\",\"detail\":\"Installed (1.3.0.10)\",\"durationMillis\":"), report);
+    }
+
+    @Test
+    void failingRecommendedCheckExitsWithOne() {
+        assertEquals(HeadlessRunner.EXIT_WARN, run(new SimulatedBackend().registryOutcomes(1.0, 0)));
+        assertTrue(report().contains("{\"id\":\"uac\",\"name\":\"User Account Control (UAC)\",\"critical\":false,"
+                + "\"status\":\"fail\",\"detail\":\"ON (Please Disable)\",\"durationMillis\":"), report());
+        assertTrue(report().contains("],\"status\":\"warn\",\"exitCode\":1,"), report());
+    }
+
+    @Test
+    void failingCriticalCheckExitsWithTwo() {
+        assertEquals(HeadlessRunner.EXIT_CRITICAL_FAIL, run(new SimulatedBackend().noTarget()));
+        assertTrue(report().contains("\"id\":\"ftdibus\",\"name\":\"FTDIBUS3 Driver\",\"critical\":true,"
+                + "\"status\":\"fail\",\"detail\":\"Device Not Found\""), report());
+        assertTrue(report().contains("],\"status\":\"fail\",\"exitCode\":2,"), report());
+    }
+
+    @Test
+    void timedOutCheckIsReportedAsTimedOut() {
+        // Every key open outlasts the one second deadline, so the rule times out
+        SimulatedBackend simulated = new SimulatedBackend().registryLatency(TimeUnit.SECONDS.toNanos(3), 0);
+        assertEquals(HeadlessRunner.EXIT_WARN, run(simulated, "--only", "uac", "--timeout", "1"));
+        assertTrue(report().contains("\"id\":\"uac\",\"name\":\"User Account Control (UAC)\",\"critical\":false,"
+                + "\"status\":\"timed_out\",\"detail\":\"Timed Out\""), report());
+    }
+
+    @Test
+    void invalidArgumentsExitWithThree() throws Exception {
+        // Argument errors end the process, so they are checked against a separate JVM
+        assertEquals(HeadlessRunner.EXIT_ERROR, exitCodeOf("--headless", "--only", "nosuchcheck"));
+        assertEquals(HeadlessRunner.EXIT_ERROR, exitCodeOf("--headless", "--watch"));
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Runs every check headless. The replay option keeps the run offline, so no cache or history is written.
+     */
+    private int run(SimulatedBackend simulated, String... selection) {
+        String[] args = new String[selection.length + 3];
+        args[0] = "--headless";
+        args[1] = "--replay";
+        args[2] = dir.resolve("run.pcsnap").toString();
+        System.arraycopy(selection, 0, args, 3, selection.length);
+        Backend backend = simulated.build(CheckPlan.loadDefault());
+        try (SystemCheckService service = new SystemCheckService(backend, CheckDefinitions.defaults())) {
+            return new HeadlessRunner(service, new PrintStream(out, true), () -> true)
+                    .run(CommandLineOptions.parse(args));
+        }
+    }
+
+    private String report() {
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String durationOf(String report) {
+        return report.substring(report.lastIndexOf(':') + 1, report.lastIndexOf('}'));
+    }
+
+    private int exitCodeOf(String... args) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String[] command = new String[args.length + 4];
+        command[0] = java;
+        command[1] = "-cp";
+        command[2] = System.getProperty("java.class.path");
+        command[3] = Main.class.getName();
+        System.arraycopy(args, 0, command, 4, args.length);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(dir.resolve("main.log").toFile()).start();
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS), "Main did not exit");
+        return process.exitValue();
+    }
+}
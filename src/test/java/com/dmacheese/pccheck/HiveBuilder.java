@@ -0,0 +1,290 @@
+package com.dmacheese.pccheck;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes small REGF hive files, laying out key nodes, values and subkey lists the way Windows does.
+ * Cells are appended in one hive bin and referenced by the offsets the builder methods return, so a
+ * tree is built bottom-up: values and subkeys first, then the key that lists them.
+ */
+final class HiveBuilder {
+
+    /**
+     * Passed as the subkey list of a key without subkeys.
+     */
+    static final int NO_SUBKEYS = -1;
+
+    static final int REG_SZ = 1;
+    static final int REG_BINARY = 3;
+    static final int REG_DWORD = 4;
+
+    private static final int BASE_BLOCK_SIZE = 4096;
+    private static final int HBIN_HEADER_SIZE = 0x20;
+    private static final int BIG_DATA_SEGMENT_SIZE = 16344;
+    // 2020-01-01T00:00:00Z as a FILETIME
+    static final long LAST_WRITE_TIME = 132223104000000000L;
+
+    private ByteBuffer cells = ByteBuffer.allocate(BASE_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private int next = HBIN_HEADER_SIZE;
+    private int primarySequence = 1;
+    private int secondarySequence = 1;
+    private final Map<Integer, String> keyNames = new HashMap<>();
+    private final Map<Integer, Integer> listCounts = new HashMap<>();
+
+    /**
+     * Adds a key node. Names that fit Latin-1 are stored compressed, like Windows does.
+     */
+    int key(String name, int subkeyList, int... values) {
+        boolean compressed = fitsLatin1(name);
+        byte[] encodedName = encode(name, compressed);
+        int valueList = values.length == 0 ? -1 : offsets(values);
+        int key = allocate(0x4C + encodedName.length);
+        int data = dataOf(key);
+        cells.putShort(data, (short) 0x6B6E);
+        cells.putShort(data + 0x02, (short) (compressed ? 0x0020 : 0));
+        cells.putLong(data + 0x04, LAST_WRITE_TIME);
+        cells.putInt(data + 0x14, subkeyList == NO_SUBKEYS ? 0 : listCounts.get(subkeyList));
+        cells.putInt(data + 0x1C, subkeyList);
+        cells.putInt(data + 0x20, -1);
+        cells.putInt(data + 0x24, values.length);
+        cells.putInt(data + 0x28, valueList);
+        cells.putInt(data + 0x2C, -1);
+        cells.putInt(data + 0x30, -1);
+        cells.putShort(data + 0x48, (short) encodedName.length);
+        put(data + 0x4C, encodedName);
+        keyNames.put(key, name);
+        return key;
+    }
+
+    /**
+     * Adds a fast leaf: each entry holds the first four name characters as a hint.
+     */
+    int lf(int... keys) {
+        int list = list((short) 0x666C, keys.length, 8);
+        for (int i = 0; i < keys.length; i++) {
+            int entry = dataOf(list) + 4 + i * 8;
+            cells.putInt(entry, keys[i]);
+            String name = keyNames.get(keys[i]);
+            for (int c = 0; c < 4 && c < name.length(); c++) {
+                cells.put(entry + 4 + c, (byte) name.charAt(c));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Adds a hash leaf: each entry holds the name hash.
+     */
+    int lh(int... keys) {
+        int list = list((short) 0x686C, keys.length, 8);
+        for (int i = 0; i < keys.length; i++) {
+            int entry = dataOf(list) + 4 + i * 8;
+            cells.putInt(entry, keys[i]);
+            cells.putInt(entry + 4, hash(keyNames.get(keys[i])));
+        }
+        return list;
+    }
+
+    /**
+     * Adds an index leaf: bare key offsets.
+     */
+    int li(int... keys) {
+        int list = list((short) 0x696C, keys.length, 4);
+        for (int i = 0; i < keys.length; i++) {
+            cells.putInt(dataOf(list) + 4 + i * 4, keys[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Adds an index root over other lists.
+     */
+    int ri(int... lists) {
+        int list = list((short) 0x6972, lists.length, 4);
+        int total = 0;
+        for (int i = 0; i < lists.length; i++) {
+            cells.putInt(dataOf(list) + 4 + i * 4, lists[i]);
+            total += listCounts.get(lists[i]);
+        }
+        listCounts.put(list, total);
+        return list;
+    }
+
+    /**
+     * Adds a REG_DWORD value, stored inline in the value record.
+     */
+    int dword(String name, int value) {
+        int record = value(name, REG_DWORD, 4 | 0x80000000);
+        cells.putInt(dataOf(record) + 0x08, value);
+        return record;
+    }
+
+    /**
+     * Adds a REG_SZ value with its terminator.
+     */
+    int string(String name, String value) {
+        return data(name, REG_SZ, (value + "\0").getBytes(StandardCharsets.UTF_16LE));
+    }
+
+    /**
+     * Adds a value of any type; data past one segment is split into a big data record.
+     */
+    int data(String name, int type, byte[] bytes) {
+        int data;
+        if (bytes.length > BIG_DATA_SEGMENT_SIZE) {
+            int count = (bytes.length + BIG_DATA_SEGMENT_SIZE - 1) / BIG_DATA_SEGMENT_SIZE;
+            int[] segments = new int[count];
+            for (int i = 0; i < count; i++) {
+                int from = i * BIG_DATA_SEGMENT_SIZE;
+                int length = Math.min(BIG_DATA_SEGMENT_SIZE, bytes.length - from);
+                segments[i] = allocate(length);
+                cells.position(dataOf(segments[i]));
+                cells.put(bytes, from, length);
+            }
+            int segmentList = offsets(segments);
+            data = allocate(8);
+            cells.putShort(dataOf(data), (short) 0x6264);
+            cells.putShort(dataOf(data) + 2, (short) count);
+            cells.putInt(dataOf(data) + 4, segmentList);
+        } else {
+            data = allocate(bytes.length);
+            put(dataOf(data), bytes);
+        }
+        int record = value(name, type, bytes.length);
+        cells.putInt(dataOf(record) + 0x08, data);
+        return record;
+    }
+
+    /**
+     * Sets the base block's sequence numbers; a hive with an unfinished write has them differ.
+     */
+    HiveBuilder sequence(int primary, int secondary) {
+        this.primarySequence = primary;
+        this.secondarySequence = secondary;
+        return this;
+    }
+
+    /**
+     * Returns the hive file bytes with the given root key.
+     */
+    byte[] build(int rootKey) {
+        cells.putShort(dataOf(rootKey) + 0x02, (short) (cells.getShort(dataOf(rootKey) + 0x02) | 0x0004));
+        int binSize = (next + BASE_BLOCK_SIZE - 1) / BASE_BLOCK_SIZE * BASE_BLOCK_SIZE;
+        ByteBuffer hive = ByteBuffer.allocate(BASE_BLOCK_SIZE + binSize).order(ByteOrder.LITTLE_ENDIAN);
+        hive.put(0, (byte) 'r').put(1, (byte) 'e').put(2, (byte) 'g').put(3, (byte) 'f');
+        hive.putInt(0x04, primarySequence);
+        hive.putInt(0x08, secondarySequence);
+        hive.putLong(0x0C, LAST_WRITE_TIME);
+        hive.putInt(0x14, 1);
+        hive.putInt(0x18, 5);
+        hive.putInt(0x24, rootKey);
+        hive.putInt(0x28, binSize);
+
+        cells.put(0, (byte) 'h').put(1, (byte) 'b').put(2, (byte) 'i').put(3, (byte) 'n');
+        cells.putInt(0x08, binSize);
+        // The rest of the bin is one free cell
+        if (next < binSize) {
+            cells.putInt(next, binSize - next);
+        }
+        hive.position(BASE_BLOCK_SIZE);
+        hive.put(cells.array(), 0, Math.min(binSize, cells.capacity()));
+        return hive.array();
+    }
+
+    /**
+     * Writes the hive to a file and returns it.
+     */
+    Path write(Path file, int rootKey) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, build(rootKey));
+    }
+
+    /**
+     * Computes the hash lh lists store: each upper-cased character, multiplied through by 37.
+     */
+    static int hash(String name) {
+        int hash = 0;
+        for (char c : name.toCharArray()) {
+            hash = 37 * hash + Character.toUpperCase(c);
+        }
+        return hash;
+    }
+
+    // ==================== Helper Methods ====================
+
+    private int value(String name, int type, int size) {
+        boolean compressed = fitsLatin1(name);
+        byte[] encodedName = encode(name, compressed);
+        int record = allocate(0x14 + encodedName.length);
+        int data = dataOf(record);
+        cells.putShort(data, (short) 0x6B76);
+        cells.putShort(data + 0x02, (short) encodedName.length);
+        cells.putInt(data + 0x04, size);
+        cells.putInt(data + 0x0C, type);
+        cells.putShort(data + 0x10, (short) (compressed && !name.isEmpty() ? 0x0001 : 0));
+        put(data + 0x14, encodedName);
+        return record;
+    }
+
+    private int list(short signature, int count, int entrySize) {
+        int list = allocate(4 + count * entrySize);
+        cells.putShort(dataOf(list), signature);
+        cells.putShort(dataOf(list) + 2, (short) count);
+        listCounts.put(list, count);
+        return list;
+    }
+
+    private int offsets(int[] offsets) {
+        int cell = allocate(offsets.length * 4);
+        for (int i = 0; i < offsets.length; i++) {
+            cells.putInt(dataOf(cell) + i * 4, offsets[i]);
+        }
+        return cell;
+    }
+
+    /**
+     * Appends a used cell with room for the given data and returns its offset.
+     */
+    private int allocate(int dataSize) {
+        int size = (4 + dataSize + 7) & ~7;
+        while (next + size > cells.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(cells.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            grown.put(cells.array());
+            cells = grown;
+        }
+        int offset = next;
+        // Used cells store their size negated
+        cells.putInt(offset, -size);
+        next += size;
+        return offset;
+    }
+
+    private static int dataOf(int cell) {
+        return cell + 4;
+    }
+
+    private void put(int position, byte[] bytes) {
+        cells.position(position);
+        cells.put(bytes);
+    }
+
+    private static boolean fitsLatin1(String name) {
+        for (char c : name.toCharArray()) {
+            if (c > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] encode(String name, boolean compressed) {
+        return name.getBytes(compressed ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_16LE);
+    }
+}
@@ -0,0 +1,107 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sweeps directories of offline images whose SYSTEM hives are written by {@link HiveBuilder}.
+ */
+class ImageSweepRunnerTest {
+
+    private static final String HVCI = "Control\\DeviceGuard\\Scenarios\\HypervisorEnforcedCodeIntegrity";
+
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void currentControlSetFollowsSelectCurrent() throws IOException {
+        // HVCI is off in ControlSet001 but on in ControlSet002, which the image boots with
+        writeSystemHive(dir.resolve("image"), 2);
+
+        int exitCode = sweep();
+        String line = lineFor("image");
+        assertTrue(line.contains("\"failed\":{\"hvci\":\"ON (Please Disable)\"}"), line);
+        assertTrue(exitCode == HeadlessRunner.EXIT_WARN || exitCode == HeadlessRunner.EXIT_CRITICAL_FAIL);
+    }
+
+    @Test
+    void missingSelectFallsBackToTheFirstControlSet() throws IOException {
+        writeSystemHive(dir.resolve("image"), 0);
+
+        assertEquals(HeadlessRunner.EXIT_PASS, sweep());
+        assertTrue(lineFor("image").contains("\"failed\":{}"), lineFor("image"));
+    }
+
+    @Test
+    void dirtyHiveIsReportedAndTheOtherImagesStillRun() throws IOException {
+        writeSystemHive(dir.resolve("a"), 1);
+        HiveBuilder dirty = new HiveBuilder().sequence(12, 11);
+        dirty.write(dir.resolve("b").resolve("SYSTEM"), dirty.key("ROOT", HiveBuilder.NO_SUBKEYS));
+        writeSystemHive(dir.resolve("c"), 1);
+
+        assertEquals(HeadlessRunner.EXIT_ERROR, sweep());
+        assertTrue(lineFor("a").contains("\"failed\":{}"), lineFor("a"));
+        assertTrue(lineFor("b").contains("\"status\":\"error\""), lineFor("b"));
+        assertTrue(lineFor("b").contains("Dirty registry hive"), lineFor("b"));
+        assertTrue(lineFor("c").contains("\"failed\":{}"), lineFor("c"));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private int sweep() {
+        CommandLineOptions options = CommandLineOptions.parse("--sweep", dir.toString(), "--only", "hvci");
+        PrintStream stream = new PrintStream(out, true);
+        return new ImageSweepRunner(CheckDefinitions.defaults(), stream).run(options);
+    }
+
+    private String lineFor(String image) {
+        String path = dir.resolve(image).toString().replace("\\", "\\\\");
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith("{\"image\":\"" + path + "\"")) {
+                return line;
+            }
+        }
+        throw new AssertionError("No line for " + image + " in " + out);
+    }
+
+    /**
+     * Writes a SYSTEM hive with HVCI off in ControlSet001 and on in ControlSet002.
+     * A current control set of 0 leaves out the Select key.
+     */
+    private static void writeSystemHive(Path image, int current) throws IOException {
+        HiveBuilder hive = new HiveBuilder();
+        int first = hive.key("ControlSet001", hive.lh(hvciKey(hive, 0)));
+        int second = hive.key("ControlSet002", hive.lh(hvciKey(hive, 1)));
+        int rootKey;
+        if (current == 0) {
+            rootKey = hive.key("ROOT", hive.lf(first, second));
+        } else {
+            int select = hive.key("Select", HiveBuilder.NO_SUBKEYS, hive.dword("Current", current));
+            rootKey = hive.key("ROOT", hive.lf(first, second, select));
+        }
+        hive.write(image.resolve("SYSTEM"), rootKey);
+    }
+
+    /**
+     * Writes the Control\DeviceGuard\Scenarios\HypervisorEnforcedCodeIntegrity chain and returns Control.
+     */
+    private static int hvciKey(HiveBuilder hive, int enabled) {
+        String[] names = HVCI.split("\\\\");
+        int key = hive.key(names[names.length - 1], HiveBuilder.NO_SUBKEYS, hive.dword("Enabled", enabled));
+        for (int i = names.length - 2; i >= 0; i--) {
+            key = hive.key(names[i], hive.lh(key));
+        }
+        return key;
+    }
+}
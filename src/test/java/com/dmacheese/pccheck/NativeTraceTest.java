@@ -0,0 +1,90 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dumps the trace while several threads keep lapping the ring, and checks that no record comes out torn.
+ */
+class NativeTraceTest {
+
+    private static final int WRITERS = 4;
+    // Each writer fills every field of its records with its own number
+    private static final Pattern LINE = Pattern.compile(
+            "\\+ *-?[0-9.]+ \\[\\d+] test\\.writer(\\d)\\(0x(\\d), \"writer(\\d)\"\\) = 0x(\\d) err=(\\d) [0-9.]+ms");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void dumpOnlyWritesWholeRecordsWhileWritersLap() throws Exception {
+        int[] apis = new int[WRITERS];
+        String[] texts = new String[WRITERS];
+        for (int i = 0; i < WRITERS; i++) {
+            apis[i] = NativeTrace.register("test.writer" + i);
+            texts[i] = "writer" + i;
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            int writer = i;
+            Thread thread = new Thread(() -> {
+                while (running.get()) {
+                    NativeTrace.record(apis[writer], texts[writer], writer, writer, writer, writer, writer);
+                }
+            });
+            thread.start();
+            writers.add(thread);
+        }
+
+        int checked = 0;
+        try {
+            for (int round = 0; round < 50; round++) {
+                checked += checkDump(dir.resolve("trace-" + round + ".txt"));
+            }
+        } finally {
+            running.set(false);
+            for (Thread thread : writers) {
+                thread.join();
+            }
+        }
+        assertTrue(checked > 0);
+        assertTrue(NativeTrace.getRecordCount() > NativeTrace.CAPACITY);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static int checkDump(Path file) throws IOException {
+        int written = NativeTrace.dump(file);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        int checked = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            if (!line.contains("test.writer")) {
+                continue;
+            }
+            Matcher matcher = LINE.matcher(line);
+            assertTrue(matcher.matches(), line);
+            String writer = matcher.group(1);
+            for (int group = 2; group <= 5; group++) {
+                assertEquals(writer, matcher.group(group), line);
+            }
+            checked++;
+        }
+        assertEquals(written, lines.size() - 1);
+        return checked;
+    }
+}
@@ -0,0 +1,178 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Reads version resources from small PE images laid out the way a linker writes them.
+ */
+class PeVersionReaderTest {
+
+    private static final String VERSION = "10.0.19041.3636";
+    private static final int RESOURCE_RVA = 0x1000;
+    private static final int FILE_ALIGNMENT = 0x200;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsThePe32PlusVersionResource() {
+        byte[] image = new PeImage(true).build();
+        assertEquals(DriverVersion.parse(VERSION), PeVersionReader.readFileVersion(ByteBuffer.wrap(image)));
+    }
+
+    @Test
+    void readsThePe32VersionResource() {
+        byte[] image = new PeImage(false).build();
+        assertEquals(DriverVersion.parse(VERSION), PeVersionReader.readFileVersion(ByteBuffer.wrap(image)));
+    }
+
+    @Test
+    void readsAFileWhoseResourcesArePagesAfterTheHeaders() throws IOException {
+        PeImage pe = new PeImage(true);
+        pe.rawPointer = 0x5000;
+        Path file = write("far.dll", pe.build());
+        assertEquals(DriverVersion.parse(VERSION), PeVersionReader.readFileVersion(file));
+    }
+
+    @Test
+    void fileCanBeReplacedRightAfterItWasRead() throws IOException {
+        Path file = write("replaced.dll", new PeImage(true).build());
+        PeVersionReader.readFileVersion(file);
+        // Nothing stays mapped, so an updater can swap the file in place
+        Files.delete(file);
+        Files.write(file, new byte[] {1, 2, 3});
+        assertEquals(DriverVersion.INVALID, PeVersionReader.readFileVersion(file));
+    }
+
+    @Test
+    void resourceBeyondTheSectionsRawDataIsNotRead() {
+        // The section claims a large virtual size but only 0x40 bytes are in the file,
+        // so the version entry at 0x48 lives in zero-filled memory, not in the bytes that follow
+        PeImage pe = new PeImage(true);
+        pe.virtualSize = 0x2000;
+        pe.rawSize = 0x40;
+        assertEquals(DriverVersion.INVALID, PeVersionReader.readFileVersion(ByteBuffer.wrap(pe.build())));
+    }
+
+    @Test
+    void truncatedFileHasNoVersion() throws IOException {
+        byte[] image = new PeImage(true).build();
+        Path file = write("truncated.dll", Arrays.copyOf(image, FILE_ALIGNMENT + 0x20));
+        assertEquals(DriverVersion.INVALID, PeVersionReader.readFileVersion(file));
+    }
+
+    @Test
+    void imageWithoutResourcesHasNoVersion() {
+        PeImage pe = new PeImage(true);
+        pe.withResources = false;
+        assertEquals(DriverVersion.INVALID, PeVersionReader.readFileVersion(ByteBuffer.wrap(pe.build())));
+    }
+
+    @Test
+    void fileThatIsNotAPeImageHasNoVersion() throws IOException {
+        Path file = write("notes.txt", "MZ but not really an executable".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(DriverVersion.INVALID, PeVersionReader.readFileVersion(file));
+    }
+
+    @Test
+    @EnabledOnOs(OS.WINDOWS)
+    void readsASystemDll() throws IOException {
+        Path kernel32 = Paths.get(System.getenv("SystemRoot"), "System32", "kernel32.dll");
+        assertNotEquals(DriverVersion.INVALID, PeVersionReader.readFileVersion(kernel32));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Path write(String name, byte[] bytes) throws IOException {
+        return Files.write(dir.resolve(name), bytes);
+    }
+
+    /**
+     * Writes a PE image with one .rsrc section holding a single RT_VERSION resource.
+     */
+    private static final class PeImage {
+        private static final int PE_HEADER = 0x80;
+
+        private final boolean pe32Plus;
+        int rawPointer = FILE_ALIGNMENT;
+        int virtualSize = 0x100;
+        int rawSize = FILE_ALIGNMENT;
+        boolean withResources = true;
+
+        PeImage(boolean pe32Plus) {
+            this.pe32Plus = pe32Plus;
+        }
+
+        byte[] build() {
+            ByteBuffer out = ByteBuffer.allocate(rawPointer + FILE_ALIGNMENT).order(ByteOrder.LITTLE_ENDIAN);
+            out.putShort(0, (short) 0x5A4D);
+            out.putInt(0x3C, PE_HEADER);
+
+            out.putInt(PE_HEADER, 0x00004550);
+            int coffHeader = PE_HEADER + 4;
+            int optionalHeaderSize = pe32Plus ? 240 : 224;
+            out.putShort(coffHeader, (short) (pe32Plus ? 0x8664 : 0x14C));
+            out.putShort(coffHeader + 2, (short) 1);
+            out.putShort(coffHeader + 16, (short) optionalHeaderSize);
+
+            int optionalHeader = coffHeader + 20;
+            out.putShort(optionalHeader, (short) (pe32Plus ? 0x20B : 0x10B));
+            int dataDirectories = optionalHeader + (pe32Plus ? 112 : 96);
+            out.putInt(dataDirectories - 4, 16);
+            if (withResources) {
+                out.putInt(dataDirectories + 2 * 8, RESOURCE_RVA);
+                out.putInt(dataDirectories + 2 * 8 + 4, 0xB4);
+            }
+
+            int section = optionalHeader + optionalHeaderSize;
+            out.position(section);
+            out.put(".rsrc".getBytes(StandardCharsets.US_ASCII));
+            out.putInt(section + 8, virtualSize);
+            out.putInt(section + 12, RESOURCE_RVA);
+            out.putInt(section + 16, rawSize);
+            out.putInt(section + 20, rawPointer);
+
+            // Type directory -> name directory -> language directory -> data entry
+            int rsrc = rawPointer;
+            directory(out, rsrc, 16, 0x80000000 | 0x18);
+            directory(out, rsrc + 0x18, 1, 0x80000000 | 0x30);
+            directory(out, rsrc + 0x30, 0x409, 0x48);
+            out.putInt(rsrc + 0x48, RESOURCE_RVA + 0x58);
+            out.putInt(rsrc + 0x4C, 92);
+
+            // VS_VERSIONINFO: length, value length, type, "VS_VERSION_INFO", padding, VS_FIXEDFILEINFO
+            int info = rsrc + 0x58;
+            out.putShort(info, (short) 92);
+            out.putShort(info + 2, (short) 52);
+            out.position(info + 6);
+            out.put("VS_VERSION_INFO\0".getBytes(StandardCharsets.UTF_16LE));
+            long version = DriverVersion.parse(VERSION);
+            out.putInt(info + 40, 0xFEEF04BD);
+            out.putInt(info + 44, 0x00010000);
+            out.putInt(info + 48, (int) (version >>> 32));
+            out.putInt(info + 52, (int) version);
+            return out.array();
+        }
+
+        private static void directory(ByteBuffer out, int directory, int id, int offsetToData) {
+            out.putShort(directory + 14, (short) 1);
+            out.putInt(directory + 16, id);
+            out.putInt(directory + 20, offsetToData);
+        }
+    }
+}
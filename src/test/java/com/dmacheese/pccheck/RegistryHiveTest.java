@@ -0,0 +1,120 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parses small SYSTEM-like hives written by {@link HiveBuilder}, one per subkey list kind.
+ */
+class RegistryHiveTest {
+
+    @TempDir
+    Path dir;
+
+    private final byte[] blob = new byte[40000];
+    private RegistryHive hive;
+    private int root;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < blob.length; i++) {
+            blob[i] = (byte) (i * 31);
+        }
+        HiveBuilder builder = new HiveBuilder();
+        // Latin-1 names are stored compressed, others as UTF-16
+        int size = builder.key("Größe", HiveBuilder.NO_SUBKEYS);
+        int key = builder.key("Ключ", HiveBuilder.NO_SUBKEYS);
+        int control = builder.key("Control", builder.li(size, key));
+        int enumKey = builder.key("Enum", HiveBuilder.NO_SUBKEYS);
+        int services = builder.key("Services", HiveBuilder.NO_SUBKEYS,
+                builder.string("", "default"),
+                builder.data("Blob", HiveBuilder.REG_BINARY, blob),
+                builder.dword("Значение", 7));
+        // An index root over a hash leaf and an index leaf
+        int controlSet = builder.key("ControlSet001", builder.ri(builder.lh(control, enumKey), builder.li(services)),
+                builder.string("Marker", "one"));
+        int select = builder.key("Select", HiveBuilder.NO_SUBKEYS, builder.dword("Current", 1));
+        int rootKey = builder.key("ROOT", builder.lf(controlSet, select));
+        hive = RegistryHive.open(builder.write(dir.resolve("SYSTEM"), rootKey));
+        root = hive.rootKey();
+    }
+
+    @Test
+    void findsKeysThroughAFastLeaf() {
+        int select = hive.findKey(root, "select");
+        assertNotEquals(RegistryHive.NOT_FOUND, select);
+        assertEquals(1, hive.valueData(hive.findValue(select, "Current")).getInt(0));
+    }
+
+    @Test
+    void findsKeysThroughAnIndexRootOfHashAndIndexLeaves() {
+        assertNotEquals(RegistryHive.NOT_FOUND, hive.findKey(root, "ControlSet001\\CONTROL"));
+        assertNotEquals(RegistryHive.NOT_FOUND, hive.findKey(root, "ControlSet001\\Enum"));
+        assertNotEquals(RegistryHive.NOT_FOUND, hive.findKey(root, "ControlSet001\\services"));
+        assertEquals(RegistryHive.NOT_FOUND, hive.findKey(root, "ControlSet001\\Hardware Profiles"));
+        assertEquals(RegistryHive.NOT_FOUND, hive.findKey(root, "ControlSet002\\Services"));
+    }
+
+    @Test
+    void listsSubkeysAcrossAnIndexRoot() {
+        int controlSet = hive.findKey(root, "ControlSet001");
+        assertEquals(Arrays.asList("Control", "Enum", "Services"), hive.subkeyNames(controlSet));
+        assertEquals(Collections.emptyList(), hive.subkeyNames(hive.findKey(controlSet, "Enum")));
+    }
+
+    @Test
+    void matchesCompressedAndUtf16NamesIgnoringCase() {
+        int control = hive.findKey(root, "ControlSet001\\Control");
+        assertEquals(Arrays.asList("Größe", "Ключ"), hive.subkeyNames(control));
+        assertNotEquals(RegistryHive.NOT_FOUND, hive.findSubkey(control, "GRÖßE"));
+        assertNotEquals(RegistryHive.NOT_FOUND, hive.findSubkey(control, "ключ"));
+        assertEquals(RegistryHive.NOT_FOUND, hive.findSubkey(control, "Grosse"));
+    }
+
+    @Test
+    void readsInlineStringAndDefaultValues() {
+        int services = hive.findKey(root, "ControlSet001\\Services");
+        int dword = hive.findValue(services, "значение");
+        assertEquals(HiveBuilder.REG_DWORD, hive.valueType(dword));
+        assertEquals(7, hive.valueData(dword).getInt(0));
+        assertEquals("default", RegistryHive.decodeString(hive.valueData(hive.findValue(services, ""))));
+        assertEquals("one", RegistryHive.decodeString(
+                hive.valueData(hive.findValue(hive.findKey(root, "ControlSet001"), "MARKER"))));
+        assertEquals(RegistryHive.NOT_FOUND, hive.findValue(services, "Missing"));
+    }
+
+    @Test
+    void joinsBigDataSegments() {
+        int value = hive.findValue(hive.findKey(root, "ControlSet001\\Services"), "Blob");
+        ByteBuffer data = hive.valueData(value);
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        assertArrayEquals(blob, bytes);
+    }
+
+    @Test
+    void readsKeyLastWriteTime() {
+        assertEquals(HiveBuilder.LAST_WRITE_TIME, hive.lastWriteTime(hive.findKey(root, "Select")));
+    }
+
+    @Test
+    void rejectsAHiveWithAnUnfinishedWrite() throws IOException {
+        HiveBuilder builder = new HiveBuilder().sequence(8, 7);
+        Path file = builder.write(dir.resolve("dirty").resolve("SYSTEM"), builder.key("ROOT", HiveBuilder.NO_SUBKEYS));
+        IOException error = assertThrows(IOException.class, () -> RegistryHive.open(file));
+        assertTrue(error.getMessage().startsWith("Dirty registry hive"), error.getMessage());
+    }
+}
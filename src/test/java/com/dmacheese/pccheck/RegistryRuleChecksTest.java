@@ -0,0 +1,82 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the registry rules against an in-memory registry and counts the reads they take.
+ */
+class RegistryRuleChecksTest {
+
+    private static final String DEVICE_GUARD = "SYSTEM\\CurrentControlSet\\Control\\DeviceGuard";
+
+    private CheckPlan plan;
+    private InMemoryRegistryReader registry;
+    private RegistryRuleChecks checks;
+
+    @BeforeEach
+    void setUp() {
+        // The bundled rules, plus a second rule reading the VBS rule's DeviceGuard key
+        List<RegistryRule> rules = new ArrayList<>(CheckPlan.loadDefault().getRules());
+        rules.add(new RegistryRule("vbsRequired", "VBS Required", DEVICE_GUARD, "RequirePlatformSecurityFeatures",
+                0, RegistryRule.PassWhen.EQUAL, "Not Required", "Required"));
+        plan = CheckPlan.of(rules);
+
+        SimulatedBackend simulated = new SimulatedBackend();
+        Backend backend = simulated.build(plan);
+        registry = simulated.getRegistry();
+        checks = RegistryRuleChecks.of(new SystemCheckService(backend, new CheckDefinitions(() -> plan, () -> {
+            throw new IOException("No catalog");
+        })));
+    }
+
+    @Test
+    void allRulesAreReadInOneBatchWithOneOpenPerKey() {
+        for (int i = 0; i < plan.getRules().size(); i++) {
+            assertTrue(checks.evaluate(i).isPassed(), plan.getRules().get(i).getId());
+        }
+
+        assertEquals(1, registry.getBatchCount());
+        // Seven rules over six keys: the two DeviceGuard rules share an open
+        assertEquals(6, registry.getKeyOpenCount());
+        assertEquals(7, registry.getValueReadCount());
+        assertEquals(14, registry.getUnbatchedOpenCount());
+
+        // Later evaluations use the values already read
+        checks.evaluate(plan.indexOf("vbs"));
+        assertEquals(1, registry.getBatchCount());
+    }
+
+    @Test
+    void refreshingASharedKeyRereadsOnlyItsRules() {
+        checks.evaluate(0);
+        registry.putDword(DEVICE_GUARD, "EnableVirtualizationBasedSecurity", 1);
+
+        int[] refreshed = checks.refreshKey(DEVICE_GUARD);
+        assertArrayEquals(new int[] { plan.indexOf("vbs"), plan.indexOf("vbsRequired") }, refreshed);
+        // One more batch, reopening only the refreshed key and reading its two values
+        assertEquals(2, registry.getBatchCount());
+        assertEquals(7, registry.getKeyOpenCount());
+        assertEquals(9, registry.getValueReadCount());
+
+        assertFalse(checks.evaluate(plan.indexOf("vbs")).isPassed());
+        assertTrue(checks.evaluate(plan.indexOf("vbsRequired")).isPassed());
+        assertEquals(2, registry.getBatchCount());
+    }
+
+    @Test
+    void keyOutsideThePlanIsNotRead() {
+        checks.evaluate(0);
+        assertArrayEquals(new int[0], checks.refreshKey("SOFTWARE\\Unrelated"));
+        assertEquals(1, registry.getBatchCount());
+    }
+}
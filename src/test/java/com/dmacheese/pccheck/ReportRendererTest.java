@@ -0,0 +1,99 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Renders result lines and compares the exact bytes written.
+ */
+class ReportRendererTest {
+
+    private static final String NL = System.lineSeparator();
+    private static final String RESET = "\u001B[0m";
+    private static final String RED = "\u001B[91m";
+    private static final String GREEN = "\u001B[92m";
+    private static final String YELLOW = "\u001B[93m";
+
+    @Test
+    void plainPassLine() {
+        assertRendered("[ OK ] DirectX Runtime (Installed)" + NL, PlainRenderer::new,
+                out -> out.result("DirectX Runtime", true, "Installed"));
+    }
+
+    @Test
+    void plainFailLine() {
+        assertRendered("[FAIL] UAC (ON (Please Disable))" + NL, PlainRenderer::new,
+                out -> out.result("UAC", false, "ON (Please Disable)"));
+    }
+
+    @Test
+    void plainCriticalSection() {
+        assertRendered("[ CRITICAL CHECKS ]" + NL + "[FAIL] FTDI FT601 Driver (Device Not Found)" + NL,
+                PlainRenderer::new, ReportRendererTest::criticalSection);
+    }
+
+    @Test
+    void plainLineWithoutMessage() {
+        assertRendered("[ OK ] DirectX Runtime" + NL, PlainRenderer::new,
+                out -> out.result("DirectX Runtime", true, ""));
+    }
+
+    @Test
+    void ansiPassLine() {
+        assertRendered("[" + GREEN + " OK " + RESET + "] DirectX Runtime (" + GREEN + "Installed" + RESET + ")" + NL,
+                AnsiRenderer::new, out -> out.result("DirectX Runtime", true, "Installed"));
+    }
+
+    @Test
+    void ansiFailLine() {
+        assertRendered("[" + RED + "FAIL" + RESET + "] UAC (" + RED + "ON (Please Disable)" + RESET + ")" + NL,
+                AnsiRenderer::new, out -> out.result("UAC", false, "ON (Please Disable)"));
+    }
+
+    @Test
+    void ansiCriticalSection() {
+        assertRendered(YELLOW + "[ CRITICAL CHECKS ]" + NL + RESET
+                + "[" + RED + "FAIL" + RESET + "] FTDI FT601 Driver (" + RED + "Device Not Found" + RESET + ")" + NL,
+                AnsiRenderer::new, ReportRendererTest::criticalSection);
+    }
+
+    @Test
+    void ansiRewritesALineInPlace() {
+        assertRendered("\u001B[3F\u001B[2K[" + GREEN + " OK " + RESET + "] UAC (" + GREEN + "OFF" + RESET + ")" + NL
+                + "\u001B[2E", AnsiRenderer::new, out -> {
+                    AnsiRenderer ansi = (AnsiRenderer) out;
+                    ansi.cursorUp(3).clearLine();
+                    out.result("UAC", true, "OFF");
+                    ansi.cursorDown(2);
+                });
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * The heading and first line of the critical checks, as ConsoleRunner prints them.
+     */
+    private static void criticalSection(ReportRenderer out) {
+        out.color(Utils.Color.Yellow);
+        out.println("[ CRITICAL CHECKS ]");
+        out.color(Utils.Color.Default);
+        out.result("FTDI FT601 Driver", false, "Device Not Found");
+    }
+
+    private static void assertRendered(String expected, Function<PrintStream, ReportRenderer> renderer,
+            Consumer<ReportRenderer> render) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReportRenderer out = renderer.apply(new PrintStream(bytes, false));
+        render.accept(out);
+        out.flush();
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), bytes.toByteArray(),
+                () -> "Rendered: " + new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
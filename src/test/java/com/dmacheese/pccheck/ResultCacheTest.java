@@ -0,0 +1,181 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Serves, invalidates and persists check results by fingerprint.
+ */
+class ResultCacheTest {
+
+    private static final String RULE_KEY = "SOFTWARE\\Policies\\Example";
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    @Test
+    void unchangedFingerprintIsAHit() throws Exception {
+        ResultCache cache = ResultCache.inMemory();
+        Callable<CheckResult> check = cache.cached("directx", () -> 42, this::evaluate);
+
+        assertFalse(check.call().isCached());
+        CheckResult hit = check.call();
+        assertTrue(hit.isCached());
+        assertEquals("Installed", hit.getMessage());
+        assertEquals(1, evaluations.get());
+    }
+
+    @Test
+    void changedFingerprintIsAMiss() throws Exception {
+        ResultCache cache = ResultCache.inMemory();
+        AtomicInteger fingerprint = new AtomicInteger(1);
+        Callable<CheckResult> check = cache.cached("directx", () -> fingerprint.get(), this::evaluate);
+
+        check.call();
+        fingerprint.set(2);
+        assertFalse(check.call().isCached());
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    void unknownOrFailingFingerprintIsNeverCached() throws Exception {
+        ResultCache cache = ResultCache.inMemory();
+        Callable<CheckResult> unknown = cache.cached("directx", () -> Fingerprint.UNKNOWN, this::evaluate);
+        unknown.call();
+        unknown.call();
+        Callable<CheckResult> failing = cache.cached("hvci", () -> {
+            throw new IllegalStateException("Key cannot be opened");
+        }, this::evaluate);
+        failing.call();
+        failing.call();
+        assertEquals(4, evaluations.get());
+    }
+
+    @Test
+    void disabledReadsStillRefreshTheFile() throws Exception {
+        Path file = dir.resolve("results.cache");
+        ResultCache first = ResultCache.load(file, true);
+        first.cached("directx", () -> 42, this::evaluate).call();
+        first.save();
+
+        // --no-cache evaluates again but keeps the file current
+        ResultCache forced = ResultCache.load(file, false);
+        assertFalse(forced.get("directx", 42).isPresent());
+        forced.cached("directx", () -> 42, this::evaluate).call();
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    void savedEntriesAreServedByTheNextRun() throws Exception {
+        Path file = dir.resolve("results.cache");
+        ResultCache first = ResultCache.load(file, true);
+        first.put("ftdibus", 7, CheckResult.of("FTDI Driver", false, "Wrong Version (1.3.0.2)").withValue(0x1030002));
+        first.save();
+        assertEquals("PCCR", new String(Files.readAllBytes(file), 0, 4, StandardCharsets.US_ASCII));
+
+        CheckResult loaded = ResultCache.load(file, true).get("ftdibus", 7).get();
+        assertEquals("FTDI Driver", loaded.getName());
+        assertFalse(loaded.isPassed());
+        assertEquals("Wrong Version (1.3.0.2)", loaded.getMessage());
+        assertEquals(0x1030002, loaded.getValue());
+        assertFalse(ResultCache.load(file, true).get("ftdibus", 8).isPresent());
+    }
+
+    @Test
+    void versionOneFileIsIgnored() throws Exception {
+        Path file = dir.resolve("results.cache");
+        // Version 1 had no observed value per entry
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x50434352);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeUTF("ftdibus");
+            out.writeLong(7);
+            out.writeBoolean(true);
+            out.writeUTF("FTDI Driver");
+            out.writeUTF("Installed (1.3.0.10)");
+        }
+        assertFalse(ResultCache.load(file, true).get("ftdibus", 7).isPresent());
+    }
+
+    @Test
+    void corruptFileYieldsAnEmptyCache() throws Exception {
+        Path file = dir.resolve("results.cache");
+        ResultCache first = ResultCache.load(file, true);
+        first.put("directx", 42, CheckResult.of("DirectX", true, "Installed"));
+        first.put("ftdibus", 7, CheckResult.of("FTDI Driver", true, "Installed"));
+        first.save();
+        byte[] bytes = Files.readAllBytes(file);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(bytes, 0, bytes.length - 3);
+        }
+
+        ResultCache truncated = ResultCache.load(file, true);
+        assertFalse(truncated.get("directx", 42).isPresent());
+        assertFalse(truncated.get("ftdibus", 7).isPresent());
+    }
+
+    @Test
+    void keyCreatedAfterAMissingKeyWasCachedInvalidatesTheEntry() throws Exception {
+        Path file = dir.resolve("results.cache");
+        CheckPlan plan = CheckPlan.of(Collections.singletonList(new RegistryRule("example", "Example", RULE_KEY,
+                "Enabled", 1, RegistryRule.PassWhen.EQUAL, "On", "Off")));
+        InMemoryRegistryReader registry = new InMemoryRegistryReader();
+
+        // A missing key still has a fingerprint, so its failure is cached like any other result
+        assertEquals(RegistryReader.KEY_MISSING, registry.getLastWriteTime(RULE_KEY));
+        assertNotEquals(Fingerprint.UNKNOWN, ruleChecks(registry, plan).fingerprint(0));
+        CheckResult missing = runRule(file, registry, plan);
+        assertFalse(missing.isPassed());
+        assertFalse(missing.isCached());
+        assertTrue(runRule(file, registry, plan).isCached());
+
+        registry.putDword(RULE_KEY, "Enabled", 1);
+        CheckResult created = runRule(file, registry, plan);
+        assertTrue(created.isPassed());
+        assertFalse(created.isCached());
+    }
+
+    // ==================== Helper Methods ====================
+
+    private CheckResult evaluate() {
+        evaluations.incrementAndGet();
+        return CheckResult.of("DirectX", true, "Installed");
+    }
+
+    /**
+     * Runs the rule as a fresh process would: a new service, with the cache read from and saved to the file.
+     */
+    private static CheckResult runRule(Path file, InMemoryRegistryReader registry, CheckPlan plan) throws Exception {
+        ResultCache cache = ResultCache.load(file, true);
+        RegistryRuleChecks checks = ruleChecks(registry, plan);
+        CheckResult result = cache.cached("example", () -> checks.fingerprint(0), () -> checks.evaluate(0)).call();
+        cache.save();
+        return result;
+    }
+
+    private static RegistryRuleChecks ruleChecks(InMemoryRegistryReader registry, CheckPlan plan) {
+        Backend backend = new SimulatedBackend().build(plan).withInputs(registry, new SimulatedDeviceEnumerator(),
+                new InMemoryFileProbe());
+        return RegistryRuleChecks.of(new SystemCheckService(backend, new CheckDefinitions(() -> plan, () -> {
+            throw new IOException("No catalog");
+        })));
+    }
+}
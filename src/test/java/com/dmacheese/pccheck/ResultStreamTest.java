@@ -0,0 +1,117 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publishes results to a fast sink and to one that stalls, like a console nobody reads.
+ */
+class ResultStreamTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> stalledCalls = new CopyOnWriteArrayList<>();
+    private final List<String> fastCalls = new CopyOnWriteArrayList<>();
+    private volatile Thread stalledThread;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void fullQueueDropsResultsForThatSinkOnly() throws Exception {
+        ResultStream stream = new ResultStream();
+        ResultStream.Subscription stalled = stream.subscribe("stalled", 2, this::stall);
+        ResultStream.Subscription fast = stream.subscribe("fast", 8, result -> fastCalls.add(result.getName()));
+
+        stream.publish(result(0));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        // The stalled sink holds result 0; two more fit its queue and the rest are dropped
+        for (int i = 1; i < 6; i++) {
+            stream.publish(result(i));
+        }
+        assertEquals(3, stalled.getDropped());
+        assertEquals(0, fast.getDropped());
+
+        release.countDown();
+        assertTrue(stream.close(5000));
+        assertEquals(3, stalled.getDelivered());
+        assertEquals(6, fast.getDelivered());
+        assertEquals(6, fastCalls.size());
+    }
+
+    @Test
+    void stalledSinkIsAbandonedAtCloseAndWritesNothingMore() throws Exception {
+        ResultStream stream = new ResultStream();
+        ResultStream.Subscription stalled = stream.subscribe("stalled", 4, new ResultSink() {
+            @Override
+            public void onResult(CheckResult result) {
+                stall(result);
+            }
+
+            @Override
+            public void onComplete() {
+                stalledCalls.add("complete");
+            }
+        });
+        ResultStream.Subscription fast = stream.subscribe("fast", 4, result -> fastCalls.add(result.getName()));
+
+        stream.publish(result(0));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        stream.publish(result(1));
+
+        long start = System.nanoTime();
+        assertFalse(stream.close(200));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertTrue(stalled.isAbandoned());
+        assertFalse(fast.isAbandoned());
+        assertEquals(2, fastCalls.size());
+
+        // Once its blocked write returns, the sink is given neither the queued result nor the completion
+        release.countDown();
+        stalledThread.join(5000);
+        assertFalse(stalledThread.isAlive());
+        assertEquals(1, stalledCalls.size());
+        assertEquals("check0", stalledCalls.get(0));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static CheckResult result(int index) {
+        return CheckResult.of("check" + index, true, "OK");
+    }
+
+    /**
+     * Blocks the first call until released, ignoring interrupts like a write to a console that is not read.
+     */
+    private void stall(CheckResult result) {
+        stalledCalls.add(result.getName());
+        if (entered.getCount() == 0) {
+            return;
+        }
+        stalledThread = Thread.currentThread();
+        entered.countDown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                release.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Appends runs to a history file and queries them back.
+ */
+class RunHistoryTest {
+
+    // Offset of the first block's verdict column: the header, then timestamp and driver version columns
+    private static final int FIRST_VERDICT = 4096 + 16 * RunHistory.ROWS_PER_BLOCK;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cachedResultsAreLeftOutOfLatencyPercentiles() throws Exception {
+        Path file = dir.resolve("history.bin");
+        append(file, result("directx", true, 40));
+        append(file, result("directx", true, 20));
+        // Answered from the cache in a few microseconds
+        append(file, result("directx", true, 0).fromCache());
+        append(file, result("directx", true, 0).fromCache());
+
+        RunHistory history = RunHistory.open(file);
+        assertEquals(4, history.getRunCount());
+        assertArrayEquals(new double[] {20, 40}, history.latencyPercentiles("directx", 4, 50, 100));
+        // Still counted as runs of the check
+        assertEquals(CheckResult.Status.PASS, history.getStatus("directx", 3));
+    }
+
+    @Test
+    void onlyCachedRunsHaveNoPercentiles() throws Exception {
+        Path file = dir.resolve("history.bin");
+        append(file, result("directx", true, 0).fromCache());
+
+        double[] millis = RunHistory.open(file).latencyPercentiles("directx", 10, 50);
+        assertTrue(Double.isNaN(millis[0]), Arrays.toString(millis));
+    }
+
+    @Test
+    void statusesAndVerdictsAreStoredAsFixedCodes() throws Exception {
+        Path file = dir.resolve("history.bin");
+        append(file, result("directx", true, 1));
+        // Not critical, so a warning
+        append(file, result("directx", false, 1));
+        append(file, CheckResult.timedOut("DirectX").withTask("directx", true, 1_000_000L));
+
+        RunHistory history = RunHistory.open(file);
+        assertEquals(CheckResult.Status.PASS, history.getStatus("directx", 0));
+        assertEquals(CheckResult.Status.FAIL, history.getStatus("directx", 1));
+        assertEquals(CheckResult.Status.TIMED_OUT, history.getStatus("directx", 2));
+        assertEquals(Verdict.PASS, history.getVerdict(0));
+        assertEquals(Verdict.WARN, history.getVerdict(1));
+        assertEquals(Verdict.FAIL, history.getVerdict(2));
+
+        // Pass, warn and fail are 1, 2 and 3 whatever the enum's order
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer verdicts = ByteBuffer.allocate(3);
+            channel.read(verdicts, FIRST_VERDICT);
+            assertArrayEquals(new byte[] {1, 2, 3}, verdicts.array());
+        }
+    }
+
+    @Test
+    void checksBeyondTheSlotLimitAreReportedNotRecorded() throws Exception {
+        Path file = dir.resolve("history.bin");
+        List<CheckResult> results = new ArrayList<>();
+        for (int i = 0; i <= RunHistory.MAX_CHECKS; i++) {
+            results.add(result("check" + i, true, 1));
+        }
+        assertEquals(Collections.emptyList(), RunHistory.append(file, System.currentTimeMillis(),
+                DriverVersion.INVALID, results.subList(0, RunHistory.MAX_CHECKS)));
+        // Slots are never reused, so a later run's new check still has none
+        assertEquals(Collections.singletonList("check" + RunHistory.MAX_CHECKS), RunHistory.append(file,
+                System.currentTimeMillis(), DriverVersion.INVALID, results));
+
+        RunHistory history = RunHistory.open(file);
+        assertEquals(RunHistory.MAX_CHECKS, history.getCheckIds().size());
+        assertEquals(CheckResult.Status.PASS, history.getStatus("check0", 1));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static CheckResult result(String id, boolean passed, long millis) {
+        return CheckResult.of(id, passed, "").withTask(id, false, millis * 1_000_000L);
+    }
+
+    private static void append(Path file, CheckResult result) throws Exception {
+        RunHistory.append(file, System.currentTimeMillis(), DriverVersion.INVALID,
+                Collections.singletonList(result));
+    }
+}
@@ -0,0 +1,137 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Captures the inputs of a run into a snapshot and replays them.
+ */
+class SnapshotReaderTest {
+
+    private static final String RUNTIMES_KEY = "SOFTWARE\\Microsoft\\VisualStudio\\14.0\\VC\\Runtimes\\x64";
+    private static final String D3DX9 = "C:\\Windows\\System32\\d3dx9_43.dll";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayReproducesTheCapturedRun() throws Exception {
+        CheckPlan plan = CheckPlan.loadDefault();
+        // Failing and missing rules and an FT601 with an old driver, so the replay has failures to reproduce
+        Backend live = new SimulatedBackend().seed(7).registryOutcomes(0.3, 0.2).target(40, "1.3.0.2").build(plan);
+        SnapshotRecorder recorder = new SnapshotRecorder();
+        Backend recorded = live.withInputs(recorder.record(live.getRegistryReader()),
+                recorder.record(live.getDeviceEnumerator()), recorder.record(live.getFileProbe()));
+        List<String> captured = run(recorded, plan);
+        Path file = dir.resolve("run.pcsnap");
+        recorder.write(file);
+
+        SnapshotReader snapshot = SnapshotReader.open(file);
+        Backend replay = live.withInputs(snapshot.registryReader(), snapshot.deviceEnumerator(),
+                snapshot.fileProbe());
+        assertEquals(captured, run(replay, plan));
+        assertTrue(captured.contains("ftdibus FAIL Wrong Version (1.3.0.2, expected 1.3.0.8/1.3.0.10)"),
+                captured.toString());
+        assertTrue(captured.contains("vcRuntimes FAIL Missing"), captured.toString());
+    }
+
+    @Test
+    void namesMatchCaseInsensitivelyInAnyLocale() throws Exception {
+        InMemoryRegistryReader registry = new InMemoryRegistryReader().putDword(RUNTIMES_KEY, "Installed", 1);
+        InMemoryFileProbe files = new InMemoryFileProbe();
+        files.putFile(D3DX9, 1000, DriverVersion.parse("9.29.952.3111"));
+        SnapshotRecorder recorder = new SnapshotRecorder();
+        RegistryQuery query = new RegistryQuery();
+        query.add(RUNTIMES_KEY, "Installed");
+        recorder.record(registry).read(query);
+        recorder.record(registry).getLastWriteTime(RUNTIMES_KEY);
+        recorder.record(files).exists(D3DX9);
+        recorder.record(files).fileVersion(D3DX9);
+        Path file = dir.resolve("run.pcsnap");
+        recorder.write(file);
+
+        // Replayed on a machine whose default locale folds "I" to a dotless "ı"
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            SnapshotReader snapshot = SnapshotReader.open(file);
+            String upperKey = RUNTIMES_KEY.toUpperCase(Locale.ROOT);
+            RegistryQuery upper = new RegistryQuery();
+            int slot = upper.add(upperKey, "INSTALLED");
+            assertTrue(snapshot.registryReader().read(upper).dwordEquals(slot, 1));
+            assertEquals(registry.getLastWriteTime(RUNTIMES_KEY),
+                    snapshot.registryReader().getLastWriteTime(upperKey));
+            String upperFile = D3DX9.toUpperCase(Locale.ROOT);
+            assertTrue(snapshot.fileProbe().exists(upperFile));
+            assertEquals(DriverVersion.parse("9.29.952.3111"), snapshot.fileProbe().fileVersion(upperFile));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void versionOneSnapshotStillReplays() throws Exception {
+        Path file = dir.resolve("v1.pcsnap");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(SnapshotFormat.MAGIC);
+            out.writeInt(1);
+            out.writeByte(SnapshotFormat.TAG_REG_VALUE);
+            SnapshotFormat.writeString(out, RUNTIMES_KEY);
+            SnapshotFormat.writeString(out, "Installed");
+            out.writeByte(RegistryResults.Type.DWORD.ordinal());
+            out.writeInt(1);
+            out.writeByte(SnapshotFormat.TAG_REG_KEY);
+            SnapshotFormat.writeString(out, RUNTIMES_KEY);
+            out.writeLong(5);
+            out.writeByte(SnapshotFormat.TAG_DEVICE);
+            SnapshotFormat.writeString(out, SimulatedBackend.TARGET_INSTANCE_ID);
+            out.writeShort(1);
+            SnapshotFormat.writeString(out, "USB\\VID_0403&PID_601F");
+            SnapshotFormat.writeString(out, null);
+            SnapshotFormat.writeString(out, "FTDI FT601 USB 3.0 Bridge Device");
+            SnapshotFormat.writeString(out, "1.3.0.10");
+            out.writeByte(SnapshotFormat.TAG_END);
+        }
+
+        SnapshotReader snapshot = SnapshotReader.open(file);
+        RegistryQuery query = new RegistryQuery();
+        int slot = query.add(RUNTIMES_KEY, "Installed");
+        assertTrue(snapshot.registryReader().read(query).dwordEquals(slot, 1));
+        assertEquals(5, snapshot.registryReader().getLastWriteTime(RUNTIMES_KEY));
+        DeviceRecord device = snapshot.deviceEnumerator().findByInstanceId(SimulatedBackend.TARGET_INSTANCE_ID).get();
+        assertEquals("1.3.0.10", device.getDriverVersion().get());
+        // Version 1 recorded no files; they are assumed present, without a version
+        assertTrue(snapshot.fileProbe().exists(D3DX9));
+        assertEquals(DriverVersion.INVALID, snapshot.fileProbe().fileVersion(D3DX9));
+        assertFalse(snapshot.deviceEnumerator().findByInstanceId("USB\\VID_046D&PID_C52B\\1").isPresent());
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Runs every check and describes each result as "id STATUS message".
+     */
+    private static List<String> run(Backend backend, CheckPlan plan) throws Exception {
+        SystemCheckService service = new SystemCheckService(backend, plan, DeviceCatalog.loadDefault());
+        List<String> lines = new ArrayList<>();
+        try (CheckExecutor executor = new CheckExecutor(CheckExecutor.DEFAULT_TIMEOUT_MILLIS)) {
+            for (CheckResult result : executor.runAll(service.createTasks(ResultCache.disabled(),
+                    CheckSelection.ALL), result -> {
+                    })) {
+                lines.add(result.getId() + " " + result.getStatus() + " " + result.getMessage());
+            }
+        }
+        return lines;
+    }
+}
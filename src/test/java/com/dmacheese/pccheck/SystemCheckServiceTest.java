@@ -0,0 +1,57 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Selects and builds checks whose definitions load on first use.
+ */
+class SystemCheckServiceTest {
+
+    // Fails the test if the device catalog is ever loaded
+    private final CheckDefinitions noCatalog = new CheckDefinitions(() -> CheckPlan.loadDefault(), () -> {
+        throw new IOException("catalog.properties not found");
+    });
+
+    @Test
+    void selectingDirectXNeverLoadsTheCatalog() throws Exception {
+        SystemCheckService service = new SystemCheckService(backend(), noCatalog);
+        Map<String, String> checks = service.selectChecks(CheckSelection.only(SystemCheckService.CHECK_DIRECTX));
+        assertEquals(Collections.singletonMap(SystemCheckService.CHECK_DIRECTX, DirectXCheck.NAME), checks);
+
+        List<CheckExecutor.Task> tasks = service.createTasks(ResultCache.disabled(),
+                CheckSelection.only(SystemCheckService.CHECK_DIRECTX));
+        assertEquals(1, tasks.size());
+        assertEquals(SystemCheckService.CHECK_DIRECTX, tasks.get(0).getId());
+        assertTrue(tasks.get(0).getCheck().call().isPassed());
+    }
+
+    @Test
+    void selectingTheDeviceCheckReportsAnUnreadableCatalog() {
+        SystemCheckService service = new SystemCheckService(backend(), noCatalog);
+        UncheckedIOException error = assertThrows(UncheckedIOException.class,
+                () -> service.selectChecks(CheckSelection.ALL));
+        assertEquals("catalog.properties not found", error.getMessage());
+    }
+
+    @Test
+    void unknownCheckIsRejected() {
+        SystemCheckService service = new SystemCheckService(backend(), noCatalog);
+        assertThrows(IllegalArgumentException.class, () -> service.selectChecks(CheckSelection.only("nope")));
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static Backend backend() {
+        return new SimulatedBackend().build(CheckPlan.loadDefault());
+    }
+}
@@ -0,0 +1,140 @@
+package com.dmacheese.pccheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires registry key changes at a running watch mode and checks what it re-reads and redraws.
+ */
+class WatchRunnerTest {
+
+    private static final String NL = System.lineSeparator();
+    private static final String RESET = "\u001B[0m";
+    private static final String RED = "\u001B[91m";
+    private static final String UAC_KEY = "SOFTWARE\\Microsoft\\Windows\\CurrentVersion\\Policies\\System";
+    private static final String DEVICE_GUARD = "SYSTEM\\CurrentControlSet\\Control\\DeviceGuard";
+
+    private final SimulatedRegistryChangeSource changeSource = new SimulatedRegistryChangeSource();
+    private InMemoryRegistryReader registry;
+    private SimulatedConsoleBackend console;
+    private WatchRunner watch;
+    private Thread thread;
+
+    @BeforeEach
+    void setUp() {
+        CheckPlan plan = CheckPlan.loadDefault();
+        SimulatedBackend simulated = new SimulatedBackend().terminal(true);
+        Backend backend = simulated.build(plan);
+        registry = simulated.getRegistry();
+        console = simulated.getConsole();
+        watch = new WatchRunner(new SystemCheckService(backend, plan, DeviceCatalog.loadDefault()), changeSource,
+                null, console);
+        thread = new Thread(() -> watch.run(CommandLineOptions.parse("--watch")), "watch-under-test");
+        thread.setDaemon(true);
+        thread.start();
+        // Changes fired before the keys are watched would be dropped
+        await(() -> !changeSource.getWatchedKeys().isEmpty());
+        console.clearOutput();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        changeSource.close();
+        thread.join(5000);
+    }
+
+    @Test
+    void changedKeyRedrawsOnlyItsRuleLine() {
+        List<CheckResult> before = watch.getResults();
+        int line = indexOf(before, "uac");
+        int batches = registry.getBatchCount();
+        int opens = registry.getKeyOpenCount();
+        int reads = registry.getValueReadCount();
+
+        registry.putDword(UAC_KEY, "EnableLUA", 1);
+        changeSource.fire(UAC_KEY);
+        await(() -> console.getOutput().contains("1 result(s) changed"));
+
+        // Only the UAC key is reopened and only its rule's value read
+        assertEquals(batches + 1, registry.getBatchCount());
+        assertEquals(opens + 1, registry.getKeyOpenCount());
+        assertEquals(reads + 1, registry.getValueReadCount());
+
+        List<CheckResult> after = watch.getResults();
+        for (int i = 0; i < before.size(); i++) {
+            if (i != line) {
+                assertEquals(before.get(i).getMessage(), after.get(i).getMessage(), before.get(i).getId());
+            }
+        }
+        CheckResult uac = after.get(line);
+        assertEquals("uac", uac.getId());
+        assertFalse(uac.isPassed());
+        assertFalse(uac.isCritical());
+
+        // The UAC line is rewritten in place, then the status line; no other result line is drawn
+        int linesUp = before.size() - line + 2;
+        String output = console.getOutput();
+        assertTrue(output.startsWith("\u001B[" + linesUp + "F\u001B[2K[" + RED + "FAIL" + RESET
+                + "] User Account Control (UAC) (" + RED + "ON (Please Disable)" + RESET + ")" + NL
+                + "\u001B[" + (linesUp - 1) + "E\u001B[1F\u001B[2K["), output);
+        assertEquals(2, occurrences(output, "\u001B[2K"), output);
+        assertTrue(output.contains("WARN" + RESET + " - 1 result(s) changed"), output);
+    }
+
+    @Test
+    void unchangedOutcomeRedrawsOnlyTheStatusLine() {
+        int opens = registry.getKeyOpenCount();
+
+        changeSource.fire(DEVICE_GUARD);
+        await(() -> console.getOutput().contains("no result changed"));
+
+        assertEquals(opens + 1, registry.getKeyOpenCount());
+        String output = console.getOutput();
+        assertTrue(output.startsWith("\u001B[1F\u001B[2K["), output);
+        assertEquals(1, occurrences(output, "\u001B[2K"), output);
+        assertTrue(output.contains("PASS" + RESET + " - no result changed"), output);
+    }
+
+    // ==================== Helper Methods ====================
+
+    private static int indexOf(List<CheckResult> results, String id) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No result for " + id);
+    }
+
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Watch mode did not get there in time");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}